@@ -0,0 +1,114 @@
+package me.coley.recaf.benchmark;
+
+import me.coley.recaf.control.Controller;
+import me.coley.recaf.parse.bytecode.Disassembler;
+import me.coley.recaf.parse.bytecode.MethodAssembler;
+import me.coley.recaf.parse.bytecode.Parse;
+import me.coley.recaf.parse.bytecode.ParseResult;
+import me.coley.recaf.parse.bytecode.ast.RootAST;
+import me.coley.recaf.parse.bytecode.exception.AssemblerException;
+import me.coley.recaf.workspace.JarResource;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static me.coley.recaf.util.TestUtils.*;
+
+/**
+ * Measures the round trip of the bytecode editor: disassembling methods, parsing the disassembly and
+ * assembling it again, for every method of a jar.
+ *
+ * @author Matt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AssemblerBenchmark {
+	@Param({"calc.jar", "inherit.jar", "calls.jar"})
+	public String jar;
+	@Param({"true", "false"})
+	public boolean verify;
+	private Controller controller;
+	private final List<String> owners = new ArrayList<>();
+	private final List<MethodNode> methods = new ArrayList<>();
+	private final List<String> disassembled = new ArrayList<>();
+	private final List<ParseResult<RootAST>> parsed = new ArrayList<>();
+
+	/**
+	 * Collect the methods of the jar that survive the round trip.
+	 *
+	 * @throws Exception
+	 * 		When the jar cannot be loaded.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		controller = setupController(new JarResource(BenchmarkFixtures.jar(jar)));
+		controller.config().assembler().verify = verify;
+		for (String name : new TreeSet<>(controller.getWorkspace().getPrimaryClassNames())) {
+			ClassNode node = new ClassNode();
+			controller.getWorkspace().getClassReader(name).accept(node, ClassReader.SKIP_FRAMES);
+			for (MethodNode method : node.methods) {
+				try {
+					String text = new Disassembler().disassemble(method);
+					ParseResult<RootAST> result = Parse.parse(text);
+					new MethodAssembler(name, controller).compile(result);
+					owners.add(name);
+					methods.add(method);
+					disassembled.add(text);
+					parsed.add(result);
+				} catch (Exception ex) {
+					// Not every method survives the round trip, those are left out
+				}
+			}
+		}
+	}
+
+	/**
+	 * Release the controller.
+	 */
+	@TearDown
+	public void teardown() {
+		removeController();
+	}
+
+	/**
+	 * @param blackhole
+	 * 		Sink for disassembled text.
+	 */
+	@Benchmark
+	public void disassemble(Blackhole blackhole) {
+		for (MethodNode method : methods)
+			blackhole.consume(new Disassembler().disassemble(method));
+	}
+
+	/**
+	 * @param blackhole
+	 * 		Sink for parse results.
+	 */
+	@Benchmark
+	public void parse(Blackhole blackhole) {
+		for (String text : disassembled)
+			blackhole.consume(Parse.parse(text));
+	}
+
+	/**
+	 * @param blackhole
+	 * 		Sink for assembled methods.
+	 *
+	 * @throws AssemblerException
+	 * 		Not expected, only methods that assembled during setup are included.
+	 */
+	@Benchmark
+	public void compile(Blackhole blackhole) throws AssemblerException {
+		for (int i = 0; i < parsed.size(); i++)
+			blackhole.consume(new MethodAssembler(owners.get(i), controller).compile(parsed.get(i)));
+	}
+}
@@ -0,0 +1,128 @@
+package me.coley.recaf.benchmark;
+
+import me.coley.recaf.Base;
+import me.coley.recaf.command.impl.Export;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Inputs shared by the benchmarks. Jars are either taken from the test resources or generated.
+ *
+ * @author Matt
+ */
+public final class BenchmarkFixtures {
+	/**
+	 * Name of the generated jar, see {@link #generateJar(int)}.
+	 * Its class count is set by the {@code recaf.benchmark.classes} system property.
+	 */
+	public static final String GENERATED = "generated";
+	private static final int CHAIN_LENGTH = 16;
+	private static final int METHODS = 8;
+	private static final int FIELDS = 4;
+	private static Path generated;
+
+	private BenchmarkFixtures() {}
+
+	/**
+	 * @param name
+	 * 		Name of a jar in the test resources, or {@link #GENERATED}.
+	 *
+	 * @return Path to the jar.
+	 *
+	 * @throws IOException
+	 * 		When the jar cannot be found or generated.
+	 */
+	public static synchronized Path jar(String name) throws IOException {
+		if (!GENERATED.equals(name))
+			return Base.getClasspathFile(name);
+		if (generated == null)
+			generated = generateJar(Integer.getInteger("recaf.benchmark.classes", 2000));
+		return generated;
+	}
+
+	/**
+	 * Generate a jar resembling a large application. Classes form inheritance chains, have fields and have
+	 * methods with loops, constants and calls into other classes.
+	 *
+	 * @param classes
+	 * 		Number of classes to generate.
+	 *
+	 * @return Path to the generated jar, deleted on exit.
+	 *
+	 * @throws IOException
+	 * 		When the jar cannot be written.
+	 */
+	public static Path generateJar(int classes) throws IOException {
+		Map<String, byte[]> content = new TreeMap<>();
+		for (int i = 0; i < classes; i++)
+			content.put(className(i) + ".class", generateClass(i, classes));
+		File file = File.createTempFile("recaf-benchmark", ".jar");
+		file.deleteOnExit();
+		Export.writeArchive(true, file, content);
+		return file.toPath();
+	}
+
+	private static byte[] generateClass(int index, int classes) {
+		String name = className(index);
+		String parent = index % CHAIN_LENGTH == 0 ? "java/lang/Object" : className(index - 1);
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		cw.visit(V1_8, ACC_PUBLIC | ACC_SUPER, name, null, parent, null);
+		for (int f = 0; f < FIELDS; f++)
+			cw.visitField(ACC_PRIVATE, "field" + f, f % 2 == 0 ? "I" : "Ljava/lang/String;", null, null)
+					.visitEnd();
+		MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		init.visitCode();
+		init.visitVarInsn(ALOAD, 0);
+		init.visitMethodInsn(INVOKESPECIAL, parent, "<init>", "()V", false);
+		init.visitInsn(RETURN);
+		init.visitMaxs(0, 0);
+		init.visitEnd();
+		for (int m = 0; m < METHODS; m++) {
+			// Each method loops over calls to a method in another class
+			String callee = className((index * 31 + m * 7 + 1) % classes);
+			MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "compute" + m, "(I)I", null, null);
+			mv.visitCode();
+			Label loop = new Label();
+			Label end = new Label();
+			mv.visitInsn(ICONST_0);
+			mv.visitVarInsn(ISTORE, 1);
+			mv.visitInsn(ICONST_0);
+			mv.visitVarInsn(ISTORE, 2);
+			mv.visitLabel(loop);
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitVarInsn(ILOAD, 0);
+			mv.visitJumpInsn(IF_ICMPGE, end);
+			mv.visitVarInsn(ILOAD, 1);
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitMethodInsn(INVOKESTATIC, callee, "compute" + ((m + 1) % METHODS), "(I)I", false);
+			mv.visitLdcInsn(index * METHODS + m);
+			mv.visitInsn(IXOR);
+			mv.visitInsn(IADD);
+			mv.visitVarInsn(ISTORE, 1);
+			mv.visitIincInsn(2, 1);
+			mv.visitJumpInsn(GOTO, loop);
+			mv.visitLabel(end);
+			mv.visitVarInsn(ILOAD, 1);
+			mv.visitLdcInsn("Generated " + name + "." + m);
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "length", "()I", false);
+			mv.visitInsn(IADD);
+			mv.visitInsn(IRETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static String className(int index) {
+		return "gen/p" + (index / 100) + "/Class" + index;
+	}
+}
@@ -0,0 +1,64 @@
+package me.coley.recaf.benchmark;
+
+import me.coley.recaf.control.Controller;
+import me.coley.recaf.decompile.DecompileImpl;
+import me.coley.recaf.decompile.Decompiler;
+import me.coley.recaf.workspace.JarResource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static me.coley.recaf.util.TestUtils.*;
+
+/**
+ * Measures decompiling every class of a jar with each decompiler. The decompile cache is bypassed.
+ *
+ * @author Matt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DecompileBenchmark {
+	@Param({"CFR", "FERNFLOWER", "PROCYON"})
+	public DecompileImpl impl;
+	@Param({"calc.jar", "inherit.jar", "calls.jar"})
+	public String jar;
+	private Decompiler<?> decompiler;
+	private List<String> names;
+
+	/**
+	 * Load the jar and create the decompiler.
+	 *
+	 * @throws Exception
+	 * 		When the jar cannot be loaded.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		Controller controller = setupController(new JarResource(BenchmarkFixtures.jar(jar)));
+		decompiler = impl.create(controller);
+		names = new ArrayList<>(new TreeSet<>(controller.getWorkspace().getPrimaryClassNames()));
+	}
+
+	/**
+	 * Release the controller.
+	 */
+	@TearDown
+	public void teardown() {
+		removeController();
+	}
+
+	/**
+	 * @param blackhole
+	 * 		Sink for decompiled text.
+	 */
+	@Benchmark
+	public void decompile(Blackhole blackhole) {
+		for (String name : names)
+			blackhole.consume(decompiler.decompile(name));
+	}
+}
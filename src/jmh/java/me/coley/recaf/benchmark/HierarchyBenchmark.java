@@ -0,0 +1,97 @@
+package me.coley.recaf.benchmark;
+
+import me.coley.recaf.graph.inheritance.HierarchyGraph;
+import me.coley.recaf.mapping.Mappings;
+import me.coley.recaf.workspace.JarResource;
+import me.coley.recaf.workspace.Workspace;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures hierarchy lookups and remapping every class of a jar, which computes frames and therefore
+ * looks up common parents for most classes.
+ *
+ * @author Matt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HierarchyBenchmark {
+	private static final int MAX_LOOKUP_CLASSES = 200;
+	@Param({"calc.jar", "inherit.jar", "calls.jar", BenchmarkFixtures.GENERATED})
+	public String jar;
+	private Path path;
+	private HierarchyGraph graph;
+	private List<String> names;
+
+	/**
+	 * Load the jar used by all benchmarks of the trial.
+	 *
+	 * @throws Exception
+	 * 		When the jar cannot be loaded.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		path = BenchmarkFixtures.jar(jar);
+		Workspace workspace = new Workspace(new JarResource(path));
+		graph = workspace.getHierarchyGraph();
+		names = new ArrayList<>(new TreeSet<>(workspace.getPrimaryClassNames()));
+		if (names.size() > MAX_LOOKUP_CLASSES)
+			names = names.subList(0, MAX_LOOKUP_CLASSES);
+	}
+
+	/**
+	 * @param blackhole
+	 * 		Sink for lookup results.
+	 */
+	@Benchmark
+	public void getCommon(Blackhole blackhole) {
+		for (String first : names)
+			for (String second : names)
+				blackhole.consume(graph.getCommon(first, second));
+	}
+
+	/**
+	 * @param state
+	 * 		Fresh workspace and mappings renaming every class.
+	 *
+	 * @return Remapped classes.
+	 */
+	@Benchmark
+	public Map<String, byte[]> remap(RemapState state) {
+		return state.mappings.accept(state.workspace.getPrimary());
+	}
+
+	/**
+	 * Remapping changes the workspace, so each remap gets a fresh one.
+	 */
+	@State(Scope.Thread)
+	public static class RemapState {
+		private Workspace workspace;
+		private Mappings mappings;
+
+		/**
+		 * @param benchmark
+		 * 		Benchmark state holding the jar to load.
+		 *
+		 * @throws Exception
+		 * 		When the jar cannot be loaded.
+		 */
+		@Setup(Level.Invocation)
+		public void setup(HierarchyBenchmark benchmark) throws Exception {
+			workspace = new Workspace(new JarResource(benchmark.path));
+			Map<String, String> mapping = new HashMap<>();
+			for (String name : workspace.getPrimaryClassNames())
+				mapping.put(name, name + "Renamed");
+			mappings = new Mappings(workspace);
+			mappings.setMappings(mapping);
+		}
+	}
+}
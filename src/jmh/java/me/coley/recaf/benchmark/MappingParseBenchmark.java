@@ -0,0 +1,171 @@
+package me.coley.recaf.benchmark;
+
+import me.coley.recaf.mapping.MappingImpl;
+import me.coley.recaf.workspace.JarResource;
+import me.coley.recaf.workspace.Workspace;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a large mappings file of each format. Run with {@code -prof gc} to compare allocations.
+ * The number of classes in the file is set by the {@code recaf.benchmark.mappings} system property.
+ *
+ * @author Matt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MappingParseBenchmark {
+	private static final int FIELDS = 4;
+	private static final int METHODS = 8;
+	@Param({"SIMPLE", "ENIGMA", "PROGUARD", "SRG", "TSRG", "TINY", "TINY2", "JADX"})
+	public MappingImpl format;
+	private Workspace workspace;
+	private Path path;
+
+	/**
+	 * Write the mappings file of the format.
+	 *
+	 * @throws Exception
+	 * 		When the file cannot be written.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		workspace = new Workspace(new JarResource(BenchmarkFixtures.jar("inherit.jar")));
+		File file = File.createTempFile("recaf-benchmark-mappings", ".txt");
+		file.deleteOnExit();
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), StandardCharsets.UTF_8)))) {
+			writeMappings(out, Integer.getInteger("recaf.benchmark.mappings", 20_000));
+		}
+		path = file.toPath();
+	}
+
+	/**
+	 * @return Parsed mappings.
+	 *
+	 * @throws Exception
+	 * 		When the file cannot be read.
+	 */
+	@Benchmark
+	public Map<String, String> parse() throws Exception {
+		return format.create(path, workspace).getMappings();
+	}
+
+	private void writeMappings(PrintWriter out, int classes) {
+		if (format == MappingImpl.TINY)
+			out.print("v1\tofficial\tnamed\n");
+		else if (format == MappingImpl.TINY2)
+			out.print("tiny\t2\t0\tofficial\tintermediary\tnamed\n");
+		for (int i = 0; i < classes; i++) {
+			String obf = "a/" + Integer.toString(i, Character.MAX_RADIX);
+			String named = "net/example/p" + (i / 100) + "/Type" + i;
+			writeClass(out, obf, named, i);
+			for (int f = 0; f < FIELDS; f++)
+				writeField(out, obf, named, "f" + f, "field" + f + "Of" + i);
+			for (int m = 0; m < METHODS; m++)
+				writeMethod(out, obf, named, "m" + m, "method" + m + "Of" + i);
+		}
+	}
+
+	private void writeClass(PrintWriter out, String obf, String named, int index) {
+		switch(format) {
+			case SIMPLE:
+			case TSRG:
+				out.print(obf + " " + named + "\n");
+				break;
+			case ENIGMA:
+				out.print("CLASS " + obf + " " + named + "\n");
+				break;
+			case PROGUARD:
+				// Proguard goes from the clean name to the obfuscated name
+				out.print(named.replace('/', '.') + " -> " + obf.replace('/', '.') + ":\n");
+				break;
+			case SRG:
+				out.print("CL: " + obf + " " + named + "\n");
+				break;
+			case TINY:
+				out.print("CLASS\t" + obf + "\t" + named + "\n");
+				break;
+			case TINY2:
+				out.print("c\t" + obf + "\tintermediary/class_" + index + "\t" + named + "\n");
+				break;
+			case JADX:
+				out.print("c " + obf.replace('/', '.') + " = " + named.substring(named.lastIndexOf('/') + 1) + "\n");
+				break;
+			default:
+				throw new IllegalStateException("Unsupported format: " + format);
+		}
+	}
+
+	private void writeField(PrintWriter out, String obf, String named, String name, String renamed) {
+		switch(format) {
+			case SIMPLE:
+				out.print(obf + "." + name + " I " + renamed + "\n");
+				break;
+			case TSRG:
+				out.print("\t" + name + " " + renamed + "\n");
+				break;
+			case ENIGMA:
+				out.print("\tFIELD " + name + " " + renamed + " I\n");
+				break;
+			case PROGUARD:
+				out.print("    int " + renamed + " -> " + name + "\n");
+				break;
+			case SRG:
+				out.print("FD: " + obf + "/" + name + " " + named + "/" + renamed + "\n");
+				break;
+			case TINY:
+				out.print("FIELD\t" + obf + "\tI\t" + name + "\t" + renamed + "\n");
+				break;
+			case TINY2:
+				out.print("\tf\tI\t" + name + "\tfield_" + renamed.hashCode() + "\t" + renamed + "\n");
+				break;
+			case JADX:
+				out.print("f " + obf.replace('/', '.') + "." + name + ":I = " + renamed + "\n");
+				break;
+			default:
+				throw new IllegalStateException("Unsupported format: " + format);
+		}
+	}
+
+	private void writeMethod(PrintWriter out, String obf, String named, String name, String renamed) {
+		String desc = "(La/0;I)I";
+		switch(format) {
+			case SIMPLE:
+				out.print(obf + "." + name + desc + " " + renamed + "\n");
+				break;
+			case TSRG:
+				out.print("\t" + name + " " + desc + " " + renamed + "\n");
+				break;
+			case ENIGMA:
+				out.print("\tMETHOD " + name + " " + renamed + " " + desc + "\n");
+				break;
+			case PROGUARD:
+				out.print("    12:34:int " + renamed + "(net.example.p0.Type0,int) -> " + name + "\n");
+				break;
+			case SRG:
+				out.print("MD: " + obf + "/" + name + " " + desc + " " + named + "/" + renamed + " " + desc + "\n");
+				break;
+			case TINY:
+				out.print("METHOD\t" + obf + "\t" + desc + "\t" + name + "\t" + renamed + "\n");
+				break;
+			case TINY2:
+				out.print("\tm\t" + desc + "\t" + name + "\tmethod_" + renamed.hashCode() + "\t" + renamed + "\n");
+				break;
+			case JADX:
+				out.print("m " + obf.replace('/', '.') + "." + name + desc + " = " + renamed + "\n");
+				break;
+			default:
+				throw new IllegalStateException("Unsupported format: " + format);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package me.coley.recaf.benchmark;
+
+import me.coley.recaf.decompile.FixupRule;
+import me.coley.recaf.decompile.FixupRules;
+import me.coley.recaf.decompile.PostProcessor;
+import me.coley.recaf.util.EscapeUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link PostProcessor} against the chain of full text replacements and the separate unicode
+ * unescaping pass that CFR output went through before, on output of a large generated class.
+ *
+ * @author Matt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PostProcessBenchmark {
+	@Param({"20000"})
+	public int lines;
+	private String text;
+	private List<FixupRule> rules;
+
+	/**
+	 * Generate the output to process.
+	 */
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder("/*\n * Decompiled with CFR 0.150.\n */\npackage gen;\n\n");
+		sb.append("public class Generated {\n");
+		Random random = new Random(0);
+		for (int i = 0; i < lines; i++) {
+			switch(random.nextInt(5)) {
+				case 0:
+					sb.append("    public /* synthetic */ void access$").append(i).append("() {\n");
+					break;
+				case 1:
+					sb.append("        String s").append(i).append(" = \"\\u0048ello \\u00e9\";\n");
+					break;
+				case 2:
+					sb.append("    public /* bridge */ Object get").append(i).append("() { return null; }\n");
+					break;
+				default:
+					sb.append("        this.field").append(i).append(" = this.compute(").append(i)
+							.append(", Generated.CONSTANT);\n");
+					break;
+			}
+		}
+		text = sb.append("}\n").toString();
+		rules = Arrays.asList(
+				FixupRules.stripHeader("/*\n * Decompiled with CFR", "*/"),
+				FixupRules.replace("/* synthetic */ ", ""),
+				FixupRules.replace("/* bridge */ ", ""),
+				FixupRules.replace("/* enum */ ", ""),
+				FixupRules.replace(" - consider using --renameillegalidents true",
+						" - recommend switching to table mode"),
+				FixupRules.unescapeUnicode());
+		if (!replaceChain().equals(postProcessor()))
+			throw new IllegalStateException("Replacement chain and post-processor disagree");
+	}
+
+	/**
+	 * @return Processed text.
+	 */
+	@Benchmark
+	public String replaceChain() {
+		String value = text;
+		if (value.startsWith("/*\n * Decompiled with CFR"))
+			value = value.substring(value.indexOf("*/") + 3);
+		value = value.replace("/* synthetic */ ", "");
+		value = value.replace("/* bridge */ ", "");
+		value = value.replace("/* enum */ ", "");
+		value = value.replace(" - consider using --renameillegalidents true", " - recommend switching to table mode");
+		return EscapeUtil.unescapeUnicode(value);
+	}
+
+	/**
+	 * @return Processed text.
+	 */
+	@Benchmark
+	public String postProcessor() {
+		return PostProcessor.process(text, rules);
+	}
+}
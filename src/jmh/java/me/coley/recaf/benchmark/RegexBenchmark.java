@@ -0,0 +1,64 @@
+package me.coley.recaf.benchmark;
+
+import jregex.Pattern;
+import me.coley.recaf.search.StringMatchMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link StringMatchMode#REGEX} against compiling the pattern for every
+ * match, which is what each match did before patterns were cached.
+ *
+ * @author Matt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RegexBenchmark {
+	private static final int TEXTS = 20_000;
+	@Param({"java/util/\\w+Map"})
+	public String pattern;
+	private List<String> texts;
+
+	/**
+	 * Generate the texts to match against.
+	 */
+	@Setup
+	public void setup() {
+		String[] parts = { "java/util/HashMap", "java/lang/String", "Lcalc/Expression;", "toString",
+				"(Ljava/lang/Object;)Z", "java/util/concurrent/ConcurrentHashMap", "Invalid input: " };
+		Random random = new Random(0);
+		texts = new ArrayList<>(TEXTS);
+		for (int i = 0; i < TEXTS; i++)
+			texts.add(parts[random.nextInt(parts.length)] + i);
+	}
+
+	/**
+	 * @return Number of matches.
+	 */
+	@Benchmark
+	public int compilePerMatch() {
+		int matches = 0;
+		for (String text : texts)
+			if (new Pattern(pattern).matcher(text).find())
+				matches++;
+		return matches;
+	}
+
+	/**
+	 * @return Number of matches.
+	 */
+	@Benchmark
+	public int matchMode() {
+		int matches = 0;
+		for (String text : texts)
+			if (StringMatchMode.REGEX.match(pattern, text))
+				matches++;
+		return matches;
+	}
+}
@@ -0,0 +1,94 @@
+package me.coley.recaf.benchmark;
+
+import me.coley.recaf.command.impl.Export;
+import me.coley.recaf.search.SearchBuilder;
+import me.coley.recaf.search.StringQuery;
+import me.coley.recaf.workspace.JarResource;
+import me.coley.recaf.workspace.Workspace;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static me.coley.recaf.search.StringMatchMode.CONTAINS;
+
+/**
+ * Measures loading a jar into a workspace, searching it and writing it back out.
+ *
+ * @author Matt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WorkspaceBenchmark {
+	@Param({"calc.jar", "inherit.jar", "calls.jar", BenchmarkFixtures.GENERATED})
+	public String jar;
+	private Path path;
+	private Workspace workspace;
+	private Map<String, byte[]> content;
+	private File output;
+
+	/**
+	 * Load the jar used by all benchmarks of the trial.
+	 *
+	 * @throws Exception
+	 * 		When the jar cannot be loaded.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		path = BenchmarkFixtures.jar(jar);
+		workspace = new Workspace(new JarResource(path));
+		content = new TreeMap<>();
+		workspace.getPrimary().getClasses().forEach((name, value) -> content.put(name + ".class", value));
+		output = File.createTempFile("recaf-benchmark-export", ".jar");
+		output.deleteOnExit();
+	}
+
+	/**
+	 * @return Classes of the jar.
+	 *
+	 * @throws Exception
+	 * 		When the jar cannot be loaded.
+	 */
+	@Benchmark
+	public Map<String, byte[]> load() throws Exception {
+		return new JarResource(path).getClasses();
+	}
+
+	/**
+	 * @return Number of string constants found.
+	 */
+	@Benchmark
+	public int search() {
+		return SearchBuilder.in(workspace).skipDebug()
+				.query(new StringQuery("", CONTAINS)).build()
+				.getAllResults().size();
+	}
+
+	/**
+	 * @return Number of string constants found.
+	 */
+	@Benchmark
+	public int searchParallel() {
+		return SearchBuilder.in(workspace).skipDebug().parallel()
+				.query(new StringQuery("", CONTAINS)).build()
+				.getAllResults().size();
+	}
+
+	/**
+	 * @return Size of the written archive.
+	 *
+	 * @throws Exception
+	 * 		When the archive cannot be written.
+	 */
+	@Benchmark
+	public long export() throws Exception {
+		Export.writeArchive(true, output, content);
+		return output.length();
+	}
+}
@@ -44,6 +44,7 @@ public class Decompile extends ControllerCommand implements Callable<String> {
 				"// Decompiled with: " + decompiler.getNameAndVersion() + "\n" : "");
 		Decompiler<?> impl = decompiler.create(getController());
 		impl.getOptions().putAll((Map) options);
-		return prefix + impl.decompile(className);
+		return prefix + getWorkspace().getDecompileCache().decompile(decompiler, impl, className,
+				getController().config().decompile());
 	}
 }
@@ -0,0 +1,220 @@
+package me.coley.recaf.command.impl;
+
+import me.coley.recaf.command.ControllerCommand;
+import me.coley.recaf.config.ConfDecompile;
+import me.coley.recaf.decompile.DecompileCache;
+import me.coley.recaf.decompile.DecompileImpl;
+import me.coley.recaf.decompile.Decompiler;
+import me.coley.recaf.util.IOUtil;
+import me.coley.recaf.util.TaskScheduler;
+import picocli.CommandLine;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Command for decompiling all primary classes of the workspace to a directory or a sources jar.
+ *
+ * @author Matt
+ */
+@CommandLine.Command(name = "decompileall", description = "Decompile the workspace to a directory or sources jar.")
+public class DecompileAll extends ControllerCommand implements Callable<Void> {
+	private static final int MAX_LISTED_FAILURES = 20;
+	@CommandLine.Parameters(index = "0",  description = "The output directory, or a jar/zip file.")
+	public File output;
+	@CommandLine.Option(names = {"--decompiler"}, description = "The decompiler implementation to use.",
+			defaultValue = "CFR")
+	public DecompileImpl decompiler = DecompileImpl.CFR;
+	@CommandLine.Option(names = { "--options" },  description = "List of options to pass.", arity = "0..*")
+	public Map<String, String> options = new HashMap<>();
+	@CommandLine.Option(names = { "--package" },  description = "Only decompile classes in the given package.")
+	public String packageName;
+	@CommandLine.Option(names = { "--threads" },  description = "Number of classes to decompile at once.")
+	public int threads = Runtime.getRuntime().availableProcessors();
+	@CommandLine.Option(names = { "--timeout" },
+			description = "Time in milliseconds to wait on a class. Defaults to the decompile config timeout.")
+	public long timeout = -1;
+	private final Map<String, String> failures = new ConcurrentSkipListMap<>();
+	private final Set<String> timedOut = new ConcurrentSkipListSet<>();
+	private ZipOutputStream archive;
+	private long abandoned;
+	private int abandonedRunning;
+
+	/**
+	 * @return n/a
+	 *
+	 * @throws Exception
+	 * 		<ul><li>IOException, cannot write to output</li><li>InterruptedException, interrupted while
+	 * 		waiting on decompilation</li></ul>
+	 */
+	@Override
+	public Void call() throws Exception {
+		List<String> names = getClassNames();
+		if (names.isEmpty())
+			throw new IllegalStateException("No classes to decompile" +
+					(packageName == null ? "" : " in package '" + packageName + "'"));
+		String extension = IOUtil.getExtension(output.toPath());
+		boolean toArchive = "jar".equals(extension) || "zip".equals(extension);
+		if (toArchive) {
+			File parentDir = output.getAbsoluteFile().getParentFile();
+			if (parentDir != null && !parentDir.isDirectory() && !parentDir.mkdirs())
+				throw new IOException("Failed to create parent directory for: " + output);
+			archive = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(output.toPath()), 1048576));
+		} else if (!output.isDirectory() && !output.mkdirs()) {
+			throw new IOException("Failed to create output directory: " + output);
+		}
+		long start = System.currentTimeMillis();
+		int succeeded;
+		try {
+			succeeded = run(names);
+		} finally {
+			if (archive != null)
+				archive.close();
+		}
+		long elapsed = Math.max(1, System.currentTimeMillis() - start);
+		info("Decompiled {} of {} classes to {} in {}ms ({} classes/s)\n - Failed: {}\n - Timed out: {}" +
+						"\n - Abandoned threads: {} ({} still running)", succeeded, names.size(), output.getName(),
+				elapsed, String.format("%.1f", succeeded * 1000.0 / elapsed), failures.size(), timedOut.size(),
+				abandoned, abandonedRunning);
+		failures.entrySet().stream().limit(MAX_LISTED_FAILURES)
+				.forEach(e -> warn("Failed to decompile '{}': {}", e.getKey(), e.getValue()));
+		timedOut.stream().limit(MAX_LISTED_FAILURES)
+				.forEach(name -> warn("Timed out decompiling '{}'", name));
+		return null;
+	}
+
+	/**
+	 * Decompile the classes with at most {@link #threads} running at once.
+	 * Classes that exceed the timeout are cancelled so they do not hold up the remaining classes.
+	 *
+	 * @param names
+	 * 		Classes to decompile.
+	 *
+	 * @return Number of classes written to the output.
+	 */
+	@SuppressWarnings("unchecked")
+	private int run(List<String> names) throws InterruptedException {
+		ConfDecompile config = getController().config().decompile();
+		long classTimeout = timeout > 0 ? timeout : config.timeout;
+		DecompileCache cache = getWorkspace().getDecompileCache();
+		// Decompiler instances are not thread safe
+		ThreadLocal<Decompiler<?>> decompilers = ThreadLocal.withInitial(() -> {
+			Decompiler<?> impl = decompiler.create(getController());
+			impl.getOptions().putAll((Map) options);
+			return impl;
+		});
+		TaskScheduler scheduler = new TaskScheduler("Recaf Decompile", threads);
+		CountDownLatch remaining = new CountDownLatch(names.size());
+		AtomicInteger succeeded = new AtomicInteger();
+		try {
+			for (String name : names) {
+				scheduler.submit(() -> cache.decompile(decompiler, decompilers.get(), name, config), classTimeout,
+						future -> {
+							try {
+								if (handle(name, future))
+									succeeded.incrementAndGet();
+							} finally {
+								remaining.countDown();
+							}
+						});
+			}
+			remaining.await();
+		} finally {
+			scheduler.shutdown();
+		}
+		abandoned = scheduler.getAbandonedCount();
+		abandonedRunning = scheduler.getAbandonedRunningCount();
+		return succeeded.get();
+	}
+
+	private boolean handle(String name, Future<String> future) {
+		String text;
+		try {
+			text = future.get();
+		} catch (CancellationException | InterruptedException ex) {
+			timedOut.add(name);
+			return false;
+		} catch (ExecutionException ex) {
+			failures.put(name, ex.getCause().toString());
+			return false;
+		}
+		if (text == null) {
+			failures.put(name, "No output");
+			return false;
+		}
+		return write(name, text);
+	}
+
+	private boolean write(String name, String text) {
+		String path = name + ".java";
+		byte[] content = text.getBytes(StandardCharsets.UTF_8);
+		// Class names come from the class files, so a crafted name must not escape the output
+		if (!isSafeEntry(path)) {
+			failures.put(name, "Unsafe output path");
+			return false;
+		}
+		try {
+			if (archive != null) {
+				synchronized(archive) {
+					archive.putNextEntry(new ZipEntry(path));
+					archive.write(content);
+					archive.closeEntry();
+				}
+			} else {
+				Path root = output.toPath().toAbsolutePath().normalize();
+				Path file = root.resolve(path).normalize();
+				if (!file.startsWith(root)) {
+					failures.put(name, "Unsafe output path");
+					return false;
+				}
+				Files.createDirectories(file.getParent());
+				Files.write(file, content);
+			}
+			return true;
+		} catch (IOException ex) {
+			failures.put(name, "Failed to write output: " + ex.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * @param path
+	 * 		Output path of a class.
+	 *
+	 * @return {@code true} if the path is relative and has no parent directory segments.
+	 */
+	private static boolean isSafeEntry(String path) {
+		if (path.startsWith("/") || path.startsWith("\\"))
+			return false;
+		for (String segment : path.split("[/\\\\]"))
+			if (segment.equals(".."))
+				return false;
+		return true;
+	}
+
+	private List<String> getClassNames() {
+		String prefix = packageName == null ? null : packageName.replace('.', '/');
+		if (prefix != null && !prefix.isEmpty() && !prefix.endsWith("/"))
+			prefix += "/";
+		String filter = prefix;
+		return getWorkspace().getPrimaryClassNames().stream()
+				// Nested classes are part of the output of their outer class
+				.filter(name -> name.indexOf('$') < 0 || !getWorkspace().getPrimary().getClasses()
+						.containsKey(name.substring(0, name.indexOf('$'))))
+				.filter(name -> filter == null || name.startsWith(filter))
+				.sorted()
+				.collect(Collectors.toList());
+	}
+}
@@ -7,6 +7,7 @@ import me.coley.recaf.util.IOUtil;
 import me.coley.recaf.util.VMUtil;
 import me.coley.recaf.workspace.ClassResource;
 import me.coley.recaf.workspace.DirectoryResource;
+import me.coley.recaf.workspace.JarResource;
 import me.coley.recaf.workspace.JavaResource;
 import me.coley.recaf.workspace.WarResource;
 import org.apache.commons.io.FileUtils;
@@ -88,6 +89,7 @@ public class Export extends ControllerCommand implements Callable<Void> {
 				.filter(e -> e.getValue().size() > 1)
 				.map(Map.Entry::getKey)
 				.collect(Collectors.toSet()));
+		detachMappedOutput(primary);
 		// Write to archive
 		if (output.isDirectory() && primary instanceof DirectoryResource)
 			writeDirectory(output, outContent);
@@ -189,6 +191,21 @@ public class Export extends ControllerCommand implements Callable<Void> {
 		}
 	}
 
+	private void detachMappedOutput(JavaResource primary) throws IOException {
+		if (!output.isFile())
+			return;
+		// Content still backed by the output file has to be moved to the heap before the file is overwritten
+		List<JavaResource> resources = new ArrayList<>(getWorkspace().getLibraries());
+		resources.add(primary);
+		for (JavaResource resource : resources) {
+			if (resource instanceof JarResource) {
+				JarResource jar = (JarResource) resource;
+				if (Files.exists(jar.getPath()) && Files.isSameFile(jar.getPath(), output.toPath()))
+					jar.detachMappedStorage();
+			}
+		}
+	}
+
 	private void put(Map<String, byte[]> content, JavaResource res) {
 		content.putAll(res.getFiles());
 		for(Map.Entry<String, byte[]> e : copySet(res.getClasses().entrySet())) {
@@ -33,6 +33,9 @@ public class LoadWorkspace implements Callable<Workspace> {
 	public Path javadoc;
 	@CommandLine.Option(names = { "--lazy" },  description = "Don't immediately load the workspace content.")
 	public boolean lazy;
+	@CommandLine.Option(names = { "--mapped" },  description = "Keep unmodified jar content memory mapped " +
+			"instead of on the heap. The jar must not be changed by other programs while it is loaded.")
+	public boolean mapped;
 	@CommandLine.Option(names = "--skip")
 	public List<String> skippedPrefixes;
 	private String status = "...";
@@ -100,6 +103,8 @@ public class LoadWorkspace implements Callable<Workspace> {
 		//
 		if (skippedPrefixes != null)
 			resource.setSkippedPrefixes(skippedPrefixes);
+		if (mapped && resource instanceof JarResource)
+			((JarResource) resource).setMappedStorage(true);
 		// Initial load classes & files
 		if (!lazy) {
 			status = LangUtil.translate("ui.load.loading");
@@ -0,0 +1,65 @@
+package me.coley.recaf.command.impl;
+
+import me.coley.recaf.util.Metrics;
+import me.coley.recaf.util.Metrics.Metric;
+import me.coley.recaf.util.TaskScheduler;
+import org.apache.commons.io.FileUtils;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static me.coley.recaf.util.Log.info;
+import static me.coley.recaf.util.Log.warn;
+
+/**
+ * Command for reporting the recorded {@link Metrics per-class metrics}.
+ *
+ * @author Matt
+ */
+@CommandLine.Command(name = "metrics", description = "Report time, allocations and output size per class " +
+		"of decompiling, analyzing, assembling and mapping.")
+public class MetricsReport implements Callable<String> {
+	@CommandLine.Option(names = { "--format" }, description = "Report format, 'csv' or 'json'.",
+			defaultValue = "csv")
+	public String format = "csv";
+	@CommandLine.Option(names = { "--output" }, description = "File to write the report to instead of printing it.")
+	public File output;
+	@CommandLine.Option(names = { "--limit" }, description = "Maximum number of entries, most expensive first. " +
+			"Zero for no limit.", defaultValue = "0")
+	public int limit;
+	@CommandLine.Option(names = { "--clear" }, description = "Discard the recorded metrics after reporting.")
+	public boolean clear;
+
+	/**
+	 * @return Report, or {@code null} if it was written to a file.
+	 *
+	 * @throws Exception
+	 * 		<ul><li>IllegalArgumentException, unknown format</li><li>IOException, cannot write to output</li></ul>
+	 */
+	@Override
+	public String call() throws Exception {
+		List<Metric> metrics = Metrics.getMetrics();
+		if (limit > 0 && metrics.size() > limit)
+			metrics = metrics.subList(0, limit);
+		String report;
+		if ("csv".equalsIgnoreCase(format))
+			report = Metrics.toCsv(metrics);
+		else if ("json".equalsIgnoreCase(format))
+			report = Metrics.toJson(metrics);
+		else
+			throw new IllegalArgumentException("Unknown format '" + format + "', expected 'csv' or 'json'");
+		if (clear)
+			Metrics.clear();
+		int abandoned = TaskScheduler.getAbandonedRunningTotal();
+		if (abandoned > 0)
+			warn("{} abandoned tasks are still running, each keeping a core busy", abandoned);
+		if (output == null)
+			return report;
+		FileUtils.writeStringToFile(output, report, StandardCharsets.UTF_8);
+		info("Saved {} metrics to {}", metrics.size(), output.getName());
+		return null;
+	}
+}
@@ -47,13 +47,34 @@ public class Search extends MetaCommand implements Callable<Void> {
 		return null;
 	}
 
+	/**
+	 * Base for search commands, with the shared limits.
+	 *
+	 * @author Matt
+	 */
+	public abstract static class SearchCommand extends ControllerCommand implements Callable<SearchCollector> {
+		@CommandLine.Option(names = { "--max" }, description = "Maximum number of results.")
+		public int maxResults = Integer.MAX_VALUE;
+		@CommandLine.Option(names = { "--timeout" }, description = "Time limit of the search in milliseconds.")
+		public long timeout = -1;
+
+		/**
+		 * @return Search builder for the workspace with the limits of the command.
+		 */
+		protected SearchBuilder search() {
+			return SearchBuilder.in(getWorkspace())
+					.maxResults(maxResults)
+					.timeout(timeout);
+		}
+	}
+
 	/**
 	 * Command for searching for class declarations.
 	 *
 	 * @author Matt
 	 */
 	@CommandLine.Command(name = "class", description = "Find class definitions.")
-	public static class ClassName extends ControllerCommand implements Callable<SearchCollector> {
+	public static class ClassName extends SearchCommand {
 		@CommandLine.Parameters(index = "0",  description = "The string matching mode.")
 		public StringMatchMode mode;
 		@CommandLine.Parameters(index = "1",  description = "The name to search for.",
@@ -62,9 +83,10 @@ public class Search extends MetaCommand implements Callable<Void> {
 
 		@Override
 		public SearchCollector call() throws Exception {
-			return SearchBuilder.in(getWorkspace())
+			return search()
 					.skipDebug().skipCode()
 					.query(new ClassNameQuery(name, mode))
+					.parallel()
 					.build();
 		}
 	}
@@ -75,16 +97,17 @@ public class Search extends MetaCommand implements Callable<Void> {
 	 * @author Matt
 	 */
 	@CommandLine.Command(name = "classtree", description = "Find classes extending the given name.")
-	public static class ClassInheritance extends ControllerCommand implements Callable<SearchCollector> {
+	public static class ClassInheritance extends SearchCommand {
 		@CommandLine.Parameters(index = "0",  description = "The class name to search for.",
 				completionCandidates = WorkspaceNameCompletions.class)
 		public String name;
 
 		@Override
 		public SearchCollector call() throws Exception {
-			return SearchBuilder.in(getWorkspace())
+			return search()
 					.skipDebug().skipCode()
 					.query(new ClassInheritanceQuery(getWorkspace(), name))
+					.parallel()
 					.build();
 		}
 	}
@@ -95,7 +118,7 @@ public class Search extends MetaCommand implements Callable<Void> {
 	 * @author Matt
 	 */
 	@CommandLine.Command(name = "member", description = "Find member definitions.")
-	public static class Member extends ControllerCommand implements Callable<SearchCollector> {
+	public static class Member extends SearchCommand {
 		@CommandLine.Parameters(index = "0",  description = "The string matching mode.")
 		public StringMatchMode mode;
 		@CommandLine.Parameters(index = "1",  description = "The class containing the member.",
@@ -108,9 +131,10 @@ public class Search extends MetaCommand implements Callable<Void> {
 
 		@Override
 		public SearchCollector call() throws Exception {
-			return SearchBuilder.in(getWorkspace())
+			return search()
 					.skipDebug().skipCode()
 					.query(new MemberDefinitionQuery(owner, name, desc, mode))
+					.parallel()
 					.build();
 		}
 	}
@@ -121,15 +145,16 @@ public class Search extends MetaCommand implements Callable<Void> {
 	 * @author Matt
 	 */
 	@CommandLine.Command(name = "cref", description = "Find class references.")
-	public static class ClassUsage extends ControllerCommand implements Callable<SearchCollector> {
+	public static class ClassUsage extends SearchCommand {
 		@CommandLine.Parameters(index = "0",  description = "The class name.",
 				completionCandidates = WorkspaceNameCompletions.class)
 		public String name;
 
 		@Override
 		public SearchCollector call() throws Exception {
-			return SearchBuilder.in(getWorkspace())
+			return search()
 					.query(new ClassReferenceQuery(name))
+					.parallel()
 					.build();
 		}
 	}
@@ -140,7 +165,7 @@ public class Search extends MetaCommand implements Callable<Void> {
 	 * @author Matt
 	 */
 	@CommandLine.Command(name = "mref", description = "Find member references.")
-	public static class MemberUsage extends ControllerCommand implements Callable<SearchCollector> {
+	public static class MemberUsage extends SearchCommand {
 		@CommandLine.Parameters(index = "0",  description = "The string matching mode.")
 		public StringMatchMode mode;
 		@CommandLine.Option(names = "--owner", description = "The class name.",
@@ -157,9 +182,10 @@ public class Search extends MetaCommand implements Callable<Void> {
 				error("Please give at least one parameter.");
 				return new SearchCollector(getWorkspace(), Collections.emptyList());
 			}
-			return SearchBuilder.in(getWorkspace())
+			return search()
 					.skipDebug()
 					.query(new MemberReferenceQuery(owner, name, desc, mode))
+					.parallel()
 					.build();
 		}
 	}
@@ -170,7 +196,7 @@ public class Search extends MetaCommand implements Callable<Void> {
 	 * @author Matt
 	 */
 	@CommandLine.Command(name = "string", description = "Find strings.")
-	public static class Text extends ControllerCommand implements Callable<SearchCollector> {
+	public static class Text extends SearchCommand {
 		@CommandLine.Parameters(index = "0",  description = "The string matching mode.")
 		public StringMatchMode mode;
 		@CommandLine.Parameters(index = "1", description = "The text to match.")
@@ -178,9 +204,10 @@ public class Search extends MetaCommand implements Callable<Void> {
 
 		@Override
 		public SearchCollector call() throws Exception {
-			return SearchBuilder.in(getWorkspace())
+			return search()
 					.skipDebug()
 					.query(new StringQuery(text, mode))
+					.parallel()
 					.build();
 		}
 	}
@@ -191,15 +218,16 @@ public class Search extends MetaCommand implements Callable<Void> {
 	 * @author Matt
 	 */
 	@CommandLine.Command(name = "value", description = "Find value constants.")
-	public static class Value extends ControllerCommand implements Callable<SearchCollector> {
+	public static class Value extends SearchCommand {
 		@CommandLine.Parameters(index = "0",  description = "The value to search for.")
 		public Number value;
 
 		@Override
 		public SearchCollector call() throws Exception {
-			return SearchBuilder.in(getWorkspace())
+			return search()
 					.skipDebug()
 					.query(new ValueQuery(value))
+					.parallel()
 					.build();
 		}
 	}
@@ -210,7 +238,7 @@ public class Search extends MetaCommand implements Callable<Void> {
 	 * @author Matt
 	 */
 	@CommandLine.Command(name = "code", description = "Find code matches.")
-	public static class Disass extends ControllerCommand implements Callable<SearchCollector> {
+	public static class Disass extends SearchCommand {
 		@CommandLine.Parameters(index = "0",  description = "The string matching mode.")
 		public StringMatchMode mode;
 		@CommandLine.Parameters(index = "1", description = "The lines of code to match, separated by ':'.")
@@ -221,9 +249,10 @@ public class Search extends MetaCommand implements Callable<Void> {
 			// Skip debug is used here so that variable names don't interfere with searching.
 			// Using pure indices instead like "ALOAD 4" instead of "ALOAD varName"
 			// ... Although it will still always o "ALOAD this" where possible
-			return SearchBuilder.in(getWorkspace())
+			return search()
 					.skipDebug()
 					.query(new InsnTextQuery(Arrays.asList(text.split(":")), mode))
+					.parallel()
 					.build();
 		}
 	}
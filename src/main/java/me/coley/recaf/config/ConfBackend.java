@@ -1,6 +1,7 @@
 package me.coley.recaf.config;
 
 import me.coley.recaf.util.IOUtil;
+import me.coley.recaf.workspace.HistoryStore;
 
 import java.io.File;
 import java.nio.file.Path;
@@ -48,6 +49,28 @@ public class ConfBackend extends Config {
 	 */
 	@Conf("backend.compressexport")
 	public boolean compress = true;
+	/**
+	 * Keep unmodified jar content in a memory mapped view of the archive rather than on the heap.
+	 * Unsafe for jars that other programs may change while they are loaded.
+	 */
+	@Conf("backend.mappedstorage")
+	public boolean mappedStorage;
+	/**
+	 * Memory budget in megabytes for history save states. Older states are moved to disk past this size.
+	 */
+	@Conf("backend.historybudget")
+	public int historyBudget = 64;
+	/**
+	 * Index constants and references of opened workspaces so searches for them only visit matching classes.
+	 */
+	@Conf("backend.searchindex")
+	public boolean searchIndex;
+	/**
+	 * Index the references of workspaces when they are opened, rather than on the first rename.
+	 * Renames only rewrite the classes the index lists as referencing the renamed name.
+	 */
+	@Conf("backend.referenceindex")
+	public boolean referenceIndex;
 
 	ConfBackend() {
 		super("backend");
@@ -66,6 +89,7 @@ public class ConfBackend extends Config {
 		Set<String> temp = new LinkedHashSet<>(recentFiles);
 		recentFiles.clear();
 		recentFiles.addAll(temp);
+		HistoryStore.getInstance().setMemoryBudget(historyBudget * 1024L * 1024L);
 	}
 
 	/**
@@ -42,6 +42,18 @@ public class ConfDecompile extends Config {
 	@Conf("decompile.timeout")
 	public long timeout = 9000;
 
+	/**
+	 * Keep decompiled classes on disk so they can be reused in later sessions.
+	 */
+	@Conf("decompile.diskcache")
+	public boolean diskCache;
+
+	/**
+	 * Decompile classes related to an opened class in the background.
+	 */
+	@Conf("decompile.prefetch")
+	public boolean prefetch = true;
+
 	// ============================ CFR OPTIONS ============================ //
 
 	// TODO: Add cfr options
@@ -2,6 +2,7 @@ package me.coley.recaf.control;
 
 import me.coley.recaf.Recaf;
 import me.coley.recaf.command.impl.*;
+import me.coley.recaf.config.ConfBackend;
 import me.coley.recaf.config.ConfigManager;
 import me.coley.recaf.plugin.PluginsManager;
 import me.coley.recaf.plugin.api.CommandPlugin;
@@ -54,6 +55,11 @@ public abstract class Controller implements Runnable {
 		}
 		this.workspace = workspace;
 		Recaf.setCurrentWorkspace(workspace);
+		ConfBackend backend = config().backend();
+		if (workspace != null && backend != null && backend.searchIndex)
+			ThreadUtil.run(() -> workspace.buildSearchIndex());
+		if (workspace != null && backend != null && backend.referenceIndex)
+			ThreadUtil.run(() -> workspace.buildReferenceIndex());
 		plugins.forEach(plugin -> plugin.onOpened(workspace));
 	}
 
@@ -133,6 +139,7 @@ public abstract class Controller implements Runnable {
 		register(WorkspaceInfo.class);
 		register(Disassemble.class);
 		register(Decompile.class);
+		register(DecompileAll.class);
 		register(Assemble.class);
 		register(Export.class);
 		register(Search.class);
@@ -141,6 +148,7 @@ public abstract class Controller implements Runnable {
 		register(Quit.class);
 		register(Wait.class);
 		register(Run.class);
+		register(MetricsReport.class);
 		// Load command plugins
 		PluginsManager.getInstance().ofType(CommandPlugin.class)
 				.forEach(commandPlugin -> register(commandPlugin.getClass()));
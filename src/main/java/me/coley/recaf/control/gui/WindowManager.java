@@ -38,6 +38,7 @@ public class WindowManager {
 	private Stage informationWindow;
 	private Stage contactWindow;
 	private Stage pluginsWindow;
+	private Stage metricsWindow;
 
 	WindowManager(GuiController controller) {
 		this.controller = controller;
@@ -305,4 +306,19 @@ public class WindowManager {
 	public void setPluginsWindow(Stage window) {
 		this.pluginsWindow = window;
 	}
+
+	/**
+	 * @return Metrics window.
+	 */
+	public Stage getMetricsWindow() {
+		return metricsWindow;
+	}
+
+	/**
+	 * @param window
+	 * 		Metrics window.
+	 */
+	public void setMetricsWindow(Stage window) {
+		this.metricsWindow = window;
+	}
 }
@@ -212,6 +212,8 @@ public class HeadlessController extends Controller {
 		Consumer<SearchCollector> printResults = r -> {
 			for (SearchResult res : r.getAllResults())
 				info("{}\n{}", res.getContext(), res.toString());
+			if (r.isStopped())
+				warn("Search stopped early, results are incomplete");
 		};
 		//
 		registerHandler(Disassemble.class, v -> {
@@ -224,6 +226,10 @@ public class HeadlessController extends Controller {
 		});
 		registerHandler(LoadWorkspace.class, this::setWorkspace);
 		registerHandler(Decompile.class, Log::info);
+		registerHandler(MetricsReport.class, report -> {
+			if (report != null)
+				info(report);
+		});
 		registerHandler(Search.ClassInheritance.class, printResults);
 		registerHandler(Search.ClassName.class, printResults);
 		registerHandler(Search.Member.class, printResults);
@@ -0,0 +1,364 @@
+package me.coley.recaf.decompile;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import me.coley.recaf.Recaf;
+import me.coley.recaf.config.ConfDecompile;
+import me.coley.recaf.control.Controller;
+import me.coley.recaf.plugin.PluginsManager;
+import me.coley.recaf.plugin.api.LoadInterceptorPlugin;
+import me.coley.recaf.util.Metrics;
+import me.coley.recaf.util.struct.InternalBiConsumer;
+import me.coley.recaf.util.struct.InternalConsumer;
+import me.coley.recaf.util.struct.ListeningMap;
+import me.coley.recaf.workspace.DeferringResource;
+import me.coley.recaf.workspace.FileSystemResource;
+import me.coley.recaf.workspace.JavaResource;
+import me.coley.recaf.workspace.Workspace;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Cache of decompiled classes in a workspace. Entries are keyed by the content of the class, the
+ * libraries of the workspace, the decompiler and its options, so changing any of them results in a
+ * new decompilation.
+ * <br>
+ * Recent results are kept in memory. When enabled in the {@link ConfDecompile config}, results are
+ * also written to disk so they can be shared between sessions and workspaces.
+ * <br>
+ * Classes related to an opened class can be {@link #prefetch(Controller, DecompileImpl, String) prefetched}
+ * in the background so opening them next does not have to wait on the decompiler.
+ *
+ * @author Matt
+ */
+public class DecompileCache {
+	private static final long MEMORY_CHARS = 16L * 1024 * 1024;
+	private static final int MAX_DISK_ENTRIES = 8192;
+	private final Cache<String, String> memory = CacheBuilder.newBuilder()
+			.maximumWeight(MEMORY_CHARS)
+			.<String, String>weigher((key, value) -> value.length())
+			.build();
+	private final Map<String, Set<String>> keys = new ConcurrentHashMap<>();
+	private final AtomicInteger foreground = new AtomicInteger();
+	private final Map<JavaResource, String> libraryIdentities = new ConcurrentHashMap<>();
+	private final Map<JavaResource, Set<String>> libraryChangedClasses = new HashMap<>();
+	private volatile String libraryHash;
+	private volatile List<JavaResource> hashedLibraries;
+	private int libraryChanges;
+	private final Workspace workspace;
+	private final DecompilePrefetcher prefetcher;
+	private boolean pruned;
+
+	/**
+	 * @param workspace
+	 * 		Workspace to pull classes from.
+	 */
+	public DecompileCache(Workspace workspace) {
+		this.workspace = workspace;
+		this.prefetcher = new DecompilePrefetcher(workspace, this, foreground::get);
+		listen(workspace.getPrimary(), false);
+		workspace.getLibraries().forEach(library -> listen(library, true));
+		workspace.getLibraryListeners().add(library -> listen(library, true));
+	}
+
+	private void listen(JavaResource resource, boolean library) {
+		ListeningMap<String, byte[]> map = resource.getClasses();
+		map.getPutListeners().add(InternalBiConsumer.internal((name, value) -> invalidate(resource, name, library)));
+		map.getRemoveListeners().add(InternalConsumer.internal(name ->
+				invalidate(resource, (String) name, library)));
+	}
+
+	/**
+	 * @param impl
+	 * 		Decompiler type.
+	 * @param decompiler
+	 * 		Decompiler instance with the options to use.
+	 * @param name
+	 * 		Name of the class to decompile.
+	 * @param config
+	 * 		Decompile configuration.
+	 *
+	 * @return Decompiled text of the class. Taken from the cache if the class was decompiled before with the
+	 * same decompiler and options.
+	 */
+	public String decompile(DecompileImpl impl, Decompiler<?> decompiler, String name, ConfDecompile config) {
+		foreground.incrementAndGet();
+		try {
+			return lookup(impl, decompiler, name, config);
+		} finally {
+			foreground.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Decompile the classes most likely to be opened after the given class in the background.
+	 * Replaces any prefetch still running for a previously opened class.
+	 *
+	 * @param controller
+	 * 		Controller with configuration to pull from.
+	 * @param impl
+	 * 		Decompiler type to use.
+	 * @param name
+	 * 		Name of the opened class.
+	 */
+	public void prefetch(Controller controller, DecompileImpl impl, String name) {
+		prefetcher.prefetch(controller, impl, name);
+	}
+
+	/**
+	 * Same as {@link #decompile(DecompileImpl, Decompiler, String, ConfDecompile)} but without holding off
+	 * background prefetching.
+	 */
+	void prefetch(DecompileImpl impl, Decompiler<?> decompiler, String name, ConfDecompile config) {
+		lookup(impl, decompiler, name, config);
+	}
+
+	private String lookup(DecompileImpl impl, Decompiler<?> decompiler, String name, ConfDecompile config) {
+		String contentHash = getContentHash(name);
+		if (contentHash == null)
+			return measure(impl, decompiler, name);
+		String key = DigestUtils.sha1Hex(contentHash + '|' + getLibraryHash() + '|' + impl.getNameAndVersion() +
+				'|' + getOptionsHash(decompiler, config));
+		String text = memory.getIfPresent(key);
+		if (text != null)
+			return text;
+		Path file = config.diskCache ? getCacheFile(key) : null;
+		if (file != null && (text = read(file)) != null) {
+			store(name, key, text);
+			return text;
+		}
+		text = measure(impl, decompiler, name);
+		if (text == null)
+			return null;
+		store(name, key, text);
+		if (file != null)
+			write(file, text);
+		return text;
+	}
+
+	private static String measure(DecompileImpl impl, Decompiler<?> decompiler, String name) {
+		Metrics.Sample sample = Metrics.start(Metrics.DECOMPILE + ':' + impl);
+		String text = null;
+		try {
+			text = decompiler.decompile(name);
+			return text;
+		} finally {
+			sample.stop(name, text == null ? -1 : text.length());
+		}
+	}
+
+	/**
+	 * Drop all results held in memory.
+	 */
+	public void clear() {
+		keys.clear();
+		memory.invalidateAll();
+	}
+
+	private void store(String name, String key, String text) {
+		keys.computeIfAbsent(name, n -> ConcurrentHashMap.newKeySet()).add(key);
+		memory.put(key, text);
+	}
+
+	/**
+	 * Drop the results of the class and of the classes it is nested in from memory.
+	 * The content of a changed class has a different hash, so the results would not be used again anyway.
+	 *
+	 * @param resource
+	 * 		Resource containing the class.
+	 * @param name
+	 * 		Name of the changed class.
+	 * @param library
+	 * 		{@code true} when the class is in a library, changing the hash of the libraries.
+	 */
+	private void invalidate(JavaResource resource, String name, boolean library) {
+		if (library) {
+			synchronized(this) {
+				libraryChanges++;
+				libraryHash = null;
+				libraryChangedClasses.computeIfAbsent(resource, r -> new HashSet<>()).add(name);
+			}
+		}
+		drop(name);
+		int index = name.length();
+		while ((index = name.lastIndexOf('$', index - 1)) > 0)
+			drop(name.substring(0, index));
+	}
+
+	private void drop(String name) {
+		Set<String> removed = keys.remove(name);
+		if (removed != null)
+			memory.invalidateAll(removed);
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 *
+	 * @return Hash of the class and the classes nested in it, since some decompilers include nested classes
+	 * in the output of the outer class. {@code null} if the class is not in the workspace.
+	 */
+	private String getContentHash(String name) {
+		byte[] value = workspace.getRawClass(name);
+		if (value == null)
+			return null;
+		MessageDigest digest = DigestUtils.getSha1Digest();
+		digest.update(value);
+		JavaResource resource = workspace.getContainingResourceForClass(name);
+		if (resource == workspace.getPrimary() || workspace.getLibraries().contains(resource)) {
+			Map<String, byte[]> classes = resource.getClasses();
+			for (String nested : resource.getNestedClassNames(name)) {
+				byte[] nestedValue = classes.get(nested);
+				digest.update(nested.getBytes(StandardCharsets.UTF_8));
+				if (nestedValue != null)
+					digest.update(nestedValue);
+			}
+		}
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	/**
+	 * @return Hash of the libraries of the workspace and of the runtime version, since the decompilers look up
+	 * referenced classes in them. Libraries are hashed by their {@link #getLibraryIdentity(JavaResource) identity}
+	 * and the content of their changed classes. Computed once, and again after the libraries or a library class
+	 * change.
+	 */
+	private String getLibraryHash() {
+		String hash = libraryHash;
+		List<JavaResource> libraries = new ArrayList<>(workspace.getLibraries());
+		if (hash != null && libraries.equals(hashedLibraries))
+			return hash;
+		int changes;
+		Map<JavaResource, Set<String>> changed = new HashMap<>();
+		synchronized(this) {
+			changes = libraryChanges;
+			libraryChangedClasses.forEach((library, names) -> changed.put(library, new TreeSet<>(names)));
+		}
+		MessageDigest digest = DigestUtils.getSha1Digest();
+		digest.update(System.getProperty("java.version").getBytes(StandardCharsets.UTF_8));
+		for (JavaResource library : libraries) {
+			digest.update(libraryIdentities.computeIfAbsent(library, DecompileCache::getLibraryIdentity)
+					.getBytes(StandardCharsets.UTF_8));
+			Map<String, byte[]> classes = library.getClasses();
+			for (String name : changed.getOrDefault(library, Collections.emptySet())) {
+				byte[] value = classes.get(name);
+				digest.update(name.getBytes(StandardCharsets.UTF_8));
+				if (value != null)
+					digest.update(value);
+			}
+		}
+		hash = Hex.encodeHexString(digest.digest());
+		// Not kept if a library changed while hashing, the next lookup hashes the changed libraries
+		synchronized(this) {
+			if (libraryChanges == changes) {
+				libraryHash = hash;
+				hashedLibraries = libraries;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * @param library
+	 * 		Library resource.
+	 *
+	 * @return Identity of the library as it was loaded. For library files this is their path, size and
+	 * modification time. Otherwise, or while {@link LoadInterceptorPlugin load interceptors} may alter the
+	 * loaded classes, this is the hash of the classes in the library.
+	 */
+	private static String getLibraryIdentity(JavaResource library) {
+		JavaResource resource = library;
+		while (resource instanceof DeferringResource && ((DeferringResource) resource).getBacking() != null)
+			resource = ((DeferringResource) resource).getBacking();
+		if (resource instanceof FileSystemResource &&
+				PluginsManager.getInstance().ofType(LoadInterceptorPlugin.class).isEmpty()) {
+			Path path = ((FileSystemResource) resource).getPath().toAbsolutePath();
+			try {
+				if (Files.isRegularFile(path))
+					return path + "|" + Files.size(path) + '|' + Files.getLastModifiedTime(path).toMillis() +
+							'|' + library.getSkippedPrefixes();
+			} catch (IOException ex) {
+				debug("Hashing the classes of '{}' since its file cannot be read: {}", path, ex.getMessage());
+			}
+		}
+		MessageDigest digest = DigestUtils.getSha1Digest();
+		Map<String, byte[]> classes = library.getClasses();
+		for (String name : new TreeSet<>(classes.keySet())) {
+			byte[] value = classes.get(name);
+			digest.update(name.getBytes(StandardCharsets.UTF_8));
+			if (value != null)
+				digest.update(value);
+		}
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	private static String getOptionsHash(Decompiler<?> decompiler, ConfDecompile config) {
+		// Sorted so the hash does not depend on the map implementation
+		String options = new TreeMap<>(decompiler.getOptions()).toString();
+		return DigestUtils.sha1Hex(options + "|stripdebug=" + config.stripDebug +
+				"|unescapeunicode=" + decompiler.isUnescapeUnicode());
+	}
+
+	// ========================================= DISK ========================================= //
+
+	private static Path getCacheFile(String key) {
+		try {
+			return Recaf.getDirectory("decompile").resolve(key + ".java");
+		} catch (IllegalStateException ex) {
+			return null;
+		}
+	}
+
+	private static String read(Path file) {
+		if (!Files.isRegularFile(file))
+			return null;
+		try {
+			return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		} catch (IOException ex) {
+			debug("Ignoring unreadable decompile cache '{}': {}", file.getFileName(), ex.getMessage());
+			return null;
+		}
+	}
+
+	private void write(Path file, String text) {
+		try {
+			Files.createDirectories(file.getParent());
+			Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+			Files.write(temp, text.getBytes(StandardCharsets.UTF_8));
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			synchronized(this) {
+				if (pruned)
+					return;
+				pruned = true;
+			}
+			prune(file.getParent());
+		} catch (IOException ex) {
+			// The result is still cached in memory
+			debug("Could not write decompile cache '{}': {}", file.getFileName(), ex.toString());
+		}
+	}
+
+	private static void prune(Path directory) throws IOException {
+		List<Path> files;
+		try (Stream<Path> stream = Files.list(directory)) {
+			files = stream.filter(p -> p.toString().endsWith(".java")).collect(Collectors.toList());
+		}
+		if (files.size() <= MAX_DISK_ENTRIES)
+			return;
+		files.sort(Comparator.comparingLong(p -> p.toFile().lastModified()));
+		for (Path file : files.subList(0, files.size() - MAX_DISK_ENTRIES))
+			Files.deleteIfExists(file);
+	}
+}
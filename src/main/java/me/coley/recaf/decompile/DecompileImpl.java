@@ -5,6 +5,7 @@ import me.coley.recaf.control.Controller;
 import me.coley.recaf.decompile.cfr.CfrDecompiler;
 import me.coley.recaf.decompile.fernflower.FernFlowerDecompiler;
 import me.coley.recaf.decompile.procyon.ProcyonDecompiler;
+import me.coley.recaf.decompile.race.RaceDecompiler;
 import me.coley.recaf.util.StringUtil;
 import org.benf.cfr.reader.util.CfrVersionInfo;
 
@@ -18,7 +19,8 @@ import java.util.function.Function;
 public enum DecompileImpl {
 	CFR(CfrDecompiler::new),
 	FERNFLOWER(FernFlowerDecompiler::new),
-	PROCYON(ProcyonDecompiler::new);
+	PROCYON(ProcyonDecompiler::new),
+	RACE(RaceDecompiler::new);
 
 	private final Function<Controller, Decompiler> supplier;
 
@@ -45,6 +47,8 @@ public enum DecompileImpl {
 				return "FernFlower";
 			case PROCYON:
 				return "Procyon";
+			case RACE:
+				return "Race";
 			default:
 				return StringUtil.toString(this);
 		}
@@ -61,6 +65,9 @@ public enum DecompileImpl {
 				return "FernFlower"; // Fernflower does not have an easily accessible version number...
 			case PROCYON:
 				return "Procyon " + Procyon.version();
+			case RACE:
+				return "Race of " + CFR.getNameAndVersion() + ", " + FERNFLOWER.getNameAndVersion() + ", " +
+						PROCYON.getNameAndVersion();
 			default:
 				return StringUtil.toString(this);
 		}
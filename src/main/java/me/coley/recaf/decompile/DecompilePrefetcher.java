@@ -0,0 +1,186 @@
+package me.coley.recaf.decompile;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import me.coley.recaf.Recaf;
+import me.coley.recaf.config.ConfDecompile;
+import me.coley.recaf.control.Controller;
+import me.coley.recaf.util.TaskScheduler;
+import me.coley.recaf.workspace.JavaResource;
+import me.coley.recaf.workspace.Workspace;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Decompiles the classes most likely to be opened after a given class in the background, so they can be
+ * taken from the {@link DecompileCache} once they are opened. These are the classes nested in it, its
+ * parents and the classes it calls into.
+ * <br>
+ * Only one class is prefetched at a time, on a single worker of a {@link TaskScheduler} so classes exceeding
+ * the decompile timeout are cancelled. Classes that timed out are not prefetched again. Prefetching waits
+ * while other decompiles are running, cancelling and later retrying a class it is decompiling when one
+ * starts, and idles for as long as each decompile took to stay within half of a core.
+ *
+ * @author Matt
+ */
+public class DecompilePrefetcher {
+	private static final int MAX_NEIGHBOURS = 8;
+	private static final long YIELD_MS = 50;
+	private static final ExecutorService SERVICE = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+			.setNameFormat("Recaf Prefetch Thread")
+			.setPriority(Thread.MIN_PRIORITY)
+			.setDaemon(true).build());
+	private static final TaskScheduler SCHEDULER = new TaskScheduler("Recaf Prefetch", 1);
+	private final Set<String> timedOut = ConcurrentHashMap.newKeySet();
+	private final Workspace workspace;
+	private final DecompileCache cache;
+	private final IntSupplier foreground;
+	private Future<?> current;
+
+	/**
+	 * @param workspace
+	 * 		Workspace to pull classes from.
+	 * @param cache
+	 * 		Cache to fill.
+	 * @param foreground
+	 * 		Number of decompiles currently running that the prefetcher should yield to.
+	 */
+	DecompilePrefetcher(Workspace workspace, DecompileCache cache, IntSupplier foreground) {
+		this.workspace = workspace;
+		this.cache = cache;
+		this.foreground = foreground;
+	}
+
+	/**
+	 * Replace any ongoing prefetch with the neighbours of the given class.
+	 *
+	 * @param controller
+	 * 		Controller with configuration to pull from.
+	 * @param impl
+	 * 		Decompiler type to use.
+	 * @param name
+	 * 		Name of the class that was opened.
+	 */
+	public synchronized void prefetch(Controller controller, DecompileImpl impl, String name) {
+		if (current != null)
+			current.cancel(true);
+		current = SERVICE.submit(() -> run(controller, impl, name));
+	}
+
+	private void run(Controller controller, DecompileImpl impl, String name) {
+		List<String> neighbours = getNeighbours(name);
+		if (neighbours.isEmpty())
+			return;
+		ConfDecompile config = controller.config().decompile();
+		try {
+			for (String neighbour : neighbours) {
+				if (timedOut.contains(neighbour))
+					continue;
+				long start = System.nanoTime();
+				while (!prefetch(controller, impl, neighbour, config)) {
+					// Yielded to a foreground decompile, try again once it is done
+				}
+				// Keep the thread idle at least half the time
+				TimeUnit.NANOSECONDS.sleep(System.nanoTime() - start);
+			}
+		} catch (InterruptedException ex) {
+			// Replaced by the neighbours of another class
+		}
+	}
+
+	/**
+	 * @return {@code false} if the decompile was cancelled to yield to a foreground decompile.
+	 */
+	private boolean prefetch(Controller controller, DecompileImpl impl, String name, ConfDecompile config)
+			throws InterruptedException {
+		while (foreground.getAsInt() > 0)
+			TimeUnit.MILLISECONDS.sleep(YIELD_MS);
+		// A new instance for each class, since a cancelled decompile may still be running
+		Decompiler<?> decompiler = impl.create(controller);
+		// Same output as the decompile view, so its cache keys match
+		decompiler.setUnescapeUnicode(true);
+		Future<Object> future = SCHEDULER.submit(() -> {
+			cache.prefetch(impl, decompiler, name, config);
+			return null;
+		}, config.timeout, null);
+		try {
+			while (true) {
+				try {
+					future.get(YIELD_MS, TimeUnit.MILLISECONDS);
+					return true;
+				} catch (TimeoutException ex) {
+					if (foreground.getAsInt() > 0) {
+						future.cancel(true);
+						return false;
+					}
+				}
+			}
+		} catch (CancellationException ex) {
+			// Only the scheduler cancels a future that is still waited on, for exceeding the timeout
+			timedOut.add(name);
+			debug("Prefetching decompilation of '{}' timed out, it is not prefetched again", name);
+			return true;
+		} catch (ExecutionException ex) {
+			trace("Failed to prefetch decompilation of '{}': {}", name, ex.getCause());
+			return true;
+		} catch (InterruptedException ex) {
+			future.cancel(true);
+			throw ex;
+		}
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 *
+	 * @return Classes likely to be opened after the given class, in order of likelihood.
+	 */
+	List<String> getNeighbours(String name) {
+		byte[] value = workspace.getRawClass(name);
+		if (value == null)
+			return Collections.emptyList();
+		Set<String> neighbours = new LinkedHashSet<>();
+		String prefix = name + '$';
+		workspace.getPrimaryClassNames().stream()
+				.filter(other -> other.startsWith(prefix))
+				.sorted()
+				.forEach(neighbours::add);
+		workspace.getHierarchyGraph().getParents(name).forEach(neighbours::add);
+		neighbours.addAll(getCallees(value));
+		neighbours.remove(name);
+		return neighbours.stream()
+				.filter(this::isInWorkspace)
+				.limit(MAX_NEIGHBOURS)
+				.collect(Collectors.toList());
+	}
+
+	private boolean isInWorkspace(String name) {
+		JavaResource resource = workspace.getContainingResourceForClass(name);
+		return resource == workspace.getPrimary() || workspace.getLibraries().contains(resource);
+	}
+
+	private static Set<String> getCallees(byte[] value) {
+		Set<String> callees = new LinkedHashSet<>();
+		new ClassReader(value).accept(new ClassVisitor(Recaf.ASM_VERSION) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String desc, String sig, String[] ex) {
+				return new MethodVisitor(Recaf.ASM_VERSION) {
+					@Override
+					public void visitMethodInsn(int op, String owner, String name, String desc, boolean itf) {
+						// Array types can be the owner of methods like clone()
+						if (owner.charAt(0) != '[')
+							callees.add(owner);
+					}
+				};
+			}
+		}, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		return callees;
+	}
+}
@@ -0,0 +1,16 @@
+package me.coley.recaf.decompile;
+
+/**
+ * State a decompiler keeps between classes of the same workspace, such as parsed type metadata.
+ *
+ * @author Matt
+ */
+public interface DecompileSession {
+	/**
+	 * Called when a class of the workspace changes. Sessions may be in use while this is called.
+	 *
+	 * @param name
+	 * 		Name of the changed class.
+	 */
+	void invalidate(String name);
+}
@@ -0,0 +1,98 @@
+package me.coley.recaf.decompile;
+
+import me.coley.recaf.util.TaskScheduler;
+import me.coley.recaf.util.struct.InternalBiConsumer;
+import me.coley.recaf.util.struct.InternalConsumer;
+import me.coley.recaf.util.struct.ListeningMap;
+import me.coley.recaf.workspace.JavaResource;
+import me.coley.recaf.workspace.Workspace;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Supplier;
+
+/**
+ * Reusable {@link DecompileSession decompiler sessions} of a workspace.
+ * A session is only used by one decompile at a time, so concurrent decompiles each take their own.
+ * Sessions are told about changed classes, including those of libraries added later, so they only have to drop
+ * the state of those classes.
+ *
+ * @author Matt
+ */
+public class DecompileSessions {
+	private static final int MAX_IDLE = Runtime.getRuntime().availableProcessors();
+	private final Map<String, Deque<DecompileSession>> idle = new ConcurrentHashMap<>();
+	private final Set<DecompileSession> sessions = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * @param workspace
+	 * 		Workspace the sessions decompile classes of.
+	 */
+	public DecompileSessions(Workspace workspace) {
+		listen(workspace.getPrimary());
+		workspace.getLibraries().forEach(this::listen);
+		workspace.getLibraryListeners().add(this::listen);
+	}
+
+	private void listen(JavaResource resource) {
+		ListeningMap<String, byte[]> map = resource.getClasses();
+		map.getPutListeners().add(InternalBiConsumer.internal((name, value) -> invalidate(name)));
+		map.getRemoveListeners().add(InternalConsumer.internal(name -> invalidate((String) name)));
+	}
+
+	/**
+	 * @param key
+	 * 		Identifier of the decompiler and the options that affect its session.
+	 * @param factory
+	 * 		Creates a new session when no idle session of the key exists.
+	 * @param <S>
+	 * 		Session type.
+	 *
+	 * @return Session for exclusive use until it is {@link #release(String, DecompileSession) released}.
+	 */
+	@SuppressWarnings("unchecked")
+	public <S extends DecompileSession> S take(String key, Supplier<S> factory) {
+		Deque<DecompileSession> deque = idle.get(key);
+		S session = deque == null ? null : (S) deque.poll();
+		if (session == null) {
+			session = factory.get();
+			sessions.add(session);
+		}
+		return session;
+	}
+
+	/**
+	 * @param key
+	 * 		Identifier the session was taken with.
+	 * @param session
+	 * 		Session that is no longer in use. Discarded if the current thread was interrupted or abandoned.
+	 */
+	public void release(String key, DecompileSession session) {
+		// A cancelled decompile may have been stopped halfway through updating the session.
+		// Decompilers can swallow the interrupt, but a worker abandoned for ignoring it stays abandoned.
+		Thread thread = Thread.currentThread();
+		if (thread.isInterrupted() || TaskScheduler.isAbandoned(thread)) {
+			sessions.remove(session);
+			return;
+		}
+		Deque<DecompileSession> deque = idle.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+		// Sessions beyond the usual amount of concurrent decompiles are not worth keeping around
+		if (deque.size() < MAX_IDLE)
+			deque.push(session);
+		else
+			sessions.remove(session);
+	}
+
+	/**
+	 * @return Number of sessions, both idle and in use.
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+	private void invalidate(String name) {
+		for (DecompileSession session : sessions)
+			session.invalidate(name);
+	}
+}
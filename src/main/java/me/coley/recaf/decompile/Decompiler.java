@@ -16,6 +16,7 @@ public abstract class Decompiler<OptionType> {
 	private final Controller controller;
 	private final Map<String, OptionType> defaultOptions;
 	private Map<String, OptionType> options;
+	private boolean unescapeUnicode;
 
 	/**
 	 * Initialize the decompiler wrapper.
@@ -63,6 +64,45 @@ public abstract class Decompiler<OptionType> {
 	 */
 	protected abstract Map<String, OptionType> generateDefaultOptions();
 
+	/**
+	 * @return {@code true} when escaped unicode in the output is replaced with the actual characters.
+	 */
+	public boolean isUnescapeUnicode() {
+		return unescapeUnicode;
+	}
+
+	/**
+	 * @param unescapeUnicode
+	 * 		Whether to replace escaped unicode in the output with the actual characters.
+	 * 		Useful for displaying output, but exported sources should keep the escapes.
+	 */
+	public void setUnescapeUnicode(boolean unescapeUnicode) {
+		this.unescapeUnicode = unescapeUnicode;
+	}
+
+	/**
+	 * @param name
+	 * 		Name of the class being decompiled.
+	 *
+	 * @return Fix-ups to apply to the decompiler's output of the class.
+	 */
+	protected List<FixupRule> getFixupRules(String name) {
+		return new ArrayList<>();
+	}
+
+	/**
+	 * @param name
+	 * 		Name of the class being decompiled.
+	 *
+	 * @return Post-processor for the decompiler to write its output of the class into.
+	 */
+	protected PostProcessor createPostProcessor(String name) {
+		List<FixupRule> rules = getFixupRules(name);
+		if (unescapeUnicode)
+			rules.add(FixupRules.unescapeUnicode());
+		return new PostProcessor(rules);
+	}
+
 	/**
 	 * @param name
 	 * 		Name of the class to decompile.
@@ -0,0 +1,53 @@
+package me.coley.recaf.decompile;
+
+/**
+ * Fix-up applied to decompiler output by a {@link PostProcessor}.
+ * <br>
+ * Rules may keep state for the class being decompiled, so a new instance is used for every decompile.
+ *
+ * @author Matt
+ */
+public interface FixupRule {
+	/**
+	 * Returned by {@link #apply(CharSequence, int, StringBuilder)} when the rule needs more output than is
+	 * buffered to decide on a match. The rule is applied again at the same position once more output is
+	 * written. At the end of the output the rule is treated as not matching.
+	 */
+	int MORE_INPUT = -1;
+
+	/**
+	 * @param text
+	 * 		Buffered decompiler output. Only the content from the cursor onwards may be read.
+	 * @param cursor
+	 * 		Position in the text to apply the rule at.
+	 * @param out
+	 * 		Processed output to append the replacement to.
+	 *
+	 * @return Number of characters consumed from the text. {@code 0} if the rule does not apply at the cursor,
+	 * or {@link #MORE_INPUT} if it cannot tell yet.
+	 */
+	int apply(CharSequence text, int cursor, StringBuilder out);
+
+	/**
+	 * @return Characters a match of the rule can start with, {@code null} to try the rule at every character.
+	 */
+	default String getTriggers() {
+		return null;
+	}
+
+	/**
+	 * @return Number of characters following the cursor the rule needs to see to decide on a match,
+	 * or to decide it needs {@link #MORE_INPUT more}.
+	 */
+	default int getLookahead() {
+		return 1;
+	}
+
+	/**
+	 * Called once all output went through the rules.
+	 *
+	 * @param out
+	 * 		Processed output.
+	 */
+	default void finish(StringBuilder out) {}
+}
@@ -0,0 +1,138 @@
+package me.coley.recaf.decompile;
+
+import me.coley.recaf.util.EscapeUtil;
+
+/**
+ * Common {@link FixupRule fix-up rules}.
+ *
+ * @author Matt
+ */
+public final class FixupRules {
+	// Longest escape the processor needs to see at once, allowing a few repeated 'u' characters
+	private static final int UNICODE_LOOKAHEAD = 16;
+
+	private FixupRules() {}
+
+	/**
+	 * @param target
+	 * 		Text to replace.
+	 * @param replacement
+	 * 		Text to replace it with.
+	 *
+	 * @return Rule replacing all occurrences of the target.
+	 */
+	public static FixupRule replace(String target, String replacement) {
+		if (target.isEmpty())
+			throw new IllegalArgumentException("Replacement target must not be empty");
+		return new FixupRule() {
+			@Override
+			public int apply(CharSequence text, int cursor, StringBuilder out) {
+				if (!regionMatches(text, cursor, target))
+					return 0;
+				out.append(replacement);
+				return target.length();
+			}
+
+			@Override
+			public String getTriggers() {
+				return target.substring(0, 1);
+			}
+
+			@Override
+			public int getLookahead() {
+				return target.length();
+			}
+		};
+	}
+
+	/**
+	 * @param start
+	 * 		Text the header starts with.
+	 * @param end
+	 * 		Text the header ends with.
+	 *
+	 * @return Rule removing a header at the start of the output, along with the line break following it.
+	 * The header can be of any length, output is held back until its end is written.
+	 */
+	public static FixupRule stripHeader(String start, String end) {
+		return new FixupRule() {
+			private boolean checked;
+			// Offset from the cursor up to which the header was searched for its end
+			private int searched;
+
+			@Override
+			public int apply(CharSequence text, int cursor, StringBuilder out) {
+				// Only the start of the output can be a header
+				if (checked || out.length() > 0)
+					return 0;
+				if (!regionMatches(text, cursor, start)) {
+					checked = true;
+					return 0;
+				}
+				// Only the newly written output has to be searched, the character after the end is consumed too
+				int i = cursor + Math.max(start.length(), searched);
+				for (; i + end.length() < text.length(); i++) {
+					if (regionMatches(text, i, end)) {
+						checked = true;
+						return i + end.length() + 1 - cursor;
+					}
+				}
+				searched = i - cursor;
+				return MORE_INPUT;
+			}
+
+			@Override
+			public String getTriggers() {
+				return start.substring(0, 1);
+			}
+
+			@Override
+			public int getLookahead() {
+				return start.length();
+			}
+		};
+	}
+
+	/**
+	 * @return Rule replacing escaped unicode with the actual characters.
+	 *
+	 * @see EscapeUtil#unescapeUnicode(String)
+	 */
+	public static FixupRule unescapeUnicode() {
+		return new FixupRule() {
+			@Override
+			public int apply(CharSequence text, int cursor, StringBuilder out) {
+				return EscapeUtil.unescapeUnicode(text, cursor, out);
+			}
+
+			@Override
+			public String getTriggers() {
+				return "\\";
+			}
+
+			@Override
+			public int getLookahead() {
+				return UNICODE_LOOKAHEAD;
+			}
+		};
+	}
+
+	/**
+	 * @param text
+	 * 		Text to check.
+	 * @param offset
+	 * 		Offset in the text.
+	 * @param value
+	 * 		Value to look for.
+	 *
+	 * @return {@code true} when the text contains the value at the offset.
+	 */
+	public static boolean regionMatches(CharSequence text, int offset, String value) {
+		if (offset + value.length() > text.length())
+			return false;
+		for (int i = 0; i < value.length(); i++)
+			if (text.charAt(offset + i) != value.charAt(i))
+				return false;
+		return true;
+	}
+}
@@ -0,0 +1,169 @@
+package me.coley.recaf.decompile;
+
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Applies {@link FixupRule fix-up rules} to decompiler output in a single pass.
+ * Decompilers write their output into the processor as it is generated, and each character is
+ * processed once as soon as enough following text is buffered for every rule to decide on a match.
+ * Rules matching text of unbounded length can hold off processing until they see their end.
+ * <br>
+ * At each position the rules triggered by the character are tried in order, and the first one to
+ * consume input wins. Characters no rule consumes are copied as they are.
+ *
+ * @author Matt
+ */
+public class PostProcessor extends Writer {
+	private static final int COMPACT_THRESHOLD = 8192;
+	private final FixupRule[][] asciiRules = new FixupRule[128][];
+	private final FixupRule[] otherRules;
+	private final List<FixupRule> rules;
+	private final StringBuilder buffer = new StringBuilder();
+	private final StringBuilder out = new StringBuilder();
+	private final int lookahead;
+	private int cursor;
+	private boolean written;
+	private boolean finished;
+
+	/**
+	 * @param rules
+	 * 		Rules to apply, in order of priority.
+	 */
+	public PostProcessor(List<FixupRule> rules) {
+		this.rules = new ArrayList<>(rules);
+		int max = 1;
+		List<FixupRule> other = new ArrayList<>();
+		for (FixupRule rule : this.rules) {
+			max = Math.max(max, rule.getLookahead());
+			String triggers = rule.getTriggers();
+			if (triggers == null || triggers.chars().anyMatch(c -> c >= asciiRules.length))
+				other.add(rule);
+		}
+		for (char c = 0; c < asciiRules.length; c++) {
+			List<FixupRule> triggered = new ArrayList<>();
+			for (FixupRule rule : this.rules) {
+				String triggers = rule.getTriggers();
+				if (triggers == null || triggers.indexOf(c) >= 0)
+					triggered.add(rule);
+			}
+			if (!triggered.isEmpty())
+				asciiRules[c] = triggered.toArray(new FixupRule[0]);
+		}
+		this.otherRules = other.isEmpty() ? null : other.toArray(new FixupRule[0]);
+		this.lookahead = max;
+	}
+
+	/**
+	 * @param text
+	 * 		Complete decompiler output.
+	 * @param rules
+	 * 		Rules to apply, in order of priority.
+	 *
+	 * @return Processed output.
+	 */
+	public static String process(String text, List<FixupRule> rules) {
+		if (rules.isEmpty())
+			return text;
+		PostProcessor processor = new PostProcessor(rules);
+		processor.write(text);
+		return processor.finish();
+	}
+
+	@Override
+	public void write(char[] chars, int offset, int length) {
+		ensureOpen();
+		written = true;
+		buffer.append(chars, offset, length);
+		process(false);
+	}
+
+	@Override
+	public void write(String text) {
+		write(text, 0, text.length());
+	}
+
+	@Override
+	public void write(String text, int offset, int length) {
+		ensureOpen();
+		written = true;
+		buffer.append(text, offset, offset + length);
+		process(false);
+	}
+
+	@Override
+	public void flush() {}
+
+	@Override
+	public void close() {}
+
+	/**
+	 * Process the remaining buffered output.
+	 *
+	 * @return Processed output, or {@code null} if nothing was written.
+	 */
+	public String finish() {
+		if (!finished) {
+			finished = true;
+			process(true);
+			for (FixupRule rule : rules)
+				rule.finish(out);
+		}
+		return written ? out.toString() : null;
+	}
+
+	private void process(boolean all) {
+		int limit = all ? buffer.length() : buffer.length() - lookahead;
+		int copyStart = cursor;
+		while (cursor < limit) {
+			char c = buffer.charAt(cursor);
+			FixupRule[] candidates = c < asciiRules.length ? asciiRules[c] : otherRules;
+			int consumed = 0;
+			if (candidates != null) {
+				for (FixupRule rule : candidates) {
+					if (c >= asciiRules.length && !isTriggered(rule, c))
+						continue;
+					// Copy the unprocessed run before the rule appends its replacement
+					if (copyStart < cursor) {
+						out.append(buffer, copyStart, cursor);
+						copyStart = cursor;
+					}
+					consumed = apply(rule, all);
+					if (consumed != 0)
+						break;
+				}
+			}
+			if (consumed == FixupRule.MORE_INPUT)
+				break;
+			if (consumed > 0) {
+				cursor += consumed;
+				copyStart = cursor;
+			} else {
+				cursor++;
+			}
+		}
+		if (copyStart < cursor)
+			out.append(buffer, copyStart, cursor);
+		// Drop processed input so the buffer only holds the lookahead
+		if (cursor > COMPACT_THRESHOLD) {
+			buffer.delete(0, cursor);
+			cursor = 0;
+		}
+	}
+
+	private int apply(FixupRule rule, boolean all) {
+		int consumed = rule.apply(buffer, cursor, out);
+		// No more output follows, so a rule still waiting for it does not match
+		return consumed == FixupRule.MORE_INPUT && all ? 0 : consumed;
+	}
+
+	private static boolean isTriggered(FixupRule rule, char c) {
+		String triggers = rule.getTriggers();
+		return triggers == null || triggers.indexOf(c) >= 0;
+	}
+
+	private void ensureOpen() {
+		if (finished)
+			throw new IllegalStateException("Post-processor already finished");
+	}
+}
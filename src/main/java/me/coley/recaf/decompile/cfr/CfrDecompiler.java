@@ -2,8 +2,11 @@ package me.coley.recaf.decompile.cfr;
 
 import me.coley.recaf.config.ConfDecompile;
 import me.coley.recaf.control.Controller;
+import me.coley.recaf.decompile.DecompileSessions;
 import me.coley.recaf.decompile.Decompiler;
-import me.coley.recaf.util.AccessFlag;
+import me.coley.recaf.decompile.FixupRule;
+import me.coley.recaf.decompile.FixupRules;
+import me.coley.recaf.workspace.Workspace;
 import org.benf.cfr.reader.api.CfrDriver;
 import org.benf.cfr.reader.util.getopt.OptionDecoderParam;
 import org.benf.cfr.reader.util.getopt.OptionsImpl;
@@ -12,8 +15,8 @@ import org.benf.cfr.reader.util.getopt.PermittedOptionProvider;
 import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * CFR decompiler implementation.
@@ -61,80 +64,53 @@ public class CfrDecompiler extends Decompiler<String> {
 
 	@Override
 	public String decompile(String name) {
-		ClassSource source = new ClassSource(getController());
-		SinkFactoryImpl sink = new SinkFactoryImpl();
-		CfrDriver driver = new CfrDriver.Builder()
-				.withClassFileSource(source)
-				.withOutputSink(sink)
-				.withOptions(getOptions())
-				.build();
-		driver.analyse(Collections.singletonList(name));
+		Workspace workspace = getController().getWorkspace();
+		boolean stripDebug = getController().config().decompile().stripDebug;
+		DecompileSessions sessions = workspace.getDecompileSessions();
+		String key = "cfr:stripdebug=" + stripDebug;
+		ClassSource source = sessions.take(key, () -> new ClassSource(workspace, stripDebug));
+		SinkFactoryImpl sink = new SinkFactoryImpl(createPostProcessor(name));
+		try {
+			CfrDriver driver = new CfrDriver.Builder()
+					.withClassFileSource(source)
+					.withOutputSink(sink)
+					.withOptions(getOptions())
+					.build();
+			driver.analyse(Collections.singletonList(name));
+		} finally {
+			sessions.release(key, source);
+		}
 		String decompile = sink.getDecompilation();
 		if (decompile == null)
 			return "// ERROR: Failed to decompile '" + name + "'";
-		return clean(decompile, name);
+		return decompile;
 	}
 
 	/**
 	 * Remove watermark &amp; oddities from decompilation output.
 	 *
-	 * @param decompilationText
-	 * 		Decompilation text.
-	 * @param className
+	 * @param name
 	 * 		Class name.
 	 *
-	 * @return Decompilation without watermark.
+	 * @return Rules cleaning up the decompilation of the class.
 	 */
-	private String clean(String decompilationText, String className) {
+	@Override
+	protected List<FixupRule> getFixupRules(String name) {
+		List<FixupRule> rules = super.getFixupRules(name);
 		// Get rid of header comment
-		if (decompilationText.startsWith("/*\n * Decompiled with CFR"))
-			decompilationText = decompilationText.substring(decompilationText.indexOf("*/") + 3);
+		rules.add(FixupRules.stripHeader("/*\n * Decompiled with CFR", "*/"));
 		// JavaParser does NOT like inline comments like this.
-		decompilationText = decompilationText.replace("/* synthetic */ ", "");
-		decompilationText = decompilationText.replace("/* bridge */ ", "");
-		decompilationText = decompilationText.replace("/* enum */ ", "");
-		decompilationText = decompilationText.replace(" - consider using --renameillegalidents true",
-				" - recommend switching to table mode");
-
+		rules.add(FixupRules.replace("/* synthetic */ ", ""));
+		rules.add(FixupRules.replace("/* bridge */ ", ""));
+		rules.add(FixupRules.replace("/* enum */ ", ""));
+		rules.add(FixupRules.replace(" - consider using --renameillegalidents true",
+				" - recommend switching to table mode"));
 		// Fix inner class names being busted in decompilation text, needs to be "Inner$1"
 		// instead of "Inner.1", as generated by CFR
-		String classSimpleName = className.contains("/") ?
-				className.substring(className.lastIndexOf('/') + 1) : className;
-		if (classSimpleName.contains("$")) {
-			String incorrectlyDecompiledClassSimpleName = classSimpleName.replace('$', '.');
-
-			int indexOfincorrectlyDecompiledClassSimpleName =
-					decompilationText.indexOf(incorrectlyDecompiledClassSimpleName);
-			if (indexOfincorrectlyDecompiledClassSimpleName == -1) {
-				// Generated CFR output does not match expectations.
-				// Don't attempt to fix up matters and lets this pass through
-				// with an indication that we encountered this challenge.
-				// One example of this happening is in
-				//   https://mvnrepository.com/artifact/com.google.code.gson/gson/2.2.4
-				// with (true) class com.google.gson.internal.$Gson$Types$GenericArrayTypeImpl
-				// being decompiled by CFR to com.google.gson.internal.$Gson$Types.GenericArrayTypeImpl
-				// Note that singular dot in there generated by CFR.
-				decompilationText = "// ERROR: Unable to apply inner class name fixup" + System.lineSeparator()
-						+ decompilationText;
-				return decompilationText;
-			}
-
-			decompilationText = decompilationText.replace(incorrectlyDecompiledClassSimpleName, classSimpleName);
-
-			String startText = decompilationText.substring(0, decompilationText.indexOf(classSimpleName));
-			String startTextCopy = startText;
-			Set<AccessFlag> allowed = AccessFlag.getApplicableFlags(AccessFlag.Type.CLASS);
-			for (AccessFlag acc : AccessFlag.values()) {
-				if (allowed.contains(acc))
-					continue;
-				if (startText.contains(acc.getName() + " ")) {
-					startText = startText.replace(startText,
-							startText.replace(acc.getCodeFriendlyName() + " ", ""));
-				}
-			}
-			decompilationText = decompilationText.replace(startTextCopy, startText);
-		}
-		return decompilationText;
+		String simpleName = name.substring(name.lastIndexOf('/') + 1);
+		if (simpleName.contains("$"))
+			rules.add(new InnerClassNameRule(simpleName));
+		return rules;
 	}
 
 	/**
@@ -1,19 +1,29 @@
 package me.coley.recaf.decompile.cfr;
 
 import me.coley.recaf.control.Controller;
+import me.coley.recaf.decompile.DecompileSession;
 import me.coley.recaf.util.ClassUtil;
+import me.coley.recaf.workspace.Workspace;
 import org.benf.cfr.reader.api.ClassFileSource;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
 
 /**
  * CFR class source. Provides access to workspace clases.
+ * <br>
+ * The content handed to CFR is kept between decompiles, so classes are only stripped of debug info
+ * or loaded from the runtime once. Changed classes are dropped through {@link #invalidate(String)}, and content
+ * is prepared again when the workspace content no longer matches the hash it was prepared from.
  *
  * @author Matt
  */
-public class ClassSource implements ClassFileSource {
-	private final Controller controller;
+public class ClassSource implements ClassFileSource, DecompileSession {
+	private final Map<String, Content> content = new ConcurrentHashMap<>();
+	private final Workspace workspace;
+	private final boolean stripDebug;
 
 	/**
 	 * Constructs a CFR class source.
@@ -22,7 +32,20 @@ public class ClassSource implements ClassFileSource {
 	 * 		Controller with workspace to pull classes from.
 	 */
 	public ClassSource(Controller controller) {
-		this.controller = controller;
+		this(controller.getWorkspace(), controller.config().decompile().stripDebug);
+	}
+
+	/**
+	 * Constructs a CFR class source.
+	 *
+	 * @param workspace
+	 * 		Workspace to pull classes from.
+	 * @param stripDebug
+	 * 		Strip debug info from classes before they are given to CFR.
+	 */
+	public ClassSource(Workspace workspace, boolean stripDebug) {
+		this.workspace = workspace;
+		this.stripDebug = stripDebug;
 	}
 
 	@Override
@@ -39,18 +62,56 @@ public class ClassSource implements ClassFileSource {
 	}
 
 	@Override
-	@SuppressWarnings("deprecation")
 	public Pair<byte[], String> getClassFileContent(String inputPath) {
 		String className = inputPath.substring(0, inputPath.indexOf(".class"));
-		byte[] code = controller.getWorkspace().getRawClass(className);
+		byte[] raw = workspace.getRawClass(className);
+		long hash = hash(raw);
+		Content cached = content.get(className);
+		// Classes can change between being invalidated and being replaced in the workspace.
+		// Compared by content since mapped storage returns a new array on every lookup.
+		if (cached == null || cached.hash != hash) {
+			cached = new Content(hash, prepare(className, raw));
+			content.put(className, cached);
+		}
+		return new Pair<>(cached.code, inputPath);
+	}
+
+	@Override
+	public void invalidate(String name) {
+		content.remove(name);
+	}
+
+	private static long hash(byte[] raw) {
+		if (raw == null)
+			return 0;
+		CRC32 crc = new CRC32();
+		crc.update(raw);
+		return (crc.getValue() << 32) ^ (Arrays.hashCode(raw) & 0xFFFFFFFFL) ^ raw.length;
+	}
+
+	@SuppressWarnings("deprecation")
+	private byte[] prepare(String className, byte[] code) {
 		// Strip debug if config says so
-		if (controller.config().decompile().stripDebug)
+		if (stripDebug)
 			code = ClassUtil.stripDebugForDecompile(code);
 		// Fetch code from runtime if not in workspace
 		if (code == null) {
 			code = Objects.requireNonNull(ClassUtil.fromRuntime(className),
 					"Failed to load class from runtime: " + className).b;
 		}
-		return new Pair<>(code, inputPath);
+		return code;
+	}
+
+	/**
+	 * Class content given to CFR, and the hash of the workspace content it was created from.
+	 */
+	private static final class Content {
+		private final long hash;
+		private final byte[] code;
+
+		private Content(long hash, byte[] code) {
+			this.hash = hash;
+			this.code = code;
+		}
 	}
 }
@@ -0,0 +1,89 @@
+package me.coley.recaf.decompile.cfr;
+
+import me.coley.recaf.decompile.FixupRule;
+import me.coley.recaf.decompile.FixupRules;
+import me.coley.recaf.util.AccessFlag;
+
+import java.util.*;
+
+/**
+ * Fixes inner class names in CFR output, which needs to be {@code Inner$1} instead of {@code Inner.1}.
+ * Modifiers that are not allowed on top level classes are removed from the declaration of the class.
+ *
+ * @author Matt
+ */
+class InnerClassNameRule implements FixupRule {
+	private static final List<String> ILLEGAL_MODIFIERS = new ArrayList<>();
+	private final String incorrectName;
+	private final String simpleName;
+	private boolean found;
+
+	/**
+	 * @param simpleName
+	 * 		Simple name of the inner class, including the names of the outer classes.
+	 */
+	InnerClassNameRule(String simpleName) {
+		this.simpleName = simpleName;
+		this.incorrectName = simpleName.replace('$', '.');
+	}
+
+	@Override
+	public int apply(CharSequence text, int cursor, StringBuilder out) {
+		if (!FixupRules.regionMatches(text, cursor, incorrectName))
+			return 0;
+		if (!found) {
+			found = true;
+			stripModifiers(out);
+		}
+		out.append(simpleName);
+		return incorrectName.length();
+	}
+
+	@Override
+	public String getTriggers() {
+		return incorrectName.substring(0, 1);
+	}
+
+	@Override
+	public int getLookahead() {
+		return incorrectName.length();
+	}
+
+	@Override
+	public void finish(StringBuilder out) {
+		if (found)
+			return;
+		// Generated CFR output does not match expectations.
+		// Don't attempt to fix up matters and lets this pass through
+		// with an indication that we encountered this challenge.
+		// One example of this happening is in
+		//   https://mvnrepository.com/artifact/com.google.code.gson/gson/2.2.4
+		// with (true) class com.google.gson.internal.$Gson$Types$GenericArrayTypeImpl
+		// being decompiled by CFR to com.google.gson.internal.$Gson$Types.GenericArrayTypeImpl
+		// Note that singular dot in there generated by CFR.
+		out.insert(0, "// ERROR: Unable to apply inner class name fixup" + System.lineSeparator());
+	}
+
+	/**
+	 * The first occurrence of the name is the declaration of the class, only the declaration line has to be
+	 * checked for modifiers.
+	 */
+	private static void stripModifiers(StringBuilder out) {
+		int lineStart = out.lastIndexOf("\n") + 1;
+		String line = out.substring(lineStart);
+		String stripped = line;
+		for (String modifier : ILLEGAL_MODIFIERS)
+			stripped = stripped.replace(modifier, "");
+		if (!stripped.equals(line)) {
+			out.setLength(lineStart);
+			out.append(stripped);
+		}
+	}
+
+	static {
+		Set<AccessFlag> allowed = AccessFlag.getApplicableFlags(AccessFlag.Type.CLASS);
+		for (AccessFlag acc : AccessFlag.values())
+			if (!allowed.contains(acc))
+				ILLEGAL_MODIFIERS.add(acc.getCodeFriendlyName() + " ");
+	}
+}
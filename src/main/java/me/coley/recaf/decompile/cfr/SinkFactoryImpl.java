@@ -1,5 +1,6 @@
 package me.coley.recaf.decompile.cfr;
 
+import me.coley.recaf.decompile.PostProcessor;
 import org.benf.cfr.reader.api.OutputSinkFactory;
 
 import java.util.*;
@@ -12,7 +13,15 @@ import static me.coley.recaf.util.Log.*;
  * @author Matt
  */
 public class SinkFactoryImpl implements OutputSinkFactory {
-	private String decompile;
+	private final PostProcessor processor;
+
+	/**
+	 * @param processor
+	 * 		Post-processor to write decompiled classes into.
+	 */
+	public SinkFactoryImpl(PostProcessor processor) {
+		this.processor = processor;
+	}
 
 	@Override
 	public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> collection) {
@@ -34,13 +43,13 @@ public class SinkFactoryImpl implements OutputSinkFactory {
 	}
 
 	private <T> void setDecompilation(T value) {
-		decompile = value.toString();
+		processor.write(value.toString());
 	}
 
 	/**
-	 * @return Decompiled class content.
+	 * @return Decompiled class content, or {@code null} if nothing was decompiled.
 	 */
 	public String getDecompilation() {
-		return decompile;
+		return processor.finish();
 	}
 }
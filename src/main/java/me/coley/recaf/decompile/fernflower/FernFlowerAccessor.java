@@ -17,8 +17,7 @@ import org.jetbrains.java.decompiler.util.TextBuffer;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.Locale;
-import java.util.Map;
+import java.util.*;
 
 /**
  * FernFlower accessor. Modified from {@link org.jetbrains.java.decompiler.main.Fernflower} to
@@ -27,8 +26,10 @@ import java.util.Map;
  * @author Matt
  */
 public class FernFlowerAccessor implements IDecompiledData {
+	private final Set<String> processed = new HashSet<>();
 	private final StructContextDecorator structContext;
 	private final ClassesProcessor classProcessor;
+	private final DecompilerContext context;
 
 	/**
 	 * Constructs a FernFlower decompiler instance.
@@ -51,7 +52,7 @@ public class FernFlowerAccessor implements IDecompiledData {
 		structContext = new StructContextDecorator(saver, this, new LazyLoader(provider));
 		classProcessor = new ClassesProcessor(structContext);
 		int threadCount = 1;
-		DecompilerContext context = new DecompilerContext(
+		context = new DecompilerContext(
 				properties, threadCount, logger, structContext, classProcessor,
 				new PoolInterceptor(), new IdentityRenamerFactory());
 		DecompilerContext.setCurrentContext(context);
@@ -73,6 +74,32 @@ public class FernFlowerAccessor implements IDecompiledData {
 		structContext.addWorkspace(workspace);
 	}
 
+	/**
+	 * Load classes on demand from the workspace instead of adding all of them up front.
+	 * Each class is then only analyzed once it is decompiled.
+	 *
+	 * @param workspace
+	 * 		Recaf workspace to pull classes from.
+	 */
+	public void setWorkspace(Workspace workspace) {
+		structContext.setWorkspace(workspace);
+	}
+
+	/**
+	 * Drop a changed class along with the classes it is nested in and the classes nested in it.
+	 * They are loaded and analyzed again when decompiled.
+	 *
+	 * @param name
+	 * 		Name of the changed class.
+	 */
+	public void reload(String name) {
+		Map<String, ClassesProcessor.ClassNode> roots = classProcessor.getMapRootClasses();
+		for (String removed : structContext.unloadFamily(name)) {
+			roots.remove(removed);
+			processed.remove(removed);
+		}
+	}
+
 	/**
 	 * Analyze classes in the workspace.
 	 */
@@ -96,9 +123,10 @@ public class FernFlowerAccessor implements IDecompiledData {
 		pool.shutdown();
 		pool.awaitTermination(10, TimeUnit.SECONDS);
 		 */
-		for (StructClass cl : structContext.getClasses().values())
+		for (StructClass cl : new ArrayList<>(structContext.getClasses().values()))
 			try {
 				classProcessor.processClass(cl);
+				processed.add(cl.qualifiedName);
 			} catch (Throwable t) {
 				t.printStackTrace();
 			}
@@ -111,12 +139,46 @@ public class FernFlowerAccessor implements IDecompiledData {
 	 * @return Decompilation of the class.
 	 */
 	public String decompile(String name) {
+		// Sessions can be used from different threads, but FernFlower looks up its context per thread
+		DecompilerContext.setCurrentContext(context);
+		prepare(name);
 		StructClass clazz = structContext.getClass(name);
 		if (clazz == null)
 			throw new IllegalArgumentException("FernFlower could not find \"" + name + "\"");
 		return getClassContent(clazz);
 	}
 
+	/**
+	 * Load and analyze a class, and the classes it is linked to through nesting, if they have not been yet.
+	 *
+	 * @param name
+	 * 		Class name.
+	 */
+	private void prepare(String name) {
+		List<String> family = structContext.loadFamily(name);
+		Map<String, ClassesProcessor.ClassNode> roots = classProcessor.getMapRootClasses();
+		if (!roots.keySet().containsAll(family)) {
+			structContext.setLocked(true);
+			try {
+				classProcessor.loadClasses(null);
+			} finally {
+				structContext.setLocked(false);
+			}
+		}
+		for (String member : family) {
+			if (!processed.add(member))
+				continue;
+			StructClass cl = structContext.getClass(member);
+			if (cl == null)
+				continue;
+			try {
+				classProcessor.processClass(cl);
+			} catch (Throwable t) {
+				DecompilerContext.getLogger().writeMessage("Class " + member + " couldn't be analyzed.", t);
+			}
+		}
+	}
+
 	@Override
 	public String getClassEntryName(StructClass cl, String entryName) {
 		ClassesProcessor.ClassNode node = classProcessor.getMapRootClasses().get(cl.qualifiedName);
@@ -2,13 +2,12 @@ package me.coley.recaf.decompile.fernflower;
 
 import me.coley.recaf.config.ConfDecompile;
 import me.coley.recaf.control.Controller;
+import me.coley.recaf.decompile.DecompileSessions;
 import me.coley.recaf.decompile.Decompiler;
-import me.coley.recaf.util.ClassUtil;
+import me.coley.recaf.decompile.PostProcessor;
 import me.coley.recaf.workspace.Workspace;
-import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 
-import java.io.*;
 import java.util.*;
 
 /**
@@ -17,11 +16,6 @@ import java.util.*;
  * @author Matt
  */
 public class FernFlowerDecompiler extends Decompiler<Object> {
-	private static final FernFlowerLogger LOGGER = new FernFlowerLogger();
-	private static final DummyCollector DUMMY_COLLECTOR = new DummyCollector();
-	private FernFlowerAccessor decompiler;
-	private Workspace lastWorkspace;
-
 	/**
 	 * Initialize the decompiler wrapper.
 	 *
@@ -30,9 +24,6 @@ public class FernFlowerDecompiler extends Decompiler<Object> {
 	 */
 	public FernFlowerDecompiler(Controller controller) {
 		super(controller);
-		// Initial setup for the given controller
-		if (controller.getWorkspace() != null)
-			setup(controller.getWorkspace());
 	}
 
 	@Override
@@ -55,46 +46,21 @@ public class FernFlowerDecompiler extends Decompiler<Object> {
 	@Override
 	public String decompile(String name) {
 		Workspace workspace = getController().getWorkspace();
-		// Rerun setup if the workspace has changed.
-		// This is required because FernFlower builds a cache of all classes as a custom node structure...
-		if (workspace != lastWorkspace)
-			setup(workspace);
-		// Dump class content
-		return decompiler.decompile(name);
-	}
-
-	/**
-	 * Initialize FernFlower with the given workspace.
-	 *
-	 * @param workspace
-	 * 		Workspace to pull classes from.
-	 */
-	private void setup(Workspace workspace) {
-		IBytecodeProvider provider = (externalPath, internalPath) -> {
-			if(internalPath != null) {
-				String className = internalPath.substring(0, internalPath.indexOf(".class"));
-				ConfDecompile config = getController().config().decompile();
-				byte[] code = workspace.getRawClass(className);
-				if (config.stripDebug)
-					code = ClassUtil.stripDebugForDecompile(code);
-				return code;
-			}
-			throw new IllegalStateException("Provider should only receive internal names."+
-					"Got external name: " + externalPath);
-		};
-		decompiler = new FernFlowerAccessor(provider, DUMMY_COLLECTOR, getOptions(), LOGGER);
+		// FernFlower builds a cache of classes as a custom node structure, which is kept in a session
+		// for the workspace. Classes are only added to it when needed, and changed classes are reloaded.
+		boolean stripDebug = getController().config().decompile().stripDebug;
+		Map<String, Object> options = getOptions();
+		DecompileSessions sessions = workspace.getDecompileSessions();
+		String key = "fernflower:stripdebug=" + stripDebug + "," + new TreeMap<>(options);
+		FernFlowerSession session = sessions.take(key, () -> new FernFlowerSession(workspace, stripDebug, options));
 		try {
-			decompiler.addWorkspace(workspace);
-			decompiler.analyze();
-		} catch(IOException ex) {
-			throw new IllegalStateException("Failed to load inputs for FernFlower!", ex);
-		} catch(ReflectiveOperationException ex) {
-			throw new IllegalStateException("Failed to setup FernFlower!", ex);
-		} catch(IndexOutOfBoundsException ex) {
-			throw new IllegalStateException("FernFlower internal error", ex);
-		} catch(Exception ex) {
-			throw new IllegalStateException(ex);
+			PostProcessor processor = createPostProcessor(name);
+			String decompile = session.decompile(name);
+			if (decompile != null)
+				processor.write(decompile);
+			return processor.finish();
+		} finally {
+			sessions.release(key, session);
 		}
-		lastWorkspace = workspace;
 	}
 }
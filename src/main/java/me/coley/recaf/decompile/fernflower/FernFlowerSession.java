@@ -0,0 +1,60 @@
+package me.coley.recaf.decompile.fernflower;
+
+import me.coley.recaf.decompile.DecompileSession;
+import me.coley.recaf.util.ClassUtil;
+import me.coley.recaf.workspace.Workspace;
+import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FernFlower context of a workspace, kept between decompiles.
+ * Classes are loaded into the context as they are needed, and changed classes are dropped from it
+ * before the next decompile.
+ *
+ * @author Matt
+ */
+final class FernFlowerSession implements DecompileSession {
+	private static final FernFlowerLogger LOGGER = new FernFlowerLogger();
+	private static final DummyCollector DUMMY_COLLECTOR = new DummyCollector();
+	private final Set<String> changed = ConcurrentHashMap.newKeySet();
+	private final FernFlowerAccessor decompiler;
+
+	FernFlowerSession(Workspace workspace, boolean stripDebug, Map<String, Object> options) {
+		IBytecodeProvider provider = (externalPath, internalPath) -> {
+			if(internalPath != null) {
+				String className = internalPath.substring(0, internalPath.indexOf(".class"));
+				byte[] code = workspace.getRawClass(className);
+				if (stripDebug)
+					code = ClassUtil.stripDebugForDecompile(code);
+				return code;
+			}
+			throw new IllegalStateException("Provider should only receive internal names."+
+					"Got external name: " + externalPath);
+		};
+		decompiler = new FernFlowerAccessor(provider, DUMMY_COLLECTOR, new HashMap<>(options), LOGGER);
+		decompiler.setWorkspace(workspace);
+	}
+
+	/**
+	 * @param name
+	 * 		Name of the class to decompile.
+	 *
+	 * @return Decompiled text of the class.
+	 */
+	String decompile(String name) {
+		// Changes are applied here since the context may be in use when they happen
+		for (Iterator<String> it = changed.iterator(); it.hasNext();) {
+			String changedName = it.next();
+			it.remove();
+			decompiler.reload(changedName);
+		}
+		return decompiler.decompile(name);
+	}
+
+	@Override
+	public void invalidate(String name) {
+		changed.add(name);
+	}
+}
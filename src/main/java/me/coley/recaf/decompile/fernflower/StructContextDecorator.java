@@ -4,20 +4,29 @@ import me.coley.recaf.workspace.JavaResource;
 import me.coley.recaf.workspace.Workspace;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import org.jetbrains.java.decompiler.struct.IDecompiledData;
+import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructContext;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 
 import java.io.IOException;
-import java.util.Map;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static me.coley.recaf.util.CollectionUtil.copySet;
 
 /**
  * Decorator for StructContext to support Recaf workspaces.
+ * <br>
+ * Classes can either be added all at once with {@link #addWorkspace(Workspace)}, or loaded on demand
+ * from a workspace set with {@link #setWorkspace(Workspace)}.
  *
  * @author Matt
  */
 public class StructContextDecorator extends StructContext {
+	private Workspace workspace;
+	private boolean locked;
+
 	/**
 	 * Constructs a StructContext.
 	 *
@@ -50,6 +59,118 @@ public class StructContextDecorator extends StructContext {
 			addResource(resource);
 	}
 
+	/**
+	 * @param workspace
+	 * 		Recaf workspace to load classes from when they are first requested.
+	 */
+	public void setWorkspace(Workspace workspace) {
+		this.workspace = workspace;
+	}
+
+	/**
+	 * @param locked
+	 * 		{@code true} to prevent classes from being loaded on demand,
+	 * 		for instance while FernFlower iterates over the loaded classes.
+	 */
+	public void setLocked(boolean locked) {
+		this.locked = locked;
+	}
+
+	@Override
+	public StructClass getClass(String name) {
+		StructClass clazz = super.getClass(name);
+		if (clazz == null && !locked && isInWorkspace(name)) {
+			load(name);
+			clazz = super.getClass(name);
+		}
+		return clazz;
+	}
+
+	/**
+	 * Load a class along with the classes it is nested in and the classes nested in it,
+	 * since FernFlower links them together.
+	 *
+	 * @param name
+	 * 		Name of a class in the workspace.
+	 *
+	 * @return Sorted names of the outermost class of the given class and all classes nested in it.
+	 */
+	public List<String> loadFamily(String name) {
+		List<String> family = getFamily(name);
+		for (String member : family)
+			if (super.getClass(member) == null)
+				load(member);
+		return family;
+	}
+
+	/**
+	 * Remove a class along with the classes it is nested in and the classes nested in it.
+	 * They are loaded again when requested.
+	 *
+	 * @param name
+	 * 		Name of a class in the workspace.
+	 *
+	 * @return Names of the removed classes.
+	 */
+	public List<String> unloadFamily(String name) {
+		String outer = getOutermost(name);
+		List<String> removed = getClasses().keySet().stream()
+				.filter(key -> key.equals(outer) || key.startsWith(outer + '$'))
+				.collect(Collectors.toList());
+		removed.forEach(getClasses()::remove);
+		return removed;
+	}
+
+	/**
+	 * @param name
+	 * 		Name of a class in the workspace.
+	 *
+	 * @return Sorted names of the outermost class of the given class and all classes nested in it.
+	 */
+	public List<String> getFamily(String name) {
+		String outer = getOutermost(name);
+		JavaResource resource = getResource(outer);
+		if (resource == null)
+			return Collections.emptyList();
+		List<String> family = new ArrayList<>();
+		family.add(outer);
+		family.addAll(resource.getNestedClassNames(outer));
+		return family;
+	}
+
+	private void load(String name) {
+		JavaResource resource = getResource(name);
+		byte[] code = resource == null ? null : resource.getClasses().get(name);
+		if (code == null)
+			return;
+		try {
+			addData(name, name.substring(name.lastIndexOf('/') + 1), code, true);
+		} catch (IOException ex) {
+			throw new UncheckedIOException("FernFlower could not read \"" + name + "\"", ex);
+		}
+	}
+
+	private boolean isInWorkspace(String name) {
+		return getResource(name) != null;
+	}
+
+	private JavaResource getResource(String name) {
+		if (workspace == null)
+			return null;
+		if (workspace.getPrimary().getClasses().containsKey(name))
+			return workspace.getPrimary();
+		for (JavaResource resource : workspace.getLibraries())
+			if (resource.getClasses().containsKey(name))
+				return resource;
+		return null;
+	}
+
+	private static String getOutermost(String name) {
+		// Names like "$Proxy" start with the separator, but are not nested
+		int index = name.indexOf('$', name.lastIndexOf('/') + 2);
+		return index < 0 ? name : name.substring(0, index);
+	}
+
 	private void addResource(JavaResource resource) throws IOException {
 		// Iterate resource class entries
 		for (Map.Entry<String, byte[]> entry : copySet(resource.getClasses().entrySet())) {
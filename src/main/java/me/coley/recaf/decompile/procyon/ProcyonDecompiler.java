@@ -1,6 +1,5 @@
 package me.coley.recaf.decompile.procyon;
 
-import com.strobel.assembler.InputTypeLoader;
 import com.strobel.assembler.metadata.ITypeLoader;
 import com.strobel.assembler.metadata.MetadataSystem;
 import com.strobel.assembler.metadata.TypeReference;
@@ -10,10 +9,11 @@ import com.strobel.decompiler.PlainTextOutput;
 import com.strobel.decompiler.languages.java.JavaFormattingOptions;
 import me.coley.recaf.config.ConfDecompile;
 import me.coley.recaf.control.Controller;
+import me.coley.recaf.decompile.DecompileSessions;
 import me.coley.recaf.decompile.Decompiler;
+import me.coley.recaf.decompile.PostProcessor;
+import me.coley.recaf.workspace.Workspace;
 
-import java.io.StringWriter;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -59,9 +59,23 @@ public final class ProcyonDecompiler extends Decompiler<Boolean> {
 
     @Override
     public String decompile(String name) {
-        ITypeLoader loader = new ComposedTypeLoader(Arrays.asList(
-                new RecafTypeLoader(getController()), new InputTypeLoader()
-        ));
+        Workspace workspace = getController().getWorkspace();
+        Map<String, Boolean> options = getOptions();
+        boolean stripDebug = getController().config().decompile().stripDebug;
+        boolean eagerMethodLoading = options.get("eager-methods-loading");
+        DecompileSessions sessions = workspace.getDecompileSessions();
+        String key = "procyon:stripdebug=" + stripDebug + ",eager=" + eagerMethodLoading;
+        ProcyonSession session = sessions.take(key,
+                () -> new ProcyonSession(workspace, stripDebug, eagerMethodLoading));
+        try {
+            return decompile(session, name);
+        } finally {
+            sessions.release(key, session);
+        }
+    }
+
+    private String decompile(ProcyonSession session, String name) {
+        ITypeLoader loader = session.getLoader();
         Map<String, Boolean> options = getOptions();
         DecompilerSettings settings = new DecompilerSettings();
         settings.setFlattenSwitchBlocks(options.get("flatten-switch-blocks"));
@@ -79,14 +93,14 @@ public final class ProcyonDecompiler extends Decompiler<Boolean> {
         settings.setDisableForEachTransforms(options.get("disable-for-each-transforms"));
         settings.setTypeLoader(loader);
         settings.setJavaFormattingOptions(JavaFormattingOptions.createDefault());
-        MetadataSystem system = new MetadataSystem(loader);
-        system.setEagerMethodLoadingEnabled(options.get("eager-methods-loading"));
+        MetadataSystem system = session.getSystem();
         TypeReference ref = system.lookupType(name);
         DecompilationOptions decompilationOptions = new DecompilationOptions();
         decompilationOptions.setSettings(settings);
         decompilationOptions.setFullDecompilation(true);
-        StringWriter writer = new StringWriter();
-        settings.getLanguage().decompileType(ref.resolve(), new PlainTextOutput(writer), decompilationOptions);
-        return writer.toString();
+        PostProcessor processor = createPostProcessor(name);
+        settings.getLanguage().decompileType(ref.resolve(), new PlainTextOutput(processor), decompilationOptions);
+        String decompile = processor.finish();
+        return decompile == null ? "" : decompile;
     }
 }
@@ -0,0 +1,88 @@
+package me.coley.recaf.decompile.procyon;
+
+import com.strobel.assembler.InputTypeLoader;
+import com.strobel.assembler.metadata.ITypeLoader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import me.coley.recaf.decompile.DecompileSession;
+import me.coley.recaf.workspace.Workspace;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Map;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Procyon type metadata of a workspace, kept between decompiles.
+ * Metadata of changed classes is removed so it is loaded again on the next lookup.
+ *
+ * @author Matt
+ */
+final class ProcyonSession implements DecompileSession {
+    private static final Field TYPES_FIELD = getTypesField();
+    private final ITypeLoader loader;
+    private final boolean eagerMethodLoading;
+    private volatile MetadataSystem system;
+
+    ProcyonSession(Workspace workspace, boolean stripDebug, boolean eagerMethodLoading) {
+        this.loader = new ComposedTypeLoader(Arrays.asList(
+                new RecafTypeLoader(workspace, stripDebug), new InputTypeLoader()
+        ));
+        this.eagerMethodLoading = eagerMethodLoading;
+        this.system = createSystem();
+    }
+
+    /**
+     * @return Type loader of the session.
+     */
+    ITypeLoader getLoader() {
+        return loader;
+    }
+
+    /**
+     * @return Metadata system of the session.
+     */
+    MetadataSystem getSystem() {
+        return system;
+    }
+
+    @Override
+    public void invalidate(String name) {
+        Map<?, ?> types = getTypes(system);
+        if (types == null) {
+            // Without access to the cached types everything has to be loaded again
+            system = createSystem();
+            return;
+        }
+        // Types are cached by internal name, and by descriptor for some lookups
+        types.remove(name);
+        types.remove("L" + name + ";");
+    }
+
+    private MetadataSystem createSystem() {
+        MetadataSystem system = new MetadataSystem(loader);
+        system.setEagerMethodLoadingEnabled(eagerMethodLoading);
+        return system;
+    }
+
+    private static Map<?, ?> getTypes(MetadataSystem system) {
+        if (TYPES_FIELD == null)
+            return null;
+        try {
+            return (Map<?, ?>) TYPES_FIELD.get(system);
+        } catch (ReflectiveOperationException | ClassCastException ex) {
+            return null;
+        }
+    }
+
+    private static Field getTypesField() {
+        try {
+            Field field = MetadataSystem.class.getDeclaredField("_types");
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            debug("Procyon type cache is not accessible, changed classes reload all types: {}", ex.toString());
+            return null;
+        }
+    }
+}
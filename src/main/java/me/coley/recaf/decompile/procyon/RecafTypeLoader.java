@@ -2,8 +2,8 @@ package me.coley.recaf.decompile.procyon;
 
 import com.strobel.assembler.metadata.Buffer;
 import com.strobel.assembler.metadata.ITypeLoader;
-import me.coley.recaf.control.Controller;
 import me.coley.recaf.util.ClassUtil;
+import me.coley.recaf.workspace.Workspace;
 
 /**
  * Type loader that lookup classes from current workspace
@@ -11,16 +11,18 @@ import me.coley.recaf.util.ClassUtil;
  * @author xxDark
  */
 final class RecafTypeLoader implements ITypeLoader {
-    private final Controller controller;
+    private final Workspace workspace;
+    private final boolean stripDebug;
 
-    RecafTypeLoader(Controller controller) {
-        this.controller = controller;
+    RecafTypeLoader(Workspace workspace, boolean stripDebug) {
+        this.workspace = workspace;
+        this.stripDebug = stripDebug;
     }
 
     @Override
     public boolean tryLoadType(String name, Buffer buffer) {
-        byte[] code = controller.getWorkspace().getRawClass(name);
-        if (controller.config().decompile().stripDebug)
+        byte[] code = workspace.getRawClass(name);
+        if (stripDebug)
             code = ClassUtil.stripDebugForDecompile(code);
         if (code == null) return false;
         buffer.position(0);
@@ -0,0 +1,185 @@
+package me.coley.recaf.decompile.race;
+
+import com.github.javaparser.JavaParser;
+import me.coley.recaf.control.Controller;
+import me.coley.recaf.decompile.DecompileImpl;
+import me.coley.recaf.decompile.Decompiler;
+import me.coley.recaf.util.TaskScheduler;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Decompiler that runs several backends at once and uses the first output that parses without problems.
+ * The remaining backends are cancelled. If no output parses cleanly, the first output is used.
+ * <br>
+ * Backends are enabled through the options of the decompiler, keyed by their {@link DecompileImpl#name() names}.
+ *
+ * @author Matt
+ */
+public class RaceDecompiler extends Decompiler<Object> {
+	private static final TaskScheduler scheduler = new TaskScheduler("Recaf Race",
+			Runtime.getRuntime().availableProcessors());
+	private static final Map<DecompileImpl, RaceStatistics> statistics = new EnumMap<>(DecompileImpl.class);
+
+	/**
+	 * Initialize the decompiler wrapper.
+	 *
+	 * @param controller
+	 * 		Controller with configuration to pull from and the workspace to pull classes from.
+	 */
+	public RaceDecompiler(Controller controller) {
+		super(controller);
+	}
+
+	/**
+	 * @return Race statistics of each backend.
+	 */
+	public static List<RaceStatistics> getStatistics() {
+		synchronized(statistics) {
+			return new ArrayList<>(statistics.values());
+		}
+	}
+
+	@Override
+	protected Map<String, Object> generateDefaultOptions() {
+		Map<String, Object> map = new HashMap<>();
+		for (DecompileImpl impl : getBackends())
+			map.put(impl.name(), true);
+		return map;
+	}
+
+	@Override
+	public String decompile(String name) {
+		List<DecompileImpl> backends = new ArrayList<>();
+		for (DecompileImpl impl : getBackends())
+			if (Boolean.parseBoolean(String.valueOf(getOptions().getOrDefault(impl.name(), true))))
+				backends.add(impl);
+		if (backends.isEmpty())
+			throw new IllegalStateException("No decompilers enabled for racing");
+		long timeout = getController().config().decompile().timeout;
+		Race race = new Race(backends.size());
+		Map<DecompileImpl, Future<Result>> futures = new EnumMap<>(DecompileImpl.class);
+		for (DecompileImpl impl : backends) {
+			Decompiler<?> decompiler = createBackend(impl);
+			futures.put(impl, scheduler.submit(() -> run(impl, decompiler, name), timeout,
+					future -> race.finished(impl, future)));
+		}
+		Result winner;
+		try {
+			winner = race.await();
+		} catch (InterruptedException ex) {
+			futures.values().forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		// Losing backends are cancelled, the scheduler replaces the workers of those ignoring the interrupt
+		futures.values().forEach(future -> future.cancel(true));
+		if (winner == null)
+			throw new IllegalStateException("No decompiler produced output for '" + name + "'");
+		statisticsOf(winner.impl).won();
+		debug("Decompile race of '{}' won by {} in {}ms{}", name, winner.impl,
+				TimeUnit.NANOSECONDS.toMillis(winner.nanos), winner.parsed ? "" : ", no output parsed cleanly");
+		return "// Race won by: " + winner.impl.getNameAndVersion() + "\n" + winner.text;
+	}
+
+	/**
+	 * @param impl
+	 * 		Backend type.
+	 *
+	 * @return Decompiler instance of the backend.
+	 */
+	protected Decompiler<?> createBackend(DecompileImpl impl) {
+		Decompiler<?> decompiler = impl.create(getController());
+		decompiler.setUnescapeUnicode(isUnescapeUnicode());
+		return decompiler;
+	}
+
+	private static Result run(DecompileImpl impl, Decompiler<?> decompiler, String name) {
+		long start = System.nanoTime();
+		String text = decompiler.decompile(name);
+		if (text == null)
+			return null;
+		long nanos = System.nanoTime() - start;
+		boolean parsed = new JavaParser().parse(text).isSuccessful();
+		return new Result(impl, text, parsed, nanos);
+	}
+
+	private static RaceStatistics statisticsOf(DecompileImpl impl) {
+		synchronized(statistics) {
+			return statistics.computeIfAbsent(impl, RaceStatistics::new);
+		}
+	}
+
+	private static List<DecompileImpl> getBackends() {
+		List<DecompileImpl> backends = new ArrayList<>(Arrays.asList(DecompileImpl.values()));
+		backends.remove(DecompileImpl.RACE);
+		return backends;
+	}
+
+	/**
+	 * Collects backend results until one parses cleanly or all backends are done.
+	 */
+	private static final class Race {
+		private final CountDownLatch done = new CountDownLatch(1);
+		private final AtomicInteger remaining;
+		private volatile Result winner;
+		private volatile Result fallback;
+
+		private Race(int backends) {
+			this.remaining = new AtomicInteger(backends);
+		}
+
+		private void finished(DecompileImpl impl, Future<Result> future) {
+			RaceStatistics stats = statisticsOf(impl);
+			try {
+				if (future.isCancelled()) {
+					stats.cancelled();
+					return;
+				}
+				Result result = future.get();
+				if (result == null) {
+					stats.failed();
+					return;
+				}
+				stats.completed(result.nanos, result.parsed);
+				synchronized(this) {
+					if (result.parsed && winner == null)
+						winner = result;
+					else if (fallback == null)
+						fallback = result;
+				}
+			} catch (InterruptedException | ExecutionException ex) {
+				stats.failed();
+			} finally {
+				if (winner != null || remaining.decrementAndGet() == 0)
+					done.countDown();
+			}
+		}
+
+		private Result await() throws InterruptedException {
+			done.await();
+			return winner != null ? winner : fallback;
+		}
+	}
+
+	/**
+	 * Output of a backend.
+	 */
+	private static final class Result {
+		private final DecompileImpl impl;
+		private final String text;
+		private final boolean parsed;
+		private final long nanos;
+
+		private Result(DecompileImpl impl, String text, boolean parsed, long nanos) {
+			this.impl = impl;
+			this.text = text;
+			this.parsed = parsed;
+			this.nanos = nanos;
+		}
+	}
+}
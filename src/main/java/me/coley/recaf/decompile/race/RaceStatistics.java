@@ -0,0 +1,109 @@
+package me.coley.recaf.decompile.race;
+
+import me.coley.recaf.decompile.DecompileImpl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcomes and latency of a decompiler backend in {@link RaceDecompiler races}.
+ *
+ * @author Matt
+ */
+public class RaceStatistics {
+	private final DecompileImpl impl;
+	private final AtomicLong runs = new AtomicLong();
+	private final AtomicLong wins = new AtomicLong();
+	private final AtomicLong clean = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong cancelled = new AtomicLong();
+	private final AtomicLong completedNanos = new AtomicLong();
+
+	/**
+	 * @param impl
+	 * 		Backend the statistics are for.
+	 */
+	RaceStatistics(DecompileImpl impl) {
+		this.impl = impl;
+	}
+
+	void completed(long nanos, boolean parsed) {
+		runs.incrementAndGet();
+		completedNanos.addAndGet(nanos);
+		if (parsed)
+			clean.incrementAndGet();
+	}
+
+	void failed() {
+		runs.incrementAndGet();
+		failed.incrementAndGet();
+	}
+
+	void cancelled() {
+		runs.incrementAndGet();
+		cancelled.incrementAndGet();
+	}
+
+	void won() {
+		wins.incrementAndGet();
+	}
+
+	/**
+	 * @return Backend the statistics are for.
+	 */
+	public DecompileImpl getImpl() {
+		return impl;
+	}
+
+	/**
+	 * @return Number of races the backend took part in.
+	 */
+	public long getRuns() {
+		return runs.get();
+	}
+
+	/**
+	 * @return Number of races the backend's output was used in.
+	 */
+	public long getWins() {
+		return wins.get();
+	}
+
+	/**
+	 * @return Number of outputs that parsed without problems.
+	 */
+	public long getCleanCount() {
+		return clean.get();
+	}
+
+	/**
+	 * @return Number of runs that failed with an error or without output.
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/**
+	 * @return Number of runs cancelled for losing the race or exceeding the timeout.
+	 */
+	public long getCancelledCount() {
+		return cancelled.get();
+	}
+
+	/**
+	 * @return Average time in milliseconds of runs that produced output, {@code 0} if there are none.
+	 */
+	public double getAverageMillis() {
+		long completed = runs.get() - failed.get() - cancelled.get();
+		if (completed <= 0)
+			return 0;
+		return (double) TimeUnit.NANOSECONDS.toMicros(completedNanos.get()) / completed / 1000.0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %d runs, %d wins, %d clean, %d failed, %d cancelled, %.1fms average",
+				impl, getRuns(), getWins(), getCleanCount(), getFailedCount(), getCancelledCount(),
+				getAverageMillis());
+	}
+}
@@ -2,10 +2,20 @@ package me.coley.recaf.graph.inheritance;
 
 import me.coley.recaf.graph.*;
 import me.coley.recaf.util.ClassUtil;
+import me.coley.recaf.util.struct.InternalBiConsumer;
+import me.coley.recaf.util.struct.InternalConsumer;
+import me.coley.recaf.workspace.IndexedClass;
+import me.coley.recaf.workspace.JavaResource;
 import me.coley.recaf.workspace.Workspace;
 import org.objectweb.asm.ClassReader;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -20,10 +30,42 @@ import static java.util.stream.Stream.*;
  * @author Matt
  */
 public class HierarchyGraph extends WorkspaceGraph<HierarchyVertex> {
+	private static final String[] MISSING = new String[0];
 	/**
 	 * Map of parent to children names.
 	 */
-	private final Map<String, Set<String>> descendents = new HashMap<>();
+	private final Map<String, Set<String>> descendents = new ConcurrentHashMap<>();
+	/**
+	 * Map of child to the parent names it is currently linked to in {@link #descendents}.
+	 */
+	private final Map<String, String[]> parents = new ConcurrentHashMap<>();
+	/**
+	 * Resources whose class maps are being listened to, in lookup order.
+	 */
+	private volatile List<JavaResource> tracked = Collections.emptyList();
+	private final Map<JavaResource, BiConsumer<String, byte[]>> putListeners = new IdentityHashMap<>();
+	private final Map<JavaResource, Consumer<Object>> removeListeners = new IdentityHashMap<>();
+	/**
+	 * Map of class to its direct parents, including {@code java/lang/Object}.
+	 */
+	private final Map<String, String[]> directParents = new ConcurrentHashMap<>();
+	/**
+	 * Map of class to all of its parents, in breadth-first order.
+	 */
+	private final Map<String, Set<String>> ancestors = new ConcurrentHashMap<>();
+	/**
+	 * Map of class to the hierarchy it belongs to. Classes of the same hierarchy share the instance.
+	 */
+	private final Map<String, Hierarchy> hierarchies = new ConcurrentHashMap<>();
+	/**
+	 * Incremented on every change, so lookups started before a change do not cache outdated results.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+	/**
+	 * Held for writing while cached lookups are invalidated and for reading while they are stored, so a lookup
+	 * cannot check the {@link #generation} and then store its result after a change invalidated it.
+	 */
+	private final ReadWriteLock cacheLock = new ReentrantReadWriteLock();
 
 	/**
 	 * Constructs a hierarchy graph from the given workspace.
@@ -76,7 +118,7 @@ public class HierarchyGraph extends WorkspaceGraph<HierarchyVertex> {
 	 * @return Inheritance hierarchy containing the given class.
 	 */
 	public Set<String> getHierarchyNames(String name) {
-		return getHierarchyNames(getVertex(name));
+		return new HashSet<>(hierarchy(name).names);
 	}
 
 	/**
@@ -96,6 +138,7 @@ public class HierarchyGraph extends WorkspaceGraph<HierarchyVertex> {
 	 * @return Direct descendants of the class.
 	 */
 	public Stream<String> getDescendants(String name) {
+		sync();
 		if (descendents.containsKey(name))
 			return descendents.get(name).stream();
 		// Empty stream
@@ -109,11 +152,8 @@ public class HierarchyGraph extends WorkspaceGraph<HierarchyVertex> {
 	 * @return All descendants of the class.
 	 */
 	public Stream<String> getAllDescendants(String name) {
-		Set<String> descendentNames = descendents.get(name);
-		if (descendentNames == null)
-			return empty();
-		return concat(descendentNames.stream(),
-				descendentNames.stream().flatMap(this::getAllDescendants));
+		sync();
+		return allDescendants(name);
 	}
 
 	/**
@@ -125,12 +165,27 @@ public class HierarchyGraph extends WorkspaceGraph<HierarchyVertex> {
 	 * @return All descendants of the class, up until a point specified by the check condition.
 	 */
 	public Stream<String> getAllDescendantsWithBreakCondition(String name, Predicate<String> breakCheck) {
+		sync();
+		return allDescendants(name, breakCheck);
+	}
+
+	private Stream<String> allDescendants(String name) {
 		Set<String> descendentNames = descendents.get(name);
 		if (descendentNames == null)
 			return empty();
-		descendentNames.removeIf(breakCheck);
 		return concat(descendentNames.stream(),
-				descendentNames.stream().flatMap(d -> getAllDescendantsWithBreakCondition(d, breakCheck)));
+				descendentNames.stream().flatMap(this::allDescendants));
+	}
+
+	private Stream<String> allDescendants(String name, Predicate<String> breakCheck) {
+		Set<String> descendentNames = descendents.get(name);
+		if (descendentNames == null)
+			return empty();
+		// Filter a copy, the graph itself must not lose the edges
+		Set<String> filtered = new HashSet<>(descendentNames);
+		filtered.removeIf(breakCheck);
+		return concat(filtered.stream(),
+				filtered.stream().flatMap(d -> allDescendants(d, breakCheck)));
 	}
 
 	/**
@@ -140,11 +195,7 @@ public class HierarchyGraph extends WorkspaceGraph<HierarchyVertex> {
 	 * @return Direct parents of the class.
 	 */
 	public Stream<String> getParents(String name) {
-		HierarchyVertex vert = getVertex(name);
-		if (vert != null)
-			return getParents(vert);
-		// Empty stream
-		return empty();
+		return Arrays.stream(directParents(name));
 	}
 
 	/**
@@ -166,8 +217,19 @@ public class HierarchyGraph extends WorkspaceGraph<HierarchyVertex> {
 	 * @return All parents of the class.
 	 */
 	public Stream<String> getAllParents(String name) {
-		return (getParents(name).map(this::getAllParents)
-				.reduce(getParents(name), Stream::concat));
+		return ancestors(name).stream();
+	}
+
+	/**
+	 * @param parent
+	 * 		Parent class name.
+	 * @param child
+	 * 		Child class name.
+	 *
+	 * @return {@code true} if the child class extends or implements the parent, directly or indirectly.
+	 */
+	public boolean isAssignable(String parent, String child) {
+		return parent.equals(child) || ancestors(child).contains(parent);
 	}
 
 	/**
@@ -180,28 +242,14 @@ public class HierarchyGraph extends WorkspaceGraph<HierarchyVertex> {
 	 */
 	public String getCommon(String first, String second) {
 		// Full upwards hierarchy for the first
-		Set<String> firstParents = getAllParents(first).collect(Collectors.toSet());
-		firstParents.add(first);
+		Set<String> firstParents = ancestors(first);
 		// Base case
-		if (firstParents.contains(second))
+		if (first.equals(second) || firstParents.contains(second))
 			return second;
-		// Iterate over second's parents via breadth-first-search
-		Queue<String> queue = new LinkedList<>();
-		queue.add(second);
-		do {
-			// Item to fetch parents of
-			String next = queue.poll();
-			if (next == null || next.equals("java/lang/Object"))
-				break;
-			for (String parent : getParents(next).collect(Collectors.toSet())) {
-				// Parent in the set of visited classes? Then its valid.
-				if(firstParents.contains(parent))
-					return parent;
-				// Queue up the parent
-				if (!parent.equals("java/lang/Object"))
-					queue.add(parent);
-			}
-		} while(!queue.isEmpty());
+		// Second's parents are ordered breadth-first, so the closest shared parent is found first
+		for (String parent : ancestors(second))
+			if (parent.equals(first) || firstParents.contains(parent))
+				return parent;
 		// Fallback option
 		return "java/lang/Object";
 	}
@@ -220,15 +268,7 @@ public class HierarchyGraph extends WorkspaceGraph<HierarchyVertex> {
 	 * defines the given method,
 	 */
 	public boolean isLibrary(String owner, String name, String desc) {
-		// Get classes that are considered "library" classes (not included in Input)
-		Stream<HierarchyVertex> hierarchy = getHierarchy(owner).stream();
-		Stream<HierarchyVertex> libClasses = hierarchy.filter(vertex -> !getWorkspace()
-				.getPrimaryClassNames().contains(vertex.getClassName()));
-		// Check if the library classes have a matching method.
-		return libClasses
-					.map(ClassVertex::getData)
-					.flatMap(cr -> ClassUtil.getMethodDefs(cr).stream())
-					.anyMatch(method -> name.equals(method.getKey()) && desc.equals(method.getValue()));
+		return hierarchy(owner).getLibraryMethods().contains(name + desc);
 	}
 
 	/**
@@ -268,27 +308,363 @@ public class HierarchyGraph extends WorkspaceGraph<HierarchyVertex> {
 	 */
 	public boolean areLinked(String name1, String name2) {
 		// Check if name2 is in the same hierarchy as name1.
-		return getHierarchy(name1).stream()
-				.anyMatch(vertex -> name2.equals(vertex.getClassName()));
+		return hierarchy(name1).names.contains(name2);
 	}
 
 	// ============================== UTILITY =================================== //
 
 	/**
-	 * Populate {@link #descendents} map.
+	 * Rebuild the {@link #descendents} map from the primary and library resources.
+	 * <br>
+	 * This is not required after changes to the resources' class maps, which are tracked as they happen.
 	 */
-	public void refresh() {
-		// TODO: Call this when the inheritance tree is modified.
-		//  - Already called by mappings
-		//  - But later if user changes a class name WITHOUT remappping this needs to be called too
+	public synchronized void refresh() {
+		tracked.forEach(this::unsubscribe);
+		clearLookups();
 		descendents.clear();
-		for (ClassReader reader : getWorkspace().getPrimaryClassReaders()) {
-			String superName = reader.getSuperName();
-			if (superName == null || !superName.equals("java/lang/Object"))
-				descendents.computeIfAbsent(superName, k -> new HashSet<>()).add(reader.getClassName());
-			for (String inter : reader.getInterfaces()) {
-				descendents.computeIfAbsent(inter, k -> new HashSet<>()).add(reader.getClassName());
+		parents.clear();
+		List<JavaResource> resources = new ArrayList<>();
+		resources.add(getWorkspace().getPrimary());
+		resources.addAll(getWorkspace().getLibraries());
+		tracked = Collections.unmodifiableList(resources);
+		// Link in reverse lookup order so classes in earlier resources replace those in later ones
+		for (int i = tracked.size() - 1; i >= 0; i--) {
+			for (IndexedClass cls : tracked.get(i).getClassIndex().getClasses())
+				link(cls.getName(), cls.getSuperName(), cls.getInterfaces());
+		}
+		tracked.forEach(this::subscribe);
+		// Lookups made while linking may have cached a partial graph
+		clearLookups();
+	}
+
+	private void clearLookups() {
+		cacheLock.writeLock().lock();
+		try {
+			directParents.clear();
+			ancestors.clear();
+			hierarchies.clear();
+			generation.incrementAndGet();
+		} finally {
+			cacheLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Apply a bulk change to the classes of the workspace, such as renaming most of them, and rebuild the graph
+	 * once afterwards instead of updating it for every changed class.
+	 *
+	 * @param changes
+	 * 		Action changing the classes.
+	 */
+	public void batchUpdate(Runnable changes) {
+		synchronized(this) {
+			tracked.forEach(this::unsubscribe);
+		}
+		try {
+			changes.run();
+		} finally {
+			refresh();
+		}
+	}
+
+	/**
+	 * Rebuild if the workspace libraries changed since the last build.
+	 * Only locks when a rebuild is needed.
+	 */
+	private void sync() {
+		if (isSynced())
+			return;
+		synchronized(this) {
+			if (!isSynced())
+				refresh();
+		}
+	}
+
+	/**
+	 * @return {@code true} when the tracked resources are the primary resource and libraries of the workspace.
+	 */
+	private boolean isSynced() {
+		List<JavaResource> current = tracked;
+		List<JavaResource> libraries = getWorkspace().getLibraries();
+		if (current.size() != libraries.size() + 1 || current.get(0) != getWorkspace().getPrimary())
+			return false;
+		for (int i = 0; i < libraries.size(); i++)
+			if (current.get(i + 1) != libraries.get(i))
+				return false;
+		return true;
+	}
+
+	private void subscribe(JavaResource resource) {
+		BiConsumer<String, byte[]> put = InternalBiConsumer.internal((name, code) -> onPut(resource, name, code));
+		Consumer<Object> remove = InternalConsumer.internal(name -> onRemove(resource, (String) name));
+		putListeners.put(resource, put);
+		removeListeners.put(resource, remove);
+		resource.getClasses().getPutListeners().add(put);
+		resource.getClasses().getRemoveListeners().add(remove);
+	}
+
+	private void unsubscribe(JavaResource resource) {
+		BiConsumer<String, byte[]> put = putListeners.remove(resource);
+		Consumer<Object> remove = removeListeners.remove(resource);
+		if (put != null)
+			resource.getClasses().getPutListeners().remove(put);
+		if (remove != null)
+			resource.getClasses().getRemoveListeners().remove(remove);
+	}
+
+	private synchronized void onPut(JavaResource resource, String name, byte[] code) {
+		if (isShadowed(resource, name))
+			return;
+		String[] old = parents.get(name);
+		try {
+			ClassReader reader = new ClassReader(code);
+			link(name, reader.getSuperName(), reader.getInterfaces());
+			invalidate(name, old, toParents(reader.getSuperName(), reader.getInterfaces()));
+		} catch (Exception ex) {
+			// Not a readable class, so it has no parents
+			unlink(name);
+			invalidate(name, old, null);
+		}
+	}
+
+	private synchronized void onRemove(JavaResource resource, String name) {
+		if (isShadowed(resource, name))
+			return;
+		String[] old = parents.get(name);
+		// Fall back to the next resource defining the class, as lookups in the workspace would
+		for (int i = tracked.indexOf(resource) + 1; i < tracked.size(); i++) {
+			IndexedClass cls = tracked.get(i).getClassIndex().get(name);
+			if (cls != null) {
+				link(name, cls.getSuperName(), cls.getInterfaces());
+				invalidate(name, old, toParents(cls.getSuperName(), cls.getInterfaces()));
+				return;
+			}
+		}
+		unlink(name);
+		invalidate(name, old, null);
+	}
+
+	private boolean isShadowed(JavaResource resource, String name) {
+		for (JavaResource other : tracked) {
+			if (other == resource)
+				return false;
+			if (other.getClasses().containsKey(name))
+				return true;
+		}
+		// Not tracked
+		return true;
+	}
+
+	private void link(String name, String superName, String[] interfaces) {
+		unlink(name);
+		List<String> names = new ArrayList<>(interfaces.length + 1);
+		if (superName != null && !superName.equals("java/lang/Object"))
+			names.add(superName);
+		names.addAll(Arrays.asList(interfaces));
+		String[] linked = names.toArray(new String[0]);
+		for (String parent : linked)
+			descendents.computeIfAbsent(parent, k -> ConcurrentHashMap.newKeySet()).add(name);
+		parents.put(name, linked);
+	}
+
+	private void unlink(String name) {
+		String[] linked = parents.remove(name);
+		if (linked == null)
+			return;
+		for (String parent : linked) {
+			Set<String> children = descendents.get(parent);
+			if (children != null) {
+				children.remove(name);
+				if (children.isEmpty())
+					descendents.remove(parent);
+			}
+		}
+	}
+
+	/**
+	 * Drop cached lookups affected by a change to the given class.
+	 *
+	 * @param name
+	 * 		Changed class.
+	 * @param oldParents
+	 * 		Parents the class was linked to before the change.
+	 * @param newParents
+	 * 		Direct parents of the class after the change, {@code null} to look them up again.
+	 */
+	private void invalidate(String name, String[] oldParents, String[] newParents) {
+		cacheLock.writeLock().lock();
+		try {
+			directParents.remove(name);
+			if (oldParents != null)
+				for (String parent : oldParents)
+					invalidateHierarchy(parent);
+			// Descendants inherit the parents of the class
+			Set<String> visited = new HashSet<>();
+			Deque<String> queue = new ArrayDeque<>();
+			queue.add(name);
+			visited.add(name);
+			String next;
+			while ((next = queue.poll()) != null) {
+				ancestors.remove(next);
+				invalidateHierarchy(next);
+				for (String child : descendents.getOrDefault(next, Collections.emptySet()))
+					if (visited.add(child))
+						queue.add(child);
+			}
+			String[] linked = parents.get(name);
+			if (linked != null)
+				for (String parent : linked)
+					invalidateHierarchy(parent);
+			// The class map is updated after the listeners are called, so the new parents cannot be looked up yet
+			if (newParents != null)
+				directParents.put(name, newParents);
+			// Lookups started before this point may have seen the class as it was
+			generation.incrementAndGet();
+		} finally {
+			cacheLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Cache the result of a lookup, unless the graph changed since the lookup started.
+	 *
+	 * @param start
+	 * 		{@link #generation} when the lookup started.
+	 * @param store
+	 * 		Action caching the result.
+	 */
+	private void cache(long start, Runnable store) {
+		cacheLock.readLock().lock();
+		try {
+			if (generation.get() == start)
+				store.run();
+		} finally {
+			cacheLock.readLock().unlock();
+		}
+	}
+
+	private void invalidateHierarchy(String name) {
+		Hierarchy hierarchy = hierarchies.remove(name);
+		if (hierarchy != null)
+			hierarchy.names.forEach(hierarchies::remove);
+	}
+
+	private String[] directParents(String name) {
+		String[] cached = directParents.get(name);
+		if (cached != null)
+			return cached;
+		long start = generation.get();
+		String[] value = lookupParents(name);
+		cache(start, () -> directParents.put(name, value));
+		return value;
+	}
+
+	private String[] lookupParents(String name) {
+		for (JavaResource resource : tracked) {
+			IndexedClass cls = resource.getClassIndex().get(name);
+			if (cls != null)
+				return toParents(cls.getSuperName(), cls.getInterfaces());
+		}
+		ClassReader reader = getWorkspace().getClassReader(name);
+		if (reader == null)
+			reader = ClassUtil.fromRuntime(name);
+		if (reader == null)
+			return MISSING;
+		return toParents(reader.getSuperName(), reader.getInterfaces());
+	}
+
+	private static String[] toParents(String superName, String[] interfaces) {
+		if (superName == null)
+			return interfaces;
+		String[] names = new String[interfaces.length + 1];
+		names[0] = superName;
+		System.arraycopy(interfaces, 0, names, 1, interfaces.length);
+		return names;
+	}
+
+	private Set<String> ancestors(String name) {
+		Set<String> cached = ancestors.get(name);
+		if (cached != null)
+			return cached;
+		long start = generation.get();
+		Set<String> result = new LinkedHashSet<>();
+		Deque<String> queue = new ArrayDeque<>(Arrays.asList(directParents(name)));
+		String next;
+		while ((next = queue.poll()) != null)
+			if (result.add(next))
+				queue.addAll(Arrays.asList(directParents(next)));
+		Set<String> value = Collections.unmodifiableSet(result);
+		cache(start, () -> ancestors.put(name, value));
+		return value;
+	}
+
+	private Hierarchy hierarchy(String name) {
+		Hierarchy cached = hierarchies.get(name);
+		if (cached != null)
+			return cached;
+		long start = generation.get();
+		Set<String> names = new HashSet<>();
+		if (directParents(name) != MISSING) {
+			Deque<String> queue = new ArrayDeque<>();
+			queue.add(name);
+			names.add(name);
+			String next;
+			while ((next = queue.poll()) != null) {
+				// Everything extends object, so it would link all classes together
+				if (next.equals("java/lang/Object"))
+					continue;
+				for (String parent : directParents(next))
+					if (directParents(parent) != MISSING && names.add(parent))
+						queue.add(parent);
+				for (String child : descendents.getOrDefault(next, Collections.emptySet()))
+					if (names.add(child))
+						queue.add(child);
+			}
+		}
+		Hierarchy hierarchy = new Hierarchy(Collections.unmodifiableSet(names));
+		cache(start, () -> names.forEach(member -> hierarchies.put(member, hierarchy)));
+		return hierarchy;
+	}
+
+	/**
+	 * Names of the classes in an inheritance hierarchy.
+	 */
+	private final class Hierarchy {
+		private final Set<String> names;
+		private volatile Set<String> libraryMethods;
+
+		private Hierarchy(Set<String> names) {
+			this.names = names;
+		}
+
+		/**
+		 * @return Name and descriptor of methods declared by classes in the hierarchy
+		 * that are not in the primary resource.
+		 */
+		private Set<String> getLibraryMethods() {
+			if (libraryMethods != null)
+				return libraryMethods;
+			Set<String> methods = new HashSet<>();
+			JavaResource primary = getWorkspace().getPrimary();
+			for (String member : names) {
+				if (primary.getClasses().containsKey(member))
+					continue;
+				IndexedClass cls = null;
+				for (JavaResource resource : tracked)
+					if ((cls = resource.getClassIndex().get(member)) != null)
+						break;
+				if (cls != null) {
+					for (int i = 0; i < cls.getMethodCount(); i++)
+						methods.add(cls.getMethodName(i) + cls.getMethodDesc(i));
+					continue;
+				}
+				ClassReader reader = getWorkspace().getClassReader(member);
+				if (reader == null)
+					reader = ClassUtil.fromRuntime(member);
+				if (reader != null)
+					ClassUtil.getMethodDefs(reader).forEach(def -> methods.add(def.getKey() + def.getValue()));
 			}
+			return libraryMethods = methods;
 		}
 	}
 }
@@ -1,6 +1,5 @@
 package me.coley.recaf.mapping;
 
-import me.coley.recaf.Recaf;
 import me.coley.recaf.graph.flow.*;
 import me.coley.recaf.workspace.JavaResource;
 import me.coley.recaf.workspace.Workspace;
@@ -117,25 +116,10 @@ public class Correlation {
 		FlowGraph flow = workspace.getFlowGraph();
 		Function<ClassReader, FlowVertex> readerToVert =
 				reader -> flow.getVertex(reader, "main", "([Ljava/lang/String;)V");
-		return resource.getClasses().values().stream()
-				.map(ClassReader::new)
-				.filter(Correlation::containsEntry)
+		return resource.getClassIndex().getClasses().stream()
+				.filter(cls -> cls.hasMethod("main", "([Ljava/lang/String;)V"))
+				.map(cls -> new ClassReader(resource.getClasses().get(cls.getName())))
 				.map(readerToVert)
 				.collect(Collectors.toSet());
 	}
-
-	private static boolean containsEntry(ClassReader reader) {
-		boolean[] contains = {false};
-		ClassVisitor cv = new ClassVisitor(Recaf.ASM_VERSION) {
-			@Override
-			public MethodVisitor visitMethod(int access, String name, String descriptor,
-											 String signature, String[] exceptions) {
-				if(name.equals("main") && descriptor.equals("([Ljava/lang/String;)V"))
-					contains[0] = true;
-				return null;
-			}
-		};
-		reader.accept(cv, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE);
-		return contains[0];
-	}
 }
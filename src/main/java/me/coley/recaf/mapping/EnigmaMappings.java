@@ -1,13 +1,12 @@
 package me.coley.recaf.mapping;
 
-import me.coley.recaf.util.StringUtil;
 import me.coley.recaf.workspace.Workspace;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Stack;
+import java.util.regex.Pattern;
 
 import static me.coley.recaf.util.Log.*;
 
@@ -18,6 +17,7 @@ import static me.coley.recaf.util.Log.*;
  */
 public class EnigmaMappings extends FileMappings {
 	private static final String FAIL = "Invalid Enigma mappings, ";
+	private static final Pattern NONE_PACKAGE = Pattern.compile("(?:^|(?<=L))none/");
 
 	/**
 	 * Constructs mappings from a given file.
@@ -35,36 +35,33 @@ public class EnigmaMappings extends FileMappings {
 	}
 	
 	private static String removeNonePackage(String text){
-		return text.replaceAll("(?:^|(?<=L))none/", "");
+		return text.contains("none/") ? NONE_PACKAGE.matcher(text).replaceAll("") : text;
 	}
 
 	@Override
-	protected Map<String, String> parse(String text) {
-		Map<String, String> map = new HashMap<>();
-		String[] lines = StringUtil.splitNewline(text);
+	protected void parse(BufferedReader reader, MappingStore store) throws IOException {
+		LineTokenizer tokens = new LineTokenizer(store);
 		int line = 0;
 		Stack<String> currentClass = new Stack<>();
-		for(String lineStr : lines) {
+		String lineStr;
+		while ((lineStr = reader.readLine()) != null) {
 			line++;
-			String lineStrTrim = lineStr.trim();
-			int strIndent = lineStr.indexOf(lineStrTrim) + 1;
-			String[] args = lineStrTrim.split(" ");
-			String type = args[0];
+			int args = tokens.split(lineStr, ' ');
+			int strIndent = tokens.indent() + 1;
+			String type = tokens.intern(0);
 			try {
 				switch(type) {
 					case "CLASS":
-						if (lineStr.matches("\\s+.+")) {
-							// Check for indentation, implies the class is an inner
-							currentClass.add(removeNonePackage(args[1]));
-						} else {
+						if (tokens.indent() == 0) {
 							// Root level class
 							currentClass.clear();
-							currentClass.add(removeNonePackage(args[1]));
 						}
+						// Indentation implies the class is an inner
+						currentClass.add(removeNonePackage(tokens.intern(1)));
 						// Not all classes need to be renamed if they have child elements that are renamed
-						if (args.length >= 3) {
-							String renamedClass = removeNonePackage(args[2]);
-							map.put(currentClass.peek(), renamedClass);
+						if (args >= 3) {
+							String renamedClass = removeNonePackage(tokens.get(2));
+							store.putClass(currentClass.peek(), renamedClass);
 						}
 						break;
 					case "FIELD":
@@ -75,9 +72,9 @@ public class EnigmaMappings extends FileMappings {
 						// Parse field
 						if (currentClass.empty())
 							throw new IllegalArgumentException(FAIL + "could not map field, no class context");
-						String currentField = removeNonePackage(args[1]);
-						String renamedField = removeNonePackage(args[2]);
-						map.put(currentClass.peek() + "." + currentField, renamedField);
+						String currentField = removeNonePackage(tokens.intern(1));
+						String renamedField = removeNonePackage(tokens.get(2));
+						store.putField(currentClass.peek(), currentField, null, renamedField);
 						break;
 					case "METHOD":
 						// Check if no longer within inner-class scope
@@ -87,14 +84,14 @@ public class EnigmaMappings extends FileMappings {
 						// Parse method
 						if (currentClass.empty())
 							throw new IllegalArgumentException(FAIL + "could not map method, no class context");
-						String currentMethod = args[1];
+						String currentMethod = tokens.intern(1);
 						if (currentMethod.equals("<init>"))
 							continue;
 						// Not all methods need to be renamed if they have child arg elements that are renamed
-						if (args.length >= 4) {
-							String renamedMethod = args[2];
-							String methodType = args[3];
-							map.put(currentClass.peek() + "." + currentMethod + methodType, renamedMethod);
+						if (args >= 4) {
+							String renamedMethod = tokens.get(2);
+							String methodType = tokens.intern(3);
+							store.putMethod(currentClass.peek(), currentMethod, methodType, renamedMethod);
 						}
 						break;
 					case "ARG":
@@ -108,6 +105,5 @@ public class EnigmaMappings extends FileMappings {
 				throw new IllegalArgumentException(FAIL + "failed parsing line " + line, ex);
 			}
 		}
-		return map;
 	}
 }
@@ -1,16 +1,20 @@
 package me.coley.recaf.mapping;
 
 import me.coley.recaf.workspace.Workspace;
-import org.apache.commons.io.FileUtils;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.Map;
 
+import static me.coley.recaf.util.Log.debug;
+
 /**
  * Extended base for mappings that load mappings from a given file.
  * Implementations will create file-loading logic for different mapping types.
+ * <br>
+ * Files are read line by line into a {@link MappingStore}, so the whole file is never held in memory.
+ * Parsed mappings are cached on disk in a binary format, so loading the same file again does not parse it.
  *
  * @author Matt
  */
@@ -54,8 +58,57 @@ public abstract class FileMappings extends Mappings {
 	 * 		Thrown if the file could not be read.
 	 */
 	protected void read(File file) throws IOException {
-		String text = FileUtils.readFileToString(file, "UTF-8");
-		setMappings(parse(text));
+		long start = System.currentTimeMillis();
+		Path cacheFile = MappingCache.getCacheFile(file, getCacheId());
+		Map<String, String> cached = cacheFile == null ? null : MappingCache.load(cacheFile);
+		if (cached != null) {
+			setMappings(cached);
+			debug("Loaded {} mappings of '{}' from cache in {}ms", cached.size(), file.getName(),
+					System.currentTimeMillis() - start);
+			return;
+		}
+		MappingStore store = new MappingStore();
+		parse(file, store);
+		debug("Parsed {} mappings of '{}' in {}ms", store.size(), file.getName(), System.currentTimeMillis() - start);
+		if (cacheFile != null)
+			MappingCache.save(cacheFile, store);
+		setMappings(store);
+	}
+
+	/**
+	 * @return Identifier of the format the file is parsed as, used to key cached mappings.
+	 */
+	protected String getCacheId() {
+		return getClass().getName();
+	}
+
+	/**
+	 * @param file
+	 * 		Text file containing mappings.
+	 *
+	 * @return Reader of the file's lines.
+	 *
+	 * @throws IOException
+	 * 		Thrown if the file could not be opened.
+	 */
+	protected static BufferedReader newReader(File file) throws IOException {
+		// Malformed input is replaced rather than failing the whole file
+		return new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param file
+	 * 		Text file containing mappings.
+	 * @param store
+	 * 		Store to put the ASM formatted mappings into.
+	 *
+	 * @throws IOException
+	 * 		Thrown if the file could not be read.
+	 */
+	protected void parse(File file, MappingStore store) throws IOException {
+		try (BufferedReader reader = newReader(file)) {
+			parse(reader, store);
+		}
 	}
 
 	/**
@@ -63,10 +116,13 @@ public abstract class FileMappings extends Mappings {
 	 * {@link org.objectweb.asm.commons.SimpleRemapper#SimpleRemapper(Map)} docs for more
 	 * information.
 	 *
-	 * @param text
-	 * 		Text of the mappings.
+	 * @param reader
+	 * 		Reader of the mappings' lines.
+	 * @param store
+	 * 		Store to put the ASM formatted mappings into.
 	 *
-	 * @return ASM formatted mappings.
+	 * @throws IOException
+	 * 		Thrown if the mappings could not be read.
 	 */
-	protected abstract Map<String, String> parse(String text);
+	protected abstract void parse(BufferedReader reader, MappingStore store) throws IOException;
 }
@@ -1,12 +1,11 @@
 package me.coley.recaf.mapping;
 
-import me.coley.recaf.util.StringUtil;
 import me.coley.recaf.workspace.Workspace;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * JADX deobfuscation mapping file implementation.
@@ -15,6 +14,8 @@ import java.util.Map;
  */
 public class JadxMappings extends FileMappings {
 	private static final String FAIL = "Invalid JADX mappings, ";
+	// All "." except the last one
+	private static final Pattern PACKAGE_SEPARATOR = Pattern.compile("\\.(?=.+\\..+$)");
 
 	/**
 	 * Constructs mappings from a given file.
@@ -32,41 +33,39 @@ public class JadxMappings extends FileMappings {
 	}
 
 	@Override
-	protected Map<String, String> parse(String text) {
+	protected void parse(BufferedReader reader, MappingStore store) throws IOException {
 		// Example:
 		// c android.support.a.b.a = C0005a
 		// f android.support.a.b.a.a:Ljava/lang/Object; = f3a
 		// m android.support.a.a.a.a(Landroid/app/Activity;[Ljava/lang/String;I)V = m0a
-		Map<String, String> map = new HashMap<>();
-		String[] lines = StringUtil.splitNewline(text);
+		LineTokenizer tokens = new LineTokenizer(store);
 		int line = 0;
-		for (String lineStr : lines) {
+		String lineStr;
+		while ((lineStr = reader.readLine()) != null) {
 			line++;
-			String[] args = lineStr.trim().split("[\\s=:]+");
-			String type = args[0];
+			tokens.splitAny(lineStr, " \t\n\u000B\f\r=:");
+			String type = tokens.intern(0);
 			try {
 				switch (type) {
 					case "c":
 						// 1: class-name
 						// 2: renameed class (does not include package)
 						// Replace "." in class name
-						String original = args[1].replace('.', '/');
+						String original = tokens.get(1).replace('.', '/');
 						// The new value is always in the same package.
 						// Only the class is renamed, not the package.
-						map.put(original, original.substring(0, original.lastIndexOf('/') + 1) + args[2]);
+						store.putClass(original, original.substring(0, original.lastIndexOf('/') + 1) + tokens.get(2));
 						break;
 					case "f":
 						// 1: class-name.field-name
 						// 2: field-type
 						// 3: renamed
-						// Replace all "." except last one
-						map.put(args[1].replaceAll("\\.(?=.+\\..+$)", "/"), args[3]);
+						store.put(PACKAGE_SEPARATOR.matcher(tokens.get(1)).replaceAll("/"), tokens.get(3));
 						break;
 					case "m":
 						// 1: class-name.method-name + method-desc
 						// 2: renamed
-						// Replace all "." except last one
-						map.put(args[1].replaceAll("\\.(?=.+\\..+$)", "/"), args[2]);
+						store.put(PACKAGE_SEPARATOR.matcher(tokens.get(1)).replaceAll("/"), tokens.get(2));
 						break;
 					default:
 						break;
@@ -76,6 +75,5 @@ public class JadxMappings extends FileMappings {
 				throw new IllegalArgumentException(FAIL + "failed parsing line " + line, ex);
 			}
 		}
-		return map;
 	}
 }
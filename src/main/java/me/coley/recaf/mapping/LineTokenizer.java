@@ -0,0 +1,147 @@
+package me.coley.recaf.mapping;
+
+import java.util.Arrays;
+
+/**
+ * Splits lines of a mappings file into tokens without creating a string for each token.
+ * Tokens are either interned into a {@link MappingStore} or copied out when needed.
+ *
+ * @author Matt
+ */
+final class LineTokenizer {
+	private final MappingStore store;
+	private int[] starts = new int[8];
+	private int[] ends = new int[8];
+	private String line;
+	private int indent;
+	private int count;
+
+	/**
+	 * @param store
+	 * 		Store to intern tokens into.
+	 */
+	LineTokenizer(MappingStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Splits the trimmed line at each separator. Like {@link String#split(String)}, empty tokens are kept
+	 * except at the end of the line.
+	 *
+	 * @param line
+	 * 		Line to split.
+	 * @param separator
+	 * 		Character separating tokens.
+	 *
+	 * @return Number of tokens.
+	 */
+	int split(String line, char separator) {
+		int end = reset(line);
+		int start = indent;
+		for (int i = start; i < end; i++) {
+			if (line.charAt(i) == separator) {
+				add(start, i);
+				start = i + 1;
+			}
+		}
+		add(start, end);
+		// Drop trailing empty tokens, but always have at least one token
+		while (count > 1 && starts[count - 1] == ends[count - 1])
+			count--;
+		return count;
+	}
+
+	/**
+	 * Splits the trimmed line at runs of any of the given separators.
+	 *
+	 * @param line
+	 * 		Line to split.
+	 * @param separators
+	 * 		Characters separating tokens.
+	 *
+	 * @return Number of tokens.
+	 */
+	int splitAny(String line, String separators) {
+		int end = reset(line);
+		int start = -1;
+		for (int i = indent; i < end; i++) {
+			boolean separator = separators.indexOf(line.charAt(i)) >= 0;
+			if (separator && start >= 0) {
+				add(start, i);
+				start = -1;
+			} else if (!separator && start < 0) {
+				start = i;
+			}
+		}
+		if (start >= 0)
+			add(start, end);
+		if (count == 0)
+			add(indent, indent);
+		return count;
+	}
+
+	/**
+	 * @return Number of leading whitespace characters of the line, {@code 0} for blank lines.
+	 */
+	int indent() {
+		return count == 1 && starts[0] == ends[0] ? 0 : indent;
+	}
+
+	/**
+	 * @return Number of tokens.
+	 */
+	int count() {
+		return count;
+	}
+
+	/**
+	 * @param index
+	 * 		Token index.
+	 *
+	 * @return Token, interned in the store.
+	 */
+	String intern(int index) {
+		check(index);
+		return store.intern(line, starts[index], ends[index]);
+	}
+
+	/**
+	 * @param index
+	 * 		Token index.
+	 *
+	 * @return Copy of the token.
+	 */
+	String get(int index) {
+		check(index);
+		return line.substring(starts[index], ends[index]);
+	}
+
+	private int reset(String line) {
+		this.line = line;
+		count = 0;
+		int end = line.length();
+		int start = 0;
+		while (start < end && line.charAt(start) <= ' ')
+			start++;
+		while (end > start && line.charAt(end - 1) <= ' ')
+			end--;
+		indent = start;
+		return end;
+	}
+
+	private void add(int start, int end) {
+		if (count == starts.length) {
+			starts = Arrays.copyOf(starts, count * 2);
+			ends = Arrays.copyOf(ends, count * 2);
+		}
+		starts[count] = start;
+		ends[count] = end;
+		count++;
+	}
+
+	private void check(int index) {
+		// Same exception as accessing an array of split tokens
+		if (index >= count)
+			throw new ArrayIndexOutOfBoundsException(index);
+	}
+}
@@ -0,0 +1,220 @@
+package me.coley.recaf.mapping;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Read-only map of asm styled mappings, backed by the binary format written by {@link MappingCache}.
+ * <br>
+ * Lookups binary search the sorted key hashes and compare the key against the owner, name and descriptor
+ * of each candidate in the string table. Nothing is decoded until the map is iterated.
+ *
+ * @author Matt
+ */
+public class MappedMappings extends AbstractMap<String, String> {
+	private static final int PARTS = 4;
+	private final ByteBuffer buffer;
+	private final int stringCount;
+	private final int entryCount;
+	private final int classCount;
+	private final int stringOffsets;
+	private final int hashes;
+	private final int parts;
+	private final int classes;
+	private final int strings;
+	private Set<Entry<String, String>> entrySet;
+
+	/**
+	 * @param buffer
+	 * 		Buffer positioned after the header of the format.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		When the buffer is too small for the tables it declares.
+	 */
+	MappedMappings(ByteBuffer buffer) {
+		this.buffer = buffer;
+		int position = buffer.position();
+		stringCount = buffer.getInt(position);
+		entryCount = buffer.getInt(position + 4);
+		classCount = buffer.getInt(position + 8);
+		long tables = 12 + (stringCount + 1L) * 4 + entryCount * (PARTS + 1L) * 4 + classCount * 4L;
+		if (stringCount < 0 || entryCount < 0 || classCount < 0 || classCount > entryCount ||
+				position + tables > buffer.limit())
+			throw new IllegalArgumentException("Truncated tables");
+		stringOffsets = position + 12;
+		hashes = stringOffsets + (stringCount + 1) * 4;
+		parts = hashes + entryCount * 4;
+		classes = parts + entryCount * PARTS * 4;
+		strings = classes + classCount * 4;
+		if (strings + (long) buffer.getInt(stringOffsets + stringCount * 4) > buffer.limit())
+			throw new IllegalArgumentException("Truncated strings");
+	}
+
+	@Override
+	public String get(Object key) {
+		int entry = find(key);
+		return entry < 0 ? null : string(part(entry, 3));
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return find(key) >= 0;
+	}
+
+	@Override
+	public int size() {
+		return entryCount;
+	}
+
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		if (entrySet == null)
+			entrySet = new AbstractSet<Entry<String, String>>() {
+				@Override
+				public Iterator<Entry<String, String>> iterator() {
+					return new Iterator<Entry<String, String>>() {
+						private int next;
+
+						@Override
+						public boolean hasNext() {
+							return next < entryCount;
+						}
+
+						@Override
+						public Entry<String, String> next() {
+							if (!hasNext())
+								throw new NoSuchElementException();
+							int entry = next++;
+							return new SimpleImmutableEntry<>(key(entry), string(part(entry, 3)));
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return entryCount;
+				}
+			};
+		return entrySet;
+	}
+
+	/**
+	 * @return Mappings of class names, without decoding the member mappings.
+	 */
+	public Map<String, String> getClassMappings() {
+		Map<String, String> map = new HashMap<>(classCount * 2);
+		for (int i = 0; i < classCount; i++) {
+			int entry = buffer.getInt(classes + i * 4);
+			map.put(string(part(entry, 0)), string(part(entry, 3)));
+		}
+		return map;
+	}
+
+	private int find(Object key) {
+		if (!(key instanceof String))
+			return -1;
+		String str = (String) key;
+		int hash = str.hashCode();
+		// Lowest entry with the hash
+		int low = 0;
+		int high = entryCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (buffer.getInt(hashes + mid * 4) < hash)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		for (int entry = low; entry < entryCount && buffer.getInt(hashes + entry * 4) == hash; entry++)
+			if (matches(str, entry))
+				return entry;
+		return -1;
+	}
+
+	private boolean matches(String key, int entry) {
+		int pos = match(part(entry, 0), key, 0);
+		int name = part(entry, 1);
+		if (pos < 0 || name < 0)
+			return pos == key.length();
+		if (pos >= key.length() || key.charAt(pos) != '.')
+			return false;
+		pos = match(name, key, pos + 1);
+		int desc = part(entry, 2);
+		if (pos < 0 || desc < 0)
+			return pos == key.length();
+		if (firstChar(desc) != '(') {
+			if (pos >= key.length() || key.charAt(pos) != ' ')
+				return false;
+			pos++;
+		}
+		return match(desc, key, pos) == key.length();
+	}
+
+	private String key(int entry) {
+		String owner = string(part(entry, 0));
+		int name = part(entry, 1);
+		if (name < 0)
+			return owner;
+		StringBuilder sb = new StringBuilder(owner).append('.').append(string(name));
+		int desc = part(entry, 2);
+		if (desc >= 0) {
+			if (firstChar(desc) != '(')
+				sb.append(' ');
+			sb.append(string(desc));
+		}
+		return sb.toString();
+	}
+
+	private int part(int entry, int part) {
+		return buffer.getInt(parts + (entry * PARTS + part) * 4);
+	}
+
+	// ======================================== STRINGS ======================================== //
+	// Strings are stored as modified UTF-8, so each character is decoded on its own
+
+	/**
+	 * @return Position in the key after the string, or {@code -1} if the key does not continue with the string.
+	 */
+	private int match(int index, String key, int pos) {
+		int offset = strings + buffer.getInt(stringOffsets + index * 4);
+		int end = strings + buffer.getInt(stringOffsets + index * 4 + 4);
+		while (offset < end) {
+			if (pos >= key.length() || key.charAt(pos++) != decode(offset))
+				return -1;
+			offset += width(offset);
+		}
+		return pos;
+	}
+
+	private char firstChar(int index) {
+		return decode(strings + buffer.getInt(stringOffsets + index * 4));
+	}
+
+	private String string(int index) {
+		if (index < 0)
+			return null;
+		int offset = strings + buffer.getInt(stringOffsets + index * 4);
+		int end = strings + buffer.getInt(stringOffsets + index * 4 + 4);
+		char[] chars = new char[end - offset];
+		int length = 0;
+		while (offset < end) {
+			chars[length++] = decode(offset);
+			offset += width(offset);
+		}
+		return new String(chars, 0, length);
+	}
+
+	private char decode(int offset) {
+		int b = buffer.get(offset) & 0xFF;
+		if (b < 0x80)
+			return (char) b;
+		if (b < 0xE0)
+			return (char) (((b & 0x1F) << 6) | (buffer.get(offset + 1) & 0x3F));
+		return (char) (((b & 0x0F) << 12) | ((buffer.get(offset + 1) & 0x3F) << 6) | (buffer.get(offset + 2) & 0x3F));
+	}
+
+	private int width(int offset) {
+		int b = buffer.get(offset) & 0xFF;
+		return b < 0x80 ? 1 : b < 0xE0 ? 2 : 3;
+	}
+}
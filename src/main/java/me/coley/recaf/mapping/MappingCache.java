@@ -0,0 +1,191 @@
+package me.coley.recaf.mapping;
+
+import me.coley.recaf.Recaf;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Disk cache of parsed mapping files, keyed by the hash of the file and the format it was parsed as.
+ * <br>
+ * Mappings are written in a binary format of a string table, the key hashes in sorted order and the parts of
+ * each key. Cached mappings are memory mapped and read by {@link MappedMappings} without being decoded.
+ *
+ * @author Matt
+ */
+final class MappingCache {
+	private static final int MAGIC = 0x52434D50;
+	private static final int VERSION = 1;
+	private static final int MAX_CACHED = 16;
+	private static final String EXTENSION = ".map";
+
+	private MappingCache() {}
+
+	/**
+	 * @param file
+	 * 		Mappings file.
+	 * @param format
+	 * 		Identifier of the format the file is parsed as.
+	 *
+	 * @return Cache file of the mappings, or {@code null} if the file cannot be cached.
+	 */
+	static Path getCacheFile(File file, String format) {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			String key = DigestUtils.sha1Hex(DigestUtils.sha1Hex(in) + '|' + format + '|' + Recaf.VERSION);
+			return Recaf.getDirectory("mappings").resolve(key + EXTENSION);
+		} catch (IOException | IllegalStateException ex) {
+			debug("Could not hash '{}' for mapping cache: {}", file.getName(), ex.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * @param cacheFile
+	 * 		Cache file of the mappings.
+	 *
+	 * @return Cached mappings, or {@code null} if there are none.
+	 */
+	static Map<String, String> load(Path cacheFile) {
+		if (!Files.isRegularFile(cacheFile))
+			return null;
+		try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				return null;
+			MappedMappings mappings = new MappedMappings(buffer);
+			// Recently used caches are kept when pruning
+			Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+			return mappings;
+		} catch (IOException | RuntimeException ex) {
+			debug("Ignoring unreadable mapping cache '{}': {}", cacheFile.getFileName(), ex.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * @param cacheFile
+	 * 		Cache file of the mappings.
+	 * @param store
+	 * 		Mappings to write.
+	 */
+	static void save(Path cacheFile, MappingStore store) {
+		try {
+			Files.createDirectories(cacheFile.getParent());
+			Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				write(out, store);
+			}
+			Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+			prune(cacheFile.getParent());
+		} catch (IOException | RuntimeException ex) {
+			// Mappings work without a cache, they are just parsed again next time
+			debug("Could not write mapping cache '{}': {}", cacheFile.getFileName(), ex.toString());
+		}
+	}
+
+	private static void write(DataOutputStream out, MappingStore store) throws IOException {
+		// Parts of the store are interned, so the same part is the same instance
+		Map<String, Integer> stringIndices = new IdentityHashMap<>();
+		List<String> strings = new ArrayList<>();
+		int[] entryParts = new int[store.size() * 4];
+		long[] order = new long[store.size()];
+		int[] count = new int[1];
+		store.forEachEntry((owner, name, desc, value, hash) -> {
+			int entry = count[0]++;
+			entryParts[entry * 4] = indexOf(stringIndices, strings, owner);
+			entryParts[entry * 4 + 1] = indexOf(stringIndices, strings, name);
+			entryParts[entry * 4 + 2] = indexOf(stringIndices, strings, desc);
+			entryParts[entry * 4 + 3] = indexOf(stringIndices, strings, value);
+			// Sort by hash, entries with equal hashes keep their order
+			order[entry] = ((long) hash << 32) | entry;
+		});
+		Arrays.sort(order);
+		// Encode strings
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		int[] offsets = new int[strings.size() + 1];
+		for (int i = 0; i < strings.size(); i++) {
+			offsets[i] = data.size();
+			encode(data, strings.get(i));
+		}
+		offsets[strings.size()] = data.size();
+		List<Integer> classEntries = new ArrayList<>();
+		for (int i = 0; i < order.length; i++)
+			if (entryParts[(int) order[i] * 4 + 1] < 0)
+				classEntries.add(i);
+		// Header and tables
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(strings.size());
+		out.writeInt(order.length);
+		out.writeInt(classEntries.size());
+		for (int offset : offsets)
+			out.writeInt(offset);
+		for (long value : order)
+			out.writeInt((int) (value >> 32));
+		for (long value : order) {
+			int entry = (int) value;
+			for (int part = 0; part < 4; part++)
+				out.writeInt(entryParts[entry * 4 + part]);
+		}
+		for (int entry : classEntries)
+			out.writeInt(entry);
+		data.writeTo(out);
+	}
+
+	private static int indexOf(Map<String, Integer> stringIndices, List<String> strings, String value) {
+		if (value == null)
+			return -1;
+		Integer index = stringIndices.get(value);
+		if (index == null) {
+			index = strings.size();
+			stringIndices.put(value, index);
+			strings.add(value);
+		}
+		return index;
+	}
+
+	private static void encode(ByteArrayOutputStream out, String value) {
+		// Modified UTF-8, every character has its own encoding
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c > 0 && c < 0x80) {
+				out.write(c);
+			} else if (c < 0x800) {
+				out.write(0xC0 | (c >> 6));
+				out.write(0x80 | (c & 0x3F));
+			} else {
+				out.write(0xE0 | (c >> 12));
+				out.write(0x80 | ((c >> 6) & 0x3F));
+				out.write(0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	private static void prune(Path directory) throws IOException {
+		List<Path> files;
+		try (Stream<Path> stream = Files.list(directory)) {
+			files = stream.filter(p -> p.toString().endsWith(EXTENSION)).collect(Collectors.toList());
+		}
+		if (files.size() <= MAX_CACHED)
+			return;
+		files.sort(Comparator.comparingLong(p -> p.toFile().lastModified()));
+		for (Path file : files.subList(0, files.size() - MAX_CACHED)) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException ex) {
+				// Still mapped on some platforms, removed by a later prune
+				debug("Could not remove mapping cache '{}': {}", file.getFileName(), ex.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,310 @@
+package me.coley.recaf.mapping;
+
+import me.coley.recaf.graph.inheritance.HierarchyGraph;
+import me.coley.recaf.util.ClassUtil;
+import me.coley.recaf.workspace.Workspace;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InnerClassNode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolution table of a set of mappings, computed once before classes are remapped.
+ * <br>
+ * Member mappings are flattened over the hierarchy, so a class holds the mappings of the members it inherits.
+ * Members are looked up by owner, name and descriptor, and class names by their name. Lookups
+ * concatenate no keys and walk no hierarchy, so they allocate nothing.
+ *
+ * @author Matt
+ */
+public class MappingResolver {
+	private static final String UNMAPPED = new String("<unmapped>");
+	private final Map<String, String> mappings;
+	private final boolean checkFieldHierarchy;
+	private final boolean checkMethodHierarchy;
+	private final boolean checkWonkyOuterRelation;
+	private final Workspace workspace;
+	private final Map<String, String> classes = new ConcurrentHashMap<>();
+	private final Map<String, Members> members = new HashMap<>();
+
+	/**
+	 * @param mappings
+	 * 		Map of asm styled mappings. See {@link org.objectweb.asm.commons.SimpleRemapper#SimpleRemapper(Map)}.
+	 * @param checkFieldHierarchy
+	 * 		Flag for checking for field keys using super-classes.
+	 * @param checkMethodHierarchy
+	 * 		Flag for checking for method keys using super-classes.
+	 * @param checkWonkyOuterRelation
+	 * 		Flag for if outer class resolving should account for wonky renaming.
+	 * @param workspace
+	 * 		Workspace to pull the hierarchy and classes from.
+	 */
+	public MappingResolver(Map<String, String> mappings, boolean checkFieldHierarchy,
+						   boolean checkMethodHierarchy, boolean checkWonkyOuterRelation, Workspace workspace) {
+		this(mappings, checkFieldHierarchy, checkMethodHierarchy, checkWonkyOuterRelation, workspace,
+				workspace.getPrimaryClassNames());
+	}
+
+	/**
+	 * @param mappings
+	 * 		Map of asm styled mappings. See {@link org.objectweb.asm.commons.SimpleRemapper#SimpleRemapper(Map)}.
+	 * @param checkFieldHierarchy
+	 * 		Flag for checking for field keys using super-classes.
+	 * @param checkMethodHierarchy
+	 * 		Flag for checking for method keys using super-classes.
+	 * @param checkWonkyOuterRelation
+	 * 		Flag for if outer class resolving should account for wonky renaming.
+	 * @param workspace
+	 * 		Workspace to pull the hierarchy and classes from.
+	 * @param classNames
+	 * 		Names of the classes that will be remapped, which are resolved ahead of time.
+	 */
+	public MappingResolver(Map<String, String> mappings, boolean checkFieldHierarchy,
+						   boolean checkMethodHierarchy, boolean checkWonkyOuterRelation, Workspace workspace,
+						   Collection<String> classNames) {
+		this.mappings = mappings;
+		this.checkFieldHierarchy = checkFieldHierarchy;
+		this.checkMethodHierarchy = checkMethodHierarchy;
+		this.checkWonkyOuterRelation = checkWonkyOuterRelation;
+		this.workspace = workspace;
+		Map<String, Members> declared = collectMembers();
+		if (checkFieldHierarchy || checkMethodHierarchy)
+			flatten(declared);
+		else
+			members.putAll(declared);
+		for (String name : classNames)
+			mapClass(name);
+		for (String key : mappings.keySet())
+			if (key.indexOf('.') < 0)
+				mapClass(key);
+	}
+
+	/**
+	 * @return Map of asm styled mappings the table is computed from.
+	 */
+	public Map<String, String> getMappings() {
+		return mappings;
+	}
+
+	/**
+	 * @param name
+	 * 		Internal class name.
+	 *
+	 * @return Mapped name of the class, or {@code null} if it is not mapped.
+	 */
+	public String mapClass(String name) {
+		String mapped = classes.get(name);
+		if (mapped == null) {
+			// Not computed ahead of time, such as runtime classes
+			mapped = resolveClass(name);
+			classes.putIfAbsent(name, mapped == null ? UNMAPPED : mapped);
+		}
+		return mapped == UNMAPPED ? null : mapped;
+	}
+
+	/**
+	 * @param owner
+	 * 		Internal name of the class the method is referenced through.
+	 * @param name
+	 * 		Method name.
+	 * @param desc
+	 * 		Method descriptor.
+	 *
+	 * @return Mapped name of the method, or {@code null} if it is not mapped.
+	 */
+	public String mapMethod(String owner, String name, String desc) {
+		Members table = members.get(owner);
+		if (table == null)
+			return null;
+		Map<String, String> descs = table.methods.get(name);
+		return descs == null ? null : descs.get(desc);
+	}
+
+	/**
+	 * @param owner
+	 * 		Internal name of the class the field is referenced through.
+	 * @param name
+	 * 		Field name.
+	 * @param desc
+	 * 		Field descriptor.
+	 *
+	 * @return Mapped name of the field, or {@code null} if it is not mapped.
+	 */
+	public String mapField(String owner, String name, String desc) {
+		Members table = members.get(owner);
+		if (table == null)
+			return null;
+		// Mappings without a descriptor take priority
+		String mapped = table.fieldNames.get(name);
+		if (mapped != null)
+			return mapped;
+		Map<String, String> descs = table.fields.get(name);
+		return descs == null ? null : descs.get(desc);
+	}
+
+	private String resolveClass(String name) {
+		String mapped = mappings.get(name);
+		if (mapped != null)
+			return mapped;
+		// Is this an inner class? If so ensure the qualified outer name is mapped
+		int index = name.lastIndexOf('$');
+		if (index > 1) {
+			String mappedOuter = mapClass(name.substring(0, index));
+			return mappedOuter == null ? null : mappedOuter + name.substring(index);
+		} else if (checkWonkyOuterRelation && workspace.getPrimary().getClasses().containsKey(name)) {
+			// Check if the class is just obfuscated and does not respect the "outer$inner" pattern.
+			String outer = getUnmatchedOuter(workspace, name);
+			if (outer != null) {
+				String mappedOuter = mapClass(outer);
+				if (mappedOuter != null)
+					return mappedOuter + name.substring(name.lastIndexOf('/') + 1);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return Member mappings of each class, as declared in the mappings.
+	 */
+	private Map<String, Members> collectMembers() {
+		Map<String, Members> declared = new HashMap<>();
+		for (Map.Entry<String, String> e : mappings.entrySet()) {
+			String key = e.getKey();
+			int dot = key.indexOf('.');
+			// Skip class names, invoke-dynamic keys, and constructors/static-initializers
+			if (dot <= 0 || key.indexOf('<') >= 0)
+				continue;
+			Members table = declared.computeIfAbsent(key.substring(0, dot), k -> new Members());
+			String member = key.substring(dot + 1);
+			int paren = member.indexOf('(');
+			int space = member.indexOf(' ');
+			if (paren >= 0)
+				table.methods.computeIfAbsent(member.substring(0, paren), k -> new HashMap<>())
+						.put(member.substring(paren), e.getValue());
+			else if (space >= 0)
+				table.fields.computeIfAbsent(member.substring(0, space), k -> new HashMap<>())
+						.put(member.substring(space + 1), e.getValue());
+			else
+				table.fieldNames.put(member, e.getValue());
+		}
+		return declared;
+	}
+
+	/**
+	 * Compute the members of every class that declares or inherits member mappings.
+	 *
+	 * @param declared
+	 * 		Member mappings of each class, as declared in the mappings.
+	 */
+	private void flatten(Map<String, Members> declared) {
+		HierarchyGraph graph = workspace.getHierarchyGraph();
+		// Only the declaring classes and their descendants can inherit mappings
+		Set<String> relevant = new HashSet<>(declared.keySet());
+		Deque<String> queue = new ArrayDeque<>(declared.keySet());
+		while (!queue.isEmpty())
+			graph.getDescendants(queue.pop()).forEach(child -> {
+				if (relevant.add(child))
+					queue.push(child);
+			});
+		Map<String, Members> flattened = new HashMap<>();
+		for (String name : relevant)
+			flatten(name, declared, relevant, flattened, graph);
+		flattened.forEach((name, table) -> {
+			if (table != Members.EMPTY)
+				members.put(name, table);
+		});
+	}
+
+	private Members flatten(String name, Map<String, Members> declared, Set<String> relevant,
+							Map<String, Members> flattened, HierarchyGraph graph) {
+		Members table = flattened.get(name);
+		if (table != null)
+			return table;
+		// Guards against cyclic hierarchies of bogus classes
+		flattened.put(name, Members.EMPTY);
+		Members own = declared.getOrDefault(name, Members.EMPTY);
+		List<Members> inherited = new ArrayList<>();
+		graph.getParents(name).filter(relevant::contains).forEach(parent -> {
+			Members parentTable = flatten(parent, declared, relevant, flattened, graph);
+			if (parentTable != Members.EMPTY)
+				inherited.add(parentTable);
+		});
+		if (inherited.isEmpty()) {
+			table = own;
+		} else if (own == Members.EMPTY && inherited.size() == 1 && checkFieldHierarchy && checkMethodHierarchy) {
+			// Nothing to add, share the parent's table
+			table = inherited.get(0);
+		} else {
+			// Declared mappings come first, then those of each parent in order
+			table = own.copy();
+			for (Members parentTable : inherited)
+				table.inherit(parentTable, checkFieldHierarchy, checkMethodHierarchy);
+		}
+		flattened.put(name, table);
+		return table;
+	}
+
+	/**
+	 * Sometimes obfuscators rename inner classes and do not retain the {@code outer$inner} pattern.
+	 * So we need to check for that here.
+	 *
+	 * @param workspace
+	 * 		Workspace to pull the class from.
+	 * @param name
+	 * 		Class name to check for outers.
+	 *
+	 * @return Name of outer class or {@code null} if no outer exists.
+	 */
+	static String getUnmatchedOuter(Workspace workspace, String name) {
+		ClassReader cr = workspace.getClassReader(name);
+		if (cr == null)
+			return null;
+		ClassNode node = ClassUtil.getNode(cr, ClassReader.SKIP_CODE);
+		// Check for outer name attr
+		if (node.outerClass != null && !node.name.equals(node.outerClass))
+			return node.outerClass;
+		// Check if internal name of inner matches,
+		// then use outer name if its not exactly the same as the given name.
+		for (InnerClassNode inner : node.innerClasses) {
+			if (inner.name.equals(name) && inner.outerName != null && !inner.outerName.equals(name))
+				return inner.outerName;
+		}
+		return null;
+	}
+
+	/**
+	 * Member mappings of a class.
+	 */
+	private static final class Members {
+		private static final Members EMPTY = new Members();
+		private final Map<String, String> fieldNames = new HashMap<>();
+		private final Map<String, Map<String, String>> fields = new HashMap<>();
+		private final Map<String, Map<String, String>> methods = new HashMap<>();
+
+		private Members copy() {
+			Members copy = new Members();
+			copy.fieldNames.putAll(fieldNames);
+			fields.forEach((name, descs) -> copy.fields.put(name, new HashMap<>(descs)));
+			methods.forEach((name, descs) -> copy.methods.put(name, new HashMap<>(descs)));
+			return copy;
+		}
+
+		private void inherit(Members parent, boolean includeFields, boolean includeMethods) {
+			if (includeFields) {
+				parent.fieldNames.forEach(fieldNames::putIfAbsent);
+				merge(fields, parent.fields);
+			}
+			if (includeMethods)
+				merge(methods, parent.methods);
+		}
+
+		private static void merge(Map<String, Map<String, String>> target, Map<String, Map<String, String>> source) {
+			source.forEach((name, descs) -> {
+				Map<String, String> existing = target.computeIfAbsent(name, k -> new HashMap<>());
+				descs.forEach(existing::putIfAbsent);
+			});
+		}
+	}
+}
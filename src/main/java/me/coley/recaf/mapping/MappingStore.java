@@ -0,0 +1,498 @@
+package me.coley.recaf.mapping;
+
+import java.util.*;
+
+/**
+ * Compact map of asm styled mappings. See {@link org.objectweb.asm.commons.SimpleRemapper#SimpleRemapper(Map)}.
+ * <br>
+ * Keys are not stored as strings. Each entry holds the owner, name and descriptor of its key, which are interned
+ * so that the owner and descriptor strings shared by many members are only kept once. Keys are rebuilt when the map
+ * is iterated, while lookups compare against the parts without building the key.
+ *
+ * @author Matt
+ */
+public class MappingStore extends AbstractMap<String, String> {
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int REMOVED = -1;
+	private final Pool pool = new Pool();
+	private String[] owners = new String[INITIAL_CAPACITY];
+	private String[] names = new String[INITIAL_CAPACITY];
+	private String[] descs = new String[INITIAL_CAPACITY];
+	private String[] values = new String[INITIAL_CAPACITY];
+	private int[] hashes = new int[INITIAL_CAPACITY];
+	// Open addressed table of entry index + 1, 0 for free slots and REMOVED for removed entries
+	private int[] table = new int[INITIAL_CAPACITY * 2];
+	private int entries;
+	private int occupied;
+	private int size;
+	private Set<Entry<String, String>> entrySet;
+
+	/**
+	 * @param name
+	 * 		Internal class name.
+	 * @param renamed
+	 * 		New internal class name.
+	 *
+	 * @return Previous mapping of the class, or {@code null} if there was none.
+	 */
+	public String putClass(String name, String renamed) {
+		return put(pool.intern(name), null, null, renamed);
+	}
+
+	/**
+	 * @param owner
+	 * 		Internal name of the class declaring the field.
+	 * @param name
+	 * 		Field name.
+	 * @param desc
+	 * 		Field descriptor, or {@code null} to map the field by its name only.
+	 * 		Invalid descriptors are kept as part of the key.
+	 * @param renamed
+	 * 		New field name.
+	 *
+	 * @return Previous mapping of the field, or {@code null} if there was none.
+	 */
+	public String putField(String owner, String name, String desc, String renamed) {
+		if (desc != null && (desc.isEmpty() || desc.charAt(0) == '('))
+			return put(owner + '.' + name + ' ' + desc, renamed);
+		return put(pool.intern(owner), pool.intern(name), desc == null ? null : pool.intern(desc), renamed);
+	}
+
+	/**
+	 * @param owner
+	 * 		Internal name of the class declaring the method.
+	 * @param name
+	 * 		Method name.
+	 * @param desc
+	 * 		Method descriptor. Invalid descriptors are kept as part of the key.
+	 * @param renamed
+	 * 		New method name.
+	 *
+	 * @return Previous mapping of the method, or {@code null} if there was none.
+	 */
+	public String putMethod(String owner, String name, String desc, String renamed) {
+		if (desc.isEmpty() || desc.charAt(0) != '(')
+			return put(owner + '.' + name + desc, renamed);
+		return put(pool.intern(owner), pool.intern(name), pool.intern(desc), renamed);
+	}
+
+	@Override
+	public String put(String key, String value) {
+		int dot = key.indexOf('.');
+		if (dot < 0)
+			return putClass(key, value);
+		String owner = key.substring(0, dot);
+		int paren = key.indexOf('(', dot);
+		int space = key.indexOf(' ', dot);
+		if (paren >= 0 && (space < 0 || paren < space))
+			return putMethod(owner, key.substring(dot + 1, paren), key.substring(paren), value);
+		if (space >= 0 && space < key.length() - 1 && key.charAt(space + 1) != '(')
+			return putField(owner, key.substring(dot + 1, space), key.substring(space + 1), value);
+		if (space < 0)
+			return putField(owner, key.substring(dot + 1), null, value);
+		// Not a member key, keep it as is
+		return putClass(key, value);
+	}
+
+	@Override
+	public String get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : values[index];
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public String remove(Object key) {
+		int slot = slotOf(key);
+		if (slot < 0)
+			return null;
+		int index = table[slot] - 1;
+		String value = values[index];
+		table[slot] = REMOVED;
+		owners[index] = names[index] = descs[index] = values[index] = null;
+		size--;
+		return value;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(owners, 0, entries, null);
+		Arrays.fill(names, 0, entries, null);
+		Arrays.fill(descs, 0, entries, null);
+		Arrays.fill(values, 0, entries, null);
+		Arrays.fill(table, 0);
+		entries = occupied = size = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		if (entrySet == null)
+			entrySet = new EntrySet();
+		return entrySet;
+	}
+
+	/**
+	 * Intern a part of some text, such as a token of a line in a mappings file, without creating a string
+	 * if it has been interned before.
+	 *
+	 * @param text
+	 * 		Text containing the part.
+	 * @param start
+	 * 		Start of the part in the text, inclusive.
+	 * @param end
+	 * 		End of the part in the text, exclusive.
+	 *
+	 * @return Interned part.
+	 */
+	String intern(CharSequence text, int start, int end) {
+		return pool.intern(text, start, end, null);
+	}
+
+	/**
+	 * Visit the parts of each entry.
+	 *
+	 * @param visitor
+	 * 		Visitor of the entries.
+	 */
+	void forEachEntry(EntryVisitor visitor) {
+		for (int i = 0; i < entries; i++)
+			if (owners[i] != null)
+				visitor.visit(owners[i], names[i], descs[i], values[i], hashes[i]);
+	}
+
+	private String put(String owner, String name, String desc, String value) {
+		int hash = hash(owner, name, desc);
+		int mask = table.length - 1;
+		int free = -1;
+		for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+			int index = table[slot] - 1;
+			if (index == -1) {
+				insert(free < 0 ? slot : free, hash, owner, name, desc, value);
+				return null;
+			} else if (index == REMOVED - 1) {
+				if (free < 0)
+					free = slot;
+			} else if (hashes[index] == hash && owners[index] == owner && names[index] == name &&
+					descs[index] == desc) {
+				// Parts are interned, so identity is equality
+				String old = values[index];
+				values[index] = value;
+				return old;
+			}
+		}
+	}
+
+	private void insert(int slot, int hash, String owner, String name, String desc, String value) {
+		if (table[slot] == 0)
+			occupied++;
+		if (entries == owners.length)
+			growEntries();
+		int index = entries++;
+		owners[index] = owner;
+		names[index] = name;
+		descs[index] = desc;
+		values[index] = value;
+		hashes[index] = hash;
+		table[slot] = index + 1;
+		size++;
+		if (occupied * 4 > table.length * 3)
+			rehash();
+	}
+
+	private int indexOf(Object key) {
+		int slot = slotOf(key);
+		return slot < 0 ? -1 : table[slot] - 1;
+	}
+
+	private int slotOf(Object key) {
+		if (!(key instanceof String))
+			return -1;
+		String str = (String) key;
+		int hash = str.hashCode();
+		int mask = table.length - 1;
+		for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+			int index = table[slot] - 1;
+			if (index == -1)
+				return -1;
+			if (index != REMOVED - 1 && hashes[index] == hash && matches(str, index))
+				return slot;
+		}
+	}
+
+	private boolean matches(String key, int index) {
+		String owner = owners[index];
+		String name = names[index];
+		String desc = descs[index];
+		if (!key.startsWith(owner))
+			return false;
+		int pos = owner.length();
+		if (name == null)
+			return key.length() == pos;
+		if (key.length() <= pos || key.charAt(pos) != '.' || !key.startsWith(name, pos + 1))
+			return false;
+		pos += name.length() + 1;
+		if (desc == null)
+			return key.length() == pos;
+		if (desc.charAt(0) != '(') {
+			if (key.length() <= pos || key.charAt(pos) != ' ')
+				return false;
+			pos++;
+		}
+		return key.length() == pos + desc.length() && key.startsWith(desc, pos);
+	}
+
+	private String keyOf(int index) {
+		String owner = owners[index];
+		String name = names[index];
+		String desc = descs[index];
+		if (name == null)
+			return owner;
+		StringBuilder sb = new StringBuilder(owner.length() + name.length() + 2 +
+				(desc == null ? 0 : desc.length()));
+		sb.append(owner).append('.').append(name);
+		if (desc != null) {
+			if (desc.charAt(0) != '(')
+				sb.append(' ');
+			sb.append(desc);
+		}
+		return sb.toString();
+	}
+
+	private void growEntries() {
+		int capacity = owners.length * 2;
+		owners = Arrays.copyOf(owners, capacity);
+		names = Arrays.copyOf(names, capacity);
+		descs = Arrays.copyOf(descs, capacity);
+		values = Arrays.copyOf(values, capacity);
+		hashes = Arrays.copyOf(hashes, capacity);
+	}
+
+	private void rehash() {
+		// Compact removed entries and grow the table if most of it is in use
+		int capacity = size * 4 > table.length ? table.length * 2 : table.length;
+		int[] newTable = new int[capacity];
+		int mask = capacity - 1;
+		int count = 0;
+		for (int i = 0; i < entries; i++) {
+			if (owners[i] == null)
+				continue;
+			owners[count] = owners[i];
+			names[count] = names[i];
+			descs[count] = descs[i];
+			values[count] = values[i];
+			hashes[count] = hashes[i];
+			int slot = spread(hashes[count]) & mask;
+			while (newTable[slot] != 0)
+				slot = (slot + 1) & mask;
+			newTable[slot] = ++count;
+		}
+		Arrays.fill(owners, count, entries, null);
+		Arrays.fill(names, count, entries, null);
+		Arrays.fill(descs, count, entries, null);
+		Arrays.fill(values, count, entries, null);
+		table = newTable;
+		entries = occupied = count;
+	}
+
+	/**
+	 * @return Hash of the key the parts make up, equal to its {@link String#hashCode()}.
+	 */
+	private static int hash(String owner, String name, String desc) {
+		int hash = hash(0, owner);
+		if (name == null)
+			return hash;
+		hash = hash(hash * 31 + '.', name);
+		if (desc == null)
+			return hash;
+		if (desc.charAt(0) != '(')
+			hash = hash * 31 + ' ';
+		return hash(hash, desc);
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	private static int hash(int hash, CharSequence text) {
+		for (int i = 0; i < text.length(); i++)
+			hash = hash * 31 + text.charAt(i);
+		return hash;
+	}
+
+	/**
+	 * Visitor of the parts of an entry.
+	 */
+	interface EntryVisitor {
+		/**
+		 * @param owner
+		 * 		Class name of a member key, or the whole key of any other entry.
+		 * @param name
+		 * 		Member name, {@code null} for keys that are not members.
+		 * @param desc
+		 * 		Member descriptor, {@code null} for keys without a descriptor.
+		 * @param value
+		 * 		Mapped name.
+		 * @param hash
+		 * 		Hash of the key.
+		 */
+		void visit(String owner, String name, String desc, String value, int hash);
+	}
+
+	/**
+	 * Set of the map's entries, keys are created as they are iterated over.
+	 */
+	private final class EntrySet extends AbstractSet<Entry<String, String>> {
+		@Override
+		public Iterator<Entry<String, String>> iterator() {
+			return new Iterator<Entry<String, String>>() {
+				private int next = advance(0);
+				private int last = -1;
+
+				@Override
+				public boolean hasNext() {
+					return next < entries;
+				}
+
+				@Override
+				public Entry<String, String> next() {
+					if (!hasNext())
+						throw new NoSuchElementException();
+					last = next;
+					next = advance(next + 1);
+					return new StoreEntry(last);
+				}
+
+				@Override
+				public void remove() {
+					if (last < 0 || owners[last] == null)
+						throw new IllegalStateException();
+					MappingStore.this.remove(keyOf(last));
+				}
+
+				private int advance(int index) {
+					while (index < entries && owners[index] == null)
+						index++;
+					return index;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			MappingStore.this.clear();
+		}
+	}
+
+	/**
+	 * Entry of the map, backed by the entry's index.
+	 */
+	private final class StoreEntry implements Entry<String, String> {
+		private final int index;
+		private final String key;
+
+		private StoreEntry(int index) {
+			this.index = index;
+			this.key = keyOf(index);
+		}
+
+		@Override
+		public String getKey() {
+			return key;
+		}
+
+		@Override
+		public String getValue() {
+			return values[index];
+		}
+
+		@Override
+		public String setValue(String value) {
+			String old = values[index];
+			values[index] = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> other = (Entry<?, ?>) o;
+			return key.equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ Objects.hashCode(getValue());
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+
+	/**
+	 * Pool of interned strings.
+	 */
+	private static final class Pool {
+		private String[] table = new String[64];
+		private int size;
+
+		private String intern(String text) {
+			return text == null ? null : intern(text, 0, text.length(), text);
+		}
+
+		private String intern(CharSequence text, int start, int end, String instance) {
+			int hash = 0;
+			for (int i = start; i < end; i++)
+				hash = hash * 31 + text.charAt(i);
+			int mask = table.length - 1;
+			int slot = spread(hash) & mask;
+			for (String existing; (existing = table[slot]) != null; slot = (slot + 1) & mask)
+				if (existing.hashCode() == hash && regionEquals(existing, text, start, end))
+					return existing;
+			String value = instance != null ? instance : text.subSequence(start, end).toString();
+			table[slot] = value;
+			if (++size * 2 > table.length)
+				grow();
+			return value;
+		}
+
+		private void grow() {
+			String[] old = table;
+			table = new String[old.length * 2];
+			int mask = table.length - 1;
+			for (String value : old) {
+				if (value == null)
+					continue;
+				int slot = spread(value.hashCode()) & mask;
+				while (table[slot] != null)
+					slot = (slot + 1) & mask;
+				table[slot] = value;
+			}
+		}
+
+		private static boolean regionEquals(String value, CharSequence text, int start, int end) {
+			if (value.length() != end - start)
+				return false;
+			for (int i = 0; i < value.length(); i++)
+				if (value.charAt(i) != text.charAt(start + i))
+					return false;
+			return true;
+		}
+	}
+}
@@ -2,6 +2,7 @@ package me.coley.recaf.mapping;
 
 import me.coley.recaf.plugin.PluginsManager;
 import me.coley.recaf.plugin.api.ClassVisitorPlugin;
+import me.coley.recaf.util.Metrics;
 import me.coley.recaf.workspace.*;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -10,6 +11,7 @@ import org.objectweb.asm.commons.ClassRemapper;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Base for mapppings.
@@ -17,6 +19,7 @@ import java.util.stream.Collectors;
  * @author Matt
  */
 public class Mappings {
+	private static final int BATCH_FRACTION = 4;
 	private Map<String, String> mappings;
 	private Map<String, String> reverseClassMappings;
 	private Workspace workspace;
@@ -24,6 +27,7 @@ public class Mappings {
 	private boolean checkMethodHierarchy;
 	private boolean checkWonkyOuterRelation;
 	private boolean clearDebugInfo;
+	private boolean parallel = true;
 
 	/**
 	 * @param workspace
@@ -52,7 +56,10 @@ public class Mappings {
 		this.mappings = mappings;
 		// Save inverted class name mappings for class-writing (requires ancestor analysis)
 		// - Allows us to not have to recompile in ancestral order
-		reverseClassMappings = mappings.entrySet()
+		// Mapped mappings can provide the class names without decoding every member
+		Map<String, String> classMappings = mappings instanceof MappedMappings ?
+				((MappedMappings) mappings).getClassMappings() : mappings;
+		reverseClassMappings = classMappings.entrySet()
 				.stream()
 				.filter(e -> !e.getKey().contains("."))
 				.collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
@@ -139,9 +146,30 @@ public class Mappings {
 		this.clearDebugInfo = clearDebugInfo;
 	}
 
+	/**
+	 * Classes are remapped on multiple threads unless a {@link ClassVisitorPlugin} is active.
+	 * The output is the same either way.
+	 *
+	 * @return Flag for remapping classes on multiple threads.
+	 */
+	public boolean doParallel() {
+		return parallel;
+	}
+
+	/**
+	 * @param parallel
+	 * 		Flag for remapping classes on multiple threads.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
 	/**
 	 * Applies mappings to all classes in the given resource. Return value is the map of updated
 	 * classes.
+	 * <br>
+	 * When the workspace has a {@link Workspace#getReferenceIndex() reference index}, only the
+	 * classes it lists as referencing the mappings are visited.
 	 *
 	 * @param resource
 	 * 		Resource containing classes.
@@ -150,13 +178,85 @@ public class Mappings {
 	 */
 	public Map<String, byte[]> accept(JavaResource resource) {
 		// Collect: <OldName, NewBytecode>
-		Map<String, byte[]> updated = new HashMap<>();
-		for(Map.Entry<String, byte[]> e : resource.getClasses().entrySet()) {
-			byte[] old = e.getValue();
-			ClassReader cr = new ClassReader(old);
-			accept(updated, cr);
+		Map<String, byte[]> updated = remap(resource);
+		// Update the resource's classes map. When most classes change, rebuilding the hierarchy once
+		// is cheaper than updating it for every class.
+		if (updated.size() > resource.getClasses().size() / BATCH_FRACTION)
+			workspace.getHierarchyGraph().batchUpdate(() -> commit(resource, updated));
+		else
+			commit(resource, updated);
+		// Tell the workspace we've finished renaming classes
+		workspace.onPrimaryDefinitionChanges(updated.keySet());
+		// Update saved mappings
+		workspace.updateAggregateMappings(getMappings(), updated.keySet());
+		return updated;
+	}
+
+	/**
+	 * Applies mappings to the classes of the resource without changing it.
+	 *
+	 * @param resource
+	 * 		Resource containing classes.
+	 *
+	 * @return Map of updated classes in the order of the resource's classes.
+	 * Keys of the old names, values of the updated code.
+	 */
+	private Map<String, byte[]> remap(JavaResource resource) {
+		// Only the classes referencing the mappings can change, all are visited without an index
+		Set<String> candidates = getCandidates(resource);
+		List<byte[]> classes = new ArrayList<>();
+		List<String> classNames = new ArrayList<>();
+		for (String name : resource.getClasses().keySet()) {
+			if (candidates != null && !candidates.contains(name))
+				continue;
+			byte[] value = resource.getClasses().get(name);
+			if (value != null) {
+				classes.add(value);
+				classNames.add(name);
+			}
 		}
-		// Update the resource's classes map
+		String[] names = new String[classes.size()];
+		byte[][] results = new byte[classes.size()][];
+		// Plugins may not expect to be called from multiple threads at once
+		boolean concurrent = parallel && classes.size() > 1 &&
+				PluginsManager.getInstance().ofType(ClassVisitorPlugin.class).isEmpty();
+		// Resolve names over the hierarchy once, instead of for every reference
+		MappingResolver resolver = new MappingResolver(getMappings(), checkFieldHierarchy, checkMethodHierarchy,
+				checkWonkyOuterRelation, workspace, candidates == null ? workspace.getPrimaryClassNames() : classNames);
+		// Lazily created, so create it before it is used from multiple threads
+		workspace.getHierarchyGraph();
+		IntStream range = IntStream.range(0, classes.size());
+		if (concurrent)
+			range = range.parallel();
+		range.forEach(i -> {
+			ClassReader cr = new ClassReader(classes.get(i));
+			names[i] = cr.getClassName();
+			results[i] = accept(cr, resolver);
+		});
+		Map<String, byte[]> updated = new LinkedHashMap<>();
+		for (int i = 0; i < results.length; i++)
+			if (results[i] != null)
+				updated.put(names[i], results[i]);
+		return updated;
+	}
+
+	/**
+	 * @param resource
+	 * 		Resource containing classes.
+	 *
+	 * @return Names of the classes in the resource that can be changed by the mappings.
+	 * {@code null} if every class has to be visited.
+	 */
+	private Set<String> getCandidates(JavaResource resource) {
+		ReferenceIndex index = workspace.getReferenceIndex();
+		// The index only covers the primary resource.
+		// Outer classes that do not follow the "outer$inner" pattern are not known until a class is visited.
+		if (index == null || resource != workspace.getPrimary() || checkWonkyOuterRelation)
+			return null;
+		return index.getCandidates(getMappings());
+	}
+
+	private static void commit(JavaResource resource, Map<String, byte[]> updated) {
 		for(Map.Entry<String, byte[]> e : updated.entrySet()) {
 			String oldKey = e.getKey();
 			String newKey = new ClassReader(e.getValue()).getClassName();
@@ -164,39 +264,39 @@ public class Mappings {
 				resource.getClasses().remove(oldKey);
 			resource.getClasses().put(newKey, e.getValue());
 		}
-		// Tell the workspace we've finished renaming classes
-		workspace.onPrimaryDefinitionChanges(updated.keySet());
-		// Update hierarchy graph
-		workspace.getHierarchyGraph().refresh();
-		// Update saved mappings
-		workspace.updateAggregateMappings(getMappings(), updated.keySet());
-		return updated;
 	}
 
 	/**
-	 * Applies mappings to the given class and puts the modified bytecode in the map.
+	 * Applies mappings to the given class.
 	 *
-	 * @param updated
-	 * 		Map to collect updated values in.
 	 * @param cr
 	 * 		Class bytecode reader.
+	 * @param resolver
+	 * 		Resolution table of the mappings.
+	 *
+	 * @return Modified bytecode, or {@code null} if the class has no references to the mappings.
 	 */
-	private void accept(Map<String, byte[]> updated, ClassReader cr) {
+	private byte[] accept(ClassReader cr, MappingResolver resolver) {
+		String name = cr.getClassName();
+		Metrics.Sample sample = Metrics.start(Metrics.MAPPING);
+		byte[] value = null;
 		try {
-			accept(updated, cr, ClassReader.SKIP_FRAMES, ClassWriter.COMPUTE_FRAMES);
+			value = accept(cr, resolver, ClassReader.SKIP_FRAMES, ClassWriter.COMPUTE_FRAMES);
 		} catch(IllegalArgumentException ex) {
 			// ASM throws: "JSR/RET are not supported with computeFrames option"
 			if (ex.getMessage() != null && ex.getMessage().contains("JSR/RET")) {
-				accept(updated, cr, ClassReader.EXPAND_FRAMES, ClassWriter.COMPUTE_MAXS);
+				value = accept(cr, resolver, ClassReader.EXPAND_FRAMES, ClassWriter.COMPUTE_MAXS);
 			}
+		} finally {
+			// Unchanged classes have no output
+			sample.stop(name, value == null ? 0 : value.length);
 		}
+		return value;
 	}
 
-	private void accept(Map<String, byte[]> updated, ClassReader cr, int readFlags, int writeFlags) {
-		String name = cr.getClassName();
+	private byte[] accept(ClassReader cr, MappingResolver resolver, int readFlags, int writeFlags) {
 		// Apply with mapper
-		SimpleRecordingRemapper mapper = new SimpleRecordingRemapper(getMappings(),
-				checkFieldHierarchy, checkMethodHierarchy, checkWonkyOuterRelation, workspace);
+		SimpleRecordingRemapper mapper = new SimpleRecordingRemapper(resolver);
 		WorkspaceClassWriter cw = workspace.createWriter(writeFlags);
 		cw.setMappings(getMappings(), reverseClassMappings);
 		ClassVisitor visitor = cw;
@@ -209,7 +309,6 @@ public class Mappings {
 			readFlags |= ClassReader.SKIP_DEBUG;
 		cr.accept(adapter, readFlags);
 		// Only return the modified class if any references to the mappings were found.
-		if (mapper.isDirty())
-			updated.put(name, cw.toByteArray());
+		return mapper.isDirty() ? cw.toByteArray() : null;
 	}
 }
@@ -1,12 +1,14 @@
 package me.coley.recaf.mapping;
 
-import me.coley.recaf.util.StringUtil;
 import me.coley.recaf.workspace.Workspace;
 
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Proguard mappings file implementation. <br>
@@ -18,9 +20,7 @@ import java.util.Map;
  */
 public class ProguardMappings extends FileMappings {
 	private static final String FAIL = "Invalid Proguard mappings, ";
-	private static final String NAME_LINE = "^.+:";
-	private static final String SPLITTER = "( |->)+";
-	private Map<String, String> obfToClean = new HashMap<>();
+	private static final Pattern SPLITTER = Pattern.compile("( |->)+");
 	private Map<String, String> cleanToObf = new HashMap<>();
 
 	/**
@@ -39,48 +39,30 @@ public class ProguardMappings extends FileMappings {
 	}
 
 	@Override
-	protected Map<String, String> parse(String text) {
-		obfToClean = new HashMap<>();
+	protected void parse(File file, MappingStore store) throws IOException {
+		// Method descriptors can reference classes declared further down, so all class names are read first
 		cleanToObf = new HashMap<>();
-		String[] lines = StringUtil.splitNewline(text);
-		collectNames(lines);
-		parseMembers(lines);
-		return obfToClean;
-	}
-
-	private void collectNames(String[] lines) {
-		int line = 0;
-		for(String lineStr : lines) {
-			line++;
-			// Skip comments line
-			if(lineStr.startsWith("#"))
-				continue;
-			// Only look at name lines
-			if(lineStr.matches(NAME_LINE)) {
-				try {
-					String[] split = lineStr.split("( |->)+");
-					String clean = internalize(split[0]);
-					String obf = internalize(split[1]);
-					obf = obf.substring(0, obf.indexOf(':'));
-					obfToClean.put(obf, clean);
-					cleanToObf.put(clean, obf);
-				} catch(IndexOutOfBoundsException ex) {
-					throw new IllegalArgumentException(FAIL + "failed parsing line " + line, ex);
-				}
-			}
+		try (BufferedReader reader = newReader(file)) {
+			collectNames(reader);
 		}
+		super.parse(file, store);
 	}
 
-	private void parseMembers(String[] lines) {
+	@Override
+	protected void parse(BufferedReader reader, MappingStore store) throws IOException {
 		int line = 0;
 		String currentObf = null;
-		for(String lineStr : lines) {
+		String lineStr;
+		while ((lineStr = reader.readLine()) != null) {
 			line++;
-			// Skip comments line
-			if(lineStr.startsWith("#"))
+			// Skip comments and empty lines
+			if(lineStr.startsWith("#") || lineStr.trim().isEmpty())
 				continue;
 			// Mark current class
-			if(lineStr.matches(NAME_LINE)) {
+			if(isNameLine(lineStr)) {
+				String[] split = SPLITTER.split(lineStr);
+				String obf = internalize(split[1]);
+				store.putClass(obf.substring(0, obf.indexOf(':')), internalize(split[0]));
 				currentObf = internalize(lineStr.substring(lineStr.lastIndexOf(' ') + 1, lineStr.indexOf(':')));
 				continue;
 			}
@@ -90,7 +72,7 @@ public class ProguardMappings extends FileMappings {
 			if(!lineStr.contains("(")) {
 				// Field
 				// <type> <clean-name> -> <obf-name>
-				String[] split = lineStr.trim().split(SPLITTER);
+				String[] split = SPLITTER.split(lineStr.trim());
 				String clean = split[1];
 				String obf = split[2];
 				/*
@@ -100,7 +82,7 @@ public class ProguardMappings extends FileMappings {
 				else
 					type = internalize(type);
 				*/
-				obfToClean.put(currentObf + "." + obf, clean);
+				store.putField(currentObf, obf, null, clean);
 			} else {
 				// Skip constructors
 				if (lineStr.contains("init>"))
@@ -110,9 +92,9 @@ public class ProguardMappings extends FileMappings {
 				// <ret-type> <name::qualified-desc> -> <obf-name>
 				String[] split = null;
 				if (lineStr.contains(":"))
-					split = lineStr.substring(lineStr.lastIndexOf(":") + 1).trim().split(SPLITTER);
+					split = SPLITTER.split(lineStr.substring(lineStr.lastIndexOf(":") + 1).trim());
 				else
-					split = lineStr.trim().split(SPLITTER);
+					split = SPLITTER.split(lineStr.trim());
 				// Return type
 				// - Internalize the type (void -> V, or com.Type -> com/Type))
 				// - Map to obf if the type is not primitive
@@ -145,12 +127,38 @@ public class ProguardMappings extends FileMappings {
 				}
 				String obf = split[2];
 				String obfDesc = "(" + String.join("", progaurdArgs) + ")" + obfRet;
-				String obfKey = currentObf + "." + obf + obfDesc;
-				obfToClean.put(obfKey, clean);
+				store.putMethod(currentObf, obf, obfDesc, clean);
 			}
 		}
 	}
 
+	private void collectNames(BufferedReader reader) throws IOException {
+		int line = 0;
+		String lineStr;
+		while ((lineStr = reader.readLine()) != null) {
+			line++;
+			// Skip comments line
+			if(lineStr.startsWith("#"))
+				continue;
+			// Only look at name lines
+			if(isNameLine(lineStr)) {
+				try {
+					String[] split = SPLITTER.split(lineStr);
+					String clean = internalize(split[0]);
+					String obf = internalize(split[1]);
+					obf = obf.substring(0, obf.indexOf(':'));
+					cleanToObf.put(clean, obf);
+				} catch(IndexOutOfBoundsException ex) {
+					throw new IllegalArgumentException(FAIL + "failed parsing line " + line, ex);
+				}
+			}
+		}
+	}
+
+	private static boolean isNameLine(String line) {
+		return line.length() > 1 && line.endsWith(":");
+	}
+
 	private String internalize(String name) {
 		switch(name) {
 			case "int":
@@ -0,0 +1,375 @@
+package me.coley.recaf.mapping;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import me.coley.recaf.Recaf;
+import me.coley.recaf.util.struct.InternalBiConsumer;
+import me.coley.recaf.util.struct.InternalConsumer;
+import me.coley.recaf.util.struct.ListeningMap;
+import me.coley.recaf.workspace.Workspace;
+import org.objectweb.asm.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Inverted index of the names the remapper looks up in each of the primary classes of a workspace.
+ * Class names map to the classes referencing them, and member names to the classes referencing a member
+ * of that name through any owner. Applying mappings only has to visit the classes the index lists for
+ * their keys, so renaming a single class or member does not rewrite every class.
+ * <br>
+ * The index is populated by remapping each class with a remapper that records its lookups, so the
+ * classes it returns for some mappings always include every class the mappings would change.
+ * Only the postings and the keys of each class, needed to remove its postings again, are kept.
+ *
+ * @author Matt
+ */
+public class ReferenceIndex {
+	private static final Interner<String> STRINGS = Interners.newWeakInterner();
+	private static final String[] NO_STRINGS = new String[0];
+	private final NavigableMap<String, Set<String>> classReferences = new ConcurrentSkipListMap<>();
+	private final Map<String, Set<String>> memberReferences = new ConcurrentHashMap<>();
+	private final Map<String, References> classes = new ConcurrentHashMap<>();
+	private final Set<String> unindexed = ConcurrentHashMap.newKeySet();
+	/**
+	 * Classes changed while the index is being built, so the snapshot of the build does not replace them.
+	 * {@code null} once the index is built.
+	 */
+	private Set<String> changedDuringBuild = new HashSet<>();
+
+	private ReferenceIndex() {}
+
+	/**
+	 * Index the primary classes of the workspace. Later changes to the classes are applied to the
+	 * index as they happen.
+	 *
+	 * @param workspace
+	 * 		Workspace to index.
+	 *
+	 * @return Index of the workspace's primary classes.
+	 */
+	public static ReferenceIndex build(Workspace workspace) {
+		long start = System.currentTimeMillis();
+		ReferenceIndex index = new ReferenceIndex();
+		ListeningMap<String, byte[]> map = workspace.getPrimary().getClasses();
+		map.getPutListeners().add(InternalBiConsumer.internal((name, value) -> index.update(name, value, false)));
+		map.getRemoveListeners().add(InternalConsumer.internal(name -> index.remove((String) name, false)));
+		new ArrayList<>(map.entrySet()).parallelStream().forEach(e -> index.update(e.getKey(), e.getValue(), true));
+		synchronized(index) {
+			index.changedDuringBuild = null;
+		}
+		debug("Built reference index of {} classes in {}ms", index.classes.size(),
+				System.currentTimeMillis() - start);
+		return index;
+	}
+
+	/**
+	 * @return Number of indexed classes.
+	 */
+	public int size() {
+		return classes.size();
+	}
+
+	/**
+	 * @param mappings
+	 * 		Map of asm styled mappings.
+	 *
+	 * @return Names of the classes that may be changed by the mappings.
+	 */
+	public Set<String> getCandidates(Map<String, String> mappings) {
+		Set<String> candidates = new HashSet<>(unindexed);
+		for (String key : mappings.keySet()) {
+			// Constructors and static initializers are never mapped
+			if (key.indexOf('<') >= 0)
+				continue;
+			int dot = key.indexOf('.');
+			if (dot < 0) {
+				collect(classReferences.get(key), candidates);
+				// Inner classes are mapped along with their outer class, '%' is the character after '$'
+				classReferences.subMap(key + '$', key + '%').values().forEach(candidates::addAll);
+			} else {
+				collect(memberReferences.get(getMemberName(key, dot)), candidates);
+			}
+		}
+		return candidates;
+	}
+
+	private static void collect(Set<String> postings, Set<String> candidates) {
+		if (postings != null)
+			candidates.addAll(postings);
+	}
+
+	/**
+	 * @param key
+	 * 		Member key, such as {@code owner.name desc} or {@code owner.name(desc)}.
+	 * @param dot
+	 * 		Index of the dot separating the owner from the member.
+	 *
+	 * @return Name of the member.
+	 */
+	private static String getMemberName(String key, int dot) {
+		int end = dot + 1;
+		while (end < key.length() && key.charAt(end) != ' ' && key.charAt(end) != '(')
+			end++;
+		return key.substring(dot + 1, end);
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 * @param value
+	 * 		Class bytecode.
+	 * @param snapshot
+	 * 		{@code true} when indexing the classes at the start of the build, which may be outdated by changes
+	 * 		made while the build runs.
+	 */
+	private void update(String name, byte[] value, boolean snapshot) {
+		Recorder recorder = new Recorder();
+		boolean indexed;
+		try {
+			// Debug info and frames are read, since they can be remapped as well
+			new ClassReader(value).accept(new LenientClassRemapper(new Sink(), recorder), 0);
+			indexed = true;
+		} catch (Exception ex) {
+			// Always remap the class, applying mappings will run into the same problem
+			debug("Could not index class '{}' for remapping: {}", name, ex.toString());
+			indexed = false;
+		}
+		synchronized(this) {
+			if (!remove(name, snapshot))
+				return;
+			if (!indexed) {
+				unindexed.add(name);
+				return;
+			}
+			References references = recorder.toReferences();
+			classes.put(name, references);
+			for (String key : references.classNames)
+				post(classReferences, key, name);
+			for (String key : references.memberNames)
+				post(memberReferences, key, name);
+		}
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 * @param snapshot
+	 * 		{@code true} when removing for the classes at the start of the build.
+	 *
+	 * @return {@code false} if the class was changed since the snapshot of the build was taken,
+	 * so the snapshot of the class should not be indexed.
+	 */
+	private synchronized boolean remove(String name, boolean snapshot) {
+		if (changedDuringBuild != null) {
+			if (snapshot && changedDuringBuild.contains(name))
+				return false;
+			if (!snapshot)
+				changedDuringBuild.add(name);
+		}
+		unindexed.remove(name);
+		References references = classes.remove(name);
+		if (references == null)
+			return true;
+		for (String key : references.classNames)
+			unpost(classReferences, key, name);
+		for (String key : references.memberNames)
+			unpost(memberReferences, key, name);
+		return true;
+	}
+
+	private static void post(Map<String, Set<String>> postings, String key, String name) {
+		postings.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(name);
+	}
+
+	private static void unpost(Map<String, Set<String>> postings, String key, String name) {
+		Set<String> names = postings.get(key);
+		if (names != null) {
+			names.remove(name);
+			if (names.isEmpty())
+				postings.remove(key);
+		}
+	}
+
+	/**
+	 * Remapper that maps nothing, but records the keys looked up in a single class.
+	 */
+	private static final class Recorder extends SimpleRecordingRemapper {
+		private final Set<String> classNames = new HashSet<>();
+		private final Set<String> memberNames = new HashSet<>();
+
+		private Recorder() {
+			super(Collections.emptyMap(), false, false, false, null);
+		}
+
+		@Override
+		public String map(String key) {
+			int dot = key.indexOf('.');
+			if (dot < 0)
+				classNames.add(key);
+			else
+				memberNames.add(getMemberName(key, dot));
+			return null;
+		}
+
+		private References toReferences() {
+			return new References(intern(classNames), intern(memberNames));
+		}
+
+		private static String[] intern(Set<String> values) {
+			if (values.isEmpty())
+				return NO_STRINGS;
+			String[] array = new String[values.size()];
+			int i = 0;
+			for (String value : values)
+				array[i++] = STRINGS.intern(value);
+			return array;
+		}
+	}
+
+	/**
+	 * Keys looked up in a single class.
+	 */
+	private static final class References {
+		private final String[] classNames;
+		private final String[] memberNames;
+
+		private References(String[] classNames, String[] memberNames) {
+			this.classNames = classNames;
+			this.memberNames = memberNames;
+		}
+	}
+
+	/**
+	 * Class visitor that discards everything, but visits all parts of the class so each of them is remapped.
+	 */
+	private static final class Sink extends ClassVisitor {
+		private final AnnotationVisitor annotation = new AnnotationVisitor(Recaf.ASM_VERSION) {
+			@Override
+			public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+				return this;
+			}
+
+			@Override
+			public AnnotationVisitor visitArray(String name) {
+				return this;
+			}
+		};
+		private final FieldVisitor field = new FieldVisitor(Recaf.ASM_VERSION) {
+			@Override
+			public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+				return annotation;
+			}
+
+			@Override
+			public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor,
+														 boolean visible) {
+				return annotation;
+			}
+		};
+		private final RecordComponentVisitor recordComponent = new RecordComponentVisitor(Recaf.ASM_VERSION) {
+			@Override
+			public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+				return annotation;
+			}
+
+			@Override
+			public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor,
+														 boolean visible) {
+				return annotation;
+			}
+		};
+		private final MethodVisitor method = new SinkMethodVisitor(annotation);
+
+		private Sink() {
+			super(Recaf.ASM_VERSION);
+		}
+
+		@Override
+		public ModuleVisitor visitModule(String name, int access, String version) {
+			return new ModuleVisitor(Recaf.ASM_VERSION) {};
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			return annotation;
+		}
+
+		@Override
+		public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor,
+													 boolean visible) {
+			return annotation;
+		}
+
+		@Override
+		public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+			return recordComponent;
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			return field;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+										 String[] exceptions) {
+			return method;
+		}
+	}
+
+	/**
+	 * Method visitor that discards everything, but visits the annotations of the method.
+	 */
+	private static final class SinkMethodVisitor extends MethodVisitor {
+		private final AnnotationVisitor annotation;
+
+		private SinkMethodVisitor(AnnotationVisitor annotation) {
+			super(Recaf.ASM_VERSION);
+			this.annotation = annotation;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotationDefault() {
+			return annotation;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			return annotation;
+		}
+
+		@Override
+		public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor,
+													 boolean visible) {
+			return annotation;
+		}
+
+		@Override
+		public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+			return annotation;
+		}
+
+		@Override
+		public AnnotationVisitor visitInsnAnnotation(int typeRef, TypePath typePath, String descriptor,
+													 boolean visible) {
+			return annotation;
+		}
+
+		@Override
+		public AnnotationVisitor visitTryCatchAnnotation(int typeRef, TypePath typePath, String descriptor,
+														 boolean visible) {
+			return annotation;
+		}
+
+		@Override
+		public AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath, Label[] start,
+															  Label[] end, int[] index, String descriptor,
+															  boolean visible) {
+			return annotation;
+		}
+	}
+}
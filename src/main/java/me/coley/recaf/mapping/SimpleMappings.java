@@ -2,12 +2,11 @@ package me.coley.recaf.mapping;
 
 import me.coley.recaf.workspace.Workspace;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.Map;
 
-import static me.coley.recaf.util.StringUtil.splitNewline;
 import static me.coley.recaf.util.EscapeUtil.*;
 
 /**
@@ -42,31 +41,35 @@ public class SimpleMappings extends FileMappings {
 	}
 
 	@Override
-	protected Map<String, String> parse(String text) {
-		String[] lines = splitNewline(text);
-		Map<String, String> map = new HashMap<>(lines.length);
+	protected void parse(BufferedReader reader, MappingStore store) throws IOException {
+		LineTokenizer tokens = new LineTokenizer(store);
 		// # Comment
 		// BaseClass TargetClass
 		// BaseClass.baseField targetField
 		// BaseClass.baseField baseDesc targetField
 		// BaseClass.baseMethod(BaseMethodDesc) targetMethod
-		for (String line : lines) {
+		String line;
+		while ((line = reader.readLine()) != null) {
+			int args = tokens.split(line, ' ');
 			// Skip comments and empty lines
-			if (line.trim().startsWith("#") || line.trim().isEmpty())
+			String first = tokens.get(0);
+			if (first.startsWith("#") || first.isEmpty())
 				continue;
-			String[] args = line.split(" ");
-			String baseName = unescape(args[0]);
-			if (args.length > 2) {
+			String baseName = unescapeIfNeeded(first);
+			if (args > 2) {
 				// Descriptor qualified field format
-				String baseDesc = unescape(args[1]);
-				String targetName = unescape(args[2]);
-				map.put(baseName + " " + baseDesc, targetName);
+				String baseDesc = unescapeIfNeeded(tokens.get(1));
+				String targetName = unescapeIfNeeded(tokens.get(2));
+				store.put(baseName + " " + baseDesc, targetName);
 			} else {
 				// Any other format
-				String targetName = unescape(args[1]);
-				map.put(baseName, targetName);
+				String targetName = unescapeIfNeeded(tokens.get(1));
+				store.put(baseName, targetName);
 			}
 		}
-		return map;
+	}
+
+	private static String unescapeIfNeeded(String text) {
+		return text.indexOf('\\') < 0 ? text : unescape(text);
 	}
 }
@@ -1,11 +1,7 @@
 package me.coley.recaf.mapping;
 
-import me.coley.recaf.util.ClassUtil;
 import me.coley.recaf.workspace.Workspace;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.commons.SimpleRemapper;
-import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.InnerClassNode;
 
 import java.util.Map;
 import java.util.Set;
@@ -22,6 +18,7 @@ public class SimpleRecordingRemapper extends SimpleRemapper {
 	private final boolean checkMethodHierarchy;
 	private final boolean checkWonkyOuterRelation;
 	private final Workspace workspace;
+	private final MappingResolver resolver;
 	private boolean dirty;
 
 	/**
@@ -47,6 +44,22 @@ public class SimpleRecordingRemapper extends SimpleRemapper {
 		this.checkMethodHierarchy = checkMethodHierarchy;
 		this.checkWonkyOuterRelation = checkWonkyOuterRelation;
 		this.workspace = workspace;
+		this.resolver = null;
+	}
+
+	/**
+	 * Constructs a recording remapper that looks up names in a precomputed table.
+	 *
+	 * @param resolver
+	 * 		Resolution table of the mappings, which already accounts for the hierarchy.
+	 */
+	public SimpleRecordingRemapper(MappingResolver resolver) {
+		super(resolver.getMappings());
+		this.checkFieldHierarchy = false;
+		this.checkMethodHierarchy = false;
+		this.checkWonkyOuterRelation = false;
+		this.workspace = null;
+		this.resolver = resolver;
 	}
 
 	/**
@@ -60,8 +73,17 @@ public class SimpleRecordingRemapper extends SimpleRemapper {
 		return dirty;
 	}
 
+	@Override
+	public String mapMethodName(String owner, String name, String descriptor) {
+		if (resolver == null)
+			return super.mapMethodName(owner, name, descriptor);
+		return record(resolver.mapMethod(owner, name, descriptor), name);
+	}
+
 	@Override
 	public String mapFieldName(String owner, String name, String descriptor) {
+		if (resolver != null)
+			return record(resolver.mapField(owner, name, descriptor), name);
 		// Standard format
 		String remappedName = map(owner + '.' + name);
 		// Check if we are also using descriptors in keys, in cases where name overloading occurs
@@ -75,6 +97,11 @@ public class SimpleRecordingRemapper extends SimpleRemapper {
 		// Don't map constructors/static-initializers
 		if (key.contains("<"))
 			return null;
+		if (resolver != null) {
+			// Other member keys, such as invoke-dynamic names, are only mapped directly
+			String mapped = key.indexOf('.') >= 0 ? super.map(key) : resolver.mapClass(key);
+			return record(mapped, null);
+		}
 		// Get mapped value from key
 		String mapped = super.map(key);
 		// No direct key mapping found?
@@ -113,7 +140,7 @@ public class SimpleRecordingRemapper extends SimpleRemapper {
 						return mappedOuter + inner;
 				} else if (checkWonkyOuterRelation && workspace.getPrimary().getClasses().containsKey(key)){
 					// Check if the class is just obfuscated and does not respect the "outer$inner" pattern.
-					String outer = getUnmatchedOuter(key);
+					String outer = MappingResolver.getUnmatchedOuter(workspace, key);
 					if (outer != null) {
 						// key is an inner class
 						String inner = key.substring(key.lastIndexOf('/') + 1);
@@ -131,27 +158,18 @@ public class SimpleRecordingRemapper extends SimpleRemapper {
 	}
 
 	/**
-	 * Sometimes obfuscators rename inner classes and do not retain the {@code outer$inner} pattern.
-	 * So we need to check for that here.
+	 * @param mapped
+	 * 		Mapped name, or {@code null} if there is no mapping.
+	 * @param name
+	 * 		Name to use if there is no mapping.
 	 *
-	 * @param name Class name to check for outers.
-	 * @return Name of outer class or {@code null} if no outer exists.
+	 * @return Mapped name, or the given name if there is no mapping.
 	 */
-	private String getUnmatchedOuter(String name) {
-		ClassReader cr = workspace.getClassReader(name);
-		if (cr == null)
-			return null;
-		ClassNode node = ClassUtil.getNode(cr, ClassReader.SKIP_CODE);
-		// Check for outer name attr
-		if (node.outerClass != null && !node.name.equals(node.outerClass))
-			return node.outerClass;
-		// Check if internal name of inner matches,
-		// then use outer name if its not exactly the same as the given name.
-		for (InnerClassNode inner : node.innerClasses) {
-			if (inner.name.equals(name) && inner.outerName != null && !inner.outerName.equals(name))
-				return inner.outerName;
-		}
-		return null;
+	private String record(String mapped, String name) {
+		if (mapped == null)
+			return name;
+		dirty = true;
+		return mapped;
 	}
 
 	/**
@@ -1,12 +1,10 @@
 package me.coley.recaf.mapping;
 
-import me.coley.recaf.util.StringUtil;
 import me.coley.recaf.workspace.Workspace;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
 
 import static me.coley.recaf.util.Log.trace;
 
@@ -34,42 +32,42 @@ public class SrgMappings extends FileMappings {
 	}
 
 	@Override
-	protected Map<String, String> parse(String text) {
-		Map<String, String> map = new HashMap<>();
-		String[] lines = StringUtil.splitNewline(text);
+	protected void parse(BufferedReader reader, MappingStore store) throws IOException {
+		LineTokenizer tokens = new LineTokenizer(store);
 		int line = 0;
-		for(String lineStr : lines) {
+		String lineStr;
+		while ((lineStr = reader.readLine()) != null) {
 			line++;
-			String[] args = lineStr.trim().split(" ");
-			String type = args[0];
+			tokens.split(lineStr, ' ');
+			String type = tokens.intern(0);
 			try {
 				switch(type) {
 					case "CL:":
-						String obfClass = args[1];
-						String renamedClass = args[2];
-						map.put(obfClass, renamedClass);
+						String obfClass = tokens.intern(1);
+						String renamedClass = tokens.get(2);
+						store.putClass(obfClass, renamedClass);
 						break;
 					case "FD:": {
-						String obfKey = args[1];
+						String obfKey = tokens.get(1);
 						int splitPos = obfKey.lastIndexOf('/');
-						String obfOwner = obfKey.substring(0, splitPos);
-						String obfName = obfKey.substring(splitPos + 1);
-						String renamedKey = args[2];
+						String obfOwner = store.intern(obfKey, 0, splitPos);
+						String obfName = store.intern(obfKey, splitPos + 1, obfKey.length());
+						String renamedKey = tokens.get(2);
 						splitPos = renamedKey.lastIndexOf('/');
 						String renamedName = renamedKey.substring(splitPos + 1);
-						map.put(obfOwner + "." + obfName, renamedName);
+						store.putField(obfOwner, obfName, null, renamedName);
 						break;
 					}
 					case "MD:": {
-						String obfKey = args[1];
+						String obfKey = tokens.get(1);
 						int splitPos = obfKey.lastIndexOf('/');
-						String obfOwner = obfKey.substring(0, splitPos);
-						String obfName = obfKey.substring(splitPos + 1);
-						String obfDesc = args[2];
-						String renamedKey = args[3];
+						String obfOwner = store.intern(obfKey, 0, splitPos);
+						String obfName = store.intern(obfKey, splitPos + 1, obfKey.length());
+						String obfDesc = tokens.intern(2);
+						String renamedKey = tokens.get(3);
 						splitPos = renamedKey.lastIndexOf('/');
 						String renamedName = renamedKey.substring(splitPos + 1);
-						map.put(obfOwner + "." + obfName + obfDesc, renamedName);
+						store.putMethod(obfOwner, obfName, obfDesc, renamedName);
 						break;
 					}
 					default:
@@ -80,6 +78,5 @@ public class SrgMappings extends FileMappings {
 				throw new IllegalArgumentException(FAIL + "failed parsing line " + line, ex);
 			}
 		}
-		return map;
 	}
 }
@@ -1,12 +1,10 @@
 package me.coley.recaf.mapping;
 
-import me.coley.recaf.util.StringUtil;
 import me.coley.recaf.workspace.Workspace;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * TSRG mappings file implementation.
@@ -28,39 +26,43 @@ public class TSrgMappings extends FileMappings {
     }
 
     @Override
-    protected Map<String, String> parse(String text) {
-        String[] lines = StringUtil.splitNewline(text);
-        Map<String, String> map = new HashMap<>(lines.length);
+    protected void parse(BufferedReader reader, MappingStore store) throws IOException {
+        LineTokenizer tokens = new LineTokenizer(store);
         int line = 0;
         String obfOwner = null;
-        for (String lineStr : lines) {
+        String lineStr;
+        while ((lineStr = reader.readLine()) != null) {
             line++;
-            String[] args = lineStr.trim().split(" ");
+            int args = tokens.split(lineStr, ' ');
+            // Skip empty lines
+            if (args == 1 && tokens.get(0).isEmpty())
+                continue;
             try {
                 // Fields and Methods start with a tab
                 // class/Name new/Name
                 //      fieldName newFieldName
                 //      methodName methodDesc newMethodName
                 if (!lineStr.startsWith("\t")) {
-                    obfOwner = args[0];
-                    String renamedClass = args[1];
-                    map.put(obfOwner, renamedClass);
+                    obfOwner = tokens.intern(0);
+                    String renamedClass = tokens.get(1);
+                    store.putClass(obfOwner, renamedClass);
                 } else {
-                    if (args.length == 2) { // Field
-                        String obfName = args[0];
-                        String renamedName = args[1];
-                        map.put(obfOwner + "." + obfName, renamedName);
-                    } else if (args.length == 3) { // Method
-                        String obfName = args[0];
-                        String obfDesc = args[1];
-                        String renamedName = args[2];
-                        map.put(obfOwner + "." + obfName + obfDesc, renamedName);
+                    if (obfOwner == null)
+                        throw new IllegalArgumentException(FAIL + "could not map member, no class context");
+                    if (args == 2) { // Field
+                        String obfName = tokens.intern(0);
+                        String renamedName = tokens.get(1);
+                        store.putField(obfOwner, obfName, null, renamedName);
+                    } else if (args == 3) { // Method
+                        String obfName = tokens.intern(0);
+                        String obfDesc = tokens.intern(1);
+                        String renamedName = tokens.get(2);
+                        store.putMethod(obfOwner, obfName, obfDesc, renamedName);
                     }
                 }
             } catch (IndexOutOfBoundsException ex) {
                 throw new IllegalArgumentException(FAIL + "failed parsing line " + line, ex);
             }
         }
-        return map;
     }
 }
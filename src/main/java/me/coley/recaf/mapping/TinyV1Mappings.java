@@ -1,12 +1,10 @@
 package me.coley.recaf.mapping;
 
-import me.coley.recaf.util.StringUtil;
 import me.coley.recaf.workspace.Workspace;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
 
 import static me.coley.recaf.util.Log.trace;
 
@@ -34,37 +32,37 @@ public class TinyV1Mappings extends FileMappings {
 	}
 
 	@Override
-	protected Map<String, String> parse(String text) {
-		Map<String, String> map = new HashMap<>();
-		String[] lines = StringUtil.splitNewline(text);
+	protected void parse(BufferedReader reader, MappingStore store) throws IOException {
+		LineTokenizer tokens = new LineTokenizer(store);
 		int line = 0;
-		for(String lineStr : lines) {
+		String lineStr;
+		while ((lineStr = reader.readLine()) != null) {
 			line++;
 			// Skip initial header
 			if (lineStr.startsWith("v1\t"))
 				continue;
-			String[] args = lineStr.trim().split("\t");
-			String type = args[0];
+			tokens.split(lineStr, '\t');
+			String type = tokens.intern(0);
 			try {
 				switch(type) {
 					case "CLASS":
-						String obfClass = args[1];
-						String renamedClass = args[2];
-						map.put(obfClass, renamedClass);
+						String obfClass = tokens.intern(1);
+						String renamedClass = tokens.get(2);
+						store.putClass(obfClass, renamedClass);
 						break;
 					case "FIELD": {
-						String obfOwner = args[1];
-						String obfName =  args[3];
-						String renamed = args[4];
-						map.put(obfOwner + "." + obfName, renamed);
+						String obfOwner = tokens.intern(1);
+						String obfName =  tokens.intern(3);
+						String renamed = tokens.get(4);
+						store.putField(obfOwner, obfName, null, renamed);
 						break;
 					}
 					case "METHOD": {
-						String obfOwner = args[1];
-						String obfDesc =  args[2];
-						String obfName =  args[3];
-						String renamed = args[4];
-						map.put(obfOwner + "." + obfName + obfDesc, renamed);
+						String obfOwner = tokens.intern(1);
+						String obfDesc =  tokens.intern(2);
+						String obfName =  tokens.intern(3);
+						String renamed = tokens.get(4);
+						store.putMethod(obfOwner, obfName, obfDesc, renamed);
 						break;
 					}
 					default:
@@ -75,6 +73,5 @@ public class TinyV1Mappings extends FileMappings {
 				throw new IllegalArgumentException(FAIL + "failed parsing line " + line, ex);
 			}
 		}
-		return map;
 	}
 }
@@ -1,12 +1,10 @@
 package me.coley.recaf.mapping;
 
-import me.coley.recaf.util.StringUtil;
 import me.coley.recaf.workspace.Workspace;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
 
 import static me.coley.recaf.util.Log.trace;
 
@@ -41,20 +39,24 @@ public class TinyV2Mappings extends FileMappings {
 	}
 
 	@Override
-	protected Map<String, String> parse(String text) {
-		Map<String, String> map = new HashMap<>();
-		String[] lines = StringUtil.splitNewline(text);
+	protected String getCacheId() {
+		return super.getCacheId() + ':' + subType.name();
+	}
+
+	@Override
+	protected void parse(BufferedReader reader, MappingStore store) throws IOException {
+		LineTokenizer tokens = new LineTokenizer(store);
 		int line = 0;
 		String currentClass = null;
-		for(String lineStr : lines) {
+		String lineStr;
+		while ((lineStr = reader.readLine()) != null) {
 			line++;
 			// Skip initial header
 			if (lineStr.startsWith("tiny\t"))
 				continue;
-			String lineStrTrim = lineStr.trim();
-			int strIndent = lineStr.indexOf(lineStrTrim);
-			String[] args = lineStrTrim.split("\t");
-			String type = args[0];
+			int args = tokens.split(lineStr, '\t');
+			int strIndent = tokens.indent();
+			String type = tokens.intern(0);
 			try {
 				// A note on the "intermediate" values... I have seen cases of the format where this column
 				// does not exist... so the fix here will be to check for the number of columns. If there are
@@ -68,10 +70,10 @@ public class TinyV2Mappings extends FileMappings {
 						// [1] = current
 						// [2*] = intermediate
 						// [3] = renamed
-						int[] clsRenameIndices = subType.getFromXToYOffsets(Context.CLASS, args.length);
-						currentClass = args[clsRenameIndices[0]];
-						String renamedClass = args[clsRenameIndices[1]];
-						map.put(currentClass, renamedClass);
+						int[] clsRenameIndices = subType.getFromXToYOffsets(Context.CLASS, args);
+						currentClass = tokens.intern(clsRenameIndices[0]);
+						String renamedClass = tokens.get(clsRenameIndices[1]);
+						store.putClass(currentClass, renamedClass);
 						break;
 					case "f":
 						if (currentClass == null)
@@ -80,10 +82,10 @@ public class TinyV2Mappings extends FileMappings {
 						// [2] = current
 						// [3*] = intermediate
 						// [4] = renamed
-						int[] fldRenameIndices = subType.getFromXToYOffsets(Context.FIELD, args.length);
-						String currentField = args[fldRenameIndices[0]];
-						String renamedField = args[fldRenameIndices[1]];
-						map.put(currentClass + "." + currentField, renamedField);
+						int[] fldRenameIndices = subType.getFromXToYOffsets(Context.FIELD, args);
+						String currentField = tokens.intern(fldRenameIndices[0]);
+						String renamedField = tokens.get(fldRenameIndices[1]);
+						store.putField(currentClass, currentField, null, renamedField);
 						break;
 					case "m":
 						if (currentClass == null)
@@ -92,11 +94,11 @@ public class TinyV2Mappings extends FileMappings {
 						// [2] = current
 						// [3*] = intermediate
 						// [4] = renamed
-						int[] mtdRenameIndices = subType.getFromXToYOffsets(Context.METHOD, args.length);
-						String methodType = args[1];
-						String currentMethod = args[mtdRenameIndices[0]];
-						String renamedMethod = args[mtdRenameIndices[1]];
-						map.put(currentClass + "." + currentMethod + methodType, renamedMethod);
+						int[] mtdRenameIndices = subType.getFromXToYOffsets(Context.METHOD, args);
+						String methodType = tokens.intern(1);
+						String currentMethod = tokens.intern(mtdRenameIndices[0]);
+						String renamedMethod = tokens.get(mtdRenameIndices[1]);
+						store.putMethod(currentClass, currentMethod, methodType, renamedMethod);
 						break;
 					default:
 						trace("Unknown Tiny-V2 mappings line type: \"{}\" @line {}", type, line);
@@ -106,7 +108,6 @@ public class TinyV2Mappings extends FileMappings {
 				throw new IllegalArgumentException(FAIL + "failed parsing line " + line, ex);
 			}
 		}
-		return map;
 	}
 
 	/**
@@ -8,6 +8,7 @@ import me.coley.recaf.parse.bytecode.exception.ASTParseException;
 import me.coley.recaf.parse.bytecode.exception.AssemblerException;
 import me.coley.recaf.parse.bytecode.exception.VerifierException;
 import me.coley.recaf.util.AccessFlag;
+import me.coley.recaf.util.Metrics;
 import org.objectweb.asm.tree.*;
 import org.objectweb.asm.tree.analysis.Frame;
 
@@ -43,6 +44,17 @@ public class MethodAssembler implements Assembler<MethodNode> {
 
 	@Override
 	public MethodNode compile(ParseResult<RootAST> result) throws AssemblerException {
+		Metrics.Sample sample = Metrics.start(Metrics.ASSEMBLE);
+		MethodNode node = null;
+		try {
+			node = compile0(result);
+			return node;
+		} finally {
+			sample.stop(declaringType, node == null ? -1 : node.instructions.size());
+		}
+	}
+
+	private MethodNode compile0(ParseResult<RootAST> result) throws AssemblerException {
 		if(!result.isSuccess()) {
 			ASTParseException cause = result.getProblems().get(0);
 			AssemblerException ex  = new AssemblerException(cause, "AST must not contain errors", cause.getLine());
@@ -7,6 +7,7 @@ import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.nodeTypes.NodeWithName;
 import me.coley.recaf.util.JavaParserRecovery;
+import me.coley.recaf.util.Metrics;
 import me.coley.recaf.util.StringUtil;
 import me.coley.recaf.workspace.JavaResource;
 import me.coley.recaf.workspace.Workspace;
@@ -109,10 +110,29 @@ public class SourceCode {
 	 *      Parse result of class.
 	 */
 	private ParseResult<CompilationUnit> analyze0(String code, JavaParser parser) {
-		ParseResult<CompilationUnit> result = parser.parse(code);
-		if(result.getResult().isPresent())
-			this.unit = result.getResult().get();
-		return result;
+		Metrics.Sample sample = Metrics.start(Metrics.ANALYZE);
+		ParseResult<CompilationUnit> result = null;
+		try {
+			result = parser.parse(code);
+			if(result.getResult().isPresent())
+				this.unit = result.getResult().get();
+			return result;
+		} finally {
+			sample.stop(getMetricName(), result != null && result.isSuccessful() ? code.length() : -1);
+		}
+	}
+
+	/**
+	 * @return Class name to record metrics under, if the code could be analyzed.
+	 */
+	private String getMetricName() {
+		if (unit == null)
+			return "<unnamed>";
+		try {
+			return getInternalName();
+		} catch (RuntimeException ex) {
+			return "<unnamed>";
+		}
 	}
 
 	/**
@@ -10,7 +10,14 @@ import java.util.*;
 public abstract class Query {
 	private final QueryType type;
 	protected final StringMatchMode stringMode;
-	protected final List<SearchResult> matched = new ArrayList<>();
+	private final ThreadLocal<List<SearchResult>> threadMatched = ThreadLocal.withInitial(ArrayList::new);
+	/**
+	 * View of the results matched on the current thread, the same list as {@link #getMatched()}.
+	 *
+	 * @deprecated Use {@link #getMatched()} instead.
+	 */
+	@Deprecated
+	protected final List<SearchResult> matched = new ThreadMatched();
 
 	/**
 	 * Baseline query.
@@ -43,11 +50,48 @@ public abstract class Query {
 	}
 
 	/**
-	 * A temporary storage of results.
+	 * A temporary storage of results. Each thread has its own storage, so a query can be
+	 * matched against multiple classes at once.
 	 *
-	 * @return List of results matched.
+	 * @return List of results matched on the current thread.
 	 */
 	public List<SearchResult> getMatched() {
-		return matched;
+		return threadMatched.get();
+	}
+
+	/**
+	 * List delegating to the results of the current thread, so subclasses using {@link #matched}
+	 * keep working when a query is matched on multiple threads.
+	 */
+	private final class ThreadMatched extends AbstractList<SearchResult> {
+		@Override
+		public SearchResult get(int index) {
+			return getMatched().get(index);
+		}
+
+		@Override
+		public int size() {
+			return getMatched().size();
+		}
+
+		@Override
+		public SearchResult set(int index, SearchResult element) {
+			return getMatched().set(index, element);
+		}
+
+		@Override
+		public void add(int index, SearchResult element) {
+			getMatched().add(index, element);
+		}
+
+		@Override
+		public SearchResult remove(int index) {
+			return getMatched().remove(index);
+		}
+
+		@Override
+		public void clear() {
+			getMatched().clear();
+		}
 	}
 }
@@ -4,6 +4,12 @@ import me.coley.recaf.workspace.Workspace;
 import org.objectweb.asm.*;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * Builder for {@link SearchCollector}.
@@ -15,6 +21,10 @@ public class SearchBuilder {
 	private final List<Query> queries = new ArrayList<>();
 	private int readFlags = ClassReader.SKIP_FRAMES;
 	private Collection<String> skipped = Collections.emptyList();
+	private boolean parallel;
+	private int maxResults = Integer.MAX_VALUE;
+	private long timeout = -1;
+	private BooleanSupplier cancelled = () -> false;
 
 	private SearchBuilder(Workspace workspace) {
 		this.workspace = workspace;
@@ -71,21 +81,143 @@ public class SearchBuilder {
 		return this;
 	}
 
+	/**
+	 * @return Builder that searches multiple classes at once.
+	 * Results are ordered the same as in a sequential search.
+	 */
+	public SearchBuilder parallel() {
+		this.parallel = true;
+		return this;
+	}
+
+	/**
+	 * @param maxResults
+	 * 		Maximum number of results to collect.
+	 *
+	 * @return Builder that stops once the given number of results are found.
+	 */
+	public SearchBuilder maxResults(int maxResults) {
+		this.maxResults = maxResults;
+		return this;
+	}
+
+	/**
+	 * @param timeout
+	 * 		Time in milliseconds the search may take.
+	 *
+	 * @return Builder that stops searching once the time is up.
+	 */
+	public SearchBuilder timeout(long timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * @param cancelled
+	 * 		Check for if the search should be cancelled.
+	 *
+	 * @return Builder that stops searching once the check passes.
+	 */
+	public SearchBuilder cancelWhen(BooleanSupplier cancelled) {
+		this.cancelled = cancelled;
+		return this;
+	}
+
 	/**
 	 * @return SearchCollector from the builder. The search is started by calling this method.
 	 */
 	public SearchCollector build() {
+		return build(null);
+	}
+
+	/**
+	 * Run the search, passing results on as they are found. Results are passed in the same order
+	 * they appear in the returned collector.
+	 *
+	 * @param consumer
+	 * 		Consumer to pass results to. May be {@code null}.
+	 *
+	 * @return SearchCollector from the builder. The search is started by calling this method.
+	 * If the search was cancelled, ran out of time or hit the result limit,
+	 * {@link SearchCollector#isStopped()} is {@code true} and the collector holds the results found until then.
+	 */
+	public SearchCollector build(Consumer<SearchResult> consumer) {
 		SearchCollector collector = new SearchCollector(workspace, queries);
-		SearchClassVisitor sv = new SearchClassVisitor(collector);
-		workspace.getPrimaryClassReaders().forEach(cr -> {
-			String name = cr.getClassName();
-			if (skip(name))
-				return;
-			cr.accept(sv, readFlags);
-		});
+		collector.setListener(consumer);
+		collector.setMaxResults(maxResults);
+		long start = System.currentTimeMillis();
+		BooleanSupplier stop = () -> collector.isFull() || cancelled.getAsBoolean() ||
+				(timeout >= 0 && System.currentTimeMillis() - start > timeout);
+		// Only classes the index lists for the queries can have results, all are visited without an index
+		SearchIndex index = workspace.getSearchIndex();
+		Set<String> candidates = index == null ? null : index.getCandidates(queries);
+		// Skipped classes are filtered by name so their bytecode does not need to be read
+		List<Map.Entry<String, byte[]>> classes = new ArrayList<>();
+		for (Map.Entry<String, byte[]> e : workspace.getPrimary().getClasses().entrySet())
+			if (!skip(e.getKey()) && (candidates == null || candidates.contains(e.getKey())))
+				classes.add(e);
+		if (parallel) {
+			// Each class gets its own collector, which are merged in the original class order
+			AtomicReferenceArray<SearchCollector> done = new AtomicReferenceArray<>(classes.size());
+			AtomicInteger next = new AtomicInteger();
+			AtomicBoolean merging = new AtomicBoolean();
+			IntStream.range(0, classes.size()).parallel().forEach(i -> {
+				if (stop.getAsBoolean()) {
+					collector.stop();
+					return;
+				}
+				SearchCollector partial = new SearchCollector(workspace, queries);
+				new ClassReader(classes.get(i).getValue()).accept(new SearchClassVisitor(partial), readFlags);
+				done.set(i, partial);
+				merge(collector, done, next, merging);
+			});
+		} else {
+			SearchClassVisitor sv = new SearchClassVisitor(collector);
+			for (Map.Entry<String, byte[]> e : classes) {
+				if (stop.getAsBoolean()) {
+					collector.stop();
+					break;
+				}
+				new ClassReader(e.getValue()).accept(sv, readFlags);
+			}
+		}
 		return collector;
 	}
 
+	/**
+	 * Merge the published partial collectors that are next in class order. Only the thread that claims
+	 * the merge runs it, others publish their partial and move on without waiting.
+	 *
+	 * @param collector
+	 * 		Collector to merge into.
+	 * @param done
+	 * 		Published partial collectors, by class index.
+	 * @param next
+	 * 		Index of the next partial collector to merge.
+	 * @param merging
+	 * 		Flag claimed by the thread merging partial collectors.
+	 */
+	private static void merge(SearchCollector collector, AtomicReferenceArray<SearchCollector> done,
+							  AtomicInteger next, AtomicBoolean merging) {
+		// A partial published while another thread merges is picked up by it on its re-check
+		while (isReady(done, next.get()) && merging.compareAndSet(false, true)) {
+			try {
+				int index;
+				while (isReady(done, index = next.get())) {
+					SearchCollector partial = done.getAndSet(index, null);
+					next.set(index + 1);
+					collector.merge(partial);
+				}
+			} finally {
+				merging.set(false);
+			}
+		}
+	}
+
+	private static boolean isReady(AtomicReferenceArray<SearchCollector> done, int index) {
+		return index < done.length() && done.get(index) != null;
+	}
+
 	/**
 	 * @param name
 	 * 		Class name.
@@ -9,6 +9,7 @@ import org.objectweb.asm.*;
 import org.objectweb.asm.tree.*;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
 import java.util.stream.Stream;
@@ -34,6 +35,10 @@ public class SearchCollector {
 	private final Map<Query, List<SearchResult>> resultMapView = Multimaps.asMap(results);
 	private final Workspace workspace;
 	private final Collection<Query> queries;
+	private Consumer<SearchResult> listener;
+	private int maxResults = Integer.MAX_VALUE;
+	private volatile int count;
+	private volatile boolean stopped;
 
 	/**
 	 * Constructs a class search visitor.
@@ -91,6 +96,44 @@ public class SearchCollector {
 		return new ArrayList<>(results.values());
 	}
 
+	/**
+	 * @return {@code true} if the search ended before visiting all classes, or if results were left
+	 * out because of the result limit.
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * @param listener
+	 * 		Consumer to pass results to as they are collected.
+	 */
+	void setListener(Consumer<SearchResult> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @param maxResults
+	 * 		Maximum number of results to collect.
+	 */
+	void setMaxResults(int maxResults) {
+		this.maxResults = maxResults;
+	}
+
+	/**
+	 * @return {@code true} if no more results will be collected.
+	 */
+	boolean isFull() {
+		return count >= maxResults;
+	}
+
+	/**
+	 * Mark the search as ended early.
+	 */
+	void stop() {
+		stopped = true;
+	}
+
 	/**
 	 * @param clazz
 	 * 		Query class reference.
@@ -117,11 +160,35 @@ public class SearchCollector {
 		List<SearchResult> matched = query.getMatched();
 		if(context == null)
 			throw new IllegalStateException("Must have context");
-		matched.forEach(res -> res.setContext(context));
-		results.putAll(query, matched);
+		for (SearchResult res : matched) {
+			res.setContext(context);
+			add(query, res);
+		}
 		matched.clear();
 	}
 
+	/**
+	 * Adds all results of another collector, after the results already collected.
+	 *
+	 * @param other
+	 * 		Collector of the same queries.
+	 */
+	void merge(SearchCollector other) {
+		for (Map.Entry<Query, SearchResult> e : other.results.entries())
+			add(e.getKey(), e.getValue());
+	}
+
+	private void add(Query query, SearchResult result) {
+		if (isFull()) {
+			stopped = true;
+			return;
+		}
+		results.put(query, result);
+		count++;
+		if (listener != null)
+			listener.accept(result);
+	}
+
 	// We use suppliers so that we don't have to lookup this information unless
 	// we are sure that there is a match and this information is needed.
 	// Looking this up in hundreds of cases where we don't need it would just waste time.
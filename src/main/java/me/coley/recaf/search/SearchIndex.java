@@ -0,0 +1,267 @@
+package me.coley.recaf.search;
+
+import me.coley.recaf.util.struct.InternalBiConsumer;
+import me.coley.recaf.util.struct.InternalConsumer;
+import me.coley.recaf.util.struct.ListeningMap;
+import me.coley.recaf.workspace.Workspace;
+import org.objectweb.asm.ClassReader;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Inverted index of the strings, values and references in the primary classes of a workspace.
+ * Each distinct constant or reference maps to the names of the classes using it, so searches for
+ * them only have to visit those classes.
+ * <br>
+ * The index is populated with the same visitors a search uses, so the classes it returns for a
+ * query always include every class a full search would find results in.
+ *
+ * @author Matt
+ */
+public class SearchIndex {
+	private final Map<String, Set<String>> strings = new ConcurrentHashMap<>();
+	private final Map<Object, Set<String>> values = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> classReferences = new ConcurrentHashMap<>();
+	private final Map<MemberKey, Set<String>> memberReferences = new ConcurrentHashMap<>();
+	private final Map<String, Recorder> classes = new ConcurrentHashMap<>();
+	private final Set<String> unindexed = ConcurrentHashMap.newKeySet();
+	private final Workspace workspace;
+	/**
+	 * Classes changed while the index is being built, so the snapshot of the build does not replace them.
+	 * {@code null} once the index is built.
+	 */
+	private Set<String> changedDuringBuild = new HashSet<>();
+
+	private SearchIndex(Workspace workspace) {
+		this.workspace = workspace;
+	}
+
+	/**
+	 * Index the primary classes of the workspace. Later changes to the classes are applied to the
+	 * index as they happen.
+	 *
+	 * @param workspace
+	 * 		Workspace to index.
+	 *
+	 * @return Index of the workspace's primary classes.
+	 */
+	public static SearchIndex build(Workspace workspace) {
+		long start = System.currentTimeMillis();
+		SearchIndex index = new SearchIndex(workspace);
+		ListeningMap<String, byte[]> map = workspace.getPrimary().getClasses();
+		map.getPutListeners().add(InternalBiConsumer.internal((name, value) -> index.update(name, value, false)));
+		map.getRemoveListeners().add(InternalConsumer.internal(name -> index.remove((String) name, false)));
+		new ArrayList<>(map.entrySet()).parallelStream().forEach(e -> index.update(e.getKey(), e.getValue(), true));
+		synchronized(index) {
+			index.changedDuringBuild = null;
+		}
+		debug("Built search index of {} classes in {}ms", index.classes.size(),
+				System.currentTimeMillis() - start);
+		return index;
+	}
+
+	/**
+	 * @return Number of indexed classes.
+	 */
+	public int size() {
+		return classes.size();
+	}
+
+	/**
+	 * @param queries
+	 * 		Queries of a search.
+	 *
+	 * @return Names of the classes that may contain results for the queries.
+	 * {@code null} if any of the queries cannot be answered by the index.
+	 */
+	Set<String> getCandidates(Collection<Query> queries) {
+		Set<String> candidates = new HashSet<>(unindexed);
+		for (Query query : queries) {
+			if (query instanceof StringQuery) {
+				StringQuery q = (StringQuery) query;
+				collect(strings, q, q::match, candidates);
+			} else if (query instanceof ValueQuery) {
+				ValueQuery q = (ValueQuery) query;
+				collect(values, q, q::match, candidates);
+			} else if (query instanceof ClassReferenceQuery) {
+				ClassReferenceQuery q = (ClassReferenceQuery) query;
+				collect(classReferences, q, name -> q.match(() -> SearchCollector.ACC_NOT_FOUND, name), candidates);
+			} else if (query instanceof MemberReferenceQuery) {
+				MemberReferenceQuery q = (MemberReferenceQuery) query;
+				collect(memberReferences, q, key -> q.match(() -> SearchCollector.ACC_NOT_FOUND,
+						key.owner, key.name, key.desc), candidates);
+			} else {
+				return null;
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Add the postings of keys the query matches to the candidates.
+	 * The query's own matching is used so subclasses of the supported queries work as expected.
+	 */
+	private static <K> void collect(Map<K, Set<String>> postings, Query query, Consumer<K> matcher,
+									Set<String> candidates) {
+		List<SearchResult> matched = query.getMatched();
+		matched.clear();
+		for (Map.Entry<K, Set<String>> e : postings.entrySet()) {
+			matcher.accept(e.getKey());
+			if (!matched.isEmpty()) {
+				matched.clear();
+				candidates.addAll(e.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 * @param value
+	 * 		Class bytecode.
+	 * @param snapshot
+	 * 		{@code true} when indexing the classes at the start of the build, which may be outdated by changes
+	 * 		made while the build runs.
+	 */
+	private void update(String name, byte[] value, boolean snapshot) {
+		Recorder recorder = new Recorder();
+		boolean indexed;
+		try {
+			SearchCollector collector = new SearchCollector(workspace, recorder.queries());
+			new ClassReader(value).accept(new SearchClassVisitor(collector), ClassReader.SKIP_FRAMES);
+			indexed = true;
+		} catch (Exception ex) {
+			// Always visit the class, a search will run into the same problem
+			debug("Could not index class '{}' for searching: {}", name, ex.toString());
+			indexed = false;
+		}
+		synchronized(this) {
+			if (!remove(name, snapshot))
+				return;
+			if (!indexed) {
+				unindexed.add(name);
+				return;
+			}
+			classes.put(name, recorder);
+			recorder.strings.forEach(key -> post(strings, key, name));
+			recorder.values.forEach(key -> post(values, key, name));
+			recorder.classReferences.forEach(key -> post(classReferences, key, name));
+			recorder.memberReferences.forEach(key -> post(memberReferences, key, name));
+		}
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 * @param snapshot
+	 * 		{@code true} when removing for the classes at the start of the build.
+	 *
+	 * @return {@code false} if the class was changed since the snapshot of the build was taken,
+	 * so the snapshot of the class should not be indexed.
+	 */
+	private synchronized boolean remove(String name, boolean snapshot) {
+		if (changedDuringBuild != null) {
+			if (snapshot && changedDuringBuild.contains(name))
+				return false;
+			if (!snapshot)
+				changedDuringBuild.add(name);
+		}
+		unindexed.remove(name);
+		Recorder recorder = classes.remove(name);
+		if (recorder == null)
+			return true;
+		recorder.strings.forEach(key -> unpost(strings, key, name));
+		recorder.values.forEach(key -> unpost(values, key, name));
+		recorder.classReferences.forEach(key -> unpost(classReferences, key, name));
+		recorder.memberReferences.forEach(key -> unpost(memberReferences, key, name));
+		return true;
+	}
+
+	private static <K> void post(Map<K, Set<String>> postings, K key, String name) {
+		postings.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(name);
+	}
+
+	private static <K> void unpost(Map<K, Set<String>> postings, K key, String name) {
+		Set<String> names = postings.get(key);
+		if (names != null) {
+			names.remove(name);
+			if (names.isEmpty())
+				postings.remove(key);
+		}
+	}
+
+	/**
+	 * Keys found in a single class, recorded by queries that accept everything.
+	 */
+	private static final class Recorder {
+		private final Set<String> strings = new HashSet<>();
+		private final Set<Object> values = new HashSet<>();
+		private final Set<String> classReferences = new HashSet<>();
+		private final Set<MemberKey> memberReferences = new HashSet<>();
+
+		private Collection<Query> queries() {
+			return Arrays.asList(
+					new StringQuery("", StringMatchMode.EQUALS) {
+						@Override
+						public void match(String text) {
+							if (text != null)
+								strings.add(text);
+						}
+					},
+					new ValueQuery(0) {
+						@Override
+						public void match(Object value) {
+							if (value != null)
+								values.add(value);
+						}
+					},
+					new ClassReferenceQuery("") {
+						@Override
+						public void match(IntSupplier access, String name) {
+							if (name != null)
+								classReferences.add(name);
+						}
+					},
+					new MemberReferenceQuery("", null, null, StringMatchMode.EQUALS) {
+						@Override
+						public void match(IntSupplier access, String owner, String name, String desc) {
+							memberReferences.add(new MemberKey(owner, name, desc));
+						}
+					});
+		}
+	}
+
+	/**
+	 * Referenced member.
+	 */
+	private static final class MemberKey {
+		private final String owner;
+		private final String name;
+		private final String desc;
+
+		private MemberKey(String owner, String name, String desc) {
+			this.owner = owner;
+			this.name = name;
+			this.desc = desc;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof MemberKey))
+				return false;
+			MemberKey other = (MemberKey) o;
+			return Objects.equals(owner, other.owner) && Objects.equals(name, other.name)
+					&& Objects.equals(desc, other.desc);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(owner, name, desc);
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package me.coley.recaf.search;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jregex.Matcher;
 import jregex.Pattern;
 import me.coley.recaf.util.Log;
 
@@ -30,16 +33,7 @@ public enum StringMatchMode {
 	/**
 	 * String match via regular expression matching.
 	 */
-	REGEX((key, text) -> regmatch(text, key));
-
-	private static boolean regmatch(String text, String key) {
-		try {
-			return new Pattern(key).matcher(text).find();
-		} catch(Exception ex) {
-			Log.error(ex, "Invalid pattern: '{}'", key);
-			return false;
-		}
-	}
+	REGEX((key, text) -> CompiledPattern.of(key).find(text));
 
 	private final BiPredicate<String, String> matcher;
 
@@ -58,4 +52,145 @@ public enum StringMatchMode {
 	public boolean match(String key, String text) {
 		return matcher.test(key, text);
 	}
+
+	/**
+	 * Regular expression compiled once per key, shared between all matches of the key.
+	 */
+	private static final class CompiledPattern {
+		private static final Cache<String, CompiledPattern> CACHE = CacheBuilder.newBuilder()
+				.maximumSize(256)
+				.build();
+		private final String literal;
+		private final ThreadLocal<Matcher> matcher;
+
+		private CompiledPattern(Pattern pattern, String literal) {
+			this.literal = literal;
+			this.matcher = pattern == null ? null : ThreadLocal.withInitial(pattern::matcher);
+		}
+
+		/**
+		 * @param key
+		 * 		Regular expression.
+		 *
+		 * @return Compiled form of the expression.
+		 */
+		private static CompiledPattern of(String key) {
+			CompiledPattern compiled = CACHE.getIfPresent(key);
+			if (compiled == null) {
+				compiled = compile(key);
+				CACHE.put(key, compiled);
+			}
+			return compiled;
+		}
+
+		private static CompiledPattern compile(String key) {
+			try {
+				return new CompiledPattern(new Pattern(key), requiredLiteral(key));
+			} catch(Exception ex) {
+				// Only reported once, invalid patterns are cached as well
+				Log.error(ex, "Invalid pattern: '{}'", key);
+				return new CompiledPattern(null, null);
+			}
+		}
+
+		/**
+		 * @param text
+		 * 		Text to test for a match.
+		 *
+		 * @return {@code true} if the expression is found in the text.
+		 */
+		private boolean find(String text) {
+			if (matcher == null)
+				return false;
+			// Text without the required literal can not match, which is much cheaper to check
+			if (literal != null && !text.contains(literal))
+				return false;
+			Matcher m = matcher.get();
+			m.setTarget(text);
+			return m.find();
+		}
+
+		/**
+		 * @param regex
+		 * 		Regular expression.
+		 *
+		 * @return Longest run of plain characters every match must contain.
+		 * {@code null} if no such run could be determined.
+		 */
+		static String requiredLiteral(String regex) {
+			// Alternatives and inline flags can make any part of the expression optional or case insensitive
+			if (regex.indexOf('|') >= 0 || regex.contains("(?"))
+				return null;
+			String best = "";
+			StringBuilder run = new StringBuilder();
+			int length = regex.length();
+			int depth = 0;
+			for (int i = 0; i < length; i++) {
+				char c = regex.charAt(i);
+				if (c == '\\') {
+					if (++i >= length)
+						break;
+					char next = regex.charAt(i);
+					if (!Character.isLetterOrDigit(next)) {
+						// Escaped plain character
+						if (depth == 0)
+							run.append(next);
+						continue;
+					}
+					// Classes, references and character codes, skip any operands of the escape
+					while (i + 1 < length && Character.isLetterOrDigit(regex.charAt(i + 1)))
+						i++;
+				} else if (c == '[') {
+					i = skipClass(regex, i);
+				} else if (c == '(') {
+					depth++;
+				} else if (c == ')') {
+					depth--;
+				} else if (c == '?' || c == '*' || c == '{') {
+					// The previous character is optional
+					if (run.length() > 0)
+						run.setLength(run.length() - 1);
+					if (c == '{')
+						while (i + 1 < length && regex.charAt(i) != '}')
+							i++;
+				} else if (c == '+') {
+					// The previous character is required, but may be repeated before what follows
+					best = longest(best, run);
+					run.setLength(0);
+					continue;
+				} else if (depth == 0 && c != '.' && c != '^' && c != '$') {
+					run.append(c);
+					continue;
+				}
+				best = longest(best, run);
+				run.setLength(0);
+			}
+			best = longest(best, run);
+			return best.isEmpty() ? null : best;
+		}
+
+		private static int skipClass(String regex, int start) {
+			int i = start + 1;
+			if (i < regex.length() && regex.charAt(i) == '^')
+				i++;
+			// A closing bracket right at the start is part of the class
+			if (i < regex.length() && regex.charAt(i) == ']')
+				i++;
+			int depth = 1;
+			for (; i < regex.length(); i++) {
+				char c = regex.charAt(i);
+				if (c == '\\')
+					i++;
+				else if (c == '[')
+					depth++;
+				else if (c == ']' && --depth == 0)
+					return i;
+			}
+			return regex.length();
+		}
+
+		private static String longest(String best, StringBuilder run) {
+			return run.length() > best.length() ? run.toString() : best;
+		}
+	}
 }
@@ -136,6 +136,7 @@ public class MainMenu extends MenuBar {
 		mHelp.getItems().addAll(
 				new ActionMenuItem(translate("ui.menubar.help.documentation"), this::showDocumentation),
 				new ActionMenuItem(translate("ui.menubar.help.info"), this::showInformation),
+				new ActionMenuItem(translate("ui.menubar.help.metrics"), this::showMetrics),
 				new ActionMenuItem(translate("ui.menubar.help.contact"), this::showContact)
 		);
 		mPlugins = new Menu(translate("ui.menubar.plugins"));
@@ -308,7 +309,7 @@ public class MainMenu extends MenuBar {
 				try {
 					JavaResource resource = FileSystemResource.of(file.toPath());
 
-					workspace.getLibraries().add(resource);
+					workspace.addLibrary(resource);
 					controller.windows().getMainWindow().getNavigator().refresh();
 				} catch(Exception ex) {
 					error(ex, "Failed to add library: {}", file.getName());
@@ -459,6 +460,19 @@ public class MainMenu extends MenuBar {
 		}
 	}
 
+	/**
+	 * Display per-class metrics window.
+	 */
+	private void showMetrics() {
+		Stage stage = controller.windows().getMetricsWindow();
+		if(stage == null) {
+			stage = controller.windows().window(translate("ui.menubar.help.metrics"), new MetricsPane(), 800, 500);
+			controller.windows().setMetricsWindow(stage);
+		}
+		stage.show();
+		stage.toFront();
+	}
+
 	/**
 	 * Display system information window.
 	 */
@@ -288,6 +288,8 @@ public class RenamingTextField extends PopupWindow {
 	private static void defaultAction(RenamingTextField field) {
 		// Apply mappings
 		Map<String, String> map = field.mapSupplier.get();
+		// Built by the first rename, so renames only rewrite the classes referencing the renamed names
+		field.controller.getWorkspace().buildReferenceIndex();
 		Mappings mappings = new Mappings(field.controller.getWorkspace());
 		mappings.setMappings(map);
 		mappings.accept(field.controller.getWorkspace().getPrimary());
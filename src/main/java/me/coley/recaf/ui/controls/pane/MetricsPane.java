@@ -0,0 +1,79 @@
+package me.coley.recaf.ui.controls.pane;
+
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import me.coley.recaf.ui.controls.ActionButton;
+import me.coley.recaf.util.Metrics;
+import me.coley.recaf.util.Metrics.Metric;
+import me.coley.recaf.util.TaskScheduler;
+
+import java.util.function.Function;
+
+import static me.coley.recaf.util.LangUtil.translate;
+
+/**
+ * Panel that shows the recorded {@link Metrics per-class metrics}, most expensive first,
+ * and the number of abandoned tasks that still keep a core busy.
+ *
+ * @author Matt
+ */
+public class MetricsPane extends BorderPane {
+	private final TableView<Metric> table = new TableView<>();
+	private final Label abandoned = new Label();
+
+	/**
+	 * Create the metrics pane.
+	 */
+	public MetricsPane() {
+		table.getColumns().add(column("Category", m -> new SimpleStringProperty(m.getCategory())));
+		table.getColumns().add(column("Class", m -> new SimpleStringProperty(m.getName())));
+		table.getColumns().add(column("Count", m -> new SimpleLongProperty(m.getCount())));
+		table.getColumns().add(column("Failures", m -> new SimpleLongProperty(m.getFailures())));
+		table.getColumns().add(column("Total (ms)", m -> new SimpleDoubleProperty(m.getTotalMillis())));
+		table.getColumns().add(column("Max (ms)", m -> new SimpleDoubleProperty(m.getMaxMillis())));
+		table.getColumns().add(column("Allocated (bytes)", m -> new SimpleLongProperty(m.getAllocatedBytes())));
+		table.getColumns().add(column("Output size", m -> new SimpleLongProperty(m.getOutputSize())));
+		HBox buttons = new HBox(5,
+				new ActionButton(translate("ui.metrics.refresh"), this::refresh),
+				new ActionButton(translate("ui.metrics.clear"), () -> {
+					Metrics.clear();
+					refresh();
+				}),
+				new ActionButton(translate("ui.metrics.copy.csv"), () -> copy(Metrics.toCsv(table.getItems()))),
+				new ActionButton(translate("ui.metrics.copy.json"), () -> copy(Metrics.toJson(table.getItems()))),
+				abandoned);
+		setCenter(table);
+		setBottom(buttons);
+		refresh();
+	}
+
+	/**
+	 * Update the table with the currently recorded metrics.
+	 */
+	public void refresh() {
+		table.setItems(FXCollections.observableArrayList(Metrics.getMetrics()));
+		abandoned.setText(translate("ui.metrics.abandoned") + ": " + TaskScheduler.getAbandonedRunningTotal());
+	}
+
+	private static <T> TableColumn<Metric, T> column(String title, Function<Metric, ObservableValue<T>> value) {
+		TableColumn<Metric, T> column = new TableColumn<>(title);
+		column.setCellValueFactory(data -> value.apply(data.getValue()));
+		return column;
+	}
+
+	private static void copy(String text) {
+		ClipboardContent content = new ClipboardContent();
+		content.putString(text);
+		Clipboard.getSystemClipboard().setContent(content);
+	}
+}
@@ -1,5 +1,6 @@
 package me.coley.recaf.ui.controls.pane;
 
+import javafx.application.Platform;
 import javafx.geometry.Orientation;
 import javafx.scene.Node;
 import javafx.scene.control.*;
@@ -13,9 +14,13 @@ import me.coley.recaf.ui.controls.SubLabeled;
 import me.coley.recaf.ui.controls.tree.*;
 import me.coley.recaf.util.LangUtil;
 import me.coley.recaf.util.Log;
+import me.coley.recaf.util.ThreadUtil;
 import me.coley.recaf.workspace.Workspace;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -30,9 +35,14 @@ import static me.coley.recaf.util.LangUtil.translate;
  */
 @SuppressWarnings("unchecked")
 public class SearchPane extends SplitPane {
+	private static final long UPDATE_INTERVAL_MS = 100;
+	private static final int MAX_RESULTS = 10_000;
 	private final Map<String, Input> inputMap = new HashMap<>();
 	private final TreeView tree = new TreeView();
+	private final Button btn = new Button(LangUtil.translate("ui.search"));
 	private final Runnable searchAction;
+	private AtomicBoolean cancelled;
+	private TreeItem<?> opened;
 
 
 	/**
@@ -46,7 +56,6 @@ public class SearchPane extends SplitPane {
 		setDividerPositions(0.5);
 		tree.setCellFactory(e -> new JavaResourceCell());
 		ColumnPane params = new ColumnPane();
-		Button btn = new Button(LangUtil.translate("ui.search"));
 		btn.getStyleClass().add("search-button");
 		switch(type) {
 			case MEMBER_DEFINITION:
@@ -141,9 +150,14 @@ public class SearchPane extends SplitPane {
 	}
 
 	/**
-	 * Run search and display results.
+	 * Run search and display results as they are found.
+	 * If a search is already running, it is cancelled instead.
 	 */
 	public void search() {
+		if (cancelled != null) {
+			cancelled.set(true);
+			return;
+		}
 		searchAction.run();
 		tree.requestFocus();
 	}
@@ -153,19 +167,16 @@ public class SearchPane extends SplitPane {
 	 *
 	 * @param controller
 	 * 		Controller for the workspace.
-	 * @param collectorSupplier
+	 * @param builderSupplier
 	 * 		Search generator.
 	 */
-	private void search(Controller controller, Supplier<SearchCollector> collectorSupplier) {
+	private void search(Controller controller, Supplier<SearchBuilder> builderSupplier) {
 		Workspace workspace = controller.getWorkspace();
-		List<SearchResult> results = null;
-		SearchCollector collector = null;
+		SearchBuilder builder = null;
 		try {
-			collector = collectorSupplier.get();
-			results = collector.getAllResults();
+			builder = builderSupplier.get();
 		} catch(IllegalArgumentException ex) {
 			// Some search argument requirements were not met
-			results = Collections.emptyList();
 			// TODO: visual warning
 			Log.warn("Failed search due to illegal arguments: {}", ex.getMessage());
 		}
@@ -175,11 +186,66 @@ public class SearchPane extends SplitPane {
 						e -> e.getKey().substring(e.getKey().lastIndexOf(".") + 1),
 						e -> e.getValue().getOr("")
 				)));
-		tree.setRoot(new SearchRootItem(workspace.getPrimary(), results, params));
-		JavaResourceTree.recurseOpen(tree.getRoot());
+		SearchRootItem root = new SearchRootItem(workspace.getPrimary(), Collections.emptyList(), params);
+		tree.setRoot(root);
+		opened = root;
+		if (builder == null)
+			return;
+		// Results are shown in batches as they come in, until the search is done or cancelled
+		AtomicBoolean cancel = new AtomicBoolean();
+		cancelled = cancel;
+		btn.setText(translate("ui.search.cancel"));
+		Queue<SearchResult> pending = new ConcurrentLinkedQueue<>();
+		ScheduledFuture<?> updater = ThreadUtil.runRepeated(UPDATE_INTERVAL_MS,
+				() -> Platform.runLater(() -> show(root, pending)));
+		SearchBuilder search = builder.cancelWhen(cancel::get).maxResults(MAX_RESULTS);
+		ThreadUtil.run(() -> {
+			try {
+				SearchCollector collector = search.build(pending::add);
+				if (collector.isStopped() && !cancel.get())
+					Log.warn("Search stopped after reaching the limit of {} results", MAX_RESULTS);
+			} catch(Exception ex) {
+				Log.error(ex, "Failed search");
+			} finally {
+				updater.cancel(false);
+				Platform.runLater(() -> {
+					show(root, pending);
+					if (cancelled == cancel) {
+						cancelled = null;
+						btn.setText(translate("ui.search"));
+					}
+				});
+			}
+		});
+	}
+
+	private void show(SearchRootItem root, Queue<SearchResult> pending) {
+		List<SearchResult> batch = new ArrayList<>();
+		SearchResult result;
+		while ((result = pending.poll()) != null)
+			batch.add(result);
+		if (batch.isEmpty())
+			return;
+		root.addResults(batch);
+		if (tree.getRoot() == root)
+			open();
+	}
+
+	/**
+	 * Open the path of only children from the root like {@link JavaResourceTree#recurseOpen(TreeItem)},
+	 * continuing from where the path ended for the previous batch so only the newly added items are visited.
+	 */
+	private void open() {
+		TreeItem<?> item = opened;
+		item.setExpanded(true);
+		while (item.getChildren().size() == 1) {
+			item = item.getChildren().get(0);
+			item.setExpanded(true);
+		}
+		opened = item;
 	}
 
-	private SearchCollector buildDefinitionSearch(Workspace workspace) {
+	private SearchBuilder buildDefinitionSearch(Workspace workspace) {
 		return SearchBuilder.in(workspace)
 				.skipDebug()
 				.skipCode()
@@ -187,45 +253,47 @@ public class SearchPane extends SplitPane {
 						input("ui.search.declaration.owner"), input("ui.search.declaration.name"),
 						input("ui.search.declaration.desc"), input("ui.search.matchmode")))
 				.skipPackages(input("ui.search.skippackages"))
-				.build();
+				.parallel();
 	}
 
-	private SearchCollector buildClassReferenceSearch(Workspace workspace) {
+	private SearchBuilder buildClassReferenceSearch(Workspace workspace) {
 		return SearchBuilder.in(workspace)
 				.query(new ClassReferenceQuery(
 						input("ui.search.cls_reference.name"), input("ui.search.matchmode")))
 				.skipPackages(input("ui.search.skippackages"))
-				.build();
+				.parallel();
 	}
 
-	private SearchCollector buildMemberReferenceSearch(Workspace workspace) {
+	private SearchBuilder buildMemberReferenceSearch(Workspace workspace) {
 		return SearchBuilder.in(workspace)
 				.query(new MemberReferenceQuery(
 						input("ui.search.mem_reference.owner"), input("ui.search.mem_reference.name"),
 						input("ui.search.mem_reference.desc"), input("ui.search.matchmode")))
 				.skipPackages(input("ui.search.skippackages"))
-				.build();
+				.parallel();
 	}
 
-	private SearchCollector buildStringSearch(Workspace workspace) {
+	private SearchBuilder buildStringSearch(Workspace workspace) {
 		return SearchBuilder.in(workspace)
 				.skipDebug()
 				.query(new StringQuery(input("ui.search.string"), input("ui.search.matchmode")))
 				.skipPackages(input("ui.search.skippackages"))
-				.build();
+				.parallel();
 	}
 
-	private SearchCollector buildValueSearch(Workspace workspace) {
+	private SearchBuilder buildValueSearch(Workspace workspace) {
 		return SearchBuilder.in(workspace)
 				.skipDebug()
 				.skipPackages(input("ui.search.skippackages"))
-				.query(new ValueQuery(input("ui.search.value"))).build();
+				.query(new ValueQuery(input("ui.search.value")))
+				.parallel();
 	}
 
-	private SearchCollector buildInsnSearch(Workspace workspace) {
+	private SearchBuilder buildInsnSearch(Workspace workspace) {
 		return SearchBuilder.in(workspace)
 				.skipPackages(input("ui.search.skippackages"))
-				.query(new InsnTextQuery(input("ui.search.insn.lines"), input("ui.search.matchmode"))).build();
+				.query(new InsnTextQuery(input("ui.search.insn.lines"), input("ui.search.matchmode")))
+				.parallel();
 	}
 
 	/**
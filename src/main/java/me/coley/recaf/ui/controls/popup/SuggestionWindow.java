@@ -89,14 +89,15 @@ public class SuggestionWindow extends DragPopup {
 		grid.setPadding(new Insets(15));
 		grid.setVgap(4);
 		grid.setAlignment(Pos.CENTER);
+		int columns = Math.max(DecompileImpl.values().length, ClassViewport.ClassMode.values().length);
 		int col = 0;
-		for(col = 0; col < 3; col++) {
+		for(col = 0; col < columns; col++) {
 			ColumnConstraints cc = new ColumnConstraints();
 			cc.setHgrow(Priority.ALWAYS);
 			cc.setFillWidth(true);
 			grid.getColumnConstraints().add(cc);
 		}
-		grid.add(new Label(switchMessage), 0, 0, 3, 1);
+		grid.add(new Label(switchMessage), 0, 0, columns, 1);
 		SuggestionWindow window = of(title, grid);
 		// Add decompiler switch buttons
 		col = 0;
@@ -117,7 +118,7 @@ public class SuggestionWindow extends DragPopup {
 			grid.add(btn, col, 2);
 			col++;
 		}
-		grid.add(new Label(translate("suggest.switchmodes")), 0, 3, 3, 1);
+		grid.add(new Label(translate("suggest.switchmodes")), 0, 3, columns, 1);
 		// Add class mode switch button
 		col = 0;
 		for (ClassViewport.ClassMode mode : ClassViewport.ClassMode.values()) {
@@ -12,7 +12,7 @@ import java.util.*;
  */
 public class SearchRootItem extends DirectoryItem {
 	private final JavaResource resource = resource();
-	private final Collection<SearchResult> results;
+	private final List<SearchResult> results = new ArrayList<>();
 	private final Map<String,Object> params;
 
 	/**
@@ -25,8 +25,20 @@ public class SearchRootItem extends DirectoryItem {
 	 */
 	public SearchRootItem(JavaResource resource, Collection<SearchResult> results, Map<String,Object> params) {
 		super(resource, null);
-		this.results = results;
 		this.params = params;
+		addResults(results);
+	}
+
+	/**
+	 * Add results to the item, for searches that pass on their results as they are found.
+	 *
+	 * @param results
+	 * 		Results to show in sub-items.
+	 */
+	public void addResults(Collection<SearchResult> results) {
+		if (results.isEmpty())
+			return;
+		this.results.addAll(results);
 		// Add result sub-items in sorted order
 		Set<SearchResult> sorted = new TreeSet<>((a, b) -> {
 			int cmp = getClassContext(a.getContext()).compareTo(getClassContext(b.getContext()));
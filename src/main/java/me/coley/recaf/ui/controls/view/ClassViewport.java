@@ -5,6 +5,7 @@ import javafx.scene.input.KeyEvent;
 import me.coley.recaf.config.ConfigManager;
 import me.coley.recaf.control.gui.GuiController;
 import me.coley.recaf.decompile.DecompileImpl;
+import me.coley.recaf.decompile.Decompiler;
 import me.coley.recaf.plugin.PluginKeybinds;
 import me.coley.recaf.ui.controls.ClassEditor;
 import me.coley.recaf.ui.controls.FontSlider;
@@ -124,13 +125,18 @@ public class ClassViewport extends EditorViewport {
 					byte[] clazz = controller.getWorkspace().getRawClass(path);
 					int version = ClassUtil.getVersion(clazz) - ClassUtil.VERSION_OFFSET;
 					String classVersionPrefix = "// Class Version: " + version + "\n";
-					String decompile = decompilerPrefix + classVersionPrefix +
-							decompiler.create(controller).decompile(path);
-					return EscapeUtil.unescapeUnicode(decompile);
+					// Escaped unicode is replaced while the decompiler writes its output
+					Decompiler<?> impl = decompiler.create(controller);
+					impl.setUnescapeUnicode(true);
+					return decompilerPrefix + classVersionPrefix + controller.getWorkspace().getDecompileCache()
+							.decompile(decompiler, impl, path, controller.config().decompile());
 				};
 				JavaEditorPane finalPane = pane;
 				Consumer<String> consumer = decompile -> {
 					// CONSUMER: Set decompiled text and check for errors
+					// Decompile the classes likely to be opened next while the user reads this one
+					if (controller.config().decompile().prefetch)
+						controller.getWorkspace().getDecompileCache().prefetch(controller, decompiler, path);
 					// Update text
 					Platform.runLater(() -> {
 						finalPane.setText(decompile);
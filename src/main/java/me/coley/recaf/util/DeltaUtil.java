@@ -0,0 +1,163 @@
+package me.coley.recaf.util;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Binary delta utilities. A delta describes how to build a target array out of a source array using
+ * copies of source ranges and inserted literal bytes.
+ *
+ * @author Matt
+ */
+public class DeltaUtil {
+	private static final int BLOCK = 8;
+	private static final int OP_INSERT = 0;
+	private static final int OP_COPY = 1;
+
+	/**
+	 * @param source
+	 * 		Array the delta will be applied to.
+	 * @param target
+	 * 		Array the delta should produce.
+	 *
+	 * @return Delta that produces the target from the source.
+	 */
+	public static byte[] diff(byte[] source, byte[] target) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(16, target.length / 8));
+		writeVarInt(out, target.length);
+		int mask = tableSize(source.length) - 1;
+		int[] table = index(source, mask);
+		int literalStart = 0;
+		int i = 0;
+		while (i + BLOCK <= target.length) {
+			int candidate = table[hash(target, i) & mask] - 1;
+			if (candidate < 0 || !matches(source, candidate, target, i)) {
+				i++;
+				continue;
+			}
+			// Extend the match in both directions
+			int start = i;
+			int srcStart = candidate;
+			while (start > literalStart && srcStart > 0 && source[srcStart - 1] == target[start - 1]) {
+				start--;
+				srcStart--;
+			}
+			int end = i + BLOCK;
+			int srcEnd = candidate + BLOCK;
+			while (end < target.length && srcEnd < source.length && source[srcEnd] == target[end]) {
+				end++;
+				srcEnd++;
+			}
+			writeInsert(out, target, literalStart, start);
+			out.write(OP_COPY);
+			writeVarInt(out, srcStart);
+			writeVarInt(out, end - start);
+			i = literalStart = end;
+		}
+		writeInsert(out, target, literalStart, target.length);
+		return out.toByteArray();
+	}
+
+	/**
+	 * @param source
+	 * 		Array the delta was created against.
+	 * @param delta
+	 * 		Delta created by {@link #diff(byte[], byte[])}.
+	 *
+	 * @return Target array described by the delta.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		When the delta is malformed or does not fit the source.
+	 */
+	public static byte[] apply(byte[] source, byte[] delta) {
+		int[] pos = { 0 };
+		int size = readVarInt(delta, pos);
+		if (size < 0)
+			throw new IllegalArgumentException("Malformed delta");
+		byte[] target = new byte[size];
+		int written = 0;
+		try {
+			while (pos[0] < delta.length) {
+				int op = delta[pos[0]++];
+				if (op == OP_COPY) {
+					int offset = readVarInt(delta, pos);
+					int length = readVarInt(delta, pos);
+					System.arraycopy(source, offset, target, written, length);
+					written += length;
+				} else if (op == OP_INSERT) {
+					int length = readVarInt(delta, pos);
+					System.arraycopy(delta, pos[0], target, written, length);
+					pos[0] += length;
+					written += length;
+				} else {
+					throw new IllegalArgumentException("Unknown delta operation: " + op);
+				}
+			}
+		} catch (IndexOutOfBoundsException ex) {
+			throw new IllegalArgumentException("Delta does not match the source", ex);
+		}
+		if (written != target.length)
+			throw new IllegalArgumentException("Delta is incomplete, " + written + "/" + target.length);
+		return target;
+	}
+
+	private static int[] index(byte[] source, int mask) {
+		int[] table = new int[mask + 1];
+		// Earlier positions win, so runs of repeated content point to their start
+		for (int i = source.length - BLOCK; i >= 0; i--)
+			table[hash(source, i) & mask] = i + 1;
+		return table;
+	}
+
+	private static int tableSize(int length) {
+		int size = 16;
+		while (size < length && size < (1 << 20))
+			size <<= 1;
+		return size;
+	}
+
+	private static int hash(byte[] data, int offset) {
+		long value = 0;
+		for (int i = 0; i < BLOCK; i++)
+			value = (value << 8) | (data[offset + i] & 0xFF);
+		return (int) ((value * 0x9E3779B97F4A7C15L) >>> 32);
+	}
+
+	private static boolean matches(byte[] source, int srcOffset, byte[] target, int offset) {
+		if (srcOffset + BLOCK > source.length)
+			return false;
+		for (int i = 0; i < BLOCK; i++)
+			if (source[srcOffset + i] != target[offset + i])
+				return false;
+		return true;
+	}
+
+	private static void writeInsert(ByteArrayOutputStream out, byte[] data, int start, int end) {
+		if (end <= start)
+			return;
+		out.write(OP_INSERT);
+		writeVarInt(out, end - start);
+		out.write(data, start, end - start);
+	}
+
+	private static void writeVarInt(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarInt(byte[] data, int[] pos) {
+		int value = 0;
+		int shift = 0;
+		while (true) {
+			if (pos[0] >= data.length || shift > 28)
+				throw new IllegalArgumentException("Malformed delta");
+			int b = data[pos[0]++];
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+			shift += 7;
+		}
+	}
+}
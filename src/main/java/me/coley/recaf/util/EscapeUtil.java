@@ -65,6 +65,22 @@ public final class EscapeUtil {
 		return visit(input, EscapeUtil::computeEscapeUnicode);
 	}
 
+	/**
+	 * Replaces the escaped unicode at the given position, if there is any.
+	 *
+	 * @param input
+	 * 		Input text.
+	 * @param cursor
+	 * 		Position in the text.
+	 * @param builder
+	 * 		Builder to append the unicode character to.
+	 *
+	 * @return Number of characters consumed from the input, {@code 0} if there is no escaped unicode at the position.
+	 */
+	public static int unescapeUnicode(CharSequence input, int cursor, StringBuilder builder) {
+		return computeEscapeUnicode(input, cursor, builder);
+	}
+
 	/**
 	 * Replaces standard escape codes with literal values. For example: {@code \n}
 	 *
@@ -146,7 +162,7 @@ public final class EscapeUtil {
 		}
 	}
 
-	private static int computeEscapeUnicode(String input, int cursor, StringBuilder builder) {
+	private static int computeEscapeUnicode(CharSequence input, int cursor, StringBuilder builder) {
 		// Bounds check
 		if (cursor + 1 >= input.length()) {
 			return 0;
@@ -178,14 +194,14 @@ public final class EscapeUtil {
 		}
 		// Bounds check, then fetch hex value and store in builder, then return total consumed length
 		if (cursor + len + 4 <= input.length()) {
-			String substring = input.substring(cursor, cursor + len + 4);
+			String substring = input.subSequence(cursor, cursor + len + 4).toString();
 
 			if (initialEscape) {
 				builder.append(substring);
 				return len + 4;
 			}
 
-			String unicode = input.substring(cursor + len, cursor + len + 4);
+			String unicode = input.subSequence(cursor + len, cursor + len + 4).toString();
 			try {
 				int value = Integer.parseInt(unicode, 16);
 				builder.append(value != TERMINATOR ? (char) value : substring);
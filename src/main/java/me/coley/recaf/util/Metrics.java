@@ -0,0 +1,265 @@
+package me.coley.recaf.util;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.WriterConfig;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-class metrics of expensive operations, such as decompiling a class or applying mappings to it.
+ * Each operation records its wall time, the bytes allocated by the thread running it and the size of its output.
+ *
+ * @author Matt
+ */
+public final class Metrics {
+	/**
+	 * Decompiling a class.
+	 */
+	public static final String DECOMPILE = "decompile";
+	/**
+	 * Parsing and analyzing the source code of a class.
+	 */
+	public static final String ANALYZE = "analyze";
+	/**
+	 * Assembling a method of a class.
+	 */
+	public static final String ASSEMBLE = "assemble";
+	/**
+	 * Applying mappings to a class.
+	 */
+	public static final String MAPPING = "mapping";
+	private static final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private static final boolean allocationSupported = isAllocationSupported();
+
+	private Metrics() {}
+
+	/**
+	 * @param category
+	 * 		Type of operation.
+	 *
+	 * @return Sample to {@link Sample#stop(String, long) stop} once the operation is done.
+	 */
+	public static Sample start(String category) {
+		return new Sample(category);
+	}
+
+	/**
+	 * @return Recorded metrics, sorted by total time with the most expensive first.
+	 */
+	public static List<Metric> getMetrics() {
+		List<Metric> list = new ArrayList<>(metrics.values());
+		list.sort(Comparator.comparingLong(Metric::getTotalNanos).reversed());
+		return list;
+	}
+
+	/**
+	 * Discard recorded metrics.
+	 */
+	public static void clear() {
+		metrics.clear();
+	}
+
+	/**
+	 * @param list
+	 * 		Metrics to include.
+	 *
+	 * @return CSV table of the metrics.
+	 */
+	public static String toCsv(List<Metric> list) {
+		StringBuilder sb = new StringBuilder("category,name,count,failures,total_ms,max_ms,allocated_bytes," +
+				"output_size\n");
+		for (Metric metric : list) {
+			sb.append(metric.getCategory()).append(',')
+					.append(csvEscape(metric.getName())).append(',')
+					.append(metric.getCount()).append(',')
+					.append(metric.getFailures()).append(',')
+					.append(String.format(Locale.ROOT, "%.3f", metric.getTotalMillis())).append(',')
+					.append(String.format(Locale.ROOT, "%.3f", metric.getMaxMillis())).append(',')
+					.append(metric.getAllocatedBytes()).append(',')
+					.append(metric.getOutputSize()).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param list
+	 * 		Metrics to include.
+	 *
+	 * @return JSON array of the metrics.
+	 */
+	public static String toJson(List<Metric> list) {
+		JsonArray array = Json.array();
+		for (Metric metric : list)
+			array.add(Json.object()
+					.add("category", metric.getCategory())
+					.add("name", metric.getName())
+					.add("count", metric.getCount())
+					.add("failures", metric.getFailures())
+					.add("totalMs", metric.getTotalMillis())
+					.add("maxMs", metric.getMaxMillis())
+					.add("allocatedBytes", metric.getAllocatedBytes())
+					.add("outputSize", metric.getOutputSize()));
+		return array.toString(WriterConfig.PRETTY_PRINT);
+	}
+
+	private static String csvEscape(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0)
+			return value;
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static long allocatedBytes() {
+		if (!allocationSupported)
+			return -1;
+		return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static boolean isAllocationSupported() {
+		try {
+			if (!(threads instanceof com.sun.management.ThreadMXBean))
+				return false;
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+			if (!bean.isThreadAllocatedMemorySupported())
+				return false;
+			if (!bean.isThreadAllocatedMemoryEnabled())
+				bean.setThreadAllocatedMemoryEnabled(true);
+			return true;
+		} catch (LinkageError | UnsupportedOperationException ex) {
+			// Not available on this VM
+			return false;
+		}
+	}
+
+	/**
+	 * Measurement of a single operation.
+	 */
+	public static final class Sample {
+		private final String category;
+		private final long startNanos = System.nanoTime();
+		private final long startAllocated = allocatedBytes();
+		private boolean stopped;
+
+		private Sample(String category) {
+			this.category = category;
+		}
+
+		/**
+		 * Record the operation. Only the first call records anything.
+		 *
+		 * @param name
+		 * 		Name of the class the operation was for.
+		 * @param outputSize
+		 * 		Size of the operation's output, negative if the operation failed.
+		 */
+		public void stop(String name, long outputSize) {
+			if (stopped)
+				return;
+			stopped = true;
+			long nanos = System.nanoTime() - startNanos;
+			long allocated = startAllocated < 0 ? -1 : allocatedBytes() - startAllocated;
+			metrics.computeIfAbsent(category + ':' + name, k -> new Metric(category, name))
+					.record(nanos, allocated, outputSize);
+		}
+	}
+
+	/**
+	 * Aggregated measurements of an operation on a class.
+	 */
+	public static final class Metric {
+		private final String category;
+		private final String name;
+		private long count;
+		private long failures;
+		private long totalNanos;
+		private long maxNanos;
+		private long allocatedBytes;
+		private long outputSize;
+
+		private Metric(String category, String name) {
+			this.category = category;
+			this.name = name;
+		}
+
+		private synchronized void record(long nanos, long allocated, long size) {
+			count++;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+			if (allocated >= 0)
+				allocatedBytes += allocated;
+			if (size < 0)
+				failures++;
+			else
+				outputSize = size;
+		}
+
+		/**
+		 * @return Type of operation.
+		 */
+		public String getCategory() {
+			return category;
+		}
+
+		/**
+		 * @return Name of the class the operation was for.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Number of times the operation ran.
+		 */
+		public synchronized long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return Number of times the operation failed.
+		 */
+		public synchronized long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * @return Total wall time of all runs in nanoseconds.
+		 */
+		public synchronized long getTotalNanos() {
+			return totalNanos;
+		}
+
+		/**
+		 * @return Total wall time of all runs in milliseconds.
+		 */
+		public double getTotalMillis() {
+			return TimeUnit.NANOSECONDS.toMicros(getTotalNanos()) / 1000.0;
+		}
+
+		/**
+		 * @return Wall time of the slowest run in milliseconds.
+		 */
+		public synchronized double getMaxMillis() {
+			return TimeUnit.NANOSECONDS.toMicros(maxNanos) / 1000.0;
+		}
+
+		/**
+		 * @return Total bytes allocated by all runs, {@code 0} if the VM does not support measuring allocations.
+		 */
+		public synchronized long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		/**
+		 * @return Output size of the last successful run. Characters for text, bytes for classes and
+		 * instructions for assembled methods.
+		 */
+		public synchronized long getOutputSize() {
+			return outputSize;
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package me.coley.recaf.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Runs heavy tasks, such as decompiling, on a fixed number of worker threads with real cancellation.
+ * <br>
+ * A task that exceeds its timeout is cancelled, which interrupts its worker. Most of the work this
+ * is used for never checks for interrupts, so if the worker is still running the task after a grace
+ * period the worker is abandoned: it is replaced by a new worker and stopped, so a runaway task does not
+ * keep a core busy. The same applies to tasks whose future is cancelled by the caller while they run.
+ * Work that shares state between tasks must check {@link #isAbandoned(Thread)} to discard state an
+ * abandoned task has touched, since the task may be stopped at any point.
+ * <br>
+ * On runtimes that can no longer stop threads, abandoned workers are left to finish their task and exit
+ * once it returns. The number still running is reported by {@link #getAbandonedRunningTotal()}.
+ *
+ * @author Matt
+ */
+public class TaskScheduler {
+	private static final long GRACE_MS = 1000;
+	private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder()
+					.setNameFormat("Recaf Task Watchdog")
+					.setDaemon(true).build());
+	private static final AtomicInteger abandonedRunningTotal = new AtomicInteger();
+	private final BlockingQueue<Job<?>> queue = new LinkedBlockingQueue<>();
+	private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+	private final Set<Worker> abandonedWorkers = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger workerIds = new AtomicInteger();
+	private final AtomicLong timedOut = new AtomicLong();
+	private final AtomicLong abandoned = new AtomicLong();
+	private final String name;
+	private volatile boolean shutdown;
+
+	/**
+	 * @param name
+	 * 		Name prefix of the worker threads.
+	 * @param parallelism
+	 * 		Number of tasks to run at once.
+	 */
+	public TaskScheduler(String name, int parallelism) {
+		this.name = name;
+		for (int i = 0; i < Math.max(1, parallelism); i++)
+			startWorker();
+	}
+
+	/**
+	 * @param task
+	 * 		Task to run.
+	 * @param timeout
+	 * 		Time in milliseconds the task may run before it is cancelled.
+	 * 		Zero or less for no timeout. Time spent waiting on a worker is not counted.
+	 * @param listener
+	 * 		Action to run with the future once the task completes, fails or is cancelled.
+	 * 		May be {@code null}.
+	 * @param <T>
+	 * 		Type of task return value.
+	 *
+	 * @return Future of the task. Cancelling it with interruption interrupts the worker running the task,
+	 * and abandons the worker if the task does not stop.
+	 */
+	public <T> Future<T> submit(Callable<T> task, long timeout, Consumer<Future<T>> listener) {
+		if (shutdown)
+			throw new RejectedExecutionException("Scheduler '" + name + "' is shut down");
+		Job<T> job = new Job<>(task, timeout, listener);
+		queue.add(job);
+		return job;
+	}
+
+	/**
+	 * @return Number of tasks cancelled for exceeding their timeout.
+	 */
+	public long getTimedOutCount() {
+		return timedOut.get();
+	}
+
+	/**
+	 * @return Number of workers abandoned because their task did not stop after being cancelled.
+	 */
+	public long getAbandonedCount() {
+		return abandoned.get();
+	}
+
+	/**
+	 * @return Number of abandoned workers that are still running their task.
+	 */
+	public int getAbandonedRunningCount() {
+		return abandonedWorkers.size();
+	}
+
+	/**
+	 * @return Number of abandoned workers of all schedulers that are still running their task,
+	 * each keeping a core busy.
+	 */
+	public static int getAbandonedRunningTotal() {
+		return abandonedRunningTotal.get();
+	}
+
+	/**
+	 * @param thread
+	 * 		Thread to check.
+	 *
+	 * @return {@code true} if the thread is a worker that was abandoned because its task did not stop
+	 * after being cancelled.
+	 */
+	public static boolean isAbandoned(Thread thread) {
+		return thread instanceof Worker && ((Worker) thread).abandoned;
+	}
+
+	/**
+	 * Stop the workers and cancel tasks that have not started yet.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		Job<?> job;
+		while ((job = queue.poll()) != null)
+			job.cancel(false);
+		for (Worker worker : workers)
+			worker.interrupt();
+	}
+
+	private void startWorker() {
+		if (shutdown)
+			return;
+		Worker worker = new Worker(name + " Thread #" + workerIds.incrementAndGet());
+		workers.add(worker);
+		worker.start();
+	}
+
+	private void onTimeout(Job<?> job) {
+		// Cancelling schedules abandoning the worker
+		if (job.cancel(true))
+			timedOut.incrementAndGet();
+	}
+
+	private void abandon(Worker worker, Job<?> job) {
+		boolean stopped;
+		synchronized(worker) {
+			if (worker.current != job)
+				return;
+			// Marked before stopping, so shared state the task holds is discarded rather than reused
+			worker.abandoned = true;
+			workers.remove(worker);
+			if (abandonedWorkers.add(worker))
+				abandonedRunningTotal.incrementAndGet();
+			abandoned.incrementAndGet();
+			stopped = stop(worker);
+		}
+		if (stopped)
+			warn("Stopped worker '{}' after its task did not respond to cancellation", worker.getName());
+		else
+			warn("Abandoned worker '{}' after its task did not respond to cancellation, {} still running",
+					worker.getName(), abandonedWorkers.size());
+		startWorker();
+	}
+
+	/**
+	 * @param worker
+	 * 		Abandoned worker.
+	 *
+	 * @return {@code true} if the worker was stopped, {@code false} if the runtime does not support it.
+	 */
+	@SuppressWarnings("deprecation")
+	private static boolean stop(Worker worker) {
+		try {
+			worker.stop();
+			return true;
+		} catch (UnsupportedOperationException ex) {
+			// Java 20 and later no longer stop threads
+			return false;
+		}
+	}
+
+	/**
+	 * Worker taking jobs from the queue until it is abandoned or the scheduler is shut down.
+	 */
+	private final class Worker extends Thread {
+		private volatile Job<?> current;
+		private volatile boolean abandoned;
+
+		private Worker(String name) {
+			super(name);
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!abandoned && !shutdown) {
+					try {
+						Job<?> job = queue.take();
+						ScheduledFuture<?> timeout = null;
+						synchronized(this) {
+							current = job;
+							job.worker = this;
+						}
+						if (job.timeout > 0)
+							timeout = watchdog.schedule(() -> onTimeout(job), job.timeout, TimeUnit.MILLISECONDS);
+						job.run();
+						synchronized(this) {
+							current = null;
+						}
+						if (timeout != null)
+							timeout.cancel(false);
+						// Do not let a late cancellation of the last job interrupt the next one
+						Thread.interrupted();
+					} catch (InterruptedException ex) {
+						// Shut down, checked by the loop
+					} catch (ThreadDeath death) {
+						// Stopped after being abandoned, checked by the loop
+					} catch (Throwable t) {
+						error(t, "Unexpected error in worker '{}'", getName());
+					}
+				}
+			} finally {
+				workers.remove(this);
+				if (abandonedWorkers.remove(this))
+					abandonedRunningTotal.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Task with its timeout, notifying its listener on completion.
+	 *
+	 * @param <T>
+	 * 		Type of task return value.
+	 */
+	private final class Job<T> extends FutureTask<T> {
+		private final long timeout;
+		private final Consumer<Future<T>> listener;
+		private volatile Worker worker;
+
+		private Job(Callable<T> task, long timeout, Consumer<Future<T>> listener) {
+			super(task);
+			this.timeout = timeout;
+			this.listener = listener;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			Worker running = worker;
+			// Abandon the worker if the task ignores the interrupt, whether it timed out or was cancelled
+			if (cancelled && mayInterruptIfRunning && running != null)
+				watchdog.schedule(() -> abandon(running, this), GRACE_MS, TimeUnit.MILLISECONDS);
+			return cancelled;
+		}
+
+		@Override
+		protected void done() {
+			if (listener == null)
+				return;
+			try {
+				listener.accept(this);
+			} catch (Throwable t) {
+				error(t, "Task completion listener failed");
+			}
+		}
+	}
+}
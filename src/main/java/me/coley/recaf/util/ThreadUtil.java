@@ -22,6 +22,7 @@ public class ThreadUtil {
 							.setNameFormat("Recaf Scheduler Thread #%d")
 							.setDaemon(true).build());
 	private static final ExecutorService service = Executors.newWorkStealingPool(threadCount());
+	private static final TaskScheduler taskScheduler = new TaskScheduler("Recaf Task", threadCount());
 
 	/**
 	 * @param action
@@ -104,7 +105,11 @@ public class ThreadUtil {
 	 * 		Type of value.
 	 */
 	public static <T> void runSupplyConsumer(Supplier<T> supplier, Consumer<T> consumer) {
-		runSupplyConsumer(supplier, Long.MAX_VALUE, null, consumer, null);
+		// Light work, such as styling code, should not be queued behind heavy tasks on the task scheduler
+		service.submit(() -> {
+			T value = supplier.get();
+			Platform.runLater(() -> consumer.accept(value));
+		});
 	}
 
 	/**
@@ -112,6 +117,7 @@ public class ThreadUtil {
 	 * 		Value generator, run on a non-jfx thread.
 	 * @param supplierTimeout
 	 * 		Time to wait on the supplier generating a value before aborting the task.
+	 * 		The supplier is interrupted and, if it does not stop, its thread is abandoned.
 	 * @param timeoutAction
 	 * 		Action to run when timeout is reached.
 	 * @param consumer
@@ -123,21 +129,22 @@ public class ThreadUtil {
 	 */
 	public static <T> void runSupplyConsumer(Supplier<T> supplier, long supplierTimeout, Runnable timeoutAction,
 											 Consumer<T> consumer, Consumer<Throwable> handler) {
-		new Thread(() -> {
+		long timeout = supplierTimeout == Long.MAX_VALUE ? 0 : supplierTimeout;
+		taskScheduler.submit(supplier::get, timeout, future -> {
 			try {
-				// Attempt to compute value within given time
-				Future<T> future = service.submit(supplier::get);
-				T value = future.get(supplierTimeout, TimeUnit.MILLISECONDS);
+				T value = future.get();
 				// Execute action with value
 				Platform.runLater(() -> consumer.accept(value));
-			} catch(CancellationException | InterruptedException | TimeoutException r) {
+			} catch(CancellationException | InterruptedException r) {
 				// Timed out
 				if (timeoutAction != null)
 					timeoutAction.run();
 			} catch(ExecutionException e) {
 				// Supplier encountered an error
-				// - Actual cause is wrapped twice
-				Throwable cause = e.getCause().getCause();
+				// - Decompilers may wrap the actual cause
+				Throwable cause = e.getCause();
+				if (cause.getCause() != null)
+					cause = cause.getCause();
 				if(handler != null)
 					handler.accept(cause);
 			}
@@ -146,7 +153,14 @@ public class ThreadUtil {
 				if(handler != null)
 					handler.accept(t);
 			}
-		}).start();
+		});
+	}
+
+	/**
+	 * @return Scheduler for heavy tasks, such as decompiling, that need to be stopped when they take too long.
+	 */
+	public static TaskScheduler getTaskScheduler() {
+		return taskScheduler;
 	}
 
 	/**
@@ -180,6 +194,7 @@ public class ThreadUtil {
 		trace("Shutting down thread executors");
 		service.shutdownNow();
 		scheduledService.shutdownNow();
+		taskScheduler.shutdown();
 	}
 
 	private static int threadCount() {
@@ -0,0 +1,356 @@
+package me.coley.recaf.workspace;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import me.coley.recaf.Recaf;
+import me.coley.recaf.plugin.PluginsManager;
+import me.coley.recaf.plugin.api.LoadInterceptorPlugin;
+import me.coley.recaf.util.struct.InternalBiConsumer;
+import me.coley.recaf.util.struct.InternalConsumer;
+import me.coley.recaf.util.struct.ListeningMap;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Index of the class structures in a resource. The index is built once and then kept up to date
+ * through the listeners of the resource's class map, so consumers that only need class and member
+ * declarations do not have to parse the bytecode again.
+ * <br>
+ * Indexes of archive resources are cached on disk, keyed by the hash of the archive and the Recaf version.
+ * The cache is not used while {@link LoadInterceptorPlugin load interceptors} are active, since they can
+ * change the classes loaded from the same archive.
+ *
+ * @author Matt
+ */
+public class ClassIndex {
+	private static final int MAGIC = 0x52494458;
+	private static final int VERSION = 1;
+	private static final int MAX_CACHED = 32;
+	private static final String[] NO_STRINGS = new String[0];
+	private static final int[] NO_INTS = new int[0];
+	private static final Interner<String> STRINGS = Interners.newWeakInterner();
+	private final Map<String, IndexedClass> classes = new ConcurrentHashMap<>();
+	private final JavaResource resource;
+	/**
+	 * Classes changed while the index is being built, so the snapshot of the build does not replace them.
+	 * {@code null} once the index is built.
+	 */
+	private Set<String> changedDuringBuild = new HashSet<>();
+
+	/**
+	 * @param resource
+	 * 		Resource to index.
+	 */
+	ClassIndex(JavaResource resource) {
+		this.resource = resource;
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 *
+	 * @return Indexed structure of the class, or {@code null} if the resource does not contain the class.
+	 */
+	public IndexedClass get(String name) {
+		return classes.get(name);
+	}
+
+	/**
+	 * @return All indexed classes.
+	 */
+	public Collection<IndexedClass> getClasses() {
+		return Collections.unmodifiableCollection(classes.values());
+	}
+
+	/**
+	 * @return Number of indexed classes.
+	 */
+	public int size() {
+		return classes.size();
+	}
+
+	/**
+	 * Populate the index and register listeners to keep it updated.
+	 *
+	 * @param map
+	 * 		Class map of the resource.
+	 */
+	void build(ListeningMap<String, byte[]> map) {
+		long start = System.currentTimeMillis();
+		map.getPutListeners().add(InternalBiConsumer.internal((name, value) -> update(name, value, false)));
+		map.getRemoveListeners().add(InternalConsumer.internal(name -> put((String) name, null, false)));
+		Path cacheFile = getCacheFile();
+		Map<String, IndexedClass> loaded = cacheFile == null ? null : load(cacheFile, map.keySet());
+		if (loaded != null)
+			loaded.forEach((name, cls) -> put(name, cls, true));
+		else
+			new ArrayList<>(map.keySet()).parallelStream().forEach(name -> update(name, map.get(name), true));
+		boolean changed;
+		synchronized(this) {
+			changed = !changedDuringBuild.isEmpty();
+			changedDuringBuild = null;
+		}
+		if (loaded != null) {
+			debug("Loaded class index of {} classes from cache in {}ms", classes.size(),
+					System.currentTimeMillis() - start);
+		} else {
+			debug("Indexed {} classes in {}ms", classes.size(), System.currentTimeMillis() - start);
+			// The index no longer matches the archive if classes were changed while building it
+			if (cacheFile != null && !changed)
+				save(cacheFile);
+		}
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 * @param value
+	 * 		Class bytecode, or {@code null} if the class was removed.
+	 * @param snapshot
+	 * 		{@code true} when indexing the classes at the start of the build, which may be outdated by changes
+	 * 		made while the build runs.
+	 */
+	private void update(String name, byte[] value, boolean snapshot) {
+		IndexedClass cls = null;
+		if (value != null) {
+			try {
+				cls = parse(value);
+			} catch (Exception ex) {
+				debug("Could not index class '{}': {}", name, ex.toString());
+			}
+		}
+		put(name, cls, snapshot);
+	}
+
+	private synchronized void put(String name, IndexedClass cls, boolean snapshot) {
+		if (changedDuringBuild != null) {
+			if (snapshot && changedDuringBuild.contains(name))
+				return;
+			if (!snapshot)
+				changedDuringBuild.add(name);
+		}
+		if (cls == null)
+			classes.remove(name);
+		else
+			classes.put(name, cls);
+	}
+
+	/**
+	 * @param value
+	 * 		Class bytecode.
+	 *
+	 * @return Indexed structure of the class.
+	 */
+	static IndexedClass parse(byte[] value) {
+		ClassReader reader = new ClassReader(value);
+		List<String> fieldNames = new ArrayList<>();
+		List<String> fieldDescs = new ArrayList<>();
+		List<Integer> fieldAccess = new ArrayList<>();
+		List<String> methodNames = new ArrayList<>();
+		List<String> methodDescs = new ArrayList<>();
+		List<Integer> methodAccess = new ArrayList<>();
+		reader.accept(new ClassVisitor(Recaf.ASM_VERSION) {
+			@Override
+			public FieldVisitor visitField(int access, String name, String desc, String sig, Object value) {
+				fieldNames.add(name);
+				fieldDescs.add(desc);
+				fieldAccess.add(access);
+				return null;
+			}
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String desc, String sig, String[] ex) {
+				methodNames.add(name);
+				methodDescs.add(desc);
+				methodAccess.add(access);
+				return null;
+			}
+		}, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		return new IndexedClass(intern(reader.getClassName()), intern(reader.getSuperName()),
+				intern(reader.getInterfaces()), reader.getAccess(),
+				intern(fieldNames), intern(fieldDescs), toArray(fieldAccess),
+				intern(methodNames), intern(methodDescs), toArray(methodAccess));
+	}
+
+	// ========================================= CACHE ========================================= //
+
+	private Path getCacheFile() {
+		if (!(resource instanceof FileSystemResource) || !resource.getDirtyClasses().isEmpty() ||
+				!PluginsManager.getInstance().ofType(LoadInterceptorPlugin.class).isEmpty())
+			return null;
+		Path path = ((FileSystemResource) resource).getPath();
+		if (!Files.isRegularFile(path))
+			return null;
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+			String key = DigestUtils.sha1Hex(DigestUtils.sha1Hex(in) + '|' + Recaf.VERSION);
+			return Recaf.getDirectory("index").resolve(key + ".idx");
+		} catch (IOException ex) {
+			debug("Could not hash '{}' for class index cache: {}", path, ex.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * @param cacheFile
+	 * 		Cached index of the resource.
+	 * @param names
+	 * 		Names of the classes in the resource.
+	 *
+	 * @return Indexed classes of the cache, or {@code null} if it cannot be used.
+	 */
+	private Map<String, IndexedClass> load(Path cacheFile, Set<String> names) {
+		if (!Files.isRegularFile(cacheFile))
+			return null;
+		Map<String, IndexedClass> loaded = new HashMap<>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return null;
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				loaded.put(key, read(in));
+			}
+		} catch (IOException ex) {
+			debug("Ignoring unreadable class index cache '{}': {}", cacheFile.getFileName(), ex.getMessage());
+			return null;
+		}
+		// Loading the same archive can still produce different classes, for instance with other skipped prefixes
+		return loaded.keySet().equals(names) ? loaded : null;
+	}
+
+	private void save(Path cacheFile) {
+		try {
+			Files.createDirectories(cacheFile.getParent());
+			Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				Map<String, IndexedClass> snapshot = new HashMap<>(classes);
+				out.writeInt(snapshot.size());
+				for (Map.Entry<String, IndexedClass> e : snapshot.entrySet()) {
+					out.writeUTF(e.getKey());
+					write(out, e.getValue());
+				}
+			}
+			Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+			prune(cacheFile.getParent());
+		} catch (IOException | RuntimeException ex) {
+			// Names longer than the modified UTF-8 limit cannot be written, the index still works without a cache
+			debug("Could not write class index cache '{}': {}", cacheFile.getFileName(), ex.toString());
+		}
+	}
+
+	private static void prune(Path directory) throws IOException {
+		List<Path> files;
+		try (Stream<Path> stream = Files.list(directory)) {
+			files = stream.filter(p -> p.toString().endsWith(".idx")).collect(Collectors.toList());
+		}
+		if (files.size() <= MAX_CACHED)
+			return;
+		files.sort(Comparator.comparingLong(p -> p.toFile().lastModified()));
+		for (Path file : files.subList(0, files.size() - MAX_CACHED))
+			Files.deleteIfExists(file);
+	}
+
+	private static void write(DataOutputStream out, IndexedClass cls) throws IOException {
+		out.writeUTF(cls.getName());
+		out.writeBoolean(cls.getSuperName() != null);
+		if (cls.getSuperName() != null)
+			out.writeUTF(cls.getSuperName());
+		out.writeInt(cls.getAccess());
+		writeStrings(out, cls.interfaces());
+		writeMembers(out, cls.fieldNames(), cls.fieldDescs(), cls.fieldAccess());
+		writeMembers(out, cls.methodNames(), cls.methodDescs(), cls.methodAccess());
+	}
+
+	private static IndexedClass read(DataInputStream in) throws IOException {
+		String name = intern(in.readUTF());
+		String superName = in.readBoolean() ? intern(in.readUTF()) : null;
+		int access = in.readInt();
+		String[] interfaces = readStrings(in, in.readInt());
+		int fields = in.readInt();
+		String[] fieldNames = readStrings(in, fields);
+		String[] fieldDescs = readStrings(in, fields);
+		int[] fieldAccess = readInts(in, fields);
+		int methods = in.readInt();
+		String[] methodNames = readStrings(in, methods);
+		String[] methodDescs = readStrings(in, methods);
+		int[] methodAccess = readInts(in, methods);
+		return new IndexedClass(name, superName, interfaces, access, fieldNames, fieldDescs, fieldAccess,
+				methodNames, methodDescs, methodAccess);
+	}
+
+	private static void writeMembers(DataOutputStream out, String[] names, String[] descs, int[] access)
+			throws IOException {
+		out.writeInt(names.length);
+		for (String name : names)
+			out.writeUTF(name);
+		for (String desc : descs)
+			out.writeUTF(desc);
+		for (int acc : access)
+			out.writeInt(acc);
+	}
+
+	private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+		out.writeInt(values.length);
+		for (String value : values)
+			out.writeUTF(value);
+	}
+
+	private static String[] readStrings(DataInputStream in, int count) throws IOException {
+		if (count == 0)
+			return NO_STRINGS;
+		String[] values = new String[count];
+		for (int i = 0; i < count; i++)
+			values[i] = intern(in.readUTF());
+		return values;
+	}
+
+	private static int[] readInts(DataInputStream in, int count) throws IOException {
+		if (count == 0)
+			return NO_INTS;
+		int[] values = new int[count];
+		for (int i = 0; i < count; i++)
+			values[i] = in.readInt();
+		return values;
+	}
+
+	// ========================================= UTILS ========================================= //
+
+	private static String intern(String value) {
+		return value == null ? null : STRINGS.intern(value);
+	}
+
+	private static String[] intern(String[] values) {
+		if (values.length == 0)
+			return NO_STRINGS;
+		for (int i = 0; i < values.length; i++)
+			values[i] = intern(values[i]);
+		return values;
+	}
+
+	private static String[] intern(List<String> values) {
+		return intern(values.toArray(NO_STRINGS));
+	}
+
+	private static int[] toArray(List<Integer> values) {
+		if (values.isEmpty())
+			return NO_INTS;
+		int[] array = new int[values.size()];
+		for (int i = 0; i < array.length; i++)
+			array[i] = values.get(i);
+		return array;
+	}
+}
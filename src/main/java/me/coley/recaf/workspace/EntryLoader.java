@@ -13,7 +13,9 @@ import org.objectweb.asm.ClassReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.zip.ZipEntry;
@@ -30,6 +32,8 @@ public class EntryLoader {
 	private final Map<String, byte[]> files = new HashMap<>();
 	private final Map<String, byte[]> invalidClasses = new HashMap<>();
 	private final Map<String, byte[]> invalidJunkClasses = new HashMap<>();
+	private final Set<byte[]> validatedClasses =
+			Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
 
 	/**
 	 * @return New archive entry loader instance.
@@ -57,7 +61,7 @@ public class EntryLoader {
 	 */
 	public boolean onClass(String entryName, byte[] value) {
 		// Check if class is valid. If it is not it will be stored for later.
-		if (!ClassUtil.isValidClass(value)) {
+		if (!validatedClasses.remove(value) && !ClassUtil.isValidClass(value)) {
 			try {
 				// If the data can be read, overwrite whatever entry we have previously seen
 				new ClassFileReader().read(value);
@@ -96,6 +100,23 @@ public class EntryLoader {
 		return true;
 	}
 
+	/**
+	 * Validate class bytecode ahead of {@link #onClass(String, byte[])}.
+	 * Unlike the other loader methods this is safe to call from multiple threads at once, which allows
+	 * the expensive ASM parse to be done in parallel while classes are still registered in archive order.
+	 *
+	 * @param value
+	 * 		Class's bytecode.
+	 *
+	 * @return {@code true} when the class can be read by ASM.
+	 */
+	public boolean preValidateClass(byte[] value) {
+		boolean valid = ClassUtil.isValidClass(value);
+		if (valid)
+			validatedClasses.add(value);
+		return valid;
+	}
+
 	/**
 	 * Add the class to the loaded classes map.
 	 *
@@ -209,6 +230,7 @@ public class EntryLoader {
 	 * Called when all classes in the jar have been read.
 	 */
 	public void finishClasses() {
+		validatedClasses.clear();
 		Collection<LoadInterceptorPlugin> interceptors =
 				PluginsManager.getInstance().ofType(LoadInterceptorPlugin.class);
 		for (Map.Entry<String, byte[]> e : invalidClasses.entrySet()) {
@@ -1,24 +1,40 @@
 package me.coley.recaf.workspace;
 
+import me.coley.recaf.util.DeltaUtil;
 import me.coley.recaf.util.struct.ListeningMap;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.List;
 import java.util.Stack;
+import java.util.function.Supplier;
 
 import static me.coley.recaf.util.Log.*;
 
 /**
  * History manager for files.
+ * <br>
+ * Only the most recent state is kept as-is. The initial state is fetched from a supplier, allowing it to
+ * reference content that is not on the heap. States in between are kept as deltas against the state after
+ * them in the {@link HistoryStore}, which may move them to disk.
  *
  * @author Matt
  */
 public class History {
-	// TODO: For large inputs it would make sense to offload this to the file system.
-	//  - But only for large inputs. In-memory is much faster and should be the default.
 	/**
-	 * Stack of changed content.
+	 * Initial state of the content. {@code null} when there is no history.
 	 */
-	private final Stack<byte[]> stack = new Stack<>();
+	private Supplier<byte[]> initial;
+	/**
+	 * Deltas of the states between the initial and the most recent state.
+	 * Each delta is applied to the state that follows it.
+	 */
+	private final List<HistoryStore.Record> deltas = new ArrayList<>();
+	/**
+	 * Most recent state. {@code null} when the initial state is the most recent.
+	 */
+	private byte[] top;
 	/**
 	 * Stack of when the content was changed.
 	 */
@@ -53,7 +69,7 @@ public class History {
 	 * @return Size of history for the current file.
 	 */
 	public int size() {
-		return stack.size();
+		return times.size();
 	}
 
 	/**
@@ -67,7 +83,10 @@ public class History {
 	 * Wipe all items from the history.
 	 */
 	public void clear() {
-		stack.clear();
+		deltas.forEach(HistoryStore.Record::release);
+		deltas.clear();
+		initial = null;
+		top = null;
 		times.clear();
 	}
 
@@ -94,18 +113,25 @@ public class History {
 	 */
 	public byte[] pop() {
 		Instant time = times.pop();
-		byte[] content = stack.pop();
+		byte[] content = top != null ? top : initial.get();
 		if (content != null) {
 			map.put(name, content);
 			// If the size is now 0, we just pop'd the initial state.
 			// Since we ALWAYS want to keep the initial state we will push it back.
 			if (size() == 0) {
 				times.push(time);
-				stack.push(content);
 				atInitial = true;
 				info("Reverted '{}' - initial state", name);
 			} else {
-				info("Reverted '{}' - {} total", name, stack.size());
+				// Rebuild the prior state so that it is ready for the next peek/pop
+				if (deltas.isEmpty()) {
+					top = null;
+				} else {
+					HistoryStore.Record delta = deltas.remove(deltas.size() - 1);
+					top = DeltaUtil.apply(content, delta.get());
+					delta.release();
+				}
+				info("Reverted '{}' - {} total", name, size());
 			}
 		} else {
 			throw new IllegalStateException("No history to revert to!");
@@ -117,7 +143,9 @@ public class History {
 	 * @return Most recent version of the tracked file.
 	 */
 	public byte[] peek() {
-		return stack.peek();
+		if (times.isEmpty())
+			throw new EmptyStackException();
+		return top != null ? top : initial.get();
 	}
 
 	/**
@@ -128,12 +156,33 @@ public class History {
 	 * 		Changed value.
 	 */
 	public void push(byte[] modified) {
-		stack.push(modified);
+		if (times.isEmpty()) {
+			pushInitial(() -> modified);
+			return;
+		}
+		// The prior state is only kept as a delta. The initial state is always available from its supplier.
+		if (top != null)
+			deltas.add(HistoryStore.getInstance().store(DeltaUtil.diff(modified, top)));
+		top = modified;
 		times.push(Instant.now());
-		// Don't log the initial push
-		if(stack.size() > 1) {
-			info("Saved '{}' - {} total", name, stack.size());
-			atInitial = false;
+		info("Saved '{}' - {} total", name, size());
+		atInitial = false;
+	}
+
+	/**
+	 * Sets the initial state of an item without any history.
+	 * Unlike {@link #push(byte[])} the content is not held by the history.
+	 * If there already is history, this acts like {@link #push(byte[])}.
+	 *
+	 * @param content
+	 * 		Supplier of the initial content.
+	 */
+	public void pushInitial(Supplier<byte[]> content) {
+		if (!times.isEmpty()) {
+			push(content.get());
+			return;
 		}
+		initial = content;
+		times.push(Instant.now());
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,179 @@
+package me.coley.recaf.workspace;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Shared storage for {@link History} save states. Records are kept in memory until the total size exceeds
+ * the memory budget, at which point the oldest records are moved to a temporary log file.
+ *
+ * @author Matt
+ */
+public class HistoryStore {
+	private static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+	private static final HistoryStore INSTANCE = new HistoryStore();
+	private final Set<Record> resident = new LinkedHashSet<>();
+	private long residentSize;
+	private long memoryBudget = DEFAULT_BUDGET;
+	private int spilledCount;
+	private RandomAccessFile log;
+	private Path logPath;
+
+	/**
+	 * @return Shared store instance.
+	 */
+	public static HistoryStore getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return Maximum number of bytes kept in memory before records are moved to disk.
+	 */
+	public synchronized long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * @param memoryBudget
+	 * 		Maximum number of bytes kept in memory before records are moved to disk.
+	 */
+	public synchronized void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = Math.max(0, memoryBudget);
+		spill();
+	}
+
+	/**
+	 * @return Number of bytes of records currently held in memory.
+	 */
+	public synchronized long getResidentSize() {
+		return residentSize;
+	}
+
+	/**
+	 * @param data
+	 * 		Content to store.
+	 *
+	 * @return Handle to the stored content.
+	 */
+	public synchronized Record store(byte[] data) {
+		Record record = new Record(data);
+		resident.add(record);
+		residentSize += data.length;
+		spill();
+		return record;
+	}
+
+	private void spill() {
+		Iterator<Record> it = resident.iterator();
+		while (residentSize > memoryBudget && it.hasNext()) {
+			Record record = it.next();
+			try {
+				RandomAccessFile file = getLog();
+				record.offset = file.length();
+				file.seek(record.offset);
+				file.write(record.data);
+			} catch (IOException ex) {
+				// Keeping the content in memory is always an option
+				error(ex, "Failed to move history to disk, keeping it in memory instead");
+				return;
+			}
+			residentSize -= record.length;
+			record.data = null;
+			spilledCount++;
+			it.remove();
+		}
+	}
+
+	private byte[] read(Record record) {
+		if (record.data != null)
+			return record.data;
+		try {
+			byte[] data = new byte[record.length];
+			log.seek(record.offset);
+			log.readFully(data);
+			return data;
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Failed to read history from disk", ex);
+		}
+	}
+
+	private void release(Record record) {
+		if (record.released)
+			return;
+		record.released = true;
+		if (record.data != null) {
+			resident.remove(record);
+			residentSize -= record.length;
+			record.data = null;
+		} else if (--spilledCount == 0) {
+			// Nothing on disk is referenced anymore, so the log can start over
+			try {
+				log.setLength(0);
+			} catch (IOException ex) {
+				warn("Failed to truncate history log: {}", ex.getMessage());
+			}
+		}
+	}
+
+	private RandomAccessFile getLog() throws IOException {
+		if (log == null) {
+			logPath = Files.createTempFile("recaf-history", ".log");
+			logPath.toFile().deleteOnExit();
+			log = new RandomAccessFile(logPath.toFile(), "rw");
+			debug("Created history log: {}", logPath);
+		}
+		return log;
+	}
+
+	/**
+	 * Handle to content in the store.
+	 */
+	public final class Record {
+		private final int length;
+		private byte[] data;
+		private long offset;
+		private boolean released;
+
+		private Record(byte[] data) {
+			this.data = data;
+			this.length = data.length;
+		}
+
+		/**
+		 * @return Stored content.
+		 */
+		public byte[] get() {
+			synchronized(HistoryStore.this) {
+				if (released)
+					throw new IllegalStateException("Record has been released");
+				return read(this);
+			}
+		}
+
+		/**
+		 * Discard the content. The record can no longer be read afterwards.
+		 */
+		public void release() {
+			synchronized(HistoryStore.this) {
+				HistoryStore.this.release(this);
+			}
+		}
+
+		/**
+		 * @return {@code true} when the content has been moved to disk.
+		 */
+		public boolean isSpilled() {
+			synchronized(HistoryStore.this) {
+				return data == null && !released;
+			}
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package me.coley.recaf.workspace;
+
+import java.util.Arrays;
+
+/**
+ * Structure of a class as stored in a {@link ClassIndex}.
+ * Members are stored in parallel arrays rather than as individual objects.
+ *
+ * @author Matt
+ */
+public final class IndexedClass {
+	private final String name;
+	private final String superName;
+	private final String[] interfaces;
+	private final int access;
+	private final String[] fieldNames;
+	private final String[] fieldDescs;
+	private final int[] fieldAccess;
+	private final String[] methodNames;
+	private final String[] methodDescs;
+	private final int[] methodAccess;
+
+	IndexedClass(String name, String superName, String[] interfaces, int access,
+				 String[] fieldNames, String[] fieldDescs, int[] fieldAccess,
+				 String[] methodNames, String[] methodDescs, int[] methodAccess) {
+		this.name = name;
+		this.superName = superName;
+		this.interfaces = interfaces;
+		this.access = access;
+		this.fieldNames = fieldNames;
+		this.fieldDescs = fieldDescs;
+		this.fieldAccess = fieldAccess;
+		this.methodNames = methodNames;
+		this.methodDescs = methodDescs;
+		this.methodAccess = methodAccess;
+	}
+
+	/**
+	 * @return Class name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return Parent class name. May be {@code null} for {@code java/lang/Object} and module-info.
+	 */
+	public String getSuperName() {
+		return superName;
+	}
+
+	/**
+	 * @return Copy of the implemented interface names.
+	 */
+	public String[] getInterfaces() {
+		return interfaces.clone();
+	}
+
+	/**
+	 * @return Class access flags.
+	 */
+	public int getAccess() {
+		return access;
+	}
+
+	/**
+	 * @return Number of declared fields.
+	 */
+	public int getFieldCount() {
+		return fieldNames.length;
+	}
+
+	/**
+	 * @param index
+	 * 		Field index.
+	 *
+	 * @return Field name.
+	 */
+	public String getFieldName(int index) {
+		return fieldNames[index];
+	}
+
+	/**
+	 * @param index
+	 * 		Field index.
+	 *
+	 * @return Field descriptor.
+	 */
+	public String getFieldDesc(int index) {
+		return fieldDescs[index];
+	}
+
+	/**
+	 * @param index
+	 * 		Field index.
+	 *
+	 * @return Field access flags.
+	 */
+	public int getFieldAccess(int index) {
+		return fieldAccess[index];
+	}
+
+	/**
+	 * @return Number of declared methods.
+	 */
+	public int getMethodCount() {
+		return methodNames.length;
+	}
+
+	/**
+	 * @param index
+	 * 		Method index.
+	 *
+	 * @return Method name.
+	 */
+	public String getMethodName(int index) {
+		return methodNames[index];
+	}
+
+	/**
+	 * @param index
+	 * 		Method index.
+	 *
+	 * @return Method descriptor.
+	 */
+	public String getMethodDesc(int index) {
+		return methodDescs[index];
+	}
+
+	/**
+	 * @param index
+	 * 		Method index.
+	 *
+	 * @return Method access flags.
+	 */
+	public int getMethodAccess(int index) {
+		return methodAccess[index];
+	}
+
+	/**
+	 * @param name
+	 * 		Field name.
+	 * @param desc
+	 * 		Field descriptor.
+	 *
+	 * @return Index of the field, or {@code -1} if the class does not declare it.
+	 */
+	public int findField(String name, String desc) {
+		return find(fieldNames, fieldDescs, name, desc);
+	}
+
+	/**
+	 * @param name
+	 * 		Method name.
+	 * @param desc
+	 * 		Method descriptor.
+	 *
+	 * @return Index of the method, or {@code -1} if the class does not declare it.
+	 */
+	public int findMethod(String name, String desc) {
+		return find(methodNames, methodDescs, name, desc);
+	}
+
+	/**
+	 * @param name
+	 * 		Method name.
+	 * @param desc
+	 * 		Method descriptor.
+	 *
+	 * @return {@code true} if the class declares the method.
+	 */
+	public boolean hasMethod(String name, String desc) {
+		return findMethod(name, desc) >= 0;
+	}
+
+	private static int find(String[] names, String[] descs, String name, String desc) {
+		for (int i = 0; i < names.length; i++)
+			if (names[i].equals(name) && descs[i].equals(desc))
+				return i;
+		return -1;
+	}
+
+	String[] interfaces() {
+		return interfaces;
+	}
+
+	String[] fieldNames() {
+		return fieldNames;
+	}
+
+	String[] fieldDescs() {
+		return fieldDescs;
+	}
+
+	int[] fieldAccess() {
+		return fieldAccess;
+	}
+
+	String[] methodNames() {
+		return methodNames;
+	}
+
+	String[] methodDescs() {
+		return methodDescs;
+	}
+
+	int[] methodAccess() {
+		return methodAccess;
+	}
+
+	@Override
+	public String toString() {
+		return name + " extends " + superName + " implements " + Arrays.toString(interfaces);
+	}
+}
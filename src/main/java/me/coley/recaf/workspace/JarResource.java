@@ -1,5 +1,7 @@
 package me.coley.recaf.workspace;
 
+import me.coley.recaf.Recaf;
+import me.coley.recaf.control.Controller;
 import me.coley.recaf.util.IOUtil;
 
 import java.io.*;
@@ -10,12 +12,20 @@ import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+import static me.coley.recaf.util.Log.*;
+
 /**
  * Importable jar resource.
  *
  * @author Matt
  */
 public class JarResource extends ArchiveResource {
+	private static final long MAPPED_CACHE_SIZE = 32L * 1024 * 1024;
+	private final List<MappedArchiveMap> mappedMaps = new ArrayList<>();
+	private ParallelArchiveReader reader;
+	private boolean filesLoaded;
+	private boolean mappedStorage = isMappedStorageDefault();
+
 	/**
 	 * Constructs a jar resource.
 	 *
@@ -29,8 +39,65 @@ public class JarResource extends ArchiveResource {
 		super(ResourceKind.JAR, path);
 	}
 
+	/**
+	 * @return {@code true} when unmodified content is kept in a memory mapped view of the archive
+	 * rather than on the heap.
+	 */
+	public boolean isMappedStorage() {
+		return mappedStorage;
+	}
+
+	/**
+	 * Only affects content loaded after this call.
+	 *
+	 * @param mappedStorage
+	 * 		Flag to keep unmodified content in a memory mapped view of the archive rather than on the heap.
+	 * 		Modified content is always kept on the heap.
+	 */
+	public void setMappedStorage(boolean mappedStorage) {
+		this.mappedStorage = mappedStorage;
+	}
+
+	/**
+	 * Read all content that is still backed by the archive onto the heap and release the mapping.
+	 * This must be done before the archive file is overwritten.
+	 */
+	public void detachMappedStorage() {
+		synchronized(mappedMaps) {
+			mappedMaps.forEach(MappedArchiveMap::detach);
+			mappedMaps.clear();
+		}
+	}
+
 	@Override
 	protected Map<String, byte[]> loadClasses() throws IOException {
+		// Read the central directory once, then inflate and validate entries in parallel.
+		// The reader is kept so the files do not have to be read a second time in "loadFiles()".
+		ParallelArchiveReader parallelReader =
+				new ParallelArchiveReader(getPath(), getEntryLoader(), this::shouldSkip);
+		MappedArchive archive = mappedStorage ? mapArchive(parallelReader) : null;
+		try {
+			parallelReader.read(!filesLoaded);
+		} catch (ZipException ex) {
+			if (archive != null)
+				archive.close();
+			debug("Falling back to sequential read of '{}': {}", getPath().getFileName(), ex.getMessage());
+			reader = null;
+			return loadClassesSequentially();
+		}
+		reader = parallelReader;
+		return parallelReader.loadClasses();
+	}
+
+	/**
+	 * Read classes with a {@link ZipInputStream}, which respects local entry headers over the central directory.
+	 *
+	 * @return Map of class names to their bytecode.
+	 *
+	 * @throws IOException
+	 * 		When the resource could not be fetched or parsed.
+	 */
+	private Map<String, byte[]> loadClassesSequentially() throws IOException {
 		// iterate jar entries
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		byte[] buffer = new byte[8192];
@@ -109,6 +176,13 @@ public class JarResource extends ArchiveResource {
 
 	@Override
 	protected Map<String, byte[]> loadFiles() throws IOException {
+		filesLoaded = true;
+		// Files were already read alongside the classes
+		if (reader != null) {
+			ParallelArchiveReader parallelReader = reader;
+			reader = null;
+			return parallelReader.loadFiles();
+		}
 		// iterate jar entries
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		byte[] buffer = new byte[8192];
@@ -134,4 +208,43 @@ public class JarResource extends ArchiveResource {
 		loader.finishFiles();
 		return loader.getFiles();
 	}
+
+	@Override
+	protected Map<String, byte[]> copyMap(Map<String, byte[]> map) {
+		if (map instanceof MappedArchiveMap) {
+			// Already a standalone copy, copying it would inflate every entry
+			synchronized(mappedMaps) {
+				mappedMaps.add((MappedArchiveMap) map);
+			}
+			return map;
+		}
+		return super.copyMap(map);
+	}
+
+	@Override
+	public void invalidate() {
+		reader = null;
+		filesLoaded = false;
+		synchronized(mappedMaps) {
+			mappedMaps.forEach(MappedArchiveMap::release);
+			mappedMaps.clear();
+		}
+		super.invalidate();
+	}
+
+	private MappedArchive mapArchive(ParallelArchiveReader parallelReader) throws IOException {
+		try {
+			MappedArchive archive = new MappedArchive(getPath());
+			parallelReader.setMappedArchive(archive, MAPPED_CACHE_SIZE);
+			return archive;
+		} catch (ZipException ex) {
+			debug("Cannot map '{}', content will be kept on the heap: {}", getPath().getFileName(), ex.getMessage());
+			return null;
+		}
+	}
+
+	private static boolean isMappedStorageDefault() {
+		Controller controller = Recaf.getController();
+		return controller != null && controller.config().backend().mappedStorage;
+	}
 }
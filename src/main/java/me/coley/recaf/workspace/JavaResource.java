@@ -16,6 +16,8 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Supplier;
 import java.util.zip.*;
 
 import static me.coley.recaf.util.Log.*;
@@ -37,6 +39,8 @@ public abstract class JavaResource {
 	private final Set<String> dirtyFiles = new HashSet<>();
 	private final Map<String, SourceCode> classSource = new HashMap<>();
 	private final Map<String, Javadocs> classDocs = new HashMap<>();
+	private ClassIndex classIndex;
+	private NavigableSet<String> sortedClassNames;
 	private Path classSourceFile;
 	private Path classDocsFile;
 	private boolean isPrimary;
@@ -194,6 +198,13 @@ public abstract class JavaResource {
 		}
 	}
 
+	private void addInitialClassSave(Map<String, byte[]> backing, String name) {
+		if (isPrimary()) {
+			History history = classHistory.computeIfAbsent(name, key -> new History(cachedClasses, key));
+			history.pushInitial(initialState(backing, name));
+		}
+	}
+
 	/**
 	 * Create a save-state for the file.
 	 *
@@ -220,6 +231,32 @@ public abstract class JavaResource {
 		}
 	}
 
+	private void addInitialFileSave(Map<String, byte[]> backing, String name) {
+		if (isPrimary()) {
+			History history = fileHistory.computeIfAbsent(name, key -> new History(cachedFiles, key));
+			history.pushInitial(initialState(backing, name));
+		}
+	}
+
+	/**
+	 * @param backing
+	 * 		Map of loaded content.
+	 * @param name
+	 * 		Key of the content.
+	 *
+	 * @return Supplier of the content as it was loaded.
+	 */
+	private static Supplier<byte[]> initialState(Map<String, byte[]> backing, String name) {
+		// Mapped content can be read again from the archive, so it does not need to be kept around
+		if (backing instanceof MappedArchiveMap) {
+			Supplier<byte[]> original = ((MappedArchiveMap) backing).getOriginal(name);
+			if (original != null)
+				return original;
+		}
+		byte[] value = backing.get(name);
+		return () -> value;
+	}
+
 	/**
 	 * @return Map of class names to their bytecode.
 	 */
@@ -227,7 +264,8 @@ public abstract class JavaResource {
 		synchronized(cachedClasses) {
 			if (!cachedClasses.isBacked()) {
 				try {
-					cachedClasses.setBacking(copyMap(loadClasses()));
+					Map<String, byte[]> backing = copyMap(loadClasses());
+					cachedClasses.setBacking(backing);
 					// If this resource is not the primary resource, we are done
 					if (!isPrimary())
 						return cachedClasses;
@@ -236,8 +274,8 @@ public abstract class JavaResource {
 							.add(InternalBiConsumer.internal((name, code) -> dirtyClasses.add(name)));
 					cachedClasses.getRemoveListeners().add(InternalConsumer.internal(dirtyClasses::remove));
 					// Create initial save state
-					for (Map.Entry<String, byte[]> e : cachedClasses.entrySet()) {
-						addClassSave(e.getKey(), e.getValue());
+					for (String name : backing.keySet()) {
+						addInitialClassSave(backing, name);
 					}
 					// Add listener to create initial save states for newly made classes
 					cachedClasses.getPutListeners().add(InternalBiConsumer.internal((name, code) -> {
@@ -254,6 +292,46 @@ public abstract class JavaResource {
 		return cachedClasses;
 	}
 
+	/**
+	 * @return Index of the class structures in this resource.
+	 */
+	public ClassIndex getClassIndex() {
+		ListeningMap<String, byte[]> classes = getClasses();
+		synchronized(cachedClasses) {
+			if (classIndex == null) {
+				classIndex = new ClassIndex(this);
+				classIndex.build(classes);
+			}
+			return classIndex;
+		}
+	}
+
+	/**
+	 * @param name
+	 * 		Name of a class in this resource.
+	 *
+	 * @return Sorted names of the classes nested in the class, such as {@code name$Inner} and {@code name$1$2}.
+	 * The set is a view that follows changes to the classes of this resource.
+	 */
+	public SortedSet<String> getNestedClassNames(String name) {
+		// '%' is the character after '$'
+		return getSortedClassNames().subSet(name + '$', name + '%');
+	}
+
+	private NavigableSet<String> getSortedClassNames() {
+		ListeningMap<String, byte[]> classes = getClasses();
+		synchronized(cachedClasses) {
+			if (sortedClassNames == null) {
+				NavigableSet<String> names = new ConcurrentSkipListSet<>();
+				classes.getPutListeners().add(InternalBiConsumer.internal((name, value) -> names.add(name)));
+				classes.getRemoveListeners().add(InternalConsumer.internal(names::remove));
+				names.addAll(classes.keySet());
+				sortedClassNames = names;
+			}
+			return sortedClassNames;
+		}
+	}
+
 	/**
 	 * @return Map of file names to their raw data.
 	 */
@@ -261,7 +339,8 @@ public abstract class JavaResource {
 		synchronized(cachedFiles) {
 			try {
 				if (!cachedFiles.isBacked()) {
-					cachedFiles.setBacking(copyMap(loadFiles()));
+					Map<String, byte[]> backing = copyMap(loadFiles());
+					cachedFiles.setBacking(backing);
 					// If this resource is not the primary resource, we are done
 					if (!isPrimary())
 						return cachedFiles;
@@ -270,8 +349,8 @@ public abstract class JavaResource {
 							.add(InternalBiConsumer.internal((name, code) -> dirtyFiles.add(name)));
 					cachedFiles.getRemoveListeners().add(InternalConsumer.internal(dirtyFiles::remove));
 					// Create initial save state
-					for (Map.Entry<String, byte[]> e : cachedFiles.entrySet()) {
-						addFileSave(e.getKey(), e.getValue());
+					for (String name : backing.keySet()) {
+						addInitialFileSave(backing, name);
 					}
 					// Add listener to create initial save states for newly made files
 					cachedFiles.getPutListeners().add(InternalBiConsumer.internal((name, code) -> {
@@ -300,9 +379,14 @@ public abstract class JavaResource {
 		cachedClasses.getRemoveListeners().removeIf(InternalElement.INTERNAL_PREDICATE);
 		cachedClasses.clear();
 		cachedClasses.setBacking(null);
+		classIndex = null;
+		sortedClassNames = null;
 		classDocs.clear();
 		classSource.clear();
+		classHistory.values().forEach(History::clear);
 		classHistory.clear();
+		fileHistory.values().forEach(History::clear);
+		fileHistory.clear();
 	}
 
 	/**
@@ -0,0 +1,301 @@
+package me.coley.recaf.workspace;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Read-only view of an archive that is mapped into memory. Only the central directory is parsed up front,
+ * entry content is located and inflated on demand.
+ * <br>
+ * Zip64 archives are not supported.
+ * <br>
+ * Users {@link #retain() retain} the archive and {@link #release() release} it once they no longer read from it.
+ * The mapping is then released right away where the JDK allows it, rather than whenever the buffer is
+ * garbage collected, so the file can be overwritten again. Changes made to the file by other programs while
+ * it is mapped cannot be guarded against, reads may then fail with an {@link InternalError} or crash the JVM.
+ *
+ * @author Matt
+ */
+public class MappedArchive {
+	private static final int END_SIG = 0x06054b50;
+	private static final int CEN_SIG = 0x02014b50;
+	private static final int LOC_SIG = 0x04034b50;
+	private static final int END_SIZE = 22;
+	private static final int CEN_SIZE = 46;
+	private static final int LOC_SIZE = 30;
+	private static final int MAX_COMMENT = 0xFFFF;
+	private final Map<String, Entry> entries = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Path path;
+	private ByteBuffer buffer;
+	private int users;
+
+	/**
+	 * @param path
+	 * 		Path to the archive.
+	 *
+	 * @throws ZipException
+	 * 		When the archive cannot be mapped, either due to a malformed central directory or an unsupported
+	 * 		archive layout.
+	 * @throws IOException
+	 * 		When the archive cannot be read.
+	 */
+	public MappedArchive(Path path) throws IOException {
+		this.path = path;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new ZipException("Archive too large to map: " + size);
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		readCentralDirectory();
+	}
+
+	/**
+	 * @return Path to the archive.
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Register a user of the archive.
+	 *
+	 * @return {@code true} when the archive can be read until {@link #release()} is called.
+	 * {@code false} when the archive was already closed.
+	 */
+	public boolean retain() {
+		lock.writeLock().lock();
+		try {
+			if (buffer == null)
+				return false;
+			users++;
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Unregister a user of the archive, closing it once no users remain.
+	 */
+	public void release() {
+		lock.writeLock().lock();
+		try {
+			if (buffer != null && --users <= 0)
+				close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Drop the mapping regardless of remaining users. Later reads fail.
+	 */
+	public void close() {
+		lock.writeLock().lock();
+		try {
+			if (buffer == null)
+				return;
+			ByteBuffer mapped = buffer;
+			buffer = null;
+			unmap(mapped);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param name
+	 * 		Entry name.
+	 *
+	 * @return Entry handle, or {@code null} if no such entry exists.
+	 */
+	public Entry getEntry(String name) {
+		return entries.get(name);
+	}
+
+	/**
+	 * Inflate the content of an entry. Safe to call from multiple threads at once.
+	 *
+	 * @param entry
+	 * 		Entry handle.
+	 *
+	 * @return Entry content.
+	 *
+	 * @throws ZipException
+	 * 		When the entry data is malformed, or the archive was closed.
+	 */
+	public byte[] read(Entry entry) throws ZipException {
+		// Unmapping while the buffer is read would crash the JVM
+		lock.readLock().lock();
+		try {
+			if (buffer == null)
+				throw new ZipException("Archive was closed, cannot read: " + entry.name);
+			return read(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN), entry);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static byte[] read(ByteBuffer view, Entry entry) throws ZipException {
+		int local = entry.localOffset;
+		if (local < 0 || local + LOC_SIZE > view.limit() || view.getInt(local) != LOC_SIG)
+			throw new ZipException("Invalid local header for: " + entry.name);
+		int dataOffset = local + LOC_SIZE + u2(view, local + 26) + u2(view, local + 28);
+		if (dataOffset + entry.compressedSize > view.limit())
+			throw new ZipException("Entry data out of bounds for: " + entry.name);
+		byte[] compressed = new byte[entry.compressedSize];
+		view.position(dataOffset);
+		view.get(compressed);
+		if (entry.method == ZipEntry.STORED)
+			return compressed;
+		Inflater inflater = new Inflater(true);
+		try {
+			byte[] value = new byte[entry.size];
+			inflater.setInput(compressed);
+			int read = 0;
+			while (read < value.length && !inflater.finished()) {
+				int n = inflater.inflate(value, read, value.length - read);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				read += n;
+			}
+			if (read != value.length)
+				throw new ZipException("Inflated size mismatch for: " + entry.name);
+			return value;
+		} catch (DataFormatException ex) {
+			throw new ZipException("Invalid deflate data for: " + entry.name);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private void readCentralDirectory() throws ZipException {
+		int end = findEnd();
+		int count = u2(buffer, end + 10);
+		long cenOffset = u4(buffer, end + 16);
+		if (count == 0xFFFF || cenOffset == 0xFFFFFFFFL)
+			throw new ZipException("Zip64 archives cannot be mapped");
+		int offset = (int) cenOffset;
+		for (int i = 0; i < count; i++) {
+			if (offset + CEN_SIZE > buffer.limit() || buffer.getInt(offset) != CEN_SIG)
+				throw new ZipException("Invalid central directory entry at: " + offset);
+			int flags = u2(buffer, offset + 8);
+			int method = u2(buffer, offset + 10);
+			long compressedSize = u4(buffer, offset + 20);
+			long size = u4(buffer, offset + 24);
+			int nameLen = u2(buffer, offset + 28);
+			int extraLen = u2(buffer, offset + 30);
+			int commentLen = u2(buffer, offset + 32);
+			long localOffset = u4(buffer, offset + 42);
+			if (offset + CEN_SIZE + nameLen > buffer.limit())
+				throw new ZipException("Invalid central directory entry name at: " + offset);
+			byte[] nameBytes = new byte[nameLen];
+			ByteBuffer view = buffer.duplicate();
+			view.position(offset + CEN_SIZE);
+			view.get(nameBytes);
+			String name = new String(nameBytes, StandardCharsets.UTF_8);
+			offset += CEN_SIZE + nameLen + extraLen + commentLen;
+			// Encrypted, zip64 and unknown compression entries are left to the regular readers
+			boolean encrypted = (flags & 1) != 0;
+			boolean supported = method == ZipEntry.STORED || method == ZipEntry.DEFLATED;
+			boolean zip64 = compressedSize >= Integer.MAX_VALUE || size >= Integer.MAX_VALUE ||
+					localOffset >= Integer.MAX_VALUE;
+			if (encrypted || !supported || zip64 || (method == ZipEntry.STORED && size != compressedSize))
+				continue;
+			entries.putIfAbsent(name, new Entry(name, method, (int) compressedSize, (int) size, (int) localOffset));
+		}
+	}
+
+	private int findEnd() throws ZipException {
+		int limit = buffer.limit();
+		int min = Math.max(0, limit - END_SIZE - MAX_COMMENT);
+		for (int i = limit - END_SIZE; i >= min; i--)
+			if (buffer.getInt(i) == END_SIG)
+				return i;
+		throw new ZipException("No end of central directory record found");
+	}
+
+	private void unmap(ByteBuffer mapped) {
+		try {
+			try {
+				// Java 9+
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field field = unsafeClass.getDeclaredField("theUnsafe");
+				field.setAccessible(true);
+				invokeCleaner.invoke(field.get(null), mapped);
+			} catch (NoSuchMethodException ex) {
+				// Java 8
+				Method getCleaner = mapped.getClass().getMethod("cleaner");
+				getCleaner.setAccessible(true);
+				Object cleaner = getCleaner.invoke(mapped);
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			debug("Cannot unmap '{}', the mapping is released once garbage collected: {}",
+					path.getFileName(), ex.toString());
+		}
+	}
+
+	private static int u2(ByteBuffer buffer, int offset) {
+		return buffer.getShort(offset) & 0xFFFF;
+	}
+
+	private static long u4(ByteBuffer buffer, int offset) {
+		return buffer.getInt(offset) & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Location of an entry's content in the mapped archive.
+	 */
+	public static final class Entry {
+		private final String name;
+		private final int method;
+		private final int compressedSize;
+		private final int size;
+		private final int localOffset;
+
+		private Entry(String name, int method, int compressedSize, int size, int localOffset) {
+			this.name = name;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localOffset = localOffset;
+		}
+
+		/**
+		 * @return Entry name.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Uncompressed size of the entry.
+		 */
+		public int getSize() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,300 @@
+package me.coley.recaf.workspace;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Map of archive content where unmodified entries are kept as locations in a {@link MappedArchive}.
+ * Values are inflated when requested and held in a size-bounded cache.
+ * Any value that is put into the map is kept on the heap.
+ * <br>
+ * The map releases its use of the archive once it is {@link #detach() detached} or {@link #release() released},
+ * dropping its reference to the archive.
+ *
+ * @author Matt
+ */
+public class MappedArchiveMap extends AbstractMap<String, byte[]> {
+	private final Map<String, Object> values = new HashMap<>();
+	private final Map<String, MappedArchive.Entry> originals = new HashMap<>();
+	private Map<String, byte[]> detachedOriginals;
+	private final Set<Map.Entry<String, byte[]>> entrySet = new EntrySet();
+	private final Cache<String, byte[]> cache;
+	private MappedArchive archive;
+
+	/**
+	 * @param archive
+	 * 		Archive to read unmodified content from, already {@link MappedArchive#retain() retained} for this map.
+	 * @param cacheSize
+	 * 		Maximum number of inflated bytes to keep cached.
+	 */
+	public MappedArchiveMap(MappedArchive archive, long cacheSize) {
+		this.archive = archive;
+		this.cache = CacheBuilder.newBuilder()
+				.maximumWeight(cacheSize)
+				.<String, byte[]>weigher((key, value) -> value.length)
+				.build();
+	}
+
+	/**
+	 * Add a value that can be read again from the archive.
+	 *
+	 * @param key
+	 * 		Map key.
+	 * @param entryName
+	 * 		Name of the archive entry holding the value.
+	 * @param value
+	 * 		The value read from the entry.
+	 *
+	 * @return {@code true} when the value is now backed by the archive.
+	 * {@code false} when the archive entry cannot be used, in which case nothing is added.
+	 */
+	public boolean putMapped(String key, String entryName, byte[] value) {
+		if (archive == null)
+			return false;
+		MappedArchive.Entry entry = archive.getEntry(entryName);
+		if (entry == null || entry.getSize() != value.length)
+			return false;
+		values.put(key, entry);
+		originals.put(key, entry);
+		cache.invalidate(key);
+		return true;
+	}
+
+	/**
+	 * @param key
+	 * 		Map key.
+	 *
+	 * @return Supplier of the value as it was in the archive, regardless of later changes to the map.
+	 * {@code null} if the key was never backed by the archive.
+	 */
+	public Supplier<byte[]> getOriginal(String key) {
+		if (!originals.containsKey(key))
+			return null;
+		return () -> readOriginal(key);
+	}
+
+	/**
+	 * @return Number of values currently backed by the archive.
+	 */
+	public int getMappedCount() {
+		int count = 0;
+		for (Object value : values.values())
+			if (value instanceof MappedArchive.Entry)
+				count++;
+		return count;
+	}
+
+	/**
+	 * Read all remaining archive-backed values onto the heap. Afterwards the map no longer depends on
+	 * the content of the archive file, so the file can safely be overwritten.
+	 */
+	public void detach() {
+		synchronized(originals) {
+			if (detachedOriginals != null)
+				return;
+			Map<String, byte[]> copies = new HashMap<>();
+			for (String key : originals.keySet())
+				copies.put(key, readOriginal(key));
+			for (Map.Entry<String, Object> e : values.entrySet())
+				if (e.getValue() instanceof MappedArchive.Entry)
+					e.setValue(copies.get(e.getKey()));
+			detachedOriginals = copies;
+			releaseArchive();
+		}
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Drop all content of the map, including the originals, and release the archive.
+	 */
+	public void release() {
+		synchronized(originals) {
+			values.clear();
+			originals.clear();
+			detachedOriginals = Collections.emptyMap();
+			releaseArchive();
+		}
+		cache.invalidateAll();
+	}
+
+	private void releaseArchive() {
+		if (archive != null) {
+			archive.release();
+			archive = null;
+		}
+	}
+
+	@Override
+	public byte[] get(Object key) {
+		Object value = values.get(key);
+		return value == null ? null : resolve((String) key, value);
+	}
+
+	@Override
+	public byte[] put(String key, byte[] value) {
+		return resolveOld(key, values.put(key, value));
+	}
+
+	@Override
+	public byte[] remove(Object key) {
+		return resolveOld((String) key, values.remove(key));
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return values.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return values.size();
+	}
+
+	@Override
+	public void clear() {
+		values.clear();
+		cache.invalidateAll();
+	}
+
+	@Override
+	public Set<Map.Entry<String, byte[]>> entrySet() {
+		return entrySet;
+	}
+
+	private byte[] readOriginal(String key) {
+		synchronized(originals) {
+			if (detachedOriginals != null)
+				return detachedOriginals.get(key);
+		}
+		Object current = values.get(key);
+		MappedArchive.Entry entry = originals.get(key);
+		// Share the cached value while the content is unchanged
+		if (current == entry)
+			return resolve(key, entry);
+		try {
+			return read(key, entry);
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Failed to read '" + entry.getName() + "'", ex);
+		}
+	}
+
+	private byte[] read(String key, MappedArchive.Entry entry) throws IOException {
+		MappedArchive current;
+		synchronized(originals) {
+			// Detached while the entry was looked up, archive-backed values are only ever originals
+			if (detachedOriginals != null)
+				return detachedOriginals.get(key);
+			current = archive;
+		}
+		return current.read(entry);
+	}
+
+	private byte[] resolveOld(String key, Object old) {
+		if (old instanceof MappedArchive.Entry) {
+			byte[] value = resolve(key, old);
+			cache.invalidate(key);
+			return value;
+		}
+		return (byte[]) old;
+	}
+
+	private byte[] resolve(String key, Object value) {
+		if (!(value instanceof MappedArchive.Entry))
+			return (byte[]) value;
+		MappedArchive.Entry entry = (MappedArchive.Entry) value;
+		try {
+			return cache.get(key, () -> read(key, entry));
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException)
+				throw new UncheckedIOException("Failed to read '" + entry.getName() + "'", (IOException) cause);
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Entry view that resolves values on access.
+	 */
+	private final class EntrySet extends AbstractSet<Map.Entry<String, byte[]>> {
+		@Override
+		public Iterator<Map.Entry<String, byte[]>> iterator() {
+			Iterator<Map.Entry<String, Object>> it = values.entrySet().iterator();
+			return new Iterator<Map.Entry<String, byte[]>>() {
+				private Map.Entry<String, Object> current;
+
+				@Override
+				public boolean hasNext() {
+					return it.hasNext();
+				}
+
+				@Override
+				public Map.Entry<String, byte[]> next() {
+					Map.Entry<String, Object> next = it.next();
+					current = next;
+					return new ValueEntry(next);
+				}
+
+				@Override
+				public void remove() {
+					it.remove();
+					cache.invalidate(current.getKey());
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return values.size();
+		}
+
+		@Override
+		public void clear() {
+			MappedArchiveMap.this.clear();
+		}
+	}
+
+	/**
+	 * Map entry wrapper that resolves the value on access.
+	 */
+	private final class ValueEntry implements Map.Entry<String, byte[]> {
+		private final Map.Entry<String, Object> backing;
+
+		private ValueEntry(Map.Entry<String, Object> backing) {
+			this.backing = backing;
+		}
+
+		@Override
+		public String getKey() {
+			return backing.getKey();
+		}
+
+		@Override
+		public byte[] getValue() {
+			return resolve(backing.getKey(), backing.getValue());
+		}
+
+		@Override
+		public byte[] setValue(byte[] value) {
+			return resolveOld(backing.getKey(), backing.setValue(value));
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+			return getKey().equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ Objects.hashCode(getValue());
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package me.coley.recaf.workspace;
+
+import me.coley.recaf.util.IOUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import static me.coley.recaf.util.Log.*;
+
+/**
+ * Random access archive reader. The central directory is read once, then entries are inflated and
+ * validated in parallel. Results are handed to the {@link EntryLoader} in archive order so that
+ * duplicate handling behaves exactly like a sequential read.
+ *
+ * @author Matt
+ */
+public class ParallelArchiveReader {
+	private static final int MIN_CLASS_SIZE = 30;
+	private final List<ReadEntry> classes = new ArrayList<>();
+	private final List<ReadEntry> files = new ArrayList<>();
+	private final Path path;
+	private final EntryLoader loader;
+	private final Predicate<String> skip;
+	private MappedArchive archive;
+	private long cacheSize;
+
+	/**
+	 * @param path
+	 * 		Path to the archive.
+	 * @param loader
+	 * 		Loader to feed archive contents to.
+	 * @param skip
+	 * 		Filter for entry names that should be ignored.
+	 */
+	public ParallelArchiveReader(Path path, EntryLoader loader, Predicate<String> skip) {
+		this.path = path;
+		this.loader = loader;
+		this.skip = skip;
+	}
+
+	/**
+	 * Keep unmodified content as locations in the given archive instead of on the heap.
+	 * See {@link MappedArchiveMap}.
+	 *
+	 * @param archive
+	 * 		Mapped view of the same archive.
+	 * @param cacheSize
+	 * 		Maximum number of inflated bytes to cache per map.
+	 */
+	public void setMappedArchive(MappedArchive archive, long cacheSize) {
+		this.archive = archive;
+		this.cacheSize = cacheSize;
+	}
+
+	/**
+	 * Read all entries of the archive. Nothing is passed to the {@link EntryLoader} yet.
+	 * See {@link #loadClasses()} and {@link #loadFiles()}.
+	 *
+	 * @param includeFiles
+	 * 		Flag to keep the content of non-class entries for {@link #loadFiles()}.
+	 *
+	 * @throws ZipException
+	 * 		When the central directory cannot be used. This can be a malformed directory, or a directory
+	 * 		with duplicate entry names. The archive should be read with a {@link java.util.zip.ZipInputStream}
+	 * 		instead since it respects the local entry headers.
+	 * @throws IOException
+	 * 		When the archive cannot be read.
+	 */
+	public void read(boolean includeFiles) throws IOException {
+		long start = System.nanoTime();
+		try (ZipFile zip = new ZipFile(path.toFile())) {
+			List<? extends ZipEntry> entries = Collections.list(zip.entries());
+			// Random access lookups are done by name, so duplicate names would all resolve to the same data.
+			Set<String> names = new HashSet<>(entries.size());
+			for (ZipEntry entry : entries)
+				if (!names.add(entry.getName()))
+					throw new ZipException("Duplicate entry in central directory: " + entry.getName());
+			long listed = System.nanoTime();
+			ReadEntry[] results = new ReadEntry[entries.size()];
+			try {
+				IntStream.range(0, results.length).parallel()
+						.forEach(i -> results[i] = readEntry(zip, entries.get(i)));
+			} catch (UncheckedIOException ex) {
+				throw ex.getCause();
+			}
+			for (ReadEntry result : results) {
+				if (result == null)
+					continue;
+				if (result.isClass)
+					classes.add(result);
+				if (result.isFile && includeFiles)
+					files.add(result);
+			}
+			long inflated = System.nanoTime();
+			debug("Read central directory of '{}' ({} entries) in {}ms", path.getFileName(),
+					entries.size(), millis(start, listed));
+			debug("Inflated and validated {} classes and {} files in {}ms", classes.size(), files.size(),
+					millis(listed, inflated));
+		}
+	}
+
+	/**
+	 * Pass the read classes to the loader.
+	 *
+	 * @return Loaded classes.
+	 */
+	public Map<String, byte[]> loadClasses() {
+		long start = System.nanoTime();
+		for (ReadEntry entry : classes)
+			loader.onClass(entry.name, entry.value);
+		loader.finishClasses();
+		Map<String, byte[]> loaded = toMapped(loader.getClasses(), classes);
+		classes.clear();
+		debug("Registered {} classes in {}ms", loaded.size(), millis(start, System.nanoTime()));
+		return loaded;
+	}
+
+	/**
+	 * Pass the read files to the loader.
+	 *
+	 * @return Loaded files.
+	 */
+	public Map<String, byte[]> loadFiles() {
+		long start = System.nanoTime();
+		for (ReadEntry entry : files)
+			loader.onFile(entry.name, entry.value);
+		loader.finishFiles();
+		Map<String, byte[]> loaded = toMapped(loader.getFiles(), files);
+		files.clear();
+		debug("Registered {} files in {}ms", loaded.size(), millis(start, System.nanoTime()));
+		return loaded;
+	}
+
+	private Map<String, byte[]> toMapped(Map<String, byte[]> loaded, List<ReadEntry> entries) {
+		// Closed once all content mapped so far was detached, this content then stays on the heap
+		if (archive == null || !archive.retain())
+			return loaded;
+		Map<byte[], String> entryNames = new IdentityHashMap<>(entries.size());
+		for (ReadEntry entry : entries)
+			entryNames.put(entry.value, entry.name);
+		MappedArchiveMap map = new MappedArchiveMap(archive, cacheSize);
+		for (Map.Entry<String, byte[]> e : loaded.entrySet()) {
+			// Content that the loader replaced (patched classes, plugin interception) only exists on the heap
+			String entryName = entryNames.get(e.getValue());
+			if (entryName == null || !map.putMapped(e.getKey(), entryName, e.getValue()))
+				map.put(e.getKey(), e.getValue());
+		}
+		// The loader would otherwise keep all of the values reachable
+		loaded.clear();
+		debug("Mapped {} of {} entries in '{}'", map.getMappedCount(), map.size(), path.getFileName());
+		return map;
+	}
+
+	private ReadEntry readEntry(ZipFile zip, ZipEntry entry) {
+		// Skip intentional garbage / zip file abnormalities
+		String name = entry.getName();
+		if (skip.test(name))
+			return null;
+		boolean classEntry = loader.isValidClassEntry(entry);
+		boolean fileEntry = !classEntry && loader.isValidFileEntry(entry);
+		byte[] value;
+		try (InputStream in = zip.getInputStream(entry)) {
+			value = IOUtil.toByteArray(in);
+			// The class file might not end with .class or .class/ so we also check its header.
+			if (!classEntry && !loader.isValidClassFile(new ByteArrayInputStream(value)))
+				return fileEntry ? new ReadEntry(name, value, false, true) : null;
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		// There is no possible way a "class" under 30 bytes is valid
+		if (value.length < MIN_CLASS_SIZE)
+			return fileEntry ? new ReadEntry(name, value, false, true) : null;
+		loader.preValidateClass(value);
+		return new ReadEntry(name, value, true, fileEntry);
+	}
+
+	private static long millis(long start, long end) {
+		return (end - start) / 1_000_000L;
+	}
+
+	/**
+	 * Content of a single archive entry.
+	 */
+	private static final class ReadEntry {
+		private final String name;
+		private final byte[] value;
+		private final boolean isClass;
+		private final boolean isFile;
+
+		private ReadEntry(String name, byte[] value, boolean isClass, boolean isFile) {
+			this.name = name;
+			this.value = value;
+			this.isClass = isClass;
+			this.isFile = isFile;
+		}
+	}
+}
@@ -9,11 +9,15 @@ import me.coley.recaf.Recaf;
 import me.coley.recaf.compiler.JavacCompiler;
 import me.coley.recaf.control.Controller;
 import me.coley.recaf.control.headless.HeadlessController;
+import me.coley.recaf.decompile.DecompileCache;
+import me.coley.recaf.decompile.DecompileSessions;
 import me.coley.recaf.graph.flow.FlowGraph;
 import me.coley.recaf.graph.inheritance.HierarchyGraph;
 import me.coley.recaf.mapping.AsmMappingUtils;
+import me.coley.recaf.mapping.ReferenceIndex;
 import me.coley.recaf.parse.javadoc.Javadocs;
 import me.coley.recaf.parse.source.*;
+import me.coley.recaf.search.SearchIndex;
 import me.coley.recaf.util.Log;
 import me.coley.recaf.util.ThreadUtil;
 import org.objectweb.asm.ClassReader;
@@ -21,6 +25,8 @@ import org.objectweb.asm.ClassWriter;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -35,8 +41,13 @@ public class Workspace {
 	private final PhantomResource phantoms = new PhantomResource();
 	private final JavaResource primary;
 	private final List<JavaResource> libraries;
+	private final Set<Consumer<JavaResource>> libraryListeners = new CopyOnWriteArraySet<>();
 	private HierarchyGraph hierarchyGraph;
 	private FlowGraph flowGraph;
+	private volatile SearchIndex searchIndex;
+	private volatile ReferenceIndex referenceIndex;
+	private DecompileCache decompileCache;
+	private DecompileSessions decompileSessions;
 	private ParserConfiguration config;
 
 	/**
@@ -77,6 +88,24 @@ public class Workspace {
 		return libraries;
 	}
 
+	/**
+	 * Add a library to the workspace and notify the {@link #getLibraryListeners() library listeners}.
+	 *
+	 * @param library
+	 * 		Library to add.
+	 */
+	public void addLibrary(JavaResource library) {
+		libraries.add(library);
+		libraryListeners.forEach(listener -> listener.accept(library));
+	}
+
+	/**
+	 * @return Listeners called with libraries added through {@link #addLibrary(JavaResource)}.
+	 */
+	public Set<Consumer<JavaResource>> getLibraryListeners() {
+		return libraryListeners;
+	}
+
 	/**
 	 * @return Recaf managed resource containing phantom references.
 	 */
@@ -102,6 +131,64 @@ public class Workspace {
 		return flowGraph;
 	}
 
+	/**
+	 * @return Index of constants and references in the primary classes.
+	 * {@code null} if the index has not been built.
+	 */
+	public SearchIndex getSearchIndex() {
+		return searchIndex;
+	}
+
+	/**
+	 * Builds the {@link #getSearchIndex() search index} if it does not exist yet.
+	 * Searches use it once it has been built.
+	 *
+	 * @return Index of constants and references in the primary classes.
+	 */
+	public synchronized SearchIndex buildSearchIndex() {
+		if (searchIndex == null)
+			searchIndex = SearchIndex.build(this);
+		return searchIndex;
+	}
+
+	/**
+	 * @return Index of the names referenced by the primary classes, used when applying mappings.
+	 * {@code null} if the index has not been built.
+	 */
+	public ReferenceIndex getReferenceIndex() {
+		return referenceIndex;
+	}
+
+	/**
+	 * Builds the {@link #getReferenceIndex() reference index} if it does not exist yet.
+	 * Mappings only rewrite the classes it lists once it has been built.
+	 *
+	 * @return Index of the names referenced by the primary classes.
+	 */
+	public synchronized ReferenceIndex buildReferenceIndex() {
+		if (referenceIndex == null)
+			referenceIndex = ReferenceIndex.build(this);
+		return referenceIndex;
+	}
+
+	/**
+	 * @return Cache of decompiled classes.
+	 */
+	public synchronized DecompileCache getDecompileCache() {
+		if (decompileCache == null)
+			decompileCache = new DecompileCache(this);
+		return decompileCache;
+	}
+
+	/**
+	 * @return Decompiler state kept between decompiles of classes in the workspace.
+	 */
+	public synchronized DecompileSessions getDecompileSessions() {
+		if (decompileSessions == null)
+			decompileSessions = new DecompileSessions(this);
+		return decompileSessions;
+	}
+
 	/**
 	 * @return Aggregated ASM mappings for the workspace.
 	 */
@@ -237,7 +324,7 @@ public class Workspace {
 	 * {@link org.objectweb.asm.ClassReader}.
 	 */
 	public Set<ClassReader> getPrimaryClassReaders() {
-		return getPrimaryClasses().stream()
+		return primary.getClasses().values().stream()
 				.map(ClassReader::new)
 				.collect(Collectors.toSet());
 	}
@@ -1,13 +1,37 @@
 package me.coley.recaf;
 
+import me.coley.recaf.config.ConfDecompile;
 import me.coley.recaf.control.Controller;
+import me.coley.recaf.decompile.DecompileCache;
+import me.coley.recaf.decompile.DecompileImpl;
+import me.coley.recaf.decompile.DecompileSession;
+import me.coley.recaf.decompile.DecompileSessions;
+import me.coley.recaf.decompile.Decompiler;
+import me.coley.recaf.decompile.FixupRule;
+import me.coley.recaf.decompile.FixupRules;
+import me.coley.recaf.decompile.PostProcessor;
 import me.coley.recaf.decompile.cfr.CfrDecompiler;
+import me.coley.recaf.decompile.cfr.ClassSource;
 import me.coley.recaf.decompile.fernflower.FernFlowerDecompiler;
 import me.coley.recaf.decompile.procyon.ProcyonDecompiler;
+import me.coley.recaf.decompile.race.RaceDecompiler;
+import me.coley.recaf.util.Metrics;
 import me.coley.recaf.workspace.*;
 import org.junit.jupiter.api.*;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static me.coley.recaf.util.TestUtils.*;
@@ -65,6 +89,254 @@ public class DecompileTest extends Base {
 				assertNotNull(decomp);
 			}
 		}
+
+		@Test
+		public void testRace() {
+			RaceDecompiler decompiler = new RaceDecompiler(controller);
+			for (String name : controller.getWorkspace().getPrimaryClassNames()) {
+				String decomp = decompiler.decompile(name);
+				assertTrue(decomp.startsWith("// Race won by: "));
+			}
+			// Only enabled backends take part
+			decompiler.getOptions().put(DecompileImpl.CFR.name(), false);
+			decompiler.getOptions().put(DecompileImpl.FERNFLOWER.name(), false);
+			String name = controller.getWorkspace().getPrimaryClassNames().iterator().next();
+			assertTrue(decompiler.decompile(name).startsWith("// Race won by: Procyon"));
+			assertTrue(RaceDecompiler.getStatistics().stream().anyMatch(stats -> stats.getWins() > 0));
+		}
+
+		@Test
+		public void testRaceWithHangingBackend() {
+			AtomicBoolean release = new AtomicBoolean();
+			RaceDecompiler decompiler = new RaceDecompiler(controller) {
+				@Override
+				protected Decompiler<?> createBackend(DecompileImpl impl) {
+					return impl == DecompileImpl.CFR ? new HangingDecompiler(controller, release) :
+							super.createBackend(impl);
+				}
+			};
+			String name = controller.getWorkspace().getPrimaryClassNames().iterator().next();
+			try {
+				// More races than the race workers, each leaving a loser that never returns
+				int races = Runtime.getRuntime().availableProcessors() + 2;
+				assertTimeoutPreemptively(Duration.ofMinutes(1), () -> {
+					for (int i = 0; i < races; i++)
+						assertFalse(decompiler.decompile(name).startsWith("// Race won by: CFR"));
+				});
+			} finally {
+				release.set(true);
+			}
+		}
+
+		@Test
+		public void testCacheFollowsChanges() {
+			int[] calls = new int[1];
+			CfrDecompiler decompiler = new CfrDecompiler(controller) {
+				@Override
+				public String decompile(String name) {
+					calls[0]++;
+					return super.decompile(name);
+				}
+			};
+			Workspace workspace = controller.getWorkspace();
+			DecompileCache cache = workspace.getDecompileCache();
+			ConfDecompile config = controller.config().decompile();
+			String name = workspace.getPrimaryClassNames().iterator().next();
+			// Repeated decompiles of the same class are cached
+			String decomp = cache.decompile(DecompileImpl.CFR, decompiler, name, config);
+			assertEquals(decomp, cache.decompile(DecompileImpl.CFR, decompiler, name, config));
+			assertEquals(1, calls[0]);
+			// Other options are decompiled again
+			decompiler.getOptions().put("hidebridgemethods", "false");
+			cache.decompile(DecompileImpl.CFR, decompiler, name, config);
+			assertEquals(2, calls[0]);
+			// Changed classes are decompiled again
+			workspace.getPrimary().getClasses().put(name, addField(workspace.getRawClass(name), "cacheTest"));
+			String changed = cache.decompile(DecompileImpl.CFR, decompiler, name, config);
+			assertEquals(3, calls[0]);
+			assertTrue(changed.contains("cacheTest"));
+		}
+
+		@Test
+		public void testCacheFollowsLibraries() throws IOException {
+			int[] calls = new int[1];
+			CfrDecompiler decompiler = new CfrDecompiler(controller) {
+				@Override
+				public String decompile(String name) {
+					calls[0]++;
+					return super.decompile(name);
+				}
+			};
+			Workspace workspace = controller.getWorkspace();
+			DecompileCache cache = workspace.getDecompileCache();
+			ConfDecompile config = controller.config().decompile();
+			String name = workspace.getPrimaryClassNames().iterator().next();
+			cache.decompile(DecompileImpl.CFR, decompiler, name, config);
+			assertEquals(1, calls[0]);
+			// Added libraries are decompiled against
+			JavaResource library = new JarResource(getClasspathFile("calc.jar"));
+			workspace.addLibrary(library);
+			cache.decompile(DecompileImpl.CFR, decompiler, name, config);
+			assertEquals(2, calls[0]);
+			cache.decompile(DecompileImpl.CFR, decompiler, name, config);
+			assertEquals(2, calls[0]);
+			// Changes to classes of added libraries are followed
+			String libraryName = library.getClasses().keySet().iterator().next();
+			library.getClasses().put(libraryName, addField(library.getClasses().get(libraryName), "libraryTest"));
+			cache.decompile(DecompileImpl.CFR, decompiler, name, config);
+			assertEquals(3, calls[0]);
+		}
+
+		@Test
+		public void testMetricsRecorded() {
+			Workspace workspace = controller.getWorkspace();
+			String name = workspace.getPrimaryClassNames().iterator().next();
+			Metrics.clear();
+			String decomp = workspace.getDecompileCache().decompile(DecompileImpl.PROCYON,
+					new ProcyonDecompiler(controller), name, controller.config().decompile());
+			Metrics.Metric metric = Metrics.getMetrics().stream()
+					.filter(m -> m.getName().equals(name))
+					.findFirst().orElseThrow(AssertionError::new);
+			assertEquals(1, metric.getCount());
+			assertEquals(decomp.length(), metric.getOutputSize());
+			assertTrue(metric.getTotalMillis() > 0);
+			assertTrue(Metrics.toCsv(Metrics.getMetrics()).contains(name));
+			assertTrue(Metrics.toJson(Metrics.getMetrics()).contains(name));
+		}
+
+		@Test
+		public void testFernFlowerFollowsChanges() {
+			Workspace workspace = controller.getWorkspace();
+			FernFlowerDecompiler decompiler = new FernFlowerDecompiler(controller);
+			String name = workspace.getPrimaryClassNames().iterator().next();
+			assertFalse(decompiler.decompile(name).contains("fernflowerTest"));
+			workspace.getPrimary().getClasses().put(name, addField(workspace.getRawClass(name), "fernflowerTest"));
+			assertTrue(decompiler.decompile(name).contains("fernflowerTest"));
+		}
+
+		@Test
+		public void testSessionsFollowChanges() {
+			Workspace workspace = controller.getWorkspace();
+			ProcyonDecompiler decompiler = new ProcyonDecompiler(controller);
+			for (String name : workspace.getPrimaryClassNames())
+				assertNotNull(decompiler.decompile(name));
+			// Sequential decompiles share one session
+			assertEquals(1, workspace.getDecompileSessions().size());
+			// Changed classes are loaded again
+			String name = workspace.getPrimaryClassNames().iterator().next();
+			workspace.getPrimary().getClasses().put(name, addField(workspace.getRawClass(name), "sessionTest"));
+			assertTrue(decompiler.decompile(name).contains("sessionTest"));
+			assertEquals(1, workspace.getDecompileSessions().size());
+		}
+
+		@Test
+		public void testSessionsFollowAddedLibraries() throws IOException {
+			Workspace workspace = controller.getWorkspace();
+			DecompileSessions sessions = workspace.getDecompileSessions();
+			List<String> invalidated = new ArrayList<>();
+			DecompileSession session = sessions.take("test", () -> invalidated::add);
+			sessions.release("test", session);
+			JavaResource library = new JarResource(getClasspathFile("calc.jar"));
+			workspace.addLibrary(library);
+			String name = library.getClasses().keySet().iterator().next();
+			library.getClasses().put(name, addField(library.getClasses().get(name), "libraryTest"));
+			assertEquals(Arrays.asList(name), invalidated);
+		}
+
+		@Test
+		public void testCfrSourceFollowsMappedChanges() throws IOException {
+			JarResource resource = new JarResource(getClasspathFile("inherit.jar"));
+			resource.setMappedStorage(true);
+			Workspace workspace = new Workspace(resource);
+			ClassSource source = new ClassSource(workspace, true);
+			String name = workspace.getPrimaryClassNames().iterator().next();
+			// Prepared content is reused while the class is unchanged
+			byte[] code = source.getClassFileContent(name + ".class").getFirst();
+			assertSame(code, source.getClassFileContent(name + ".class").getFirst());
+			// Changed without telling the source, so only the content tells it apart
+			resource.getClasses().put(name, addField(resource.getClasses().get(name), "mappedTest"));
+			assertNotSame(code, source.getClassFileContent(name + ".class").getFirst());
+		}
+
+		@Test
+		public void testPostProcessorStreaming() {
+			String text = "/*\n * Decompiled with CFR.\n */\npublic /* synthetic */ void a() { \"\\u0048i\"; }";
+			String expected = "public void a() { \"Hi\"; }";
+			assertEquals(expected, PostProcessor.process(text, rules()));
+			// Output written in small pieces is processed the same as the complete output
+			PostProcessor processor = new PostProcessor(rules());
+			for (int i = 0; i < text.length(); i += 3)
+				processor.write(text, i, Math.min(3, text.length() - i));
+			assertEquals(expected, processor.finish());
+			// Headers listing many classes that could not be loaded are removed as a whole
+			StringBuilder header = new StringBuilder("/*\n * Decompiled with CFR.\n");
+			for (int i = 0; i < 1000; i++)
+				header.append(" * Could not load the following classes:\n *  missing/Class").append(i).append('\n');
+			String longText = header + " */\n" + text.substring(text.indexOf("public"));
+			processor = new PostProcessor(rules());
+			for (int i = 0; i < longText.length(); i += 100)
+				processor.write(longText, i, Math.min(100, longText.length() - i));
+			assertEquals(expected, processor.finish());
+		}
+
+		private List<FixupRule> rules() {
+			return Arrays.asList(FixupRules.stripHeader("/*\n * Decompiled with CFR", "*/"),
+					FixupRules.replace("/* synthetic */ ", ""), FixupRules.unescapeUnicode());
+		}
+	}
+
+	/**
+	 * Decompiler that ignores interrupts and does not return until released.
+	 */
+	private static class HangingDecompiler extends Decompiler<Object> {
+		private final AtomicBoolean release;
+
+		private HangingDecompiler(Controller controller, AtomicBoolean release) {
+			super(controller);
+			this.release = release;
+		}
+
+		@Override
+		protected Map<String, Object> generateDefaultOptions() {
+			return new HashMap<>();
+		}
+
+		@Override
+		public String decompile(String name) {
+			while (!release.get()) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException ex) {
+					// Ignored, like the decompilers that get stuck
+				}
+			}
+			return null;
+		}
+	}
+
+	@Nested
+	public class Cfr {
+		@AfterEach
+		public void shutdown() {
+			removeController();
+		}
+
+		@Test
+		public void testNamedInner() {
+			try {
+				JavaResource resource = new JarResource(getClasspathFile("InnerTest.jar"));
+				resource.getClasses();
+				resource.getFiles();
+				controller = setupController(resource);
+				CfrDecompiler decompiler = new CfrDecompiler(controller);
+				String decomp = decompiler.decompile("Host$InnerMember");
+				assertTrue(decomp.contains("Host$InnerMember"));
+				assertFalse(decomp.contains("Host.InnerMember"));
+				assertFalse(decomp.startsWith("/*"));
+			} catch(IOException ex) {
+				fail(ex);
+			}
+		}
 	}
 
 	@Nested
@@ -107,5 +379,14 @@ public class DecompileTest extends Base {
 		}
 	}
 
+	private static byte[] addField(byte[] value, String name) {
+		ClassNode node = new ClassNode();
+		new ClassReader(value).accept(node, 0);
+		node.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, name, "I", null, null));
+		ClassWriter writer = new ClassWriter(0);
+		node.accept(writer);
+		return writer.toByteArray();
+	}
+
 	// TODO: Test for options working by decompiling a synthetic member with differing options
 }
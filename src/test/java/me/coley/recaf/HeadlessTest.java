@@ -7,9 +7,13 @@ import me.coley.recaf.mapping.Mappings;
 import me.coley.recaf.workspace.JavaResource;
 import org.junit.jupiter.api.Test;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 
 import java.io.ByteArrayInputStream;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
@@ -57,6 +61,35 @@ public class HeadlessTest extends Base {
 		assertEquals(mainClass, "some/pkg/Main");
 	}
 
+	@Test
+	public void decompileAllTest() throws Exception {
+		HeadlessController controller = new HeadlessController(null, null);
+		controller.setup();
+		invokeRun(controller, "loadworkspace " + getClasspathFile("calc.jar").normalize().toAbsolutePath());
+		Path output = Files.createTempDirectory("recaf-decompile");
+		invokeRun(controller, "decompileall --package calc " + output.toAbsolutePath());
+		// Only classes in the package are written
+		assertTrue(Files.isRegularFile(output.resolve("calc/Calculator.java")));
+		assertFalse(Files.exists(output.resolve("Start.java")));
+	}
+
+	@Test
+	public void decompileAllStaysInOutputTest() throws Exception {
+		HeadlessController controller = new HeadlessController(null, null);
+		controller.setup();
+		invokeRun(controller, "loadworkspace " + getClasspathFile("calc.jar").normalize().toAbsolutePath());
+		// Class names are taken from the class files, which may contain anything
+		String name = "calc/../../Escape";
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+		cw.visitEnd();
+		controller.getWorkspace().getPrimary().getClasses().put(name, cw.toByteArray());
+		Path output = Files.createTempDirectory("recaf-decompile");
+		invokeRun(controller, "decompileall --package calc " + output.resolve("out").toAbsolutePath());
+		assertTrue(Files.isRegularFile(output.resolve("out/calc/Calculator.java")));
+		assertFalse(Files.exists(output.resolve("Escape.java")));
+	}
+
 	private static void invokeRun(HeadlessController controller, String cmd) throws Exception {
 		Method m = controller.getClass().getDeclaredMethod("handle", String.class);
 		m.setAccessible(true);
@@ -7,6 +7,8 @@ import me.coley.recaf.workspace.JarResource;
 import me.coley.recaf.workspace.Workspace;
 import org.junit.jupiter.api.*;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 
 import java.io.File;
 import java.io.IOException;
@@ -22,12 +24,13 @@ import static org.junit.jupiter.api.Assertions.*;
  * @author Matt
  */
 public class HierarchyGraphTest extends Base {
+	private Workspace workspace;
 	private HierarchyGraph graph;
 
 	@BeforeEach
 	public void setup() throws IOException {
 		Path file = getClasspathFile("inherit.jar");
-		Workspace workspace = new Workspace(new JarResource(file));
+		workspace = new Workspace(new JarResource(file));
 		graph = workspace.getHierarchyGraph();
 	}
 
@@ -41,6 +44,18 @@ public class HierarchyGraphTest extends Base {
 		expectedChildren.forEach(child -> assertTrue(descendants.contains(child)));
 	}
 
+	@Test
+	public void testDescendantsFollowClassChanges() {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "test/Padawan", null, "test/Jedi", null);
+		cw.visitEnd();
+		workspace.getPrimary().getClasses().put("test/Padawan", cw.toByteArray());
+		assertTrue(graph.getDescendants("test/Jedi").anyMatch("test/Padawan"::equals));
+		assertTrue(graph.getAllDescendants("test/Greetings").anyMatch("test/Padawan"::equals));
+		workspace.getPrimary().getClasses().remove("test/Padawan");
+		assertFalse(graph.getAllDescendants("test/Greetings").anyMatch("test/Padawan"::equals));
+	}
+
 	@Test
 	public void testParents() {
 		String actualChild = "test/Yoda";
@@ -72,6 +87,48 @@ public class HierarchyGraphTest extends Base {
 		assertEquals("test/Person", graph.getCommon("test/Person", "test/Person"));
 	}
 
+	@Test
+	public void testFindCommonFollowsClassChanges() {
+		assertEquals("test/Person", graph.getCommon("test/Yoda", "test/Sith"));
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "test/Sith", null, "java/lang/Object", null);
+		cw.visitEnd();
+		byte[] original = workspace.getPrimary().getClasses().put("test/Sith", cw.toByteArray());
+		assertEquals("java/lang/Object", graph.getCommon("test/Yoda", "test/Sith"));
+		assertFalse(graph.areLinked("test/Person", "test/Sith"));
+		workspace.getPrimary().getClasses().put("test/Sith", original);
+		assertEquals("test/Person", graph.getCommon("test/Yoda", "test/Sith"));
+		assertTrue(graph.areLinked("test/Person", "test/Sith"));
+	}
+
+	@Test
+	public void testLookupsDuringChangesFollowLatestState() throws InterruptedException {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "test/Sith", null, "java/lang/Object", null);
+		cw.visitEnd();
+		byte[] unlinked = cw.toByteArray();
+		byte[] original = workspace.getPrimary().getClasses().get("test/Sith");
+		// Lookups racing the changes must not cache results of the state before a change
+		Thread lookups = new Thread(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				graph.getCommon("test/Yoda", "test/Sith");
+				graph.areLinked("test/Person", "test/Sith");
+			}
+		});
+		lookups.start();
+		try {
+			for (int i = 0; i < 500; i++) {
+				workspace.getPrimary().getClasses().put("test/Sith", unlinked);
+				workspace.getPrimary().getClasses().put("test/Sith", original);
+			}
+		} finally {
+			lookups.interrupt();
+			lookups.join();
+		}
+		assertEquals("test/Person", graph.getCommon("test/Yoda", "test/Sith"));
+		assertTrue(graph.areLinked("test/Person", "test/Sith"));
+	}
+
 	@Test
 	public void testChildToParentSearch() {
 		HierarchyVertex vertex = graph.getVertex("test/Yoda");
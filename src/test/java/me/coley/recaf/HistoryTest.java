@@ -1,5 +1,6 @@
 package me.coley.recaf;
 
+import me.coley.recaf.util.DeltaUtil;
 import me.coley.recaf.workspace.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -116,4 +117,43 @@ public class HistoryTest extends Base {
 		assertArrayEquals(DUMMY, resource.getFileHistory(key).pop());
 		assertArrayEquals(initial, resource.getFileHistory(key).pop());
 	}
+
+	@Test
+	public void testRollbackThroughStoredDeltas(){
+		String key = "Start";
+		HistoryStore store = HistoryStore.getInstance();
+		long budget = store.getMemoryBudget();
+		try {
+			// Force every stored delta to disk
+			store.setMemoryBudget(0);
+			byte[] initial = resource.getClassHistory(key).peek();
+			byte[][] saves = new byte[5][];
+			for (int i = 0; i < saves.length; i++) {
+				saves[i] = initial.clone();
+				saves[i][saves[i].length - 1 - i] ^= 0x7F;
+				resource.getClasses().put(key, saves[i]);
+				resource.createClassSave(key);
+			}
+			assertEquals(saves.length + 1, resource.getClassHistory(key).size());
+			assertEquals(0, store.getResidentSize());
+			for (int i = saves.length - 1; i >= 0; i--)
+				assertArrayEquals(saves[i], resource.getClassHistory(key).pop());
+			assertArrayEquals(initial, resource.getClassHistory(key).pop());
+			assertArrayEquals(initial, resource.getClasses().get(key));
+		} finally {
+			store.setMemoryBudget(budget);
+		}
+	}
+
+	@Test
+	public void testDeltaRoundTrip(){
+		byte[] source = resource.getClasses().get("Start");
+		byte[] target = new byte[source.length + 16];
+		System.arraycopy(source, 0, target, 16, source.length);
+		target[target.length / 2] ^= 1;
+		assertArrayEquals(target, DeltaUtil.apply(source, DeltaUtil.diff(source, target)));
+		assertArrayEquals(source, DeltaUtil.apply(target, DeltaUtil.diff(target, source)));
+		assertArrayEquals(DUMMY, DeltaUtil.apply(source, DeltaUtil.diff(source, DUMMY)));
+		assertArrayEquals(source, DeltaUtil.apply(new byte[0], DeltaUtil.diff(new byte[0], source)));
+	}
 }
@@ -11,6 +11,7 @@ import org.objectweb.asm.tree.ClassNode;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -143,6 +144,24 @@ public class RemappingTest extends Base {
 		}
 	}
 
+	@Test
+	public void testRenamedMethodHierarchy() {
+		try {
+			Mappings mappings = MappingImpl.SIMPLE.create(methodMapFile, workspace);
+			mappings.setCheckMethodHierarchy(true);
+			Map<String, byte[]> updated = mappings.accept(resource);
+			// Implementations of the mapped method are renamed through the hierarchy
+			for (String name : new String[] { "test/Person", "test/Jedi", "test/Sith", "test/Yoda" }) {
+				ClassNode node = new ClassNode();
+				new ClassReader(updated.get(name)).accept(node, SKIP_DEBUG | SKIP_CODE);
+				assertTrue(node.methods.stream().anyMatch(m -> m.name.equals("speak")), name);
+				assertTrue(node.methods.stream().noneMatch(m -> m.name.equals("say")), name);
+			}
+		} catch(IOException ex) {
+			fail(ex);
+		}
+	}
+
 	@Test
 	public void testResourceKeys() {
 		try {
@@ -204,6 +223,58 @@ public class RemappingTest extends Base {
 		}
 	}
 
+	@Test
+	public void testParallelMatchesSequential() {
+		try {
+			Workspace sequentialWorkspace = new Workspace(new JarResource(getClasspathFile("inherit.jar")));
+			Mappings sequential = MappingImpl.SIMPLE.create(methodMapFile, sequentialWorkspace);
+			sequential.setParallel(false);
+			Map<String, byte[]> expected = sequential.accept(sequentialWorkspace.getPrimary());
+			Mappings parallel = MappingImpl.SIMPLE.create(methodMapFile, workspace);
+			Map<String, byte[]> actual = parallel.accept(resource);
+			assertFalse(expected.isEmpty());
+			assertEquals(expected.keySet(), actual.keySet());
+			expected.forEach((name, value) -> assertArrayEquals(value, actual.get(name), name));
+			// Committed to the resource and reflected in the hierarchy
+			assertEquals(sequentialWorkspace.getPrimary().getClasses().keySet(), resource.getClasses().keySet());
+			assertTrue(workspace.getHierarchyGraph().getAllParents("test/Yoda").anyMatch("rename/Hello"::equals));
+		} catch(IOException ex) {
+			fail(ex);
+		}
+	}
+
+	@Test
+	public void testIndexedMatchesFull() {
+		try {
+			Workspace fullWorkspace = new Workspace(new JarResource(getClasspathFile("inherit.jar")));
+			Mappings full = MappingImpl.SIMPLE.create(classMapFile, fullWorkspace);
+			Map<String, byte[]> expected = full.accept(fullWorkspace.getPrimary());
+			ReferenceIndex index = workspace.buildReferenceIndex();
+			Mappings indexed = MappingImpl.SIMPLE.create(classMapFile, workspace);
+			// Only the classes referencing the renamed classes are visited
+			assertTrue(index.getCandidates(indexed.getMappings()).size() < resource.getClasses().size());
+			Map<String, byte[]> actual = indexed.accept(resource);
+			assertFalse(expected.isEmpty());
+			assertEquals(expected.keySet(), actual.keySet());
+			expected.forEach((name, value) -> assertArrayEquals(value, actual.get(name), name));
+			// The index follows the renamed classes, so a later rename of a single method finds them too
+			Map<String, String> rename = Collections.singletonMap("rename/Hello.say()V", "speak");
+			Mappings fullMethod = new Mappings(fullWorkspace);
+			fullMethod.setCheckMethodHierarchy(true);
+			fullMethod.setMappings(rename);
+			Map<String, byte[]> expectedMethod = fullMethod.accept(fullWorkspace.getPrimary());
+			Mappings indexedMethod = new Mappings(workspace);
+			indexedMethod.setCheckMethodHierarchy(true);
+			indexedMethod.setMappings(rename);
+			Map<String, byte[]> actualMethod = indexedMethod.accept(resource);
+			assertFalse(expectedMethod.isEmpty());
+			assertEquals(expectedMethod.keySet(), actualMethod.keySet());
+			expectedMethod.forEach((name, value) -> assertArrayEquals(value, actualMethod.get(name), name));
+		} catch(IOException ex) {
+			fail(ex);
+		}
+	}
+
 	private void testSame(MappingImpl toCompare, Path mapping) {
 		try {
 			// Both of these files outline the same data, just in different formats
@@ -2,13 +2,17 @@ package me.coley.recaf;
 
 import me.coley.recaf.workspace.*;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.Map;
+import java.util.zip.ZipException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,6 +48,118 @@ public class ResourceInputTest extends Base {
 		}
 	}
 
+	@Test
+	public void testJarLoadOrderDoesNotMatter() {
+		try {
+			Path file = getClasspathFile("calc.jar");
+			JavaResource classesFirst = new JarResource(file);
+			JavaResource filesFirst = new JarResource(file);
+			classesFirst.getClasses();
+			filesFirst.getFiles();
+			assertEquals(classesFirst.getFiles().keySet(), filesFirst.getFiles().keySet());
+			assertEquals(classesFirst.getClasses().keySet(), filesFirst.getClasses().keySet());
+			assertEquals(CLASSES_IN_CALC_JAR, filesFirst.getClasses().size());
+		} catch(IOException ex) {
+			fail(ex);
+		}
+	}
+
+	@Test
+	public void testMappedJarMatchesHeapJar() {
+		try {
+			Path file = getClasspathFile("calc.jar");
+			JavaResource heap = new JarResource(file);
+			JarResource mapped = new JarResource(file);
+			mapped.setMappedStorage(true);
+			assertEquals(heap.getClasses().keySet(), mapped.getClasses().keySet());
+			assertEquals(heap.getFiles().keySet(), mapped.getFiles().keySet());
+			for (Map.Entry<String, byte[]> e : heap.getClasses().entrySet())
+				assertArrayEquals(e.getValue(), mapped.getClasses().get(e.getKey()));
+			for (Map.Entry<String, byte[]> e : heap.getFiles().entrySet())
+				assertArrayEquals(e.getValue(), mapped.getFiles().get(e.getKey()));
+			// Modified values are kept as-is, removed values are gone
+			String name = heap.getClasses().keySet().iterator().next();
+			byte[] modified = new byte[] { 1, 2, 3 };
+			assertArrayEquals(heap.getClasses().get(name), mapped.getClasses().put(name, modified));
+			assertSame(modified, mapped.getClasses().get(name));
+			assertSame(modified, mapped.getClasses().remove(name));
+			assertFalse(mapped.getClasses().containsKey(name));
+			assertEquals(CLASSES_IN_CALC_JAR - 1, mapped.getClasses().size());
+		} catch(IOException ex) {
+			fail(ex);
+		}
+	}
+
+	@Test
+	public void testMappedJarDetachReleasesArchive() {
+		try {
+			Path file = Files.createTempDirectory("recaf-mapped").resolve("calc.jar");
+			Files.copy(getClasspathFile("calc.jar"), file);
+			JavaResource heap = new JarResource(file);
+			JarResource mapped = new JarResource(file);
+			mapped.setMappedStorage(true);
+			assertEquals(heap.getFiles().keySet(), mapped.getFiles().keySet());
+			mapped.detachMappedStorage();
+			// Nothing may read from the file anymore
+			Files.write(file, new byte[0]);
+			for (Map.Entry<String, byte[]> e : heap.getClasses().entrySet())
+				assertArrayEquals(e.getValue(), mapped.getClasses().get(e.getKey()));
+			for (Map.Entry<String, byte[]> e : heap.getFiles().entrySet())
+				assertArrayEquals(e.getValue(), mapped.getFiles().get(e.getKey()));
+		} catch(IOException ex) {
+			fail(ex);
+		}
+	}
+
+	@Test
+	public void testMappedArchiveClosedOnLastRelease() {
+		try {
+			MappedArchive archive = new MappedArchive(getClasspathFile("calc.jar"));
+			MappedArchive.Entry entry = archive.getEntry("calc/Calculator.class");
+			assertTrue(archive.retain());
+			assertTrue(archive.retain());
+			archive.release();
+			assertEquals(entry.getSize(), archive.read(entry).length);
+			archive.release();
+			assertFalse(archive.retain());
+			assertThrows(ZipException.class, () -> archive.read(entry));
+		} catch(IOException ex) {
+			fail(ex);
+		}
+	}
+
+	@Test
+	public void testClassIndexFollowsClassMap() {
+		try {
+			Path file = getClasspathFile("calc.jar");
+			JavaResource resource = new JarResource(file);
+			ClassIndex index = resource.getClassIndex();
+			assertEquals(resource.getClasses().size(), index.size());
+			for (Map.Entry<String, byte[]> e : resource.getClasses().entrySet()) {
+				ClassReader reader = new ClassReader(e.getValue());
+				IndexedClass cls = index.get(e.getKey());
+				assertEquals(reader.getClassName(), cls.getName());
+				assertEquals(reader.getSuperName(), cls.getSuperName());
+				assertArrayEquals(reader.getInterfaces(), cls.getInterfaces());
+				assertEquals(reader.getAccess(), cls.getAccess());
+			}
+			// Updates to the map are reflected in the index
+			String name = resource.getClasses().keySet().iterator().next();
+			resource.getClasses().put("Copy", resource.getClasses().get(name));
+			assertEquals(name, index.get("Copy").getName());
+			resource.getClasses().remove(name);
+			assertNull(index.get(name));
+			// Reloading yields the same index, which may come from the cache
+			resource.invalidate();
+			ClassIndex reloaded = resource.getClassIndex();
+			assertNotSame(index, reloaded);
+			assertEquals(CLASSES_IN_CALC_JAR, reloaded.size());
+			assertNotNull(reloaded.get(name));
+		} catch(IOException ex) {
+			fail(ex);
+		}
+	}
+
 	@Test
 	public void testClass() {
 		try {
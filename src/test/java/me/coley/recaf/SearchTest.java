@@ -3,10 +3,16 @@ package me.coley.recaf;
 import me.coley.recaf.search.*;
 import me.coley.recaf.workspace.*;
 import org.junit.jupiter.api.*;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static me.coley.recaf.search.StringMatchMode.*;
@@ -47,6 +53,96 @@ public class SearchTest extends Base {
 		contextEquals(res.getContext().getParent(), "calc/Calculator", "evaluate", "(ILjava/lang/String;)D");
 	}
 
+	@Test
+	public void testParallelMatchesSequentialOrder() {
+		// Setup search - All strings, which appear in most classes
+		List<String> sequential = SearchBuilder.in(workspace).skipDebug()
+				.query(new StringQuery("", CONTAINS)).build()
+				.getAllResults().stream().map(r -> r.getContext() + " " + r).collect(Collectors.toList());
+		List<String> parallel = SearchBuilder.in(workspace).skipDebug().parallel()
+				.query(new StringQuery("", CONTAINS)).build()
+				.getAllResults().stream().map(r -> r.getContext() + " " + r).collect(Collectors.toList());
+		assertFalse(sequential.isEmpty());
+		assertEquals(sequential, parallel);
+	}
+
+	@Test
+	public void testStreamedResultsStopAtLimit() {
+		List<SearchResult> streamed = new ArrayList<>();
+		SearchCollector collector = SearchBuilder.in(workspace).skipDebug().parallel().maxResults(3)
+				.query(new StringQuery("", CONTAINS)).build(streamed::add);
+		assertEquals(3, streamed.size());
+		assertEquals(collector.getAllResults(), streamed);
+		assertTrue(collector.isStopped());
+		// Cancelled before any class is visited
+		collector = SearchBuilder.in(workspace).skipDebug().cancelWhen(() -> true)
+				.query(new StringQuery("", CONTAINS)).build();
+		assertTrue(collector.getAllResults().isEmpty());
+		assertTrue(collector.isStopped());
+	}
+
+	@Test
+	public void testIndexedMatchesFullSearch() throws IOException {
+		Workspace indexed = new Workspace(new JarResource(getClasspathFile("calc.jar")));
+		indexed.buildSearchIndex();
+		List<Supplier<Query>> queries = Arrays.asList(
+				() -> new StringQuery("EVAL", STARTS_WITH),
+				() -> new ValueQuery(30),
+				() -> new ClassReferenceQuery("calc/Exponent"),
+				() -> new MemberReferenceQuery("calc/Calculator", "log", null, EQUALS));
+		for (Supplier<Query> query : queries) {
+			List<String> expected = SearchBuilder.in(workspace).query(query.get()).build()
+					.getAllResults().stream().map(r -> r.getContext().toString()).collect(Collectors.toList());
+			List<String> actual = SearchBuilder.in(indexed).query(query.get()).build()
+					.getAllResults().stream().map(r -> r.getContext().toString()).collect(Collectors.toList());
+			assertFalse(expected.isEmpty());
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void testIndexFollowsChangesDuringBuild() throws IOException {
+		String name = "calc/Calculator";
+		AtomicBoolean changeOnSnapshot = new AtomicBoolean();
+		JavaResource resource = new JarResource(getClasspathFile("calc.jar")) {
+			@Override
+			protected Map<String, byte[]> copyMap(Map<String, byte[]> map) {
+				return new HashMap<String, byte[]>(map) {
+					@Override
+					public Set<Map.Entry<String, byte[]>> entrySet() {
+						Set<Map.Entry<String, byte[]>> entries = super.entrySet();
+						if (!changeOnSnapshot.getAndSet(false))
+							return entries;
+						// The build takes its snapshot, then the class is saved before the build indexes it
+						Set<Map.Entry<String, byte[]>> snapshot = new HashSet<>();
+						for (Map.Entry<String, byte[]> e : entries)
+							snapshot.add(new AbstractMap.SimpleEntry<>(e));
+						getClasses().put(name, addConstant(get(name), "changedDuringBuild"));
+						return snapshot;
+					}
+				};
+			}
+		};
+		Workspace indexed = new Workspace(resource);
+		resource.getClasses();
+		changeOnSnapshot.set(true);
+		indexed.buildSearchIndex();
+		assertFalse(changeOnSnapshot.get());
+		List<SearchResult> results = SearchBuilder.in(indexed)
+				.query(new StringQuery("changedDuringBuild", EQUALS)).build().getAllResults();
+		assertEquals(1, results.size());
+	}
+
+	private static byte[] addConstant(byte[] value, String constant) {
+		ClassNode node = new ClassNode();
+		new ClassReader(value).accept(node, 0);
+		node.fields.add(new FieldNode(Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "added", "Ljava/lang/String;",
+				null, constant));
+		ClassWriter writer = new ClassWriter(0);
+		node.accept(writer);
+		return writer.toByteArray();
+	}
+
 	@Test
 	public void testValue() {
 		// Setup search - Calculator.MAX_DEPTH = 30
@@ -264,6 +360,22 @@ public class SearchTest extends Base {
 		assertEquals("Start", ((ClassResult)results.get(0)).getName());
 	}
 
+	@Test
+	public void testRegexLiteralPrefilter() {
+		// Patterns with a required literal must still match the same as without it
+		assertTrue(REGEX.match("calc/\\w+", "calc/Parenthesis"));
+		assertFalse(REGEX.match("calc/\\w+", "Start"));
+		assertTrue(REGEX.match("Ex?pression", "Epression"));
+		assertTrue(REGEX.match("Expr+ession", "Exprrression"));
+		assertTrue(REGEX.match("a\\.b", "a.b"));
+		assertFalse(REGEX.match("a\\.b", "axb"));
+		assertTrue(REGEX.match("\\x41BC", "ABC"));
+		assertTrue(REGEX.match("Calc|Start", "Start"));
+		assertTrue(REGEX.match("a{2}b", "aab"));
+		// Invalid patterns never match
+		assertFalse(REGEX.match("(unclosed", "(unclosed"));
+	}
+
 	@Test
 	public void testClassInheritance() {
 		// Setup search - All implementations of "Expression"
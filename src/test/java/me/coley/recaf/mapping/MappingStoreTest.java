@@ -0,0 +1,73 @@
+package me.coley.recaf.mapping;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link MappingStore} and {@link MappedMappings} behaving like any other map of asm styled mappings.
+ */
+public class MappingStoreTest {
+    @Test
+    public void testKeysMatchParts() {
+        MappingStore store = new MappingStore();
+        store.putClass("calc/Calculator", "renamed/MyCalc");
+        store.putField("calc/Calculator", "MAX_DEPTH", null, "MAX_DEPTH_LEVEL");
+        store.putField("calc/Calculator", "depth", "I", "currentDepth");
+        store.putMethod("calc/Calculator", "evaluate", "(ILjava/lang/String;)D", "doEvaluate");
+
+        assertEquals("renamed/MyCalc", store.get("calc/Calculator"));
+        assertEquals("MAX_DEPTH_LEVEL", store.get("calc/Calculator.MAX_DEPTH"));
+        assertEquals("currentDepth", store.get("calc/Calculator.depth I"));
+        assertEquals("doEvaluate", store.get("calc/Calculator.evaluate(ILjava/lang/String;)D"));
+        assertNull(store.get("calc/Calculator.depth"));
+        assertNull(store.get("calc/Calculator.evaluate"));
+    }
+
+    @Test
+    public void testEqualToHashMap() {
+        Map<String, String> expected = new HashMap<>();
+        expected.put("calc/Calculator", "renamed/MyCalc");
+        expected.put("calc/Calculator.MAX_DEPTH", "MAX_DEPTH_LEVEL");
+        expected.put("calc/Calculator.depth I", "currentDepth");
+        expected.put("calc/Calculator.evaluate(ILjava/lang/String;)D", "doEvaluate");
+        expected.put(".lambda$run$0()V", "lambda");
+        MappingStore store = new MappingStore();
+        store.putAll(expected);
+        assertEquals(expected, store);
+        assertEquals(store, expected);
+        assertEquals(expected.hashCode(), store.hashCode());
+
+        expected.remove("calc/Calculator.MAX_DEPTH");
+        store.remove("calc/Calculator.MAX_DEPTH");
+        store.put("calc/Calculator", "renamed/MyCalc2");
+        expected.put("calc/Calculator", "renamed/MyCalc2");
+        assertEquals(expected, new HashMap<>(store));
+    }
+
+    @Test
+    public void testCachedEqualToStore() throws IOException {
+        MappingStore store = new MappingStore();
+        store.putClass("calc/Calculator", "renamed/MyCalc");
+        store.putClass("calc/Parenthesis", "renamed/Paren\u00e9");
+        store.putField("calc/Calculator", "MAX_DEPTH", null, "MAX_DEPTH_LEVEL");
+        store.putField("calc/Calculator", "depth", "I", "currentDepth");
+        store.putMethod("calc/Calculator", "evaluate", "(ILjava/lang/String;)D", "doEvaluate");
+        Path cacheFile = Files.createTempDirectory("recaf-mappings").resolve("test.map");
+        MappingCache.save(cacheFile, store);
+
+        Map<String, String> cached = MappingCache.load(cacheFile);
+        assertTrue(cached instanceof MappedMappings);
+        assertEquals(store, cached);
+        assertEquals("doEvaluate", cached.get("calc/Calculator.evaluate(ILjava/lang/String;)D"));
+        assertEquals("renamed/Paren\u00e9", cached.get("calc/Parenthesis"));
+        assertNull(cached.get("calc/Calculator.depth"));
+        assertEquals(2, ((MappedMappings) cached).getClassMappings().size());
+    }
+}